@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Compare le mode MVC (Tomcat) et le mode réactif (profil "reactive", Netty) sous la même charge.
+# Prérequis : MongoDB sur localhost:27017, k6, jar construit (mvn -B package -DskipTests).
+# Résultats : loadtest/results/{mvc,reactive}.json (p99 dans metrics.http_req_duration).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=$(ls target/healthserver-*.jar | head -1)
+mkdir -p loadtest/results
+
+run() {
+    local mode=$1
+    shift
+    java -jar "$JAR" --eureka.client.enabled=false --spring.cloud.config.enabled=false "$@" \
+        > "loadtest/results/$mode.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+    until curl -sf http://localhost:9090/fetch > /dev/null; do sleep 1; done
+
+    k6 run -e BASE_URL=http://localhost:9090 --summary-export="loadtest/results/$mode.json" loadtest/ingest.js
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+run mvc
+run reactive --spring.profiles.active=reactive
+
+for mode in mvc reactive; do
+    printf '%-9s ' "$mode"
+    jq -r '.metrics.http_req_duration as $d | .metrics.http_reqs as $r
+        | "p99=\($d["p(99)"] | floor) ms  p95=\($d["p(95)"] | floor) ms  req/s=\($r.rate | floor)"' \
+        "loadtest/results/$mode.json"
+done
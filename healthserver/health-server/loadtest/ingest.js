@@ -0,0 +1,69 @@
+// Charge d'ingestion POST /fetch (k6) : même script pour le mode MVC et le mode réactif.
+// Paliers de concurrence croissants ; le résumé JSON (--summary-export) donne p99 et débit.
+//   k6 run -e BASE_URL=http://localhost:9090 -e DAYS=30 --summary-export=mvc.json ingest.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:9090';
+const DAYS = parseInt(__ENV.DAYS || '30');
+const USERS = parseInt(__ENV.USERS || '1000');
+
+export const options = {
+    scenarios: {
+        ingest: {
+            executor: 'ramping-vus',
+            startVUs: 10,
+            stages: [
+                { duration: '30s', target: 10 },
+                { duration: '30s', target: 50 },
+                { duration: '30s', target: 200 },
+                { duration: '30s', target: 400 },
+                { duration: '30s', target: 800 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    summaryTrendStats: ['avg', 'med', 'p(90)', 'p(95)', 'p(99)', 'max'],
+};
+
+function day(date) {
+    const heartRate = [];
+    for (let h = 0; h < 24; h++) {
+        const samples = [];
+        for (let m = 0; m < 60; m++) {
+            samples.push(60 + ((h * 7 + m) % 40));
+        }
+        heartRate.push({ samples, startTime: `${date}T${String(h).padStart(2, '0')}:00:00Z`,
+            endTime: `${date}T${String(h).padStart(2, '0')}:59:59Z` });
+    }
+    return {
+        date,
+        totalSteps: 8000,
+        avgHeartRate: 72,
+        minHeartRate: 55,
+        maxHeartRate: 140,
+        totalDistanceKm: '6.10',
+        steps: [{ count: 8000, startTime: `${date}T08:00:00Z`, endTime: `${date}T20:00:00Z` }],
+        heartRate,
+    };
+}
+
+// Corps construit une fois par VU : la charge mesure le serveur, pas le générateur
+let body;
+
+export default function () {
+    if (!body) {
+        const dailyData = [];
+        const start = Date.UTC(2025, 0, 1);
+        for (let i = 0; i < DAYS; i++) {
+            dailyData.push(day(new Date(start + i * 86400000).toISOString().substring(0, 10)));
+        }
+        body = JSON.stringify({ email: `load-${__VU % USERS}@example.com`, dailyData });
+    }
+
+    const response = http.post(`${BASE_URL}/fetch`, body, {
+        headers: { 'Content-Type': 'application/json' },
+        timeout: '120s',
+    });
+    check(response, { 'status 200': (r) => r.status === 200 });
+}
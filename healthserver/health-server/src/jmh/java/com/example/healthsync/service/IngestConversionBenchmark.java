@@ -0,0 +1,93 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HealthData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestion hors MongoDB : désérialisation Jackson de HealthData, puis conversion
+ * en BiometricData par l'ancien chemin (streams) et par BiometricDataConverter.
+ * <pre>
+ * mvn -Pjmh -DskipTests test-compile exec:exec
+ * mvn -Pjmh -DskipTests test-compile exec:exec -Djmh.args="IngestConversionBenchmark -prof gc"
+ * </pre>
+ * clientHash=true : l'app fournit contentHash, le serveur ne recalcule pas le SHA-256.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestConversionBenchmark {
+
+    @Param({"small", "medium", "large"})
+    private String payload;
+
+    @Param({"false", "true"})
+    private boolean clientHash;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LocalDateTime receivedAt = LocalDateTime.of(2025, 10, 1, 12, 0);
+    private byte[] json;
+    private HealthData parsed;
+
+    @Setup
+    public void setUp() throws Exception {
+        HealthData data = IngestPayloadFixtures.generate(payload);
+        ObjectNode tree = objectMapper.valueToTree(data);
+        if (clientHash) {
+            // contentHash est en écriture seule : ajouté directement au JSON envoyé par « l'app »
+            for (int i = 0; i < data.getDailyData().size(); i++) {
+                ((ObjectNode) tree.get("dailyData").get(i))
+                        .put("contentHash", DailyDataHasher.hash(data.getDailyData().get(i)));
+            }
+        }
+        json = objectMapper.writeValueAsBytes(tree);
+        parsed = objectMapper.readValue(json, HealthData.class);
+    }
+
+    @Benchmark
+    public HealthData deserialize() throws Exception {
+        return objectMapper.readValue(json, HealthData.class);
+    }
+
+    @Benchmark
+    public void convertLegacy(Blackhole blackhole) {
+        for (HealthData.DailyData day : parsed.getDailyData()) {
+            blackhole.consume(LegacyBiometricDataConverter.convert(parsed.getEmail(), day, receivedAt));
+        }
+    }
+
+    @Benchmark
+    public void convertPresized(Blackhole blackhole) {
+        for (HealthData.DailyData day : parsed.getDailyData()) {
+            blackhole.consume(BiometricDataConverter.convert(parsed.getEmail(), day, receivedAt));
+        }
+    }
+
+    @Benchmark
+    public void deserializeAndConvert(Blackhole blackhole) throws Exception {
+        HealthData data = objectMapper.readValue(json, HealthData.class);
+        for (HealthData.DailyData day : data.getDailyData()) {
+            BiometricData converted = BiometricDataConverter.convert(data.getEmail(), day, receivedAt);
+            blackhole.consume(converted);
+        }
+    }
+}
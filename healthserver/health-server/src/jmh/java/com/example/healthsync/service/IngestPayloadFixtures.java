@@ -0,0 +1,199 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.HealthData;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Charges utiles réalistes d'une synchronisation Health Connect, générées
+ * de façon déterministe (graine fixe) :
+ * <ul>
+ *   <li>small  : 1 jour partiel (synchronisation en cours de journée)</li>
+ *   <li>medium : 7 jours complets (synchronisation hebdomadaire)</li>
+ *   <li>large  : 30 jours complets (première synchronisation)</li>
+ * </ul>
+ * Jour complet : pas et distance par 15 min, FC par 5 min (12 échantillons),
+ * sommeil en 4 phases, 2 exercices, quelques mesures ponctuelles.
+ */
+final class IngestPayloadFixtures {
+
+    private IngestPayloadFixtures() {
+    }
+
+    static HealthData generate(String size) {
+        return switch (size) {
+            case "small" -> payload(1, 0.4);
+            case "medium" -> payload(7, 1.0);
+            case "large" -> payload(30, 1.0);
+            default -> throw new IllegalArgumentException("Taille inconnue: " + size);
+        };
+    }
+
+    private static HealthData payload(int days, double dayFraction) {
+        Random random = new Random(42);
+        LocalDate last = LocalDate.of(2025, 10, 1);
+        List<HealthData.DailyData> dailyData = new ArrayList<>(days);
+        for (int i = days - 1; i >= 0; i--) {
+            dailyData.add(day(random, last.minusDays(i), dayFraction));
+        }
+        HealthData data = new HealthData();
+        data.setEmail("bench@example.com");
+        data.setDailyData(dailyData);
+        return data;
+    }
+
+    private static HealthData.DailyData day(Random random, LocalDate date, double fraction) {
+        Instant midnight = date.atStartOfDay().toInstant(ZoneOffset.UTC);
+        HealthData.DailyData day = new HealthData.DailyData();
+        day.setDate(date.toString());
+
+        int quarters = (int) (96 * fraction);
+        List<HealthData.StepRecord> steps = new ArrayList<>();
+        List<HealthData.DistanceRecord> distance = new ArrayList<>();
+        int totalSteps = 0;
+        for (int q = 0; q < quarters; q++) {
+            long count = random.nextInt(600);
+            totalSteps += (int) count;
+            HealthData.StepRecord step = new HealthData.StepRecord();
+            step.setCount(count);
+            step.setStartTime(time(midnight, q * 900L));
+            step.setEndTime(time(midnight, q * 900L + 900));
+            steps.add(step);
+
+            HealthData.DistanceRecord meters = new HealthData.DistanceRecord();
+            meters.setDistanceMeters(count * 0.75);
+            meters.setStartTime(step.getStartTime());
+            meters.setEndTime(step.getEndTime());
+            distance.add(meters);
+        }
+        day.setSteps(steps);
+        day.setDistance(distance);
+        day.setTotalSteps(totalSteps);
+        day.setTotalDistanceKm(String.format(Locale.ROOT, "%.2f", totalSteps * 0.00075));
+
+        List<HealthData.HeartRateRecord> heartRate = new ArrayList<>();
+        long bpmSum = 0;
+        int bpmCount = 0;
+        for (int slot = 0; slot < quarters * 3; slot++) {
+            List<Long> samples = new ArrayList<>(12);
+            for (int s = 0; s < 12; s++) {
+                long bpm = 55 + random.nextInt(60);
+                samples.add(bpm);
+                bpmSum += bpm;
+                bpmCount++;
+            }
+            HealthData.HeartRateRecord hr = new HealthData.HeartRateRecord();
+            hr.setSamples(samples);
+            hr.setStartTime(time(midnight, slot * 300L));
+            hr.setEndTime(time(midnight, slot * 300L + 300));
+            heartRate.add(hr);
+        }
+        day.setHeartRate(heartRate);
+        day.setAvgHeartRate(bpmCount == 0 ? null : (int) (bpmSum / bpmCount));
+        day.setMinHeartRate(55);
+        day.setMaxHeartRate(114);
+
+        List<HealthData.SleepRecord> sleep = new ArrayList<>();
+        String[] phases = {"Léger", "Profond", "Paradoxal", "Léger"};
+        for (int p = 0; p < phases.length; p++) {
+            HealthData.SleepRecord phase = new HealthData.SleepRecord();
+            phase.setTitle(phases[p]);
+            phase.setStartTime(time(midnight, p * 7200L));
+            phase.setEndTime(time(midnight, p * 7200L + 7200));
+            phase.setDurationMinutes(120L);
+            sleep.add(phase);
+        }
+        day.setSleep(sleep);
+        day.setTotalSleepHours("8.00");
+
+        List<HealthData.ExerciseRecord> exercise = new ArrayList<>();
+        for (int e = 0; e < 2; e++) {
+            HealthData.ExerciseRecord session = new HealthData.ExerciseRecord();
+            session.setTitle("Course");
+            session.setExerciseType(56);
+            session.setExerciseTypeName("RUNNING");
+            session.setStartTime(time(midnight, 61200L + e * 3600));
+            session.setEndTime(time(midnight, 63000L + e * 3600));
+            session.setDurationMinutes(30L);
+            session.setSteps(4200L);
+            session.setDistanceMeters(5000.0);
+            session.setDistanceKm("5,00");
+            session.setActiveCalories(320);
+            session.setTotalCalories(380);
+            session.setAvgHeartRate(148);
+            session.setMinHeartRate(110);
+            session.setMaxHeartRate(172);
+            session.setAvgCadence(165);
+            session.setMinCadence(150);
+            session.setMaxCadence(178);
+            session.setAvgSpeedKmh("10.0");
+            session.setMaxSpeedKmh("13.2");
+            session.setMinSpeedKmh("7.9");
+            session.setAvgStrideLengthMeters("1.01");
+            session.setMinStrideLengthMeters("0.88");
+            session.setMaxStrideLengthMeters("1.20");
+            session.setAvgPowerWatts(240);
+            exercise.add(session);
+        }
+        day.setExercise(exercise);
+
+        List<HealthData.OxygenSaturationRecord> oxygen = new ArrayList<>();
+        for (int o = 0; o < 6; o++) {
+            HealthData.OxygenSaturationRecord o2 = new HealthData.OxygenSaturationRecord();
+            o2.setPercentage(95.0 + random.nextInt(5));
+            o2.setTime(time(midnight, o * 4 * 3600L));
+            oxygen.add(o2);
+        }
+        day.setOxygenSaturation(oxygen);
+
+        List<HealthData.BodyTemperatureRecord> temperature = new ArrayList<>();
+        List<HealthData.BloodPressureRecord> pressure = new ArrayList<>();
+        for (int m = 0; m < 2; m++) {
+            HealthData.BodyTemperatureRecord temp = new HealthData.BodyTemperatureRecord();
+            temp.setTemperature(36.4 + random.nextInt(8) / 10.0);
+            temp.setTime(time(midnight, 28800L + m * 43200));
+            temperature.add(temp);
+
+            HealthData.BloodPressureRecord bp = new HealthData.BloodPressureRecord();
+            bp.setSystolic(110.0 + random.nextInt(25));
+            bp.setDiastolic(70.0 + random.nextInt(15));
+            bp.setTime(temp.getTime());
+            pressure.add(bp);
+        }
+        day.setBodyTemperature(temperature);
+        day.setBloodPressure(pressure);
+
+        HealthData.WeightRecord weight = new HealthData.WeightRecord();
+        weight.setWeight(72.5);
+        weight.setTime(time(midnight, 25200L));
+        day.setWeight(new ArrayList<>(List.of(weight)));
+
+        HealthData.HeightRecord height = new HealthData.HeightRecord();
+        height.setHeight(1.78);
+        height.setTime(weight.getTime());
+        day.setHeight(new ArrayList<>(List.of(height)));
+
+        List<HealthData.HydrationRecord> hydration = new ArrayList<>();
+        for (int h = 0; h < 8; h++) {
+            HealthData.HydrationRecord glass = new HealthData.HydrationRecord();
+            glass.setVolumeMl(250.0);
+            glass.setTime(time(midnight, 28800L + h * 5400));
+            hydration.add(glass);
+        }
+        day.setHydration(hydration);
+        day.setTotalHydrationLiters("2.00");
+        day.setStressLevel("Modéré");
+        day.setStressScore(42);
+        return day;
+    }
+
+    private static String time(Instant midnight, long seconds) {
+        return midnight.plusSeconds(seconds).toString();
+    }
+}
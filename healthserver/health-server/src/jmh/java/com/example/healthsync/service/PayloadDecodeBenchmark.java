@@ -0,0 +1,96 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.HealthData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Coût de décodage d'un upload HealthData selon l'encodage (Content-Type) et la compression
+ * (Content-Encoding) : décompression éventuelle puis désérialisation Jackson dans le même modèle.
+ * <pre>
+ * mvn -Pjmh -DskipTests test-compile exec:exec -Djmh.args="PayloadDecodeBenchmark"
+ * </pre>
+ * La taille transférée de chaque combinaison est affichée au démarrage de chaque essai.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadDecodeBenchmark {
+
+    @Param({"medium", "large"})
+    private String payload;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"identity", "gzip", "zstd"})
+    private String encoding;
+
+    private ObjectMapper mapper;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = switch (format) {
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            case "smile" -> new ObjectMapper(new SmileFactory());
+            default -> new ObjectMapper();
+        };
+        byte[] encoded = mapper.writeValueAsBytes(IngestPayloadFixtures.generate(payload));
+        body = switch (encoding) {
+            case "gzip" -> gzip(encoded);
+            case "zstd" -> Zstd.compress(encoded, 3);
+            default -> encoded;
+        };
+        System.out.printf("%n%s %s/%s : %d octets transférés (%d décodés)%n",
+                payload, format, encoding, body.length, encoded.length);
+    }
+
+    @Benchmark
+    public HealthData decode() throws Exception {
+        try (InputStream in = open()) {
+            return mapper.readValue(in, HealthData.class);
+        }
+    }
+
+    private InputStream open() throws Exception {
+        InputStream raw = new ByteArrayInputStream(body);
+        return switch (encoding) {
+            case "gzip" -> new GZIPInputStream(raw, 16 * 1024);
+            case "zstd" -> new ZstdInputStream(raw);
+            default -> raw;
+        };
+    }
+
+    private static byte[] gzip(byte[] raw) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        }
+        return out.toByteArray();
+    }
+}
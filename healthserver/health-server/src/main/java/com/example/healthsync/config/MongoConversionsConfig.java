@@ -0,0 +1,98 @@
+package com.example.healthsync.config;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HeartRateSamples;
+import com.example.healthsync.service.BiometricValues;
+import org.bson.types.Binary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversions MongoDB personnalisées, limitées aux propriétés concernées (PropertyValueConverter) :
+ * aucun convertisseur global de type, donc ni List ni String lus différemment ailleurs.
+ * healthsync.storage.hr-samples-codec=delta-varint (optionnel) stocke les échantillons FC
+ * en binaire compact ; "array" (par défaut) conserve le tableau BSON d'int64.
+ * La lecture accepte toujours les deux formats.
+ */
+@Configuration
+public class MongoConversionsConfig {
+
+    // Anciens documents : totaux stockés en texte
+    static final List<String> LEGACY_TEXT_TOTALS = List.of("totalDistanceKm", "totalSleepHours", "totalHydrationLiters");
+
+    @Value("${healthsync.storage.hr-samples-codec:array}")
+    private String hrSamplesCodec;
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        HeartRateSamplesValueConverter samples =
+                new HeartRateSamplesValueConverter(HeartRateSamples.CODEC_NAME.equals(hrSamplesCodec));
+        return MongoCustomConversions.create(adapter -> adapter.configurePropertyConversions(registrar -> {
+            registrar.registerConverter(BiometricData.HeartRateRecord.class, "samples", samples);
+            for (String total : LEGACY_TEXT_TOTALS) {
+                registrar.registerConverter(BiometricData.class, total, new LenientDoubleValueConverter());
+            }
+        }));
+    }
+
+    /**
+     * Échantillons FC : tableau BSON (ancien format ou codec "array") ou binaire delta-varint
+     */
+    static class HeartRateSamplesValueConverter implements MongoValueConverter<HeartRateSamples, Object> {
+
+        private final boolean binary;
+
+        HeartRateSamplesValueConverter(boolean binary) {
+            this.binary = binary;
+        }
+
+        @Override
+        public HeartRateSamples read(Object value, MongoConversionContext context) {
+            if (value instanceof Binary bson) {
+                return HeartRateSamples.fromEncoded(bson.getData());
+            }
+            if (value instanceof byte[] bytes) {
+                return HeartRateSamples.fromEncoded(bytes);
+            }
+            if (value instanceof List<?> array) {
+                List<Long> samples = new ArrayList<>(array.size());
+                for (Object sample : array) {
+                    samples.add(sample instanceof Number number ? number.longValue() : null);
+                }
+                return HeartRateSamples.of(samples);
+            }
+            throw new IllegalArgumentException("Échantillons FC illisibles: " + value.getClass().getSimpleName());
+        }
+
+        @Override
+        public Object write(HeartRateSamples value, MongoConversionContext context) {
+            return binary ? new Binary(value.encoded()) : new ArrayList<>(value.values());
+        }
+    }
+
+    /**
+     * Anciens documents : totaux stockés en texte ("0.00", parfois "0,00")
+     */
+    static class LenientDoubleValueConverter implements MongoValueConverter<Double, Object> {
+
+        @Override
+        public Double read(Object value, MongoConversionContext context) {
+            if (value instanceof Number number) {
+                return number.doubleValue();
+            }
+            return BiometricValues.parseDecimal(value.toString());
+        }
+
+        @Override
+        public Object write(Double value, MongoConversionContext context) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.healthsync.config;
+
+import com.example.healthsync.model.Alert;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRollup;
+import com.example.healthsync.model.IngestIdempotencyRecord;
+import com.example.healthsync.model.IngestReceiptRecord;
+import com.example.healthsync.model.TrendAccumulator;
+import com.example.healthsync.model.VitalSample;
+import com.example.healthsync.service.DuplicateDaysMigration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.time.Duration;
+
+/**
+ * Création des index MongoDB au démarrage.
+ * L'index unique (email, date) est indispensable à l'upsert groupé : les doublons
+ * hérités de l'ancien save() par jour sont d'abord supprimés (DuplicateDaysMigration)
+ * et le démarrage échoue si l'index ne peut toujours pas être créé.
+ * Un échec sur les autres index est journalisé sans bloquer le démarrage.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "healthsync.mongo.ensure-indexes", havingValue = "true", matchIfMissing = true)
+public class MongoIndexConfig {
+
+    static final String EMAIL_DATE_UNIQUE = "email_date_unique";
+
+    private static final int DEDUP_BATCH_DAYS = 1000;
+    private static final int UNIQUE_INDEX_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final DuplicateDaysMigration duplicateDaysMigration;
+
+    @Value("${healthsync.idempotency.ttl-hours:24}")
+    private long idempotencyTtlHours;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexOperations biometricIndexes = mongoTemplate.indexOps(BiometricData.class);
+
+        // ✅ Un seul document par utilisateur et par jour (clé de l'upsert groupé)
+        ensureEmailDateUnique(biometricIndexes);
+
+        // ✅ Filtres par plage sur la date typée
+        ensure(biometricIndexes, new Index()
+                .on("email", Sort.Direction.ASC)
+                .on("day", Sort.Direction.ASC)
+                .named("email_day"));
+
+        // ✅ Historique trié par date de réception
+        ensure(biometricIndexes, new Index()
+                .on("email", Sort.Direction.ASC)
+                .on("receivedAt", Sort.Direction.DESC)
+                .named("email_receivedAt"));
+
+        // ✅ Agrégations population par jour (toutes les personnes suivies)
+        ensure(biometricIndexes, new Index()
+                .on("day", Sort.Direction.ASC)
+                .named("day"));
+
+        // ✅ Sélection des jours à compacter (politique de rétention FC)
+        ensure(biometricIndexes, new Index()
+                .on("hrResolutionSeconds", Sort.Direction.ASC)
+                .on("day", Sort.Direction.ASC)
+                .named("hrResolution_day"));
+
+        // ✅ Agrégats par utilisateur, granularité et période
+        ensure(mongoTemplate.indexOps(BiometricRollup.class), new Index()
+                .on("email", Sort.Direction.ASC)
+                .on("granularity", Sort.Direction.ASC)
+                .on("bucketStart", Sort.Direction.ASC)
+                .named("email_granularity_bucketStart"));
+
+        // ✅ Alertes d'un utilisateur, les plus récentes d'abord
+        ensure(mongoTemplate.indexOps(Alert.class), new Index()
+                .on("email", Sort.Direction.ASC)
+                .on("time", Sort.Direction.DESC)
+                .named("email_time"));
+
+        // ✅ Accumulateurs de tendance d'un utilisateur pour une fenêtre
+        ensure(mongoTemplate.indexOps(TrendAccumulator.class), new Index()
+                .on("email", Sort.Direction.ASC)
+                .on("windowDays", Sort.Direction.ASC)
+                .named("email_windowDays"));
+
+        // ✅ Expiration des clés d'idempotence d'ingestion
+        ensure(mongoTemplate.indexOps(IngestIdempotencyRecord.class), new Index()
+                .on("createdAt", Sort.Direction.ASC)
+                .expire(Duration.ofHours(idempotencyTtlHours))
+                .named("createdAt_ttl"));
+
+        // ✅ Expiration des reçus d'ingestion asynchrone (expiresAt absent : DEAD_LETTER conservé)
+        ensure(mongoTemplate.indexOps(IngestReceiptRecord.class), new Index()
+                .on("expiresAt", Sort.Direction.ASC)
+                .expire(Duration.ZERO)
+                .named("expiresAt_ttl"));
+
+        // ✅ Requêtes abandonnées à rejouer, les plus anciennes d'abord
+        ensure(mongoTemplate.indexOps(IngestReceiptRecord.class), new Index()
+                .on("state", Sort.Direction.ASC)
+                .on("updatedAt", Sort.Direction.ASC)
+                .named("state_updatedAt"));
+
+        // ✅ Collection time-series des signes vitaux (metaField = email)
+        try {
+            if (!mongoTemplate.collectionExists(VitalSample.class)) {
+                mongoTemplate.createCollection(VitalSample.class);
+                log.info("✅ Collection time-series vital_samples créée");
+            }
+            ensure(mongoTemplate.indexOps(VitalSample.class), new Index()
+                    .on("email", Sort.Direction.ASC)
+                    .on("metric", Sort.Direction.ASC)
+                    .on("time", Sort.Direction.ASC)
+                    .named("email_metric_time"));
+        } catch (Exception e) {
+            log.warn("⚠️ Impossible de créer la collection vital_samples: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Dédoublonnage puis création de l'index unique ; une ingestion concurrente peut encore
+     * insérer un doublon avant la création, d'où quelques tentatives
+     */
+    private void ensureEmailDateUnique(IndexOperations ops) {
+        if (ops.getIndexInfo().stream().map(IndexInfo::getName).anyMatch(EMAIL_DATE_UNIQUE::equals)) {
+            log.info("✅ Index MongoDB vérifié: {}", EMAIL_DATE_UNIQUE);
+            return;
+        }
+
+        Index index = new Index()
+                .on("email", Sort.Direction.ASC)
+                .on("date", Sort.Direction.ASC)
+                .unique()
+                .named(EMAIL_DATE_UNIQUE);
+        Exception failure = null;
+        for (int attempt = 1; attempt <= UNIQUE_INDEX_ATTEMPTS; attempt++) {
+            long removed = 0;
+            int batch;
+            while ((batch = duplicateDaysMigration.dedupBatch(DEDUP_BATCH_DAYS)) > 0) {
+                removed += batch;
+            }
+            log.info("🧹 Dédoublonnage (email, date) avant l'index unique: {} documents supprimés", removed);
+            try {
+                ops.ensureIndex(index);
+                log.info("✅ Index MongoDB créé: {}", EMAIL_DATE_UNIQUE);
+                return;
+            } catch (Exception e) {
+                failure = e;
+                log.warn("⚠️ Index {} non créé (tentative {}/{}): {}",
+                        EMAIL_DATE_UNIQUE, attempt, UNIQUE_INDEX_ATTEMPTS, e.getMessage());
+            }
+        }
+        // Sans cet index, replaceOne(upsert) peut créer des doublons et n'en remplacer qu'un
+        throw new IllegalStateException("Index unique " + EMAIL_DATE_UNIQUE + " absent: " + failure.getMessage(), failure);
+    }
+
+    private void ensure(IndexOperations ops, Index index) {
+        try {
+            ops.ensureIndex(index);
+            log.info("✅ Index MongoDB vérifié: {}", index.getIndexOptions().get("name"));
+        } catch (Exception e) {
+            log.warn("⚠️ Impossible de créer l'index {}: {}", index.getIndexOptions().get("name"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.healthsync.config;
+
+import com.github.luben.zstd.ZstdInputStream;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Corps de requête compressés sur /fetch (Content-Encoding: gzip ou zstd) : décompressés
+ * au fil de la lecture, les contrôleurs et IngestParseAdvice voient un corps non compressé.
+ * La taille décompressée est bornée (healthsync.ingest.max-decompressed-mb) contre les
+ * archives piégées ; un encodage inconnu est refusé en 415.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    @Value("${healthsync.ingest.max-decompressed-mb:256}")
+    private long maxDecompressedMb;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return encoding == null || encoding.isBlank() || encoding.trim().equalsIgnoreCase("identity")
+                || !request.getRequestURI().startsWith(request.getContextPath() + "/fetch");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING).trim().toLowerCase();
+        InputStream decoded;
+        try {
+            decoded = switch (encoding) {
+                case "gzip", "x-gzip" -> new GZIPInputStream(request.getInputStream(), 16 * 1024);
+                case "zstd" -> new ZstdInputStream(request.getInputStream());
+                default -> null;
+            };
+        } catch (IOException e) {
+            // En-tête gzip absent ou corrompu
+            reject(response, HttpServletResponse.SC_BAD_REQUEST, "corps " + encoding + " invalide: " + e.getMessage());
+            return;
+        }
+        if (decoded == null) {
+            reject(response, HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                    "Content-Encoding non pris en charge: " + encoding + " (gzip, zstd)");
+            return;
+        }
+
+        try (InputStream body = new LimitedInputStream(decoded, maxDecompressedMb * 1024 * 1024)) {
+            chain.doFilter(new DecompressedRequest(request, body), response);
+        }
+    }
+
+    private static void reject(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8).toString());
+        response.getWriter().write("❌ Erreur: " + message);
+    }
+
+    /**
+     * Requête vue sans Content-Encoding ni Content-Length (taille décompressée inconnue)
+     */
+    private static final class DecompressedRequest extends HttpServletRequestWrapper {
+
+        private static final List<String> HIDDEN = List.of(HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LENGTH);
+
+        private final ServletInputStream body;
+
+        DecompressedRequest(HttpServletRequest request, InputStream body) {
+            super(request);
+            this.body = new DecodedServletInputStream(body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(body, charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return hidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return hidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(DecompressedRequest::hidden);
+            return Collections.enumeration(names);
+        }
+
+        private static boolean hidden(String name) {
+            return HIDDEN.stream().anyMatch(header -> header.equalsIgnoreCase(name));
+        }
+    }
+
+    private static final class DecodedServletInputStream extends ServletInputStream {
+
+        private final InputStream in;
+        private boolean finished;
+
+        DecodedServletInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            finished = read < 0;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        /**
+         * Corps décodé toujours prêt (isReady) : le listener lit tout dans onDataAvailable,
+         * puis la fin est signalée aussitôt
+         */
+        @Override
+        public void setReadListener(ReadListener listener) {
+            try {
+                listener.onDataAvailable();
+                listener.onAllDataRead();
+            } catch (Throwable t) {
+                listener.onError(t);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        // Octets sautés (ex: parseur qui ignore un champ) comptés comme lus : la limite reste sur le volume décompressé
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            if (skipped > 0) {
+                count(skipped);
+            }
+            return skipped;
+        }
+
+        private void count(long read) throws IOException {
+            count += read;
+            if (count > limit) {
+                throw new IOException("Corps décompressé trop volumineux (max " + limit / (1024 * 1024) + " Mo)");
+            }
+        }
+    }
+}
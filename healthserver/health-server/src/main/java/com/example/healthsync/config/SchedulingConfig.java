@@ -0,0 +1,12 @@
+package com.example.healthsync.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Tâches planifiées (compaction de rétention)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
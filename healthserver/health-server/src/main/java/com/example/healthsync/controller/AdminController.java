@@ -0,0 +1,202 @@
+package com.example.healthsync.controller;
+
+import com.example.healthsync.dto.HealthScoreJobStatus;
+import com.example.healthsync.dto.RetentionJobStatus;
+import com.example.healthsync.model.CohortMetric;
+import com.example.healthsync.service.BiometricArchiveService;
+import com.example.healthsync.service.BiometricRollupService;
+import com.example.healthsync.service.CohortAnalyticsService;
+import com.example.healthsync.service.DuplicateDaysMigration;
+import com.example.healthsync.service.HealthScoreRecomputeJob;
+import com.example.healthsync.service.HeartRateSamplesMigration;
+import com.example.healthsync.service.IngestPipeline;
+import com.example.healthsync.service.RetentionCompactionJob;
+import com.example.healthsync.service.TrendService;
+import com.example.healthsync.service.TypedFieldsBackfill;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/fetch/admin")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminController {
+
+    private final HeartRateSamplesMigration heartRateSamplesMigration;
+    private final BiometricRollupService biometricRollupService;
+    private final TypedFieldsBackfill typedFieldsBackfill;
+    private final TrendService trendService;
+    private final HealthScoreRecomputeJob healthScoreRecomputeJob;
+    private final RetentionCompactionJob retentionCompactionJob;
+    private final BiometricArchiveService biometricArchiveService;
+    private final CohortAnalyticsService cohortAnalyticsService;
+    private final DuplicateDaysMigration duplicateDaysMigration;
+    private final IngestPipeline ingestPipeline;
+
+    // ✅ Migration des échantillons FC vers le format compact (par lots)
+    @PostMapping("/migrations/heart-rate-samples")
+    public ResponseEntity<?> migrateHeartRateSamples(@RequestParam(defaultValue = "500") int limit) {
+        try {
+            int migrated = heartRateSamplesMigration.migrateBatch(limit);
+            return ResponseEntity.ok(Map.of("migrated", migrated, "done", migrated < limit));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("❌ Erreur: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error migrating heart rate samples", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Suppression des doublons (email, date), le plus récent est gardé (par lots)
+    @PostMapping("/migrations/duplicate-days")
+    public ResponseEntity<?> removeDuplicateDays(@RequestParam(defaultValue = "500") int limit) {
+        try {
+            int removed = duplicateDaysMigration.dedupBatch(limit);
+            return ResponseEntity.ok(Map.of("removed", removed, "done", removed == 0));
+        } catch (Exception e) {
+            log.error("Error removing duplicate days", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Rattrapage des champs typés (Double, LocalDate, Instant) par lots
+    @PostMapping("/backfills/typed-fields")
+    public ResponseEntity<?> backfillTypedFields(@RequestParam(defaultValue = "500") int limit) {
+        try {
+            int rewritten = typedFieldsBackfill.backfillBatch(limit);
+            return ResponseEntity.ok(Map.of("rewritten", rewritten, "done", rewritten < limit));
+        } catch (Exception e) {
+            log.error("Error backfilling typed fields", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Remise en file des ingestions asynchrones abandonnées (DEAD_LETTER), sous leur reçu d'origine
+    @PostMapping("/ingest/dead-letters/replay")
+    public ResponseEntity<?> replayDeadLetters(@RequestParam(defaultValue = "100") int limit) {
+        try {
+            int replayed = ingestPipeline.replayDeadLetters(limit);
+            return ResponseEntity.ok(Map.of("replayed", replayed));
+        } catch (Exception e) {
+            log.error("Error replaying dead-lettered ingestions", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Reconstruction des agrégats semaine/mois/année d'un utilisateur
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<?> rebuildRollups(@RequestParam String email) {
+        try {
+            int days = biometricRollupService.rebuild(email);
+            return ResponseEntity.ok(Map.of("email", email, "days", days));
+        } catch (Exception e) {
+            log.error("Error rebuilding rollups: {}", email, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Reconstruction des tendances 7/30/90 jours d'un utilisateur
+    @PostMapping("/trends/rebuild")
+    public ResponseEntity<?> rebuildTrends(@RequestParam String email) {
+        try {
+            int days = trendService.rebuild(email);
+            return ResponseEntity.ok(Map.of("email", email, "days", days));
+        } catch (Exception e) {
+            log.error("Error rebuilding trends: {}", email, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Recalcul en masse des scores de santé (all=false : formule obsolète uniquement)
+    @PostMapping("/health-scores/recompute")
+    public ResponseEntity<?> recomputeHealthScores(@RequestParam(defaultValue = "false") boolean all) {
+        try {
+            return ResponseEntity.accepted().body(healthScoreRecomputeJob.start(all));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/health-scores/recompute")
+    public ResponseEntity<?> healthScoreRecomputeStatus() {
+        HealthScoreJobStatus status = healthScoreRecomputeJob.status();
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun recalcul lancé");
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    // ✅ Compaction des échantillons FC selon la politique de rétention
+    @PostMapping("/retention/run")
+    public ResponseEntity<?> runRetentionCompaction() {
+        try {
+            return ResponseEntity.accepted().body(retentionCompactionJob.start());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/retention/stop")
+    public ResponseEntity<?> stopRetentionCompaction() {
+        RetentionJobStatus status = retentionCompactionJob.stop();
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucune compaction lancée");
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    @GetMapping("/retention")
+    public ResponseEntity<?> retentionCompactionStatus() {
+        RetentionJobStatus status = retentionCompactionJob.status();
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucune compaction lancée");
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    // ✅ Archivage à froid des jours anciens (par lots d'utilisateurs)
+    @PostMapping("/archive")
+    public ResponseEntity<?> archiveOldDays(@RequestParam(defaultValue = "50") int users) {
+        try {
+            int archived = biometricArchiveService.archiveBatch(users);
+            return ResponseEntity.ok(Map.of("archived", archived, "done", archived == 0));
+        } catch (Exception e) {
+            log.error("Error archiving biometric days", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Vue population d'une métrique (steps, heart-rate, resting-heart-rate, sleep-hours...), par jour
+    @GetMapping("/analytics/cohort/{metric}")
+    public ResponseEntity<?> cohortReport(@PathVariable String metric,
+                                          @RequestParam(required = false) String from,
+                                          @RequestParam(required = false) String to) {
+        try {
+            LocalDate end = to == null ? LocalDate.now() : LocalDate.parse(to);
+            LocalDate start = from == null ? end.minusDays(29) : LocalDate.parse(from);
+            return ResponseEntity.ok(cohortAnalyticsService.report(CohortMetric.fromSlug(metric), start, end));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error computing cohort report for {}", metric, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+}
@@ -1,18 +1,65 @@
 package com.example.healthsync.controller;
 
+import com.example.healthsync.dto.BatchIngestResult;
+import com.example.healthsync.dto.BiometricPage;
+import com.example.healthsync.dto.IngestReceipt;
+import com.example.healthsync.dto.IngestSummary;
+import com.example.healthsync.dto.SyncHandshakeRequest;
+import com.example.healthsync.model.Alert;
 import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRecordType;
 import com.example.healthsync.model.HealthData;
 import com.example.healthsync.model.HealthData.*;
+import com.example.healthsync.model.IngestIdempotencyRecord;
+import com.example.healthsync.model.IngestReceiptRecord;
+import com.example.healthsync.model.RollupGranularity;
+import com.example.healthsync.model.VitalMetric;
+import com.example.healthsync.model.VitalSample;
+import com.example.healthsync.service.AnomalyDetectionService;
+import com.example.healthsync.service.BatchIngestService;
 import com.example.healthsync.service.BiometricDataService;
+import com.example.healthsync.service.BiometricExportService;
+import com.example.healthsync.service.BiometricRollupService;
+import com.example.healthsync.service.BiometricSnapshotCache;
+import com.example.healthsync.service.BiometricTimes;
+import com.example.healthsync.service.HealthDataStreamingService;
+import com.example.healthsync.service.IngestDebugSampler;
+import com.example.healthsync.service.IngestIdempotencyService;
+import com.example.healthsync.service.IngestPipeline;
+import com.example.healthsync.service.IngestReceiptStore;
+import com.example.healthsync.service.PayloadFormat;
+import com.example.healthsync.service.TrendService;
+import com.example.healthsync.service.VitalSeriesService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/fetch")
 @CrossOrigin(origins = "*") // TODO: Restreindre en production
 @RequiredArgsConstructor
@@ -20,6 +67,31 @@ import java.util.List;
 public class HealthDataController {
 
     private final BiometricDataService biometricDataService;
+    private final HealthDataStreamingService healthDataStreamingService;
+    private final IngestPipeline ingestPipeline;
+    private final IngestReceiptStore ingestReceiptStore;
+    private final VitalSeriesService vitalSeriesService;
+    private final BiometricRollupService biometricRollupService;
+    private final BiometricExportService biometricExportService;
+    private final BiometricSnapshotCache biometricSnapshotCache;
+    private final IngestDebugSampler ingestDebugSampler;
+    private final IngestIdempotencyService ingestIdempotencyService;
+    private final BatchIngestService batchIngestService;
+    private final AnomalyDetectionService anomalyDetectionService;
+    private final TrendService trendService;
+    private final ObjectMapper objectMapper;
+
+    private static final int DEFAULT_PAGE_SIZE = 30;
+
+    @Value("${healthsync.ingest.async.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    @Value("${healthsync.ingest.batch.max-envelopes:1000}")
+    private int maxBatchEnvelopes;
+
+    // Durée maximale d'un export streaming (les autres requêtes asynchrones gardent spring.mvc.async.request-timeout)
+    @Value("${healthsync.export.request-timeout-ms:600000}")
+    private long exportTimeoutMillis;
 
     @GetMapping
     public ResponseEntity<String> testConnection() {
@@ -27,25 +99,32 @@ public class HealthDataController {
     }
 
     @PostMapping
-    public ResponseEntity<String> receiveHealthData(@RequestBody HealthData healthData) {
+    public ResponseEntity<String> receiveHealthData(@RequestBody HealthData healthData,
+                                                    @RequestHeader(value = IngestIdempotencyService.HEADER, required = false)
+                                                    String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ingest(healthData);
+        }
+        // Le corps est déjà désérialisé : empreinte de sa forme JSON normalisée, relevée avant la conversion
+        String requestHash;
+        try {
+            MessageDigest digest = IngestIdempotencyService.newDigest();
+            digest.update(objectMapper.writeValueAsBytes(healthData));
+            requestHash = IngestIdempotencyService.hex(digest);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("❌ Erreur: " + e.getMessage());
+        }
+        return idempotent(idempotencyKey, healthData.getEmail(), () -> requestHash, () -> ingest(healthData));
+    }
+
+    private ResponseEntity<String> ingest(HealthData healthData) {
         try {
-            System.out.println("\n╔═════════════════════════════════════════════════════════════╗");
-            System.out.println("║  🔔 DONNÉES HEALTH CONNECT REÇUES DEPUIS ANDROID          ║");
-            System.out.println("╚═════════════════════════════════════════════════════════════╝\n");
+            ingestDebugSampler.maybeDump(healthData);
 
             // ✅ SAUVEGARDE DANS MONGODB
             List<BiometricData> savedData = biometricDataService.saveBiometricData(healthData);
             String userEmail = healthData.getEmail();
 
-            System.out.println("💾 DONNÉES SAUVEGARDÉES DANS MONGODB");
-            System.out.println("   • Email utilisateur: " + userEmail);
-            System.out.println("   • Nombre de jours: " + savedData.size());
-            System.out.println("   • IDs MongoDB: ");
-            savedData.forEach(data ->
-                    System.out.println("      - " + data.getDate() + " → " + data.getId())
-            );
-            System.out.println();
-
             // ✅ Validation des données
             List<DailyData> dailyDataList = healthData.getDailyData();
             if (dailyDataList == null || dailyDataList.isEmpty()) {
@@ -53,181 +132,258 @@ public class HealthDataController {
             }
 
             int totalDataPoints = 0;
-
-            // ✅ Parcours direct des données avec getters
             for (DailyData day : dailyDataList) {
-                String date = day.getDate();
+                totalDataPoints += countDataPoints(day);
+            }
 
-                System.out.println("\n╭─────────────────────────────────────────────────────────────╮");
-                System.out.println("│  📅 DATE: " + date + "                                   │");
-                System.out.println("╰─────────────────────────────────────────────────────────────╯\n");
+            log.info("Health data processed successfully - User: {}, Records: {}, Data points: {}",
+                    userEmail, savedData.size(), totalDataPoints);
 
-                // 👣 STEPS
-                Integer totalSteps = day.getTotalSteps();
-                if (totalSteps != null && totalSteps > 0) {
-                    System.out.println("👣 STEPS: " + totalSteps + " pas");
-                    totalDataPoints++;
-                }
+            return ResponseEntity.ok(String.format(
+                    "✅ %d données reçues et sauvegardées!\n👤 Email: %s\n💾 %d enregistrements MongoDB",
+                    totalDataPoints, userEmail, savedData.size()
+            ));
 
-                // ❤️ HEART RATE
-                Integer avgHR = day.getAvgHeartRate();
-                if (avgHR != null && avgHR > 0) {
-                    Integer minHR = day.getMinHeartRate();
-                    Integer maxHR = day.getMaxHeartRate();
-
-                    System.out.println("❤️  HEART RATE:");
-                    System.out.println("   • Moyenne: " + avgHR + " bpm");
-                    if (minHR != null && maxHR != null) {
-                        System.out.println("   • Min: " + minHR + " bpm | Max: " + maxHR + " bpm");
-                    }
-                    totalDataPoints++;
-                }
+        } catch (Exception e) {
+            log.error("Error processing health data", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
 
-                // 📏 DISTANCE
-                String distKm = day.getTotalDistanceKm();
-                if (distKm != null && !distKm.equals("0.00")) {
-                    System.out.println("📏 DISTANCE: " + distKm + " km");
-                    totalDataPoints++;
-                }
+    /**
+     * Points comptés dans la réponse : un par agrégat renseigné,
+     * un par séance d'exercice et par mesure ponctuelle
+     */
+    private static int countDataPoints(DailyData day) {
+        int points = 0;
+        if (day.getTotalSteps() != null && day.getTotalSteps() > 0) {
+            points++;
+        }
+        if (day.getAvgHeartRate() != null && day.getAvgHeartRate() > 0) {
+            points++;
+        }
+        if (day.getTotalDistanceKm() != null && !day.getTotalDistanceKm().equals("0.00")) {
+            points++;
+        }
+        if (day.getTotalSleepHours() != null && day.getSleep() != null && !day.getSleep().isEmpty()) {
+            points++;
+        }
+        if (day.getExercise() != null) {
+            points += day.getExercise().size();
+        }
+        if (day.getTotalHydrationLiters() != null && day.getHydration() != null && !day.getHydration().isEmpty()) {
+            points++;
+        }
+        if (day.getStressLevel() != null && day.getStressScore() != null) {
+            points++;
+        }
+        points += size(day.getOxygenSaturation());
+        points += size(day.getBodyTemperature());
+        points += size(day.getBloodPressure());
+        points += size(day.getWeight());
+        points += size(day.getHeight());
+        return points;
+    }
 
-                // 💤 SLEEP
-                String sleepHours = day.getTotalSleepHours();
-                List<SleepRecord> sleepRecords = day.getSleep();
-                if (sleepHours != null && sleepRecords != null && !sleepRecords.isEmpty()) {
-                    System.out.println("💤 SOMMEIL: " + sleepHours + " heures");
-
-                    for (SleepRecord sleep : sleepRecords) {
-                        System.out.println("   • " + sleep.getTitle() + ": " +
-                                sleep.getStartTime() + " → " + sleep.getEndTime() +
-                                " (" + sleep.getDurationMinutes() + " min)");
-                    }
-                    totalDataPoints++;
-                }
+    private static int size(List<?> records) {
+        return records == null ? 0 : records.size();
+    }
 
-                // 🏋️ EXERCISE
-                List<ExerciseRecord> exercises = day.getExercise();
-                if (exercises != null && !exercises.isEmpty()) {
-                    System.out.println("\n🏋️  EXERCICES (" + exercises.size() + " sessions):");
-
-                    for (int i = 0; i < exercises.size(); i++) {
-                        ExerciseRecord ex = exercises.get(i);
-
-                        System.out.println("\n   ┌─ Session " + (i + 1) + " ─────────────────────────────");
-                        System.out.println("   │ 🏃 Type: " + ex.getExerciseTypeName());
-                        System.out.println("   │ ⏱️  Durée: " + ex.getDurationMinutes() + " minutes");
-                        System.out.println("   │ 🕐 Début: " + ex.getStartTime());
-
-                        if (ex.getDistanceKm() != null && !ex.getDistanceKm().equals("0.00")) {
-                            System.out.println("   │ 📏 Distance: " + ex.getDistanceKm() + " km");
-                        }
-                        if (ex.getSteps() != null && ex.getSteps() > 0) {
-                            System.out.println("   │ 👣 Pas: " + ex.getSteps());
-                        }
-                        if (ex.getActiveCalories() != null && ex.getActiveCalories() > 0) {
-                            System.out.println("   │ 🔥 Calories: " + ex.getActiveCalories() + " kcal");
-                        }
-                        if (ex.getAvgHeartRate() != null && ex.getAvgHeartRate() > 0) {
-                            System.out.println("   │ ❤️  BPM: " + ex.getAvgHeartRate() + " bpm");
-                        }
-
-                        // Métriques avancées
-                        if (ex.getAvgSpeedKmh() != null) {
-                            System.out.println("   │ 🚀 Vitesse moy: " + ex.getAvgSpeedKmh() + " km/h");
-                        }
-                        if (ex.getAvgCadence() != null && ex.getAvgCadence() > 0) {
-                            System.out.println("   │ 🎯 Cadence: " + ex.getAvgCadence() + " rpm");
-                        }
-                        if (ex.getAvgPowerWatts() != null && ex.getAvgPowerWatts() > 0) {
-                            System.out.println("   │ ⚡ Puissance: " + ex.getAvgPowerWatts() + " W");
-                        }
-
-                        System.out.println("   └────────────────────────────────────────────");
-                    }
-                    totalDataPoints += exercises.size();
-                }
+    // ✅ Ingestion asynchrone : validation, mise en file, réponse 202 immédiate
+    @PostMapping("/async")
+    public ResponseEntity<?> receiveHealthDataAsync(@RequestBody HealthData healthData) {
+        List<DailyData> dailyDataList = healthData.getDailyData();
+        if (dailyDataList == null || dailyDataList.isEmpty()) {
+            return ResponseEntity.badRequest().body("❌ Format de données invalide: dailyData vide");
+        }
+        if (healthData.getEmail() == null || healthData.getEmail().isBlank()) {
+            return ResponseEntity.badRequest().body("❌ Email utilisateur manquant");
+        }
 
-                // 💧 HYDRATION
-                String hydrationLiters = day.getTotalHydrationLiters();
-                List<HydrationRecord> hydrationRecords = day.getHydration();
-                if (hydrationLiters != null && hydrationRecords != null && !hydrationRecords.isEmpty()) {
-                    System.out.println("\n💧 HYDRATATION: " + hydrationLiters + " L (" +
-                            hydrationRecords.size() + " prises)");
-                    totalDataPoints++;
-                }
+        return ingestPipeline.submit(healthData)
+                .<ResponseEntity<?>>map(receiptId -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(new IngestReceipt(receiptId, healthData.getEmail(),
+                                dailyDataList.size(), ingestPipeline.queueDepth())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                        .body("⏳ Serveur saturé, réessayez dans " + retryAfterSeconds + " s"));
+    }
 
-                // 😰 STRESS
-                String stressLevel = day.getStressLevel();
-                Integer stressScore = day.getStressScore();
-                if (stressLevel != null && stressScore != null) {
-                    System.out.println("😰 STRESS: " + stressLevel + " (score: " + stressScore + ")");
-                    totalDataPoints++;
-                }
+    // ✅ Statut d'une ingestion asynchrone (QUEUED, RETRYING, WRITTEN, REJECTED, DEAD_LETTER)
+    @GetMapping("/async/{receiptId}")
+    public ResponseEntity<?> getIngestReceipt(@PathVariable String receiptId) {
+        try {
+            IngestReceiptRecord receipt = ingestReceiptStore.find(receiptId);
+            if (receipt == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("❌ Reçu inconnu ou expiré: " + receiptId);
+            }
+            return ResponseEntity.ok(receipt);
+        } catch (Exception e) {
+            log.error("Error fetching ingest receipt: {}", receiptId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
 
-                // 🫁 OXYGEN SATURATION
-                List<OxygenSaturationRecord> oxygenRecords = day.getOxygenSaturation();
-                if (oxygenRecords != null && !oxygenRecords.isEmpty()) {
-                    System.out.println("\n🫁 SATURATION O2: " + oxygenRecords.size() + " mesures");
-                    totalDataPoints += oxygenRecords.size();
-                }
+    // ✅ Ingestion streaming : un jour à la fois, mémoire bornée par lot de jours (JSON, CBOR ou Smile)
+    @PostMapping(value = "/stream", consumes = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, PayloadFormat.SMILE_VALUE})
+    public ResponseEntity<String> receiveHealthDataStream(HttpServletRequest request,
+                                                          @RequestParam(required = false) String email,
+                                                          @RequestHeader(value = IngestIdempotencyService.HEADER, required = false)
+                                                          String idempotencyKey) {
+        try {
+            if (idempotencyKey == null) {
+                return stream(request.getInputStream(), request.getContentType(), email);
+            }
+            // Empreinte calculée au fil de la lecture du corps
+            DigestInputStream body = new DigestInputStream(request.getInputStream(), IngestIdempotencyService.newDigest());
+            return idempotent(idempotencyKey, email, () -> drainedHash(body),
+                    () -> stream(body, request.getContentType(), email));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("❌ Erreur: " + e.getMessage());
+        }
+    }
 
-                // 🌡️ BODY TEMPERATURE
-                List<BodyTemperatureRecord> tempRecords = day.getBodyTemperature();
-                if (tempRecords != null && !tempRecords.isEmpty()) {
-                    System.out.println("🌡️  TEMPÉRATURE: " + tempRecords.size() + " mesures");
-                    totalDataPoints += tempRecords.size();
-                }
+    /**
+     * Lit la fin éventuelle du corps (ou tout le corps d'une tentative rejouée) puis relève l'empreinte
+     */
+    private static String drainedHash(DigestInputStream body) throws IOException {
+        body.transferTo(OutputStream.nullOutputStream());
+        return IngestIdempotencyService.hex(body.getMessageDigest());
+    }
 
-                // 💉 BLOOD PRESSURE
-                List<BloodPressureRecord> bpRecords = day.getBloodPressure();
-                if (bpRecords != null && !bpRecords.isEmpty()) {
-                    System.out.println("💉 PRESSION: " + bpRecords.size() + " mesures");
-                    totalDataPoints += bpRecords.size();
-                }
+    private ResponseEntity<String> stream(InputStream body, String contentType, String email) {
+        try {
+            IngestSummary summary = healthDataStreamingService.ingest(body, email,
+                    PayloadFormat.fromContentType(contentType));
 
-                // ⚖️ WEIGHT
-                List<WeightRecord> weightRecords = day.getWeight();
-                if (weightRecords != null && !weightRecords.isEmpty()) {
-                    System.out.println("⚖️  POIDS: " + weightRecords.size() + " mesures");
-                    totalDataPoints += weightRecords.size();
-                }
+            log.info("Health data streamed successfully - User: {}, Days: {}, Writes: {}",
+                    summary.getEmail(), summary.getDays(), summary.getWrites());
 
-                // 📏 HEIGHT
-                List<HeightRecord> heightRecords = day.getHeight();
-                if (heightRecords != null && !heightRecords.isEmpty()) {
-                    System.out.println("📏 TAILLE: " + heightRecords.size() + " mesures");
-                    totalDataPoints += heightRecords.size();
-                }
+            return ResponseEntity.ok(String.format(
+                    "✅ %d jours reçus et sauvegardés!\n👤 Email: %s\n💾 %d écritures MongoDB",
+                    summary.getDays(), summary.getEmail(), summary.getWrites()
+            ));
+
+        } catch (HealthDataStreamingService.PartialIngestException e) {
+            // Premiers lots déjà écrits : le client doit savoir que le renvoi remplacera ces jours
+            log.error("Health data stream interrupted after {} days written - User: {}",
+                    e.getDaysWritten(), e.getEmail(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(String.format("❌ Erreur: %s\n⚠️ %d jours déjà sauvegardés avant l'erreur (👤 %s)",
+                            e.getMessage(), e.getDaysWritten(), e.getEmail()));
+        } catch (Exception e) {
+            log.error("Error streaming health data", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
 
-                System.out.println("\n" + "─".repeat(65));
+    /**
+     * Idempotency-Key : une nouvelle tentative (timeout côté téléphone) rejoue la réponse
+     * enregistrée sans reconvertir ni réécrire biometric_data. La clé est propre à l'utilisateur
+     * et la réponse n'est rejouée qu'à un corps de même empreinte. Seules les réponses 2xx sont
+     * enregistrées ; un échec libère la clé pour que la tentative suivante soit traitée.
+     * @param requestHash empreinte du corps, relevée pour comparer une nouvelle tentative
+     *                    ou après l'ingestion pour l'enregistrer
+     */
+    private ResponseEntity<String> idempotent(String key, String email, Callable<String> requestHash,
+                                              Supplier<ResponseEntity<String>> ingest) {
+        Optional<IngestIdempotencyRecord> previous;
+        try {
+            previous = ingestIdempotencyService.claim(key, email);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error claiming idempotency key: {}", key, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+        if (previous.isPresent()) {
+            if (!previous.get().isCompleted()) {
+                return IdempotentReplies.inProgress(retryAfterSeconds);
             }
+            try {
+                log.info("🔁 Requête déjà reçue (Idempotency-Key {}), réponse rejouée", key);
+                return IdempotentReplies.replay(previous.get(), requestHash.call());
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage());
+            }
+        }
 
-            System.out.println("\n╔═════════════════════════════════════════════════════════════╗");
-            System.out.println("║  ✅ SUCCÈS - " + totalDataPoints + " points sauvegardés dans MongoDB   ║");
-            System.out.println("╚═════════════════════════════════════════════════════════════╝\n");
+        ResponseEntity<String> response = null;
+        try {
+            response = ingest.get();
+            return response;
+        } finally {
+            String hash = null;
+            if (response != null && response.getStatusCode().is2xxSuccessful()) {
+                try {
+                    hash = requestHash.call();
+                } catch (Exception e) {
+                    log.warn("⚠️ Empreinte de la requête non calculée (Idempotency-Key {}): {}", key, e.getMessage());
+                }
+            }
+            if (hash != null) {
+                ingestIdempotencyService.complete(key, email, hash, response.getStatusCode().value(), response.getBody());
+            } else {
+                ingestIdempotencyService.release(key, email);
+            }
+        }
+    }
 
-            log.info("Health data processed successfully - User: {}, Records: {}, Data points: {}",
-                    userEmail, savedData.size(), totalDataPoints);
+    // ✅ Lot multi-utilisateurs : un statut par enveloppe, 207 si certaines ont échoué
+    @PostMapping("/batch")
+    public ResponseEntity<?> receiveHealthDataBatch(@RequestBody List<HealthData> envelopes) {
+        if (envelopes == null || envelopes.isEmpty()) {
+            return ResponseEntity.badRequest().body("❌ Format de données invalide: lot vide");
+        }
+        if (envelopes.size() > maxBatchEnvelopes) {
+            return ResponseEntity.badRequest()
+                    .body("❌ Lot trop volumineux: " + envelopes.size() + " enveloppes (max " + maxBatchEnvelopes + ")");
+        }
 
-            return ResponseEntity.ok(String.format(
-                    "✅ %d données reçues et sauvegardées!\n👤 Email: %s\n💾 %d enregistrements MongoDB",
-                    totalDataPoints, userEmail, savedData.size()
-            ));
+        BatchIngestResult result = batchIngestService.ingest(envelopes);
+        return ResponseEntity.status(result.allOk() ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(result);
+    }
 
+    // ✅ Delta-sync : le téléphone n'envoie ensuite que les jours manquants ou modifiés
+    @PostMapping("/sync/handshake")
+    public ResponseEntity<?> syncHandshake(@RequestBody SyncHandshakeRequest request) {
+        try {
+            return ResponseEntity.ok(biometricDataService.handshake(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage());
         } catch (Exception e) {
-            log.error("Error processing health data", e);
-            System.err.println("\n❌ ERREUR: " + e.getMessage() + "\n");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+            log.error("Error during sync handshake: {}", request.getEmail(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("❌ Erreur: " + e.getMessage());
         }
     }
 
     // ✅ Récupérer les données d'un utilisateur
+    // Sans paramètre : historique complet (comportement historique)
+    // Avec from/to/cursor/limit/fields : page projetée, curseur sur la date
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getUserData(@PathVariable String userId) {
+    public ResponseEntity<?> getUserData(@PathVariable String userId,
+                                         @RequestParam(required = false) String from,
+                                         @RequestParam(required = false) String to,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) List<String> fields) {
         try {
             log.info("Fetching data for user: {}", userId);
-            List<BiometricData> data = biometricDataService.getUserData(userId);
-            return ResponseEntity.ok(data);
+            if (from == null && to == null && cursor == null && limit == null && fields == null) {
+                List<BiometricData> data = biometricDataService.getUserData(userId);
+                return ResponseEntity.ok(data);
+            }
+            BiometricPage page = biometricDataService.getUserDataPage(userId, from, to, cursor,
+                    limit == null ? DEFAULT_PAGE_SIZE : limit, fields);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage());
         } catch (Exception e) {
             log.error("Error fetching user data: {}", userId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -235,6 +391,142 @@ public class HealthDataController {
         }
     }
 
+    // ✅ Export streaming de l'historique complet (NDJSON ou CSV, gzip si accepté)
+    @GetMapping("/user/{userId}/export")
+    // Corps typé StreamingResponseBody : seul ce type de retour est écrit en asynchrone par Spring MVC
+    public ResponseEntity<StreamingResponseBody> exportUserData(@PathVariable String userId,
+                                                                @RequestParam(defaultValue = "ndjson") String format,
+                                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                                String acceptEncoding,
+                                                                NativeWebRequest webRequest) {
+        BiometricExportService.Format exportFormat;
+        try {
+            exportFormat = BiometricExportService.Format.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            byte[] error = ("❌ Erreur: " + e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest()
+                    .contentType(new MediaType("text", "plain", StandardCharsets.UTF_8))
+                    .body(out -> out.write(error));
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 8192, true)) {
+                    biometricExportService.export(userId, exportFormat, compressed);
+                }
+            } else {
+                biometricExportService.export(userId, exportFormat, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == BiometricExportService.Format.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"biometric-export."
+                        + exportFormat.name().toLowerCase() + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        // Requête asynchrone de cet export seulement : le StreamingResponseBody n'impose pas de délai propre
+        if (webRequest instanceof AsyncWebRequest asyncRequest) {
+            asyncRequest.setTimeout(exportTimeoutMillis);
+        }
+        return response.body(body);
+    }
+
+    // ✅ Enregistrements détaillés d'une plage horaire (sleep, exercise, steps, heart-rate, spo2...)
+    @GetMapping("/user/{userId}/records/{type}")
+    public ResponseEntity<?> getRecords(@PathVariable String userId,
+                                        @PathVariable String type,
+                                        @RequestParam String from,
+                                        @RequestParam String to) {
+        try {
+            return ResponseEntity.ok(biometricDataService.findRecords(userId, BiometricRecordType.fromSlug(type),
+                    BiometricTimes.parseBound(from, false), BiometricTimes.parseBound(to, true)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error fetching {} records for user: {}", type, userId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Série temporelle d'un signe vital (heart-rate, spo2, temperature, blood-pressure)
+    @GetMapping("/user/{userId}/series/{metric}")
+    public ResponseEntity<?> getVitalSeries(@PathVariable String userId,
+                                            @PathVariable String metric,
+                                            @RequestParam(required = false) String from,
+                                            @RequestParam(required = false) String to) {
+        try {
+            VitalMetric vitalMetric = VitalMetric.fromSlug(metric);
+            List<VitalSample> series = vitalSeriesService.findSeries(userId, vitalMetric,
+                    BiometricTimes.parseBound(from, false), BiometricTimes.parseBound(to, true));
+            return ResponseEntity.ok(series);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error fetching {} series for user: {}", metric, userId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Alertes détectées à l'ingestion (severity = warning ou critical)
+    @GetMapping("/user/{userId}/alerts")
+    public ResponseEntity<?> getUserAlerts(@PathVariable String userId,
+                                           @RequestParam(required = false) String from,
+                                           @RequestParam(required = false) String to,
+                                           @RequestParam(required = false) String severity,
+                                           @RequestParam(defaultValue = "100") int limit) {
+        try {
+            Alert.Severity level = severity == null ? null : Alert.Severity.valueOf(severity.trim().toUpperCase());
+            return ResponseEntity.ok(anomalyDetectionService.findAlerts(userId,
+                    BiometricTimes.parseBound(from, false), BiometricTimes.parseBound(to, true), level, limit));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error fetching alerts for user: {}", userId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Tendances sur 7, 30 ou 90 jours (pente et direction par métrique)
+    @GetMapping("/user/{userId}/trends")
+    public ResponseEntity<?> getUserTrends(@PathVariable String userId,
+                                           @RequestParam(defaultValue = "30") int days) {
+        try {
+            return ResponseEntity.ok(trendService.findTrends(userId, days));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error fetching trends for user: {}", userId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+    // ✅ Agrégats pré-calculés (granularity = week, month ou year)
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<?> getUserSummary(@PathVariable String userId,
+                                            @RequestParam(defaultValue = "week") String granularity,
+                                            @RequestParam(required = false) String from,
+                                            @RequestParam(required = false) String to) {
+        try {
+            return ResponseEntity.ok(biometricRollupService.findRollups(userId,
+                    RollupGranularity.fromParam(granularity), from, to));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error fetching summary for user: {}", userId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
     // ✅ Stats d'un utilisateur
     @GetMapping("/stats/{userId}")
     public ResponseEntity<String> getUserStats(@PathVariable String userId) {
@@ -270,4 +562,16 @@ public class HealthDataController {
         }
     }
 
-}
\ No newline at end of file
+    // ✅ Dernières valeurs connues (poids, taille, tension)
+    @GetMapping("/user/{userId}/latest")
+    public ResponseEntity<?> getLatestSnapshot(@PathVariable String userId) {
+        try {
+            return ResponseEntity.ok(biometricSnapshotCache.getLatest(userId));
+        } catch (Exception e) {
+            log.error("Error fetching latest snapshot: {}", userId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Erreur: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.example.healthsync.controller;
+
+import com.example.healthsync.model.IngestIdempotencyRecord;
+import com.example.healthsync.service.IngestIdempotencyService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Réponses d'une requête d'ingestion dont l'Idempotency-Key est déjà connue (modes MVC et réactif)
+ */
+final class IdempotentReplies {
+
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private IdempotentReplies() {
+    }
+
+    static ResponseEntity<String> inProgress(int retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body("⏳ Requête déjà en cours de traitement, réessayez dans " + retryAfterSeconds + " s");
+    }
+
+    /**
+     * @param record      requête terminée de même (email, clé)
+     * @param requestHash empreinte du corps de la nouvelle tentative
+     */
+    static ResponseEntity<String> replay(IngestIdempotencyRecord record, String requestHash) {
+        if (record.getRequestHash() != null && !record.getRequestHash().equals(requestHash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body("❌ Erreur: " + IngestIdempotencyService.HEADER + " déjà utilisée pour une autre requête");
+        }
+        return ResponseEntity.status(record.getStatus())
+                .header(REPLAYED_HEADER, "true")
+                .body(record.getBody());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.healthsync.controller;
+
+import com.example.healthsync.model.HealthData;
+import com.example.healthsync.service.IngestMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Mesure la lecture des corps HealthData (ou des lots de HealthData) : durée de désérialisation,
+ * octets réellement lus (y compris en transfert chunked) et nombre de jours.
+ * POST /fetch/stream lit le corps sans @RequestBody : mêmes métriques relevées par HealthDataStreamingService.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class IngestParseAdvice extends RequestBodyAdviceAdapter {
+
+    private final IngestMetrics ingestMetrics;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return targetType == HealthData.class || isHealthDataList(targetType);
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) throws IOException {
+        return new CountingInputMessage(inputMessage);
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        if (inputMessage instanceof CountingInputMessage counting) {
+            int days = 0;
+            if (body instanceof HealthData healthData) {
+                days = days(healthData);
+            } else if (body instanceof List<?> envelopes) {
+                for (Object envelope : envelopes) {
+                    days += envelope instanceof HealthData healthData ? days(healthData) : 0;
+                }
+            }
+            ingestMetrics.recordParse(System.nanoTime() - counting.startNanos, counting.body.count, days);
+        }
+        return body;
+    }
+
+    private static int days(HealthData healthData) {
+        return healthData.getDailyData() == null ? 0 : healthData.getDailyData().size();
+    }
+
+    // POST /fetch/batch : List<HealthData>
+    private static boolean isHealthDataList(Type targetType) {
+        return targetType instanceof ParameterizedType parameterized
+                && parameterized.getRawType() == List.class
+                && parameterized.getActualTypeArguments()[0] == HealthData.class;
+    }
+
+    private static final class CountingInputMessage implements HttpInputMessage {
+
+        private final HttpInputMessage delegate;
+        private final long startNanos = System.nanoTime();
+        private final CountingInputStream body;
+
+        CountingInputMessage(HttpInputMessage delegate) throws IOException {
+            this.delegate = delegate;
+            this.body = new CountingInputStream(delegate.getBody());
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.healthsync.controller;
+
+import com.example.healthsync.dto.SyncHandshakeRequest;
+import com.example.healthsync.model.Alert;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRecordType;
+import com.example.healthsync.model.RollupGranularity;
+import com.example.healthsync.model.VitalMetric;
+import com.example.healthsync.service.AnomalyDetectionService;
+import com.example.healthsync.service.BiometricDataService;
+import com.example.healthsync.service.BiometricRollupService;
+import com.example.healthsync.service.BiometricSnapshotCache;
+import com.example.healthsync.service.BiometricTimes;
+import com.example.healthsync.service.IngestIdempotencyService;
+import com.example.healthsync.service.PayloadFormat;
+import com.example.healthsync.service.ReactiveIngestService;
+import com.example.healthsync.service.TrendService;
+import com.example.healthsync.service.VitalSeriesService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.security.MessageDigest;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Endpoints /fetch du mode réactif (profil "reactive", WebFlux + Netty).
+ * L'ingestion est entièrement non bloquante (ReactiveIngestService) ; les lectures
+ * délèguent aux services existants, bloquants, sur le scheduler boundedElastic.
+ * /async, /batch et /export restent propres au mode MVC, tout comme AdminController.
+ */
+@RestController
+@RequestMapping("/fetch")
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveHealthDataController {
+
+    private static final int DEFAULT_PAGE_SIZE = 30;
+
+    private final ReactiveIngestService reactiveIngestService;
+    private final BiometricDataService biometricDataService;
+    private final VitalSeriesService vitalSeriesService;
+    private final BiometricRollupService biometricRollupService;
+    private final BiometricSnapshotCache biometricSnapshotCache;
+    private final AnomalyDetectionService anomalyDetectionService;
+    private final TrendService trendService;
+    private final IngestIdempotencyService ingestIdempotencyService;
+
+    @Value("${healthsync.ingest.async.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    @GetMapping
+    public Mono<String> testConnection() {
+        return Mono.just("✅ Serveur Spring Boot accessible depuis le téléphone! (mode réactif)");
+    }
+
+    // ✅ Ingestion : le corps est décodé au fil de l'eau, les lots écrits pendant la lecture de la suite
+    // JSON ou Smile, non compressé : Content-Encoding et CBOR ne sont acceptés qu'en mode MVC
+    @PostMapping(value = {"", "/stream"}, consumes = {MediaType.APPLICATION_JSON_VALUE, PayloadFormat.SMILE_VALUE})
+    public Mono<ResponseEntity<String>> receiveHealthData(ServerHttpRequest request,
+                                                          @RequestParam(required = false) String email,
+                                                          @RequestHeader(value = IngestIdempotencyService.HEADER, required = false)
+                                                          String idempotencyKey) {
+        String encoding = request.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null && !encoding.equalsIgnoreCase("identity")) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body("❌ Erreur: Content-Encoding non pris en charge en mode réactif: " + encoding));
+        }
+
+        PayloadFormat format = PayloadFormat.fromContentType(request.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        if (idempotencyKey == null) {
+            return ingest(request.getBody(), email, format);
+        }
+        // Empreinte calculée au fil des DataBuffer reçus
+        MessageDigest digest = IngestIdempotencyService.newDigest();
+        Flux<DataBuffer> body = request.getBody().doOnNext(buffer -> update(digest, buffer));
+        return idempotent(idempotencyKey, email, body, digest, ingest(body, email, format));
+    }
+
+    private Mono<ResponseEntity<String>> ingest(Flux<DataBuffer> body, String email, PayloadFormat format) {
+        return reactiveIngestService.ingest(body, email, format)
+                .map(summary -> ResponseEntity.ok(String.format(
+                        "✅ %d jours reçus et sauvegardés!\n👤 Email: %s\n💾 %d écritures MongoDB",
+                        summary.getDays(), summary.getEmail(), summary.getWrites())))
+                .onErrorResume(e -> {
+                    log.error("Error streaming health data", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body("❌ Erreur: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * Même contrat que HealthDataController : clé propre à l'utilisateur, réponse 2xx enregistrée
+     * avec l'empreinte du corps, clé libérée sinon. Une requête annulée (client déconnecté après
+     * son timeout) libère aussi la clé, ses écritures ayant pu être interrompues.
+     */
+    private Mono<ResponseEntity<String>> idempotent(String key, String email, Flux<DataBuffer> body,
+                                                    MessageDigest digest, Mono<ResponseEntity<String>> ingest) {
+        return Mono.fromCallable(() -> ingestIdempotencyService.claim(key, email))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(previous -> {
+                    if (previous.isPresent()) {
+                        if (!previous.get().isCompleted()) {
+                            return Mono.just(IdempotentReplies.inProgress(retryAfterSeconds));
+                        }
+                        log.info("🔁 Requête déjà reçue (Idempotency-Key {}), réponse rejouée", key);
+                        return body.doOnNext(DataBufferUtils::release)
+                                .then(Mono.fromCallable(() -> IdempotentReplies.replay(previous.get(),
+                                        IngestIdempotencyService.hex(digest))));
+                    }
+                    return ingest
+                            .publishOn(Schedulers.boundedElastic())
+                            .doOnNext(response -> {
+                                if (response.getStatusCode().is2xxSuccessful()) {
+                                    ingestIdempotencyService.complete(key, email, IngestIdempotencyService.hex(digest),
+                                            response.getStatusCode().value(), response.getBody());
+                                } else {
+                                    ingestIdempotencyService.release(key, email);
+                                }
+                            })
+                            .doOnCancel(() -> Schedulers.boundedElastic().schedule(() -> ingestIdempotencyService.release(key, email)));
+                })
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage())))
+                .onErrorResume(e -> {
+                    log.error("Error claiming idempotency key: {}", key, e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body("❌ Erreur: " + e.getMessage()));
+                });
+    }
+
+    private static void update(MessageDigest digest, DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator readable = buffer.readableByteBuffers()) {
+            readable.forEachRemaining(digest::update);
+        }
+    }
+
+    // ✅ Delta-sync : le téléphone n'envoie ensuite que les jours manquants ou modifiés
+    @PostMapping("/sync/handshake")
+    public Mono<ResponseEntity<?>> syncHandshake(@RequestBody SyncHandshakeRequest request) {
+        return blocking(() -> ResponseEntity.ok(biometricDataService.handshake(request)),
+                "sync handshake", request.getEmail());
+    }
+
+    // ✅ Récupérer les données d'un utilisateur (historique complet ou page projetée)
+    @GetMapping("/user/{userId}")
+    public Mono<ResponseEntity<?>> getUserData(@PathVariable String userId,
+                                               @RequestParam(required = false) String from,
+                                               @RequestParam(required = false) String to,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) List<String> fields) {
+        return blocking(() -> {
+            if (from == null && to == null && cursor == null && limit == null && fields == null) {
+                return ResponseEntity.ok(biometricDataService.getUserData(userId));
+            }
+            return ResponseEntity.ok(biometricDataService.getUserDataPage(userId, from, to, cursor,
+                    limit == null ? DEFAULT_PAGE_SIZE : limit, fields));
+        }, "user data", userId);
+    }
+
+    @GetMapping("/user/{userId}/records/{type}")
+    public Mono<ResponseEntity<?>> getRecords(@PathVariable String userId,
+                                              @PathVariable String type,
+                                              @RequestParam String from,
+                                              @RequestParam String to) {
+        return blocking(() -> ResponseEntity.ok(biometricDataService.findRecords(userId,
+                BiometricRecordType.fromSlug(type),
+                BiometricTimes.parseBound(from, false), BiometricTimes.parseBound(to, true))), type + " records", userId);
+    }
+
+    @GetMapping("/user/{userId}/series/{metric}")
+    public Mono<ResponseEntity<?>> getVitalSeries(@PathVariable String userId,
+                                                  @PathVariable String metric,
+                                                  @RequestParam(required = false) String from,
+                                                  @RequestParam(required = false) String to) {
+        return blocking(() -> ResponseEntity.ok(vitalSeriesService.findSeries(userId, VitalMetric.fromSlug(metric),
+                BiometricTimes.parseBound(from, false), BiometricTimes.parseBound(to, true))), metric + " series", userId);
+    }
+
+    @GetMapping("/user/{userId}/alerts")
+    public Mono<ResponseEntity<?>> getUserAlerts(@PathVariable String userId,
+                                                 @RequestParam(required = false) String from,
+                                                 @RequestParam(required = false) String to,
+                                                 @RequestParam(required = false) String severity,
+                                                 @RequestParam(defaultValue = "100") int limit) {
+        return blocking(() -> {
+            Alert.Severity level = severity == null ? null : Alert.Severity.valueOf(severity.trim().toUpperCase());
+            return ResponseEntity.ok(anomalyDetectionService.findAlerts(userId,
+                    BiometricTimes.parseBound(from, false), BiometricTimes.parseBound(to, true), level, limit));
+        }, "alerts", userId);
+    }
+
+    @GetMapping("/user/{userId}/trends")
+    public Mono<ResponseEntity<?>> getUserTrends(@PathVariable String userId,
+                                                 @RequestParam(defaultValue = "30") int days) {
+        return blocking(() -> ResponseEntity.ok(trendService.findTrends(userId, days)), "trends", userId);
+    }
+
+    @GetMapping("/user/{userId}/summary")
+    public Mono<ResponseEntity<?>> getUserSummary(@PathVariable String userId,
+                                                  @RequestParam(defaultValue = "week") String granularity,
+                                                  @RequestParam(required = false) String from,
+                                                  @RequestParam(required = false) String to) {
+        return blocking(() -> ResponseEntity.ok(biometricRollupService.findRollups(userId,
+                RollupGranularity.fromParam(granularity), from, to)), "summary", userId);
+    }
+
+    @GetMapping("/stats/{userId}")
+    public Mono<ResponseEntity<?>> getUserStats(@PathVariable String userId) {
+        return blocking(() -> ResponseEntity.ok(biometricDataService.getUserStats(userId)), "stats", userId);
+    }
+
+    @GetMapping("/user/{userId}/today")
+    public Mono<ResponseEntity<?>> getTodayBiometricData(@PathVariable String userId) {
+        return blocking(() -> {
+            BiometricData data = biometricDataService.getTodayData(userId);
+            if (data == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body("Aucune donnée biométrique trouvée pour aujourd'hui");
+            }
+            return ResponseEntity.ok(data);
+        }, "today's data", userId);
+    }
+
+    @GetMapping("/user/{userId}/latest")
+    public Mono<ResponseEntity<?>> getLatestSnapshot(@PathVariable String userId) {
+        return blocking(() -> ResponseEntity.ok(biometricSnapshotCache.getLatest(userId)), "latest snapshot", userId);
+    }
+
+    /**
+     * Exécute une lecture bloquante hors de la boucle d'événements, avec les mêmes
+     * réponses d'erreur que HealthDataController (400 pour un paramètre invalide, sinon 500)
+     */
+    private static Mono<ResponseEntity<?>> blocking(Callable<ResponseEntity<?>> call, String what, String userId) {
+        return Mono.fromCallable(call)
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> e instanceof IllegalArgumentException || e instanceof DateTimeParseException,
+                        e -> Mono.just(ResponseEntity.badRequest().body("❌ Erreur: " + e.getMessage())))
+                .onErrorResume(e -> {
+                    log.error("Error fetching {} for user: {}", what, userId, e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body("❌ Erreur: " + e.getMessage()));
+                });
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.healthsync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Résultat de POST /fetch/batch : un résultat par enveloppe, dans l'ordre de la requête
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchIngestResult {
+    private int envelopes;
+    private int daysWritten;
+    private int bulkWrites;
+    private List<EnvelopeResult> results;
+
+    public enum Status {
+        OK,        // tous les jours écrits
+        PARTIAL,   // une partie des jours écrits
+        REJECTED,  // enveloppe invalide, rien n'a été écrit
+        FAILED     // échec d'écriture, rien n'a été écrit
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class EnvelopeResult {
+        private String email;
+        private Status status;
+        private int days;
+        private int daysWritten;
+        private String error;
+    }
+
+    public boolean allOk() {
+        return results.stream().allMatch(result -> result.getStatus() == Status.OK);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.healthsync.dto;
+
+import com.example.healthsync.model.BiometricData;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page de l'historique biométrique (pagination par curseur sur la date)
+ * nextCursor est null sur la dernière page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BiometricPage {
+    private List<BiometricData> items;
+    private int count;
+    private String nextCursor;
+}
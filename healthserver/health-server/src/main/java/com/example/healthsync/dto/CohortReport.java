@@ -0,0 +1,42 @@
+package com.example.healthsync.dto;
+
+import com.example.healthsync.model.CohortDailyStat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Vue population d'une métrique sur une plage de jours :
+ * résumé de la plage (jours-utilisateurs) et détail par jour
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortReport {
+    private String metric;
+    private String from;
+    private String to;
+    private double binWidth;
+    private long userDays;
+    private Double mean;
+    private Double min;
+    private Double max;
+    private List<CohortDailyStat.Bin> histogram;
+    private List<Day> days;
+    private int cachedDays;    // servis depuis cohort_daily_stats
+    private int computedDays;  // recalculés par agrégation
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Day {
+        private String date;
+        private long users;
+        private Double mean;
+        private Double min;
+        private Double max;
+        private List<CohortDailyStat.Bin> histogram;
+    }
+}
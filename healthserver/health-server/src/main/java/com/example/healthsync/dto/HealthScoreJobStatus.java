@@ -0,0 +1,29 @@
+package com.example.healthsync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * État du recalcul en masse des scores de santé
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HealthScoreJobStatus {
+    private String jobId;
+    private String state;  // RUNNING, DONE ou FAILED
+    private int formulaVersion;
+    private int parallelism;
+    private long users;
+    private long usersDone;
+    private long documents;
+    private long updated;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
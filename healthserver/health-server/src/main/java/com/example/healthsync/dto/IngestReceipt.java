@@ -0,0 +1,18 @@
+package com.example.healthsync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Accusé de réception d'une ingestion asynchrone (HTTP 202)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestReceipt {
+    private String receiptId;
+    private String email;
+    private int days;
+    private int queueDepth;
+}
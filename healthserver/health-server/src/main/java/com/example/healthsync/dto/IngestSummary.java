@@ -0,0 +1,17 @@
+package com.example.healthsync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résumé d'une ingestion (nombre de jours et d'écritures MongoDB)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestSummary {
+    private String email;
+    private int days;
+    private int writes;
+}
@@ -0,0 +1,32 @@
+package com.example.healthsync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dernières valeurs connues d'un utilisateur (poids, taille, tension)
+ * Chaque mesure est absente si l'utilisateur n'en a jamais envoyé.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LatestSnapshot {
+    private String email;
+    private Reading weight;
+    private Reading height;
+    private Reading bloodPressure;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Reading {
+        private String date;
+        private String time;
+        private Double value;
+        private Double secondaryValue;  // diastolique pour la tension
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.healthsync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * Une ligne d'export : une mesure à plat (jour, métrique, instant(s), valeur(s))
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MeasurementRow(String date,
+                             String metric,
+                             Instant start,
+                             Instant end,
+                             Double value,
+                             Double secondaryValue,
+                             String label) {
+
+    public static final String CSV_HEADER = "date,metric,start,end,value,secondaryValue,label";
+}
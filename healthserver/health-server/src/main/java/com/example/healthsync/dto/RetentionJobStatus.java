@@ -0,0 +1,28 @@
+package com.example.healthsync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Avancement de la compaction des échantillons FC (politique de rétention)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RetentionJobStatus {
+    private String state;  // RUNNING, DONE, STOPPED ou FAILED
+    private long pendingAtStart;
+    private long documentsCompacted;
+    private long recordsDownsampled;
+    private long bytesBefore;
+    private long bytesAfter;
+    private long bytesReclaimed;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
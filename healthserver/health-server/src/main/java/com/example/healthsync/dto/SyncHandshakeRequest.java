@@ -0,0 +1,26 @@
+package com.example.healthsync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Poignée de main delta-sync : (date, empreinte) des jours connus du téléphone
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncHandshakeRequest {
+    private String email;
+    private List<DayHash> days;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayHash {
+        private String date;
+        private String hash;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.healthsync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Jours à (re)envoyer : absents du serveur ou dont l'empreinte a changé
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncHandshakeResponse {
+    private String email;
+    private List<String> missing;
+    private List<String> changed;
+    private int upToDate;
+}
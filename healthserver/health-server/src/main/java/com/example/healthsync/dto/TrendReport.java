@@ -0,0 +1,32 @@
+package com.example.healthsync.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Tendances d'un utilisateur sur N jours (hors jour en cours), par métrique
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendReport {
+    private String email;
+    private int periodDays;
+    private Map<String, Statistic> statistics;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Statistic {
+        private long dataPoints;
+        private Double mean;
+        private Double std;
+        private Double slope;   // unités par jour
+        private String trend;   // increasing, decreasing, stable ou insufficient_data
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.healthsync.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Anomalie détectée à l'ingestion sur un signe vital.
+ * L'ID est déterministe (email|métrique|instant|règle) : une re-synchronisation
+ * du même jour remplace l'alerte au lieu de la dupliquer.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Document(collection = "alerts")
+public class Alert {
+
+    @Id
+    private String id;
+
+    private String email;
+    private VitalMetric metric;
+    private String date;
+    private Instant time;
+    private Rule rule;
+    private Severity severity;
+    private String message;
+    private Double value;
+    private Double secondaryValue;
+    private Double zScore;  // écart à la moyenne habituelle, en écarts-types (règle Z_SCORE)
+    private LocalDateTime detectedAt;
+
+    public enum Rule {
+        RANGE,    // seuil médical absolu (mêmes seuils que detect_anomalies côté Python)
+        Z_SCORE   // écart inhabituel par rapport à la référence de l'utilisateur
+    }
+
+    public enum Severity {
+        WARNING,
+        CRITICAL
+    }
+
+    public static String idOf(String email, VitalMetric metric, Instant time, Rule rule) {
+        return email + "|" + metric.name() + "|" + time.toEpochMilli() + "|" + rule.name();
+    }
+}
@@ -1,17 +1,21 @@
 package com.example.healthsync.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)  // Les projections ne renvoient que les champs demandés
 @Document(collection = "biometric_data")
 public class BiometricData {
 
@@ -24,17 +28,27 @@ public class BiometricData {
 
     private String date;  // Date des données (format: "2025-10-30")
 
+    private LocalDate day;  // Même date, typée (filtres et index par plage)
+
+    private String contentHash;  // Empreinte SHA-256 du jour reçu (delta-sync)
+
+    private Integer hrResolutionSeconds;  // Résolution FC après compaction (null = échantillons bruts)
+
     // ✅ TOUTES LES DONNÉES AGRÉGÉES
     private Integer totalSteps;
     private Integer avgHeartRate;
     private Integer minHeartRate;
     private Integer maxHeartRate;
-    private String totalDistanceKm;
-    private String totalSleepHours;
-    private String totalHydrationLiters;
+    private Double totalDistanceKm;
+    private Double totalSleepHours;
+    private Double totalHydrationLiters;
     private String stressLevel;
     private Integer stressScore;
 
+    // ✅ Score de santé du jour (0-100), calculé à l'ingestion
+    private Double healthScore;
+    private Integer healthScoreVersion;  // version de la formule (HealthScoreCalculator.VERSION)
+
     // ✅ TOUTES LES DONNÉES DÉTAILLÉES (exactement comme HealthData)
     private List<StepRecord> steps;
     private List<HeartRateRecord> heartRate;
@@ -57,15 +71,42 @@ public class BiometricData {
         private Long count;
         private String startTime;
         private String endTime;
+        private Instant startAt;  // startTime typé
+        private Instant endAt;    // endTime typé
+
+        public StepRecord(Long count, String startTime, String endTime) {
+            this(count, startTime, endTime, null, null);
+        }
     }
 
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
     public static class HeartRateRecord {
-        private List<Long> samples;
+        private HeartRateSamples samples;
         private String startTime;
         private String endTime;
+        private Instant startAt;  // startTime typé
+        private Instant endAt;    // endTime typé
+
+        // Après compaction (politique de rétention) : samples est remplacé par des agrégats
+        private Integer bucketSeconds;
+        private List<HeartRateBucket> buckets;
+
+        public HeartRateRecord(HeartRateSamples samples, String startTime, String endTime) {
+            this(samples, startTime, endTime, null, null, null, null);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HeartRateBucket {
+        private Instant start;
+        private Long min;
+        private Double avg;
+        private Long max;
+        private Integer count;
     }
 
     @Data
@@ -75,6 +116,12 @@ public class BiometricData {
         private Double distanceMeters;
         private String startTime;
         private String endTime;
+        private Instant startAt;  // startTime typé
+        private Instant endAt;    // endTime typé
+
+        public DistanceRecord(Double distanceMeters, String startTime, String endTime) {
+            this(distanceMeters, startTime, endTime, null, null);
+        }
     }
 
     @Data
@@ -85,6 +132,12 @@ public class BiometricData {
         private String startTime;
         private String endTime;
         private Long durationMinutes;
+        private Instant startAt;  // startTime typé
+        private Instant endAt;    // endTime typé
+
+        public SleepRecord(String title, String startTime, String endTime, Long durationMinutes) {
+            this(title, startTime, endTime, durationMinutes, null, null);
+        }
     }
 
     @Data
@@ -101,7 +154,7 @@ public class BiometricData {
         // Métriques de performance
         private Long steps;
         private Double distanceMeters;
-        private String distanceKm;
+        private Double distanceKm;
 
         // Calories
         private Integer activeCalories;
@@ -129,6 +182,9 @@ public class BiometricData {
 
         // Puissance
         private Integer avgPowerWatts;
+
+        private Instant startAt;  // startTime typé
+        private Instant endAt;    // endTime typé
     }
 
     @Data
@@ -137,6 +193,11 @@ public class BiometricData {
     public static class OxygenSaturationRecord {
         private Double percentage;
         private String time;
+        private Instant at;  // time typé
+
+        public OxygenSaturationRecord(Double percentage, String time) {
+            this(percentage, time, null);
+        }
     }
 
     @Data
@@ -145,6 +206,11 @@ public class BiometricData {
     public static class BodyTemperatureRecord {
         private Double temperature;
         private String time;
+        private Instant at;  // time typé
+
+        public BodyTemperatureRecord(Double temperature, String time) {
+            this(temperature, time, null);
+        }
     }
 
     @Data
@@ -154,6 +220,11 @@ public class BiometricData {
         private Double systolic;
         private Double diastolic;
         private String time;
+        private Instant at;  // time typé
+
+        public BloodPressureRecord(Double systolic, Double diastolic, String time) {
+            this(systolic, diastolic, time, null);
+        }
     }
 
     @Data
@@ -162,6 +233,11 @@ public class BiometricData {
     public static class WeightRecord {
         private Double weight;
         private String time;
+        private Instant at;  // time typé
+
+        public WeightRecord(Double weight, String time) {
+            this(weight, time, null);
+        }
     }
 
     @Data
@@ -170,6 +246,11 @@ public class BiometricData {
     public static class HeightRecord {
         private Double height;
         private String time;
+        private Instant at;  // time typé
+
+        public HeightRecord(Double height, String time) {
+            this(height, time, null);
+        }
     }
 
     @Data
@@ -178,5 +259,10 @@ public class BiometricData {
     public static class HydrationRecord {
         private Double volumeMl;
         private String time;
+        private Instant at;  // time typé
+
+        public HydrationRecord(Double volumeMl, String time) {
+            this(volumeMl, time, null);
+        }
     }
 }
\ No newline at end of file
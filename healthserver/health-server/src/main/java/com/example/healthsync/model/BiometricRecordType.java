@@ -0,0 +1,68 @@
+package com.example.healthsync.model;
+
+import java.util.Arrays;
+
+/**
+ * Listes d'enregistrements détaillés de BiometricData interrogeables par plage horaire :
+ * champ du document, horodatage typé de début (ou de la mesure), horodatage typé de fin
+ * (null pour les mesures ponctuelles), classe de l'enregistrement
+ */
+public enum BiometricRecordType {
+    STEPS("steps", "steps", "startAt", "endAt", BiometricData.StepRecord.class),
+    HEART_RATE("heart-rate", "heartRate", "startAt", "endAt", BiometricData.HeartRateRecord.class),
+    DISTANCE("distance", "distance", "startAt", "endAt", BiometricData.DistanceRecord.class),
+    SLEEP("sleep", "sleep", "startAt", "endAt", BiometricData.SleepRecord.class),
+    EXERCISE("exercise", "exercise", "startAt", "endAt", BiometricData.ExerciseRecord.class),
+    OXYGEN_SATURATION("spo2", "oxygenSaturation", "at", null, BiometricData.OxygenSaturationRecord.class),
+    BODY_TEMPERATURE("temperature", "bodyTemperature", "at", null, BiometricData.BodyTemperatureRecord.class),
+    BLOOD_PRESSURE("blood-pressure", "bloodPressure", "at", null, BiometricData.BloodPressureRecord.class),
+    WEIGHT("weight", "weight", "at", null, BiometricData.WeightRecord.class),
+    HEIGHT("height", "height", "at", null, BiometricData.HeightRecord.class),
+    HYDRATION("hydration", "hydration", "at", null, BiometricData.HydrationRecord.class);
+
+    private final String slug;
+    private final String field;
+    private final String timeField;
+    private final String endTimeField;
+    private final Class<?> recordClass;
+
+    BiometricRecordType(String slug, String field, String timeField, String endTimeField, Class<?> recordClass) {
+        this.slug = slug;
+        this.field = field;
+        this.timeField = timeField;
+        this.endTimeField = endTimeField;
+        this.recordClass = recordClass;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getTimeField() {
+        return timeField;
+    }
+
+    public String getEndTimeField() {
+        return endTimeField;
+    }
+
+    public boolean isInterval() {
+        return endTimeField != null;
+    }
+
+    public Class<?> getRecordClass() {
+        return recordClass;
+    }
+
+    public static BiometricRecordType fromSlug(String slug) {
+        return Arrays.stream(values())
+                .filter(type -> type.slug.equalsIgnoreCase(slug) || type.field.equalsIgnoreCase(slug)
+                        || type.name().equalsIgnoreCase(slug))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Type d'enregistrement inconnu: " + slug));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.healthsync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Agrégat biométrique d'un utilisateur sur une semaine, un mois ou une année.
+ * Les contributions de chaque jour sont conservées pour qu'une
+ * re-synchronisation remplace un jour au lieu de le compter deux fois.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "biometric_rollups")
+public class BiometricRollup {
+
+    @Id
+    private String id;  // email|granularité|début
+
+    @Version
+    private Long version;
+
+    private String email;
+    private RollupGranularity granularity;
+    private String bucketStart;
+    private String bucketEnd;
+    private LocalDateTime updatedAt;
+
+    // ✅ Agrégats (recalculés depuis les contributions journalières)
+    private int daysCount;
+    private long totalSteps;
+    private Double avgSteps;
+    private Integer minHeartRate;
+    private Double avgHeartRate;
+    private Integer maxHeartRate;
+    private Double totalSleepHours;
+    private Double avgSleepHours;
+    private Double totalHydrationLiters;
+
+    // Contributions par jour (date → valeurs), exclues des lectures
+    private Map<String, DayContribution> days = new HashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayContribution {
+        private Integer steps;
+        private Integer minHeartRate;
+        private Integer avgHeartRate;
+        private Integer maxHeartRate;
+        private Double sleepHours;
+        private Double hydrationLiters;
+    }
+
+    public static String idOf(String email, RollupGranularity granularity, String bucketStart) {
+        return email + "|" + granularity + "|" + bucketStart;
+    }
+
+    public void recompute() {
+        daysCount = days.size();
+        totalSteps = 0;
+        int stepDays = 0;
+        int hrDays = 0;
+        long hrSum = 0;
+        int sleepDays = 0;
+        double sleepSum = 0;
+        double hydrationSum = 0;
+        boolean hasHydration = false;
+        minHeartRate = null;
+        maxHeartRate = null;
+
+        for (DayContribution day : days.values()) {
+            if (day.getSteps() != null) {
+                totalSteps += day.getSteps();
+                stepDays++;
+            }
+            if (day.getAvgHeartRate() != null && day.getAvgHeartRate() > 0) {
+                hrSum += day.getAvgHeartRate();
+                hrDays++;
+            }
+            if (day.getMinHeartRate() != null && day.getMinHeartRate() > 0
+                    && (minHeartRate == null || day.getMinHeartRate() < minHeartRate)) {
+                minHeartRate = day.getMinHeartRate();
+            }
+            if (day.getMaxHeartRate() != null && (maxHeartRate == null || day.getMaxHeartRate() > maxHeartRate)) {
+                maxHeartRate = day.getMaxHeartRate();
+            }
+            if (day.getSleepHours() != null) {
+                sleepSum += day.getSleepHours();
+                sleepDays++;
+            }
+            if (day.getHydrationLiters() != null) {
+                hydrationSum += day.getHydrationLiters();
+                hasHydration = true;
+            }
+        }
+
+        avgSteps = stepDays > 0 ? (double) totalSteps / stepDays : null;
+        avgHeartRate = hrDays > 0 ? (double) hrSum / hrDays : null;
+        totalSleepHours = sleepDays > 0 ? sleepSum : null;
+        avgSleepHours = sleepDays > 0 ? sleepSum / sleepDays : null;
+        totalHydrationLiters = hasHydration ? hydrationSum : null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.healthsync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Résultat mis en cache d'une agrégation population pour une métrique et un jour.
+ * Valide tant que generation correspond à CohortDayGeneration du jour
+ * (incrémentée à chaque ingestion touchant ce jour).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "cohort_daily_stats")
+public class CohortDailyStat {
+
+    @Id
+    private String id;  // métrique|date
+
+    private CohortMetric metric;
+    private String date;
+    private long generation;
+    private LocalDateTime computedAt;
+
+    private long users;  // utilisateurs ayant une valeur ce jour-là
+    private double sum;
+    private Double min;
+    private Double max;
+    private double binWidth;
+    private List<Bin> histogram;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bin {
+        private double lower;  // borne basse incluse, borne haute = lower + binWidth
+        private long count;
+    }
+
+    public static String idOf(CohortMetric metric, String date) {
+        return metric.name() + "|" + date;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.healthsync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Compteur d'invalidation des statistiques population d'un jour,
+ * incrémenté par chaque ingestion qui écrit ce jour (jour absent = 0)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "cohort_day_generations")
+public class CohortDayGeneration {
+
+    @Id
+    private String date;
+
+    private long generation;
+}
@@ -0,0 +1,45 @@
+package com.example.healthsync.model;
+
+import java.util.Arrays;
+
+/**
+ * Métriques des vues population (champ de BiometricData et largeur des classes d'histogramme)
+ */
+public enum CohortMetric {
+    STEPS("steps", "totalSteps", 1000),
+    HEART_RATE("heart-rate", "avgHeartRate", 5),
+    RESTING_HEART_RATE("resting-heart-rate", "minHeartRate", 5),  // FC minimale du jour
+    SLEEP_HOURS("sleep-hours", "totalSleepHours", 0.5),
+    HYDRATION("hydration", "totalHydrationLiters", 0.25),
+    STRESS_SCORE("stress-score", "stressScore", 10),
+    HEALTH_SCORE("health-score", "healthScore", 5);
+
+    private final String slug;
+    private final String field;
+    private final double binWidth;
+
+    CohortMetric(String slug, String field, double binWidth) {
+        this.slug = slug;
+        this.field = field;
+        this.binWidth = binWidth;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public double getBinWidth() {
+        return binWidth;
+    }
+
+    public static CohortMetric fromSlug(String slug) {
+        return Arrays.stream(values())
+                .filter(metric -> metric.slug.equalsIgnoreCase(slug) || metric.name().equalsIgnoreCase(slug))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Métrique inconnue: " + slug));
+    }
+}
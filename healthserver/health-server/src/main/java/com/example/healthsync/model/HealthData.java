@@ -15,6 +15,9 @@ public class HealthData {
     @Data
     public static class DailyData {
         private String date;
+        // Empreinte du jour calculée par le client (optionnelle, non réémise)
+        @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+        private String contentHash;
         private List<StepRecord> steps;
         private Integer totalSteps;
         private List<HeartRateRecord> heartRate;
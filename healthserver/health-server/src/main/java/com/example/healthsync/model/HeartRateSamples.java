@@ -0,0 +1,178 @@
+package com.example.healthsync.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Échantillons de fréquence cardiaque d'un HeartRateRecord.
+ *
+ * En base, ils peuvent être stockés sous forme compacte : version, nombre
+ * d'échantillons puis deltas successifs en zigzag + varint. Un échantillon
+ * absent (null) est conservé : version 2, qui ajoute après le nombre
+ * d'échantillons la liste des positions nulles (écarts en varint) ; les deltas
+ * ne portent alors que sur les échantillons présents. Le décodage
+ * n'a lieu qu'au premier appel à {@link #values()}. En JSON, c'est
+ * toujours une simple liste de nombres.
+ */
+public final class HeartRateSamples {
+
+    public static final String CODEC_NAME = "delta-varint";
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte FORMAT_VERSION_WITH_NULLS = 2;
+
+    private byte[] encoded;
+    private List<Long> values;
+
+    private HeartRateSamples(List<Long> values, byte[] encoded) {
+        this.values = values;
+        this.encoded = encoded;
+    }
+
+    @JsonCreator
+    public static HeartRateSamples of(List<Long> values) {
+        return values == null ? null : new HeartRateSamples(values, null);
+    }
+
+    public static HeartRateSamples fromEncoded(byte[] encoded) {
+        return new HeartRateSamples(null, encoded);
+    }
+
+    /**
+     * Valeurs brutes (décodées à la demande puis mises en cache)
+     */
+    @JsonValue
+    public synchronized List<Long> values() {
+        if (values == null) {
+            values = Collections.unmodifiableList(decode(encoded));
+        }
+        return values;
+    }
+
+    /**
+     * Forme encodée, sans décoder si elle est déjà disponible
+     */
+    public synchronized byte[] encoded() {
+        if (encoded == null) {
+            encoded = encode(values);
+        }
+        return encoded;
+    }
+
+    public synchronized boolean isDecoded() {
+        return values != null;
+    }
+
+    public int size() {
+        return values().size();
+    }
+
+    public static byte[] encode(List<Long> samples) {
+        List<Integer> nulls = new ArrayList<>();
+        for (int i = 0; i < samples.size(); i++) {
+            if (samples.get(i) == null) {
+                nulls.add(i);
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(samples.size() + 4);
+        out.write(nulls.isEmpty() ? FORMAT_VERSION : FORMAT_VERSION_WITH_NULLS);
+        writeVarint(out, samples.size());
+        if (!nulls.isEmpty()) {
+            writeVarint(out, nulls.size());
+            int previousNull = 0;
+            for (int index : nulls) {
+                writeVarint(out, index - previousNull);
+                previousNull = index;
+            }
+        }
+        long previous = 0;
+        for (Long sample : samples) {
+            if (sample == null) {
+                continue;
+            }
+            long delta = sample - previous;
+            writeVarint(out, (delta << 1) ^ (delta >> 63));
+            previous = sample;
+        }
+        return out.toByteArray();
+    }
+
+    public static List<Long> decode(byte[] bytes) {
+        if (bytes.length == 0 || (bytes[0] != FORMAT_VERSION && bytes[0] != FORMAT_VERSION_WITH_NULLS)) {
+            throw new IllegalArgumentException("Format d'échantillons FC inconnu");
+        }
+        int[] position = {1};
+        int count = (int) readVarint(bytes, position);
+        boolean[] absent = new boolean[count];
+        if (bytes[0] == FORMAT_VERSION_WITH_NULLS) {
+            int nullCount = (int) readVarint(bytes, position);
+            int index = 0;
+            for (int i = 0; i < nullCount; i++) {
+                index += (int) readVarint(bytes, position);
+                absent[index] = true;
+            }
+        }
+        List<Long> samples = new ArrayList<>(count);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            if (absent[i]) {
+                samples.add(null);
+                continue;
+            }
+            long zigzag = readVarint(bytes, position);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            samples.add(previous);
+        }
+        return samples;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = bytes[position[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Varint trop long");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HeartRateSamples other)) {
+            return false;
+        }
+        if (!isDecoded() && !other.isDecoded()) {
+            return Arrays.equals(encoded(), other.encoded());
+        }
+        return values().equals(other.values());
+    }
+
+    @Override
+    public int hashCode() {
+        return values().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return isDecoded() ? values().toString() : "HeartRateSamples[" + encoded.length + " octets encodés]";
+    }
+}
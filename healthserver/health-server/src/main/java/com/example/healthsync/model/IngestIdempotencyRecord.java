@@ -0,0 +1,46 @@
+package com.example.healthsync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Requête d'ingestion identifiée par son en-tête Idempotency-Key, propre à un utilisateur :
+ * deux utilisateurs peuvent utiliser la même clé sans voir la réponse de l'autre.
+ * status == null : requête en cours ; sinon réponse rejouée telle quelle aux nouvelles tentatives
+ * dont le corps a la même empreinte (requestHash).
+ * Supprimée par l'index TTL sur createdAt (healthsync.idempotency.ttl-hours).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ingest_idempotency")
+public class IngestIdempotencyRecord {
+
+    @Id
+    private String id;  // idOf(email, key)
+
+    private String email;
+    private String key;
+
+    private String requestHash;  // SHA-256 du corps de la requête traitée (null tant qu'elle est en cours)
+
+    private Integer status;
+    private String body;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+
+    public static String idOf(String email, String key) {
+        // Un email ne contient pas de saut de ligne : pas de collision entre (email, clé)
+        return email + "\n" + key;
+    }
+
+    public boolean isCompleted() {
+        return status != null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.healthsync.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Suivi d'une ingestion asynchrone (POST /fetch/async), consultable par son reçu.
+ * Expire via l'index TTL sur expiresAt ; une requête abandonnée après ses tentatives
+ * (DEAD_LETTER) garde son payload et n'expire pas, pour être rejouée depuis l'admin.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Document(collection = "ingest_receipts")
+public class IngestReceiptRecord {
+
+    public enum State {
+        QUEUED,       // en file
+        RETRYING,     // écriture échouée, nouvelle tentative planifiée
+        WRITTEN,      // tous les jours écrits
+        REJECTED,     // payload invalide, non rejoué
+        DEAD_LETTER   // tentatives épuisées (ou serveur arrêté), payload conservé
+    }
+
+    @Id
+    private String receiptId;
+
+    private String email;
+    private int days;
+    private int daysWritten;
+    private State state;
+    private int attempts;
+    private String error;
+
+    @JsonIgnore
+    private HealthData payload;  // uniquement en DEAD_LETTER
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    @JsonIgnore
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,38 @@
+package com.example.healthsync.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Granularité des agrégats biométriques (semaine ISO, mois, année)
+ */
+public enum RollupGranularity {
+    WEEK,
+    MONTH,
+    YEAR;
+
+    public LocalDate bucketStart(LocalDate date) {
+        return switch (this) {
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+            case YEAR -> date.withDayOfYear(1);
+        };
+    }
+
+    public LocalDate bucketEnd(LocalDate bucketStart) {
+        return switch (this) {
+            case WEEK -> bucketStart.plusWeeks(1).minusDays(1);
+            case MONTH -> bucketStart.plusMonths(1).minusDays(1);
+            case YEAR -> bucketStart.plusYears(1).minusDays(1);
+        };
+    }
+
+    public static RollupGranularity fromParam(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Granularité inconnue: " + value + " (week, month, year)");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.healthsync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Accumulateurs de régression linéaire d'une métrique sur une fenêtre glissante
+ * de N jours (x = jour, y = valeur) : n, Σx, Σy, Σxy, Σx², Σy².
+ * La pente et la moyenne se lisent en O(1) ; les valeurs de chaque jour de la
+ * fenêtre sont conservées pour retirer un jour remplacé ou sorti de la fenêtre.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "trend_accumulators")
+public class TrendAccumulator {
+
+    @Id
+    private String id;  // email|métrique|fenêtre
+
+    @Version
+    private Long version;
+
+    private String email;
+    private String metric;
+    private int windowDays;
+    private LocalDateTime updatedAt;
+    private String writeToken;  // Jeton de la dernière écriture groupée (vérifie qu'elle a bien été appliquée)
+
+    private Long originEpochDay;  // x = jours écoulés depuis ce jour (sommes de petits nombres)
+    private long n;
+    private double sumX;
+    private double sumY;
+    private double sumXY;
+    private double sumXX;
+    private double sumYY;
+
+    // Valeur de chaque jour de la fenêtre (date → y)
+    private Map<String, Double> days = new HashMap<>();
+
+    public static String idOf(String email, String metric, int windowDays) {
+        return email + "|" + metric + "|" + windowDays;
+    }
+
+    /**
+     * Ajoute ou remplace la valeur d'un jour
+     */
+    public void put(LocalDate date, double y) {
+        remove(date);
+        if (originEpochDay == null) {
+            originEpochDay = date.toEpochDay();
+        }
+        days.put(date.toString(), y);
+        add(date.toEpochDay(), y, 1);
+    }
+
+    public void remove(LocalDate date) {
+        Double previous = days.remove(date.toString());
+        if (previous != null) {
+            add(date.toEpochDay(), previous, -1);
+        }
+    }
+
+    /**
+     * Retire les jours antérieurs à firstDay
+     * @return true si au moins un jour a été retiré
+     */
+    public boolean evictBefore(LocalDate firstDay) {
+        boolean evicted = false;
+        Iterator<Map.Entry<String, Double>> it = days.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Double> day = it.next();
+            LocalDate date = LocalDate.parse(day.getKey());
+            if (date.isBefore(firstDay)) {
+                add(date.toEpochDay(), day.getValue(), -1);
+                it.remove();
+                evicted = true;
+            }
+        }
+        if (days.isEmpty()) {
+            // Repart de zéro plutôt que de garder l'erreur d'arrondi des soustractions
+            originEpochDay = null;
+            n = 0;
+            sumX = sumY = sumXY = sumXX = sumYY = 0;
+        }
+        return evicted;
+    }
+
+    public Double mean() {
+        return n > 0 ? sumY / n : null;
+    }
+
+    public Double std() {
+        if (n == 0) {
+            return null;
+        }
+        double mean = sumY / n;
+        return Math.sqrt(Math.max(0, sumYY / n - mean * mean));
+    }
+
+    /**
+     * Pente de la droite des moindres carrés, en unités par jour (null sous 2 jours)
+     */
+    public Double slope() {
+        double denominator = n * sumXX - sumX * sumX;
+        if (n < 2 || denominator <= 0) {
+            return null;
+        }
+        return (n * sumXY - sumX * sumY) / denominator;
+    }
+
+    private void add(long epochDay, double y, int sign) {
+        double x = epochDay - originEpochDay;
+        n += sign;
+        sumX += sign * x;
+        sumY += sign * y;
+        sumXY += sign * x * y;
+        sumXX += sign * x * x;
+        sumYY += sign * y * y;
+    }
+}
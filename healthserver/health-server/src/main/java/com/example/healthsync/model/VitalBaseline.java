@@ -0,0 +1,58 @@
+package com.example.healthsync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Référence glissante d'un signe vital pour un utilisateur :
+ * moyenne et variance à pondération exponentielle (EWMA), mises à jour en O(1)
+ * à chaque mesure. Les premières mesures sont pondérées en 1/n (moyenne
+ * cumulée de Welford) jusqu'à ce que 1/n atteigne alpha.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "vital_baselines")
+public class VitalBaseline {
+
+    @Id
+    private String id;  // email|métrique
+
+    @Version
+    private Long version;
+
+    private String email;
+    private VitalMetric metric;
+    private long count;
+    private double mean;
+    private double variance;
+    private Instant lastTime;  // mesures plus anciennes ignorées (re-synchronisation)
+
+    public static String idOf(String email, VitalMetric metric) {
+        return email + "|" + metric.name();
+    }
+
+    /**
+     * Écart de value à la référence actuelle, en écarts-types (null si la référence est trop jeune)
+     */
+    public Double zScore(double value, long minSamples) {
+        if (count < minSamples || variance <= 0) {
+            return null;
+        }
+        return (value - mean) / Math.sqrt(variance);
+    }
+
+    public void update(double value, double alpha) {
+        count++;
+        double weight = Math.max(alpha, 1.0 / count);
+        double delta = value - mean;
+        mean += weight * delta;
+        variance = (1 - weight) * (variance + weight * delta * delta);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.healthsync.model;
+
+import java.util.Arrays;
+
+/**
+ * Signes vitaux stockés dans la collection time-series vital_samples
+ */
+public enum VitalMetric {
+    HEART_RATE("heart-rate"),
+    OXYGEN_SATURATION("spo2"),
+    BODY_TEMPERATURE("temperature"),
+    BLOOD_PRESSURE("blood-pressure");
+
+    private final String slug;
+
+    VitalMetric(String slug) {
+        this.slug = slug;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public static VitalMetric fromSlug(String slug) {
+        return Arrays.stream(values())
+                .filter(metric -> metric.slug.equalsIgnoreCase(slug) || metric.name().equalsIgnoreCase(slug))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Métrique inconnue: " + slug));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.healthsync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Instant;
+
+/**
+ * Une mesure de signe vital (collection time-series, metaField = email)
+ * Pour la pression artérielle : value = systolique, secondaryValue = diastolique
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TimeSeries(collection = "vital_samples", timeField = "time", metaField = "email", granularity = Granularity.SECONDS)
+public class VitalSample {
+
+    @Id
+    private String id;
+
+    private Instant time;
+
+    private String email;
+
+    private VitalMetric metric;
+
+    private String date;  // Jour BiometricData d'origine (remplacement idempotent)
+
+    private Double value;
+
+    private Double secondaryValue;
+
+    private Instant writtenAt;  // Réécriture du jour ayant produit la mesure (les plus anciennes sont supprimées)
+}
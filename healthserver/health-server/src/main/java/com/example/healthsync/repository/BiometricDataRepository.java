@@ -2,13 +2,15 @@ package com.example.healthsync.repository;
 
 import com.example.healthsync.model.BiometricData;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BiometricDataRepository extends MongoRepository<BiometricData, String> {
+public interface BiometricDataRepository extends MongoRepository<BiometricData, String>, BiometricDataRepositoryCustom {
 
     BiometricData findTopByEmailAndDateOrderByReceivedAtDesc(String email, String date);
 
@@ -18,4 +20,8 @@ public interface BiometricDataRepository extends MongoRepository<BiometricData,
 
     long countByEmail(String email);
 
+    // Jours d'une plage (bornes incluses), sur le LocalDate typé (index email_day)
+    @Query(value = "{ 'email': ?0, 'day': { $gte: ?1, $lte: ?2 } }", sort = "{ 'day': 1 }")
+    List<BiometricData> findByEmailAndDayRange(String email, LocalDate from, LocalDate to);
+
 }
@@ -0,0 +1,30 @@
+package com.example.healthsync.repository;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRecordType;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Requêtes par plage horaire sur les enregistrements détaillés,
+ * filtrées dans MongoDB sur les horodatages typés (startAt / endAt / at)
+ */
+public interface BiometricDataRepositoryCustom {
+
+    /**
+     * Enregistrements de l'utilisateur touchant [from, to), par ordre chronologique (début) :
+     * intervalles qui chevauchent la plage (startAt < to et endAt > from ; sans endAt, startAt dans la plage),
+     * mesures ponctuelles dont l'horodatage est dans la plage
+     * @param limit nombre maximal d'enregistrements renvoyés (0 = sans limite)
+     */
+    <T> List<T> findRecordsBetween(String email, BiometricRecordType type, Instant from, Instant to, int limit);
+
+    default List<BiometricData.SleepRecord> findSleepBetween(String email, Instant from, Instant to) {
+        return findRecordsBetween(email, BiometricRecordType.SLEEP, from, to, 0);
+    }
+
+    default List<BiometricData.ExerciseRecord> findExerciseBetween(String email, Instant from, Instant to) {
+        return findRecordsBetween(email, BiometricRecordType.EXERCISE, from, to, 0);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.healthsync.repository;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRecordType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class BiometricDataRepositoryCustomImpl implements BiometricDataRepositoryCustom {
+
+    // Le jour (date locale de l'app) peut différer de la date UTC d'un enregistrement
+    private static final int DAY_MARGIN = 1;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> findRecordsBetween(String email, BiometricRecordType type, Instant from, Instant to, int limit) {
+        String time = type.getField() + "." + type.getTimeField();
+
+        // 1. index email_day pour ne lire que les jours concernés, 2. un élément au moins dans la plage
+        Criteria days = Criteria.where("email").is(email)
+                .and("day").gte(dayOf(from).minusDays(DAY_MARGIN)).lte(dayOf(to).plusDays(DAY_MARGIN))
+                .and(type.getField()).elemMatch(inWindow(type, "", from, to));
+
+        List<AggregationOperation> stages = new ArrayList<>(List.of(
+                Aggregation.match(days),
+                Aggregation.project(type.getField()),
+                Aggregation.unwind(type.getField()),
+                Aggregation.match(inWindow(type, type.getField() + ".", from, to)),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, time))));
+        if (limit > 0) {
+            stages.add(Aggregation.limit(limit));
+        }
+        stages.add(Aggregation.replaceRoot(type.getField()));
+
+        return (List<T>) mongoTemplate.aggregate(Aggregation.newAggregation(stages), BiometricData.class,
+                type.getRecordClass()).getMappedResults();
+    }
+
+    /**
+     * Intervalle qui chevauche [from, to) (un sommeil commencé la veille au soir compte pour la nuit),
+     * ou horodatage dans [from, to) pour une mesure ponctuelle ou un intervalle sans fin lisible
+     */
+    static Criteria inWindow(BiometricRecordType type, String prefix, Instant from, Instant to) {
+        String start = prefix + type.getTimeField();
+        if (!type.isInterval()) {
+            return Criteria.where(start).gte(from).lt(to);
+        }
+        String end = prefix + type.getEndTimeField();
+        return new Criteria().orOperator(
+                Criteria.where(start).lt(to).and(end).gt(from),
+                Criteria.where(start).gte(from).lt(to).and(end).exists(false));
+    }
+
+    private static LocalDate dayOf(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC).toLocalDate();
+    }
+}
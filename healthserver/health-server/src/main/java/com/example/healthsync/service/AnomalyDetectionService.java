@@ -0,0 +1,216 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.Alert;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.VitalBaseline;
+import com.example.healthsync.model.VitalMetric;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Détection d'anomalies à l'ingestion (FC, SpO2, température, tension) :
+ * seuils médicaux absolus et écart inhabituel (z-score) par rapport à la
+ * référence EWMA de l'utilisateur. Les alertes sont écrites dans la collection
+ * alerts ; leur lecture est une requête indexée au lieu d'une relecture de l'historique.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnomalyDetectionService {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int MAX_ALERTS = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${healthsync.anomaly.enabled:true}")
+    private boolean enabled;
+
+    // Poids des nouvelles mesures (0.1 ≈ fenêtre glissante d'une vingtaine de mesures)
+    @Value("${healthsync.anomaly.ewma-alpha:0.1}")
+    private double alpha;
+
+    @Value("${healthsync.anomaly.z-threshold:3.0}")
+    private double zThreshold;
+
+    // Nombre de mesures avant que la référence ne serve au z-score
+    @Value("${healthsync.anomaly.min-samples:10}")
+    private long minSamples;
+
+    private record Reading(VitalMetric metric, String date, Instant time, double value, Double secondaryValue) {
+    }
+
+    @EventListener
+    public void onBiometricDataSaved(BiometricDataSavedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            detect(event.records());
+        } catch (Exception e) {
+            // Vue dérivée : ne doit pas faire échouer l'ingestion
+            log.warn("⚠️ Détection d'anomalies non effectuée: {}", e.getMessage());
+        }
+    }
+
+    public List<Alert> findAlerts(String email, Instant from, Instant to, Alert.Severity severity, int limit) {
+        Criteria criteria = Criteria.where("email").is(email);
+        if (from != null || to != null) {
+            Criteria time = criteria.and("time");
+            if (from != null) {
+                time.gte(from);
+            }
+            if (to != null) {
+                time.lt(to);
+            }
+        }
+        if (severity != null) {
+            criteria.and("severity").is(severity);
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "time"))
+                .limit(Math.min(limit, MAX_ALERTS));
+        return mongoTemplate.find(query, Alert.class);
+    }
+
+    void detect(List<BiometricData> records) {
+        // email|métrique → mesures, dans l'ordre chronologique
+        Map<String, List<Reading>> series = new LinkedHashMap<>();
+        for (BiometricData day : records) {
+            for (Reading reading : readingsOf(day)) {
+                series.computeIfAbsent(VitalBaseline.idOf(day.getEmail(), reading.metric()), id -> new ArrayList<>())
+                        .add(reading);
+            }
+        }
+
+        int written = 0;
+        for (Map.Entry<String, List<Reading>> entry : series.entrySet()) {
+            List<Reading> readings = entry.getValue();
+            readings.sort(Comparator.comparing(Reading::time));
+            String email = entry.getKey().substring(0, entry.getKey().lastIndexOf('|'));
+
+            List<Alert> alerts = new ArrayList<>();
+            for (Reading reading : readings) {
+                AnomalyRules.Finding finding = AnomalyRules.check(reading.metric(), reading.value(), reading.secondaryValue());
+                if (finding != null) {
+                    alerts.add(alert(email, reading, Alert.Rule.RANGE, finding.severity(), finding.message(), null));
+                }
+            }
+            alerts.addAll(updateBaseline(entry.getKey(), email, readings));
+
+            for (Alert alert : alerts) {
+                mongoTemplate.save(alert);
+            }
+            written += alerts.size();
+        }
+        if (written > 0) {
+            log.info("🚨 {} alerte(s) détectée(s) sur {} jours reçus", written, records.size());
+        }
+    }
+
+    /**
+     * Applique les nouvelles mesures à la référence et renvoie les alertes z-score.
+     * Les mesures antérieures à la dernière prise en compte sont ignorées,
+     * si bien qu'une re-synchronisation ne fausse pas la référence.
+     */
+    private List<Alert> updateBaseline(String id, String email, List<Reading> readings) {
+        for (int attempt = 1; ; attempt++) {
+            VitalBaseline baseline = mongoTemplate.findById(id, VitalBaseline.class);
+            if (baseline == null) {
+                baseline = new VitalBaseline(id, null, email, readings.get(0).metric(), 0, 0, 0, null);
+            }
+
+            List<Alert> alerts = new ArrayList<>();
+            boolean changed = false;
+            for (Reading reading : readings) {
+                if (baseline.getLastTime() != null && !reading.time().isAfter(baseline.getLastTime())) {
+                    continue;
+                }
+                Double z = baseline.zScore(reading.value(), minSamples);
+                if (z != null && Math.abs(z) >= zThreshold) {
+                    alerts.add(alert(email, reading, Alert.Rule.Z_SCORE, Alert.Severity.WARNING,
+                            String.format(Locale.ROOT, "Valeur inhabituelle pour cet utilisateur (%.1f, habituellement %.1f ± %.1f)",
+                                    reading.value(), baseline.getMean(), Math.sqrt(baseline.getVariance())), z));
+                }
+                baseline.update(reading.value(), alpha);
+                baseline.setLastTime(reading.time());
+                changed = true;
+            }
+            if (!changed) {
+                return alerts;
+            }
+
+            try {
+                mongoTemplate.save(baseline);
+                return alerts;
+            } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+                // Écriture concurrente sur la même référence : on relit et on réapplique
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Mesures surveillées d'un jour : FC moyenne du jour (comme detect_anomalies,
+     * la FC instantanée variant trop à l'effort), SpO2, température et tension
+     */
+    private static List<Reading> readingsOf(BiometricData day) {
+        List<Reading> readings = new ArrayList<>();
+        if (day.getAvgHeartRate() != null && day.getAvgHeartRate() > 0 && day.getDay() != null) {
+            readings.add(new Reading(VitalMetric.HEART_RATE, day.getDate(),
+                    day.getDay().atStartOfDay().toInstant(ZoneOffset.UTC), day.getAvgHeartRate(), null));
+        }
+        if (day.getOxygenSaturation() != null) {
+            for (BiometricData.OxygenSaturationRecord o2 : day.getOxygenSaturation()) {
+                add(readings, VitalMetric.OXYGEN_SATURATION, day.getDate(), o2.getTime(), o2.getPercentage(), null);
+            }
+        }
+        if (day.getBodyTemperature() != null) {
+            for (BiometricData.BodyTemperatureRecord temp : day.getBodyTemperature()) {
+                add(readings, VitalMetric.BODY_TEMPERATURE, day.getDate(), temp.getTime(), temp.getTemperature(), null);
+            }
+        }
+        if (day.getBloodPressure() != null) {
+            for (BiometricData.BloodPressureRecord bp : day.getBloodPressure()) {
+                add(readings, VitalMetric.BLOOD_PRESSURE, day.getDate(), bp.getTime(), bp.getSystolic(), bp.getDiastolic());
+            }
+        }
+        return readings;
+    }
+
+    private static void add(List<Reading> readings, VitalMetric metric, String date, String time,
+                            Double value, Double secondaryValue) {
+        Instant at = BiometricTimes.parseInstant(time);
+        if (at != null && value != null) {
+            readings.add(new Reading(metric, date, at, value, secondaryValue));
+        }
+    }
+
+    private static Alert alert(String email, Reading reading, Alert.Rule rule, Alert.Severity severity,
+                               String message, Double zScore) {
+        return new Alert(Alert.idOf(email, reading.metric(), reading.time(), rule), email, reading.metric(),
+                reading.date(), reading.time(), rule, severity, message, reading.value(), reading.secondaryValue(),
+                zScore, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.Alert;
+import com.example.healthsync.model.VitalMetric;
+
+import java.util.Locale;
+
+/**
+ * Seuils médicaux absolus, repris de detect_anomalies (model-ai-for-userMetricsAnalyze)
+ */
+final class AnomalyRules {
+
+    record Finding(Alert.Severity severity, String message) {
+    }
+
+    private AnomalyRules() {
+    }
+
+    /**
+     * @param secondaryValue diastolique pour la tension, null sinon
+     * @return null si la valeur est dans les normes
+     */
+    static Finding check(VitalMetric metric, double value, Double secondaryValue) {
+        switch (metric) {
+            case HEART_RATE:
+                if (value < 50) {
+                    return new Finding(Alert.Severity.WARNING, "Bradycardie détectée (FC < 50 bpm)");
+                }
+                if (value > 110) {
+                    return new Finding(Alert.Severity.WARNING, "Tachycardie détectée (FC > 110 bpm)");
+                }
+                return null;
+            case OXYGEN_SATURATION:
+                if (value < 90) {
+                    return new Finding(Alert.Severity.CRITICAL, "Hypoxie sévère (SpO2 < 90%)");
+                }
+                if (value < 95) {
+                    return new Finding(Alert.Severity.WARNING, "Oxygénation sous-optimale (SpO2 < 95%)");
+                }
+                return null;
+            case BODY_TEMPERATURE:
+                if (value >= 38.0) {
+                    return new Finding(Alert.Severity.WARNING, String.format(Locale.ROOT, "Fièvre détectée (%.1f°C)", value));
+                }
+                if (value < 36.0) {
+                    return new Finding(Alert.Severity.WARNING, String.format(Locale.ROOT, "Hypothermie (%.1f°C)", value));
+                }
+                return null;
+            case BLOOD_PRESSURE:
+                double diastolic = secondaryValue == null ? 80 : secondaryValue;
+                String reading = String.format(Locale.ROOT, "%.0f/%.0f", value, diastolic);
+                if (value >= 180 || diastolic >= 120) {
+                    return new Finding(Alert.Severity.CRITICAL, "Crise hypertensive (TA ≥ 180/120)");
+                }
+                if (value >= 140 || diastolic >= 90) {
+                    return new Finding(Alert.Severity.WARNING, "Hypertension (" + reading + ")");
+                }
+                if (value < 90 || diastolic < 60) {
+                    return new Finding(Alert.Severity.WARNING, "Hypotension (" + reading + ")");
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.healthsync.service;
+
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Segment d'archive d'un utilisateur : jours biométriques anciens, stockés par colonnes.
+ * <pre>
+ * en-tête     : magic "HSEG", version, email, nombre de jours, nombre de blocs, noms des colonnes
+ * index       : jour (epochDay, trié), bloc, ligne dans le bloc — int[nombre de jours] chacune
+ * répertoire  : par bloc puis par colonne : position dans le fichier, taille compressée, taille décompressée
+ * données     : par bloc d'environ 64 Ko de jours, une colonne par champ de premier niveau
+ *               (document BSON {ligne: valeur}, lignes sans ce champ absentes), compressée (deflate)
+ * </pre>
+ * Les valeurs d'un même champ sont contiguës (meilleure compression), et une lecture projetée
+ * (ex: contentHash seul) ne décompresse que les colonnes demandées des blocs concernés.
+ * L'index de largeur fixe permet une recherche dichotomique directement dans le fichier projeté en mémoire.
+ */
+final class ArchiveSegment {
+
+    record Day(LocalDate date, BsonDocument document) {
+    }
+
+    static final String SUFFIX = ".hseg";
+
+    private static final int MAGIC = 0x48534547;  // "HSEG"
+    private static final short VERSION = 2;
+    private static final int BLOCK_BYTES = 64 * 1024;
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    private final MappedByteBuffer buffer;
+    private final String email;
+    private final int dayCount;
+    private final int blockCount;
+    private final List<String> columns;
+    private final int daysAt;
+    private final int chunksAt;
+
+    private ArchiveSegment(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+            throw new IOException("Segment d'archive invalide");
+        }
+        int at = 6;
+        this.email = string(at);
+        at += 4 + buffer.getInt(at);
+        this.dayCount = buffer.getInt(at);
+        this.blockCount = buffer.getInt(at + 4);
+        int columnCount = buffer.getInt(at + 8);
+        at += 12;
+        List<String> names = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            names.add(string(at));
+            at += 4 + buffer.getInt(at);
+        }
+        this.columns = List.copyOf(names);
+        this.daysAt = at;
+        this.chunksAt = daysAt + 3 * 4 * dayCount;
+    }
+
+    /**
+     * Écrit un segment ; les jours doivent être triés par date croissante, sans doublon
+     */
+    static void write(Path target, String email, List<Day> days) throws IOException {
+        // Colonnes : champs de premier niveau, dans l'ordre de première apparition
+        Map<String, Integer> columnOf = new LinkedHashMap<>();
+        for (int i = 0; i < days.size(); i++) {
+            if (i > 0 && !days.get(i).date().isAfter(days.get(i - 1).date())) {
+                throw new IllegalArgumentException("Jours non triés: " + days.get(i).date());
+            }
+            for (String field : days.get(i).document().keySet()) {
+                columnOf.putIfAbsent(field, columnOf.size());
+            }
+        }
+        int columnCount = columnOf.size();
+
+        int[] blockOf = new int[days.size()];
+        int[] rowOf = new int[days.size()];
+        List<byte[][]> chunks = new ArrayList<>();
+        List<int[]> rawSizes = new ArrayList<>();
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            BsonDocument[] block = newBlock(columnCount);
+            int blockBytes = 0;
+            int row = 0;
+            for (int i = 0; i < days.size(); i++) {
+                BsonDocument document = days.get(i).document();
+                blockOf[i] = chunks.size();
+                rowOf[i] = row;
+                String key = Integer.toString(row++);
+                for (Map.Entry<String, BsonValue> field : document.entrySet()) {
+                    block[columnOf.get(field.getKey())].put(key, field.getValue());
+                }
+                blockBytes += size(document);
+                if (blockBytes >= BLOCK_BYTES || i == days.size() - 1) {
+                    byte[][] compressed = new byte[columnCount][];
+                    int[] raw = new int[columnCount];
+                    for (int column = 0; column < columnCount; column++) {
+                        if (!block[column].isEmpty()) {
+                            byte[] bytes = bytes(block[column]);
+                            raw[column] = bytes.length;
+                            compressed[column] = deflate(deflater, bytes);
+                        }
+                    }
+                    chunks.add(compressed);
+                    rawSizes.add(raw);
+                    block = newBlock(columnCount);
+                    blockBytes = 0;
+                    row = 0;
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeInt(MAGIC);
+        headerOut.writeShort(VERSION);
+        writeString(headerOut, email);
+        headerOut.writeInt(days.size());
+        headerOut.writeInt(chunks.size());
+        headerOut.writeInt(columnCount);
+        for (String column : columnOf.keySet()) {
+            writeString(headerOut, column);
+        }
+        long dataAt = header.size() + 3L * 4 * days.size() + 16L * chunks.size() * columnCount;
+
+        try (OutputStream file = Files.newOutputStream(target);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            header.writeTo(out);
+            for (Day day : days) {
+                out.writeInt((int) day.date().toEpochDay());
+            }
+            for (int block : blockOf) {
+                out.writeInt(block);
+            }
+            for (int row : rowOf) {
+                out.writeInt(row);
+            }
+            // Colonne absente d'un bloc : taille compressée 0
+            long position = dataAt;
+            for (int block = 0; block < chunks.size(); block++) {
+                for (int column = 0; column < columnCount; column++) {
+                    byte[] chunk = chunks.get(block)[column];
+                    out.writeLong(position);
+                    out.writeInt(chunk == null ? 0 : chunk.length);
+                    out.writeInt(rawSizes.get(block)[column]);
+                    position += chunk == null ? 0 : chunk.length;
+                }
+            }
+            for (byte[][] block : chunks) {
+                for (byte[] chunk : block) {
+                    if (chunk != null) {
+                        out.write(chunk);
+                    }
+                }
+            }
+        }
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        // La projection reste valide après fermeture du canal
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ArchiveSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    String email() {
+        return email;
+    }
+
+    int dayCount() {
+        return dayCount;
+    }
+
+    List<String> columns() {
+        return columns;
+    }
+
+    /**
+     * Jours archivés dans [from, to] (bornes incluses, null = ouverte), par date croissante
+     */
+    List<LocalDate> days(LocalDate from, LocalDate to) {
+        List<LocalDate> days = new ArrayList<>();
+        for (int i = lowerBound(from); i < dayCount; i++) {
+            LocalDate day = LocalDate.ofEpochDay(epochDay(i));
+            if (to != null && day.isAfter(to)) {
+                break;
+            }
+            days.add(day);
+        }
+        return days;
+    }
+
+    /**
+     * Documents des jours demandés (absents ignorés), réduits aux champs demandés (null = tous) ;
+     * chaque colonne d'un bloc n'est décompressée qu'une fois
+     */
+    List<Day> read(Collection<LocalDate> dates, Set<String> fields) throws IOException {
+        List<Integer> wanted = new ArrayList<>(columns.size());
+        for (int column = 0; column < columns.size(); column++) {
+            if (fields == null || fields.contains(columns.get(column))) {
+                wanted.add(column);
+            }
+        }
+
+        Map<Integer, BsonDocument[]> inflated = new LinkedHashMap<>();
+        List<Day> days = new ArrayList<>(dates.size());
+        for (LocalDate date : dates) {
+            int index = lowerBound(date);
+            if (index >= dayCount || epochDay(index) != date.toEpochDay()) {
+                continue;
+            }
+            int blockNo = index(1, index);
+            BsonDocument[] block = inflated.get(blockNo);
+            if (block == null) {
+                block = new BsonDocument[wanted.size()];
+                for (int i = 0; i < wanted.size(); i++) {
+                    block[i] = inflateChunk(blockNo, wanted.get(i));
+                }
+                inflated.put(blockNo, block);
+            }
+
+            String row = Integer.toString(index(2, index));
+            BsonDocument document = new BsonDocument();
+            for (int i = 0; i < wanted.size(); i++) {
+                BsonValue value = block[i] == null ? null : block[i].get(row);
+                if (value != null) {
+                    document.put(columns.get(wanted.get(i)), value);
+                }
+            }
+            days.add(new Day(date, document));
+        }
+        return days;
+    }
+
+    private int lowerBound(LocalDate from) {
+        if (from == null) {
+            return 0;
+        }
+        long target = from.toEpochDay();
+        int low = 0;
+        int high = dayCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (epochDay(middle) < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int epochDay(int index) {
+        return index(0, index);
+    }
+
+    private int index(int column, int index) {
+        return buffer.getInt(daysAt + 4 * (column * dayCount + index));
+    }
+
+    private String string(int at) {
+        byte[] bytes = new byte[buffer.getInt(at)];
+        buffer.get(at + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return null si la colonne est absente du bloc
+     */
+    private BsonDocument inflateChunk(int blockNo, int column) throws IOException {
+        int at = chunksAt + 16 * (blockNo * columns.size() + column);
+        long position = buffer.getLong(at);
+        int compressed = buffer.getInt(at + 8);
+        int raw = buffer.getInt(at + 12);
+        if (compressed == 0) {
+            return null;
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice((int) position, compressed));
+            byte[] chunk = new byte[raw];
+            int read = 0;
+            while (read < raw && !inflater.finished()) {
+                read += inflater.inflate(chunk, read, raw - read);
+            }
+            if (read != raw) {
+                throw new IOException("Bloc d'archive tronqué: " + read + "/" + raw + " octets");
+            }
+            return new RawBsonDocument(chunk);
+        } catch (DataFormatException e) {
+            throw new IOException("Bloc d'archive corrompu", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static BsonDocument[] newBlock(int columnCount) {
+        BsonDocument[] block = new BsonDocument[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            block[column] = new BsonDocument();
+        }
+        return block;
+    }
+
+    private static int size(BsonDocument document) {
+        if (document instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining();
+        }
+        return bytes(document).length;
+    }
+
+    private static byte[] bytes(BsonDocument document) {
+        BasicOutputBuffer out = new BasicOutputBuffer();
+        CODEC.encode(new BsonBinaryWriter(out), document, EncoderContext.builder().build());
+        return out.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] input) {
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(chunk);
+            out.write(chunk, 0, length);
+        }
+        return out.toByteArray();
+    }
+}
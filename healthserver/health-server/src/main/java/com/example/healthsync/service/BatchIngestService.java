@@ -0,0 +1,122 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.BatchIngestResult;
+import com.example.healthsync.dto.BatchIngestResult.EnvelopeResult;
+import com.example.healthsync.dto.BatchIngestResult.Status;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HealthData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ingestion multi-utilisateurs (tablettes de clinique, intégrations partenaires) :
+ * les jours de toutes les enveloppes sont regroupés en écritures groupées de
+ * chunk-days jours au plus, et chaque enveloppe reçoit son propre statut.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchIngestService {
+
+    private final BiometricDataService biometricDataService;
+    private final IngestMetrics ingestMetrics;
+
+    @Value("${healthsync.ingest.batch.chunk-days:500}")
+    private int chunkDays;
+
+    public BatchIngestResult ingest(List<HealthData> envelopes) {
+        LocalDateTime receivedAt = LocalDateTime.now();
+        List<EnvelopeResult> results = new ArrayList<>(envelopes.size());
+
+        // Jours convertis en attente d'écriture et enveloppe d'origine de chacun
+        List<BiometricData> chunk = new ArrayList<>(chunkDays);
+        List<EnvelopeResult> owners = new ArrayList<>(chunkDays);
+        int bulkWrites = 0;
+
+        for (HealthData envelope : envelopes) {
+            EnvelopeResult result = new EnvelopeResult(envelope == null ? null : envelope.getEmail(), Status.OK, 0, 0, null);
+            results.add(result);
+
+            List<BiometricData> converted;
+            try {
+                converted = convert(envelope, receivedAt);
+            } catch (RuntimeException e) {
+                // Une enveloppe mal formée n'empêche pas l'écriture des autres
+                result.setStatus(Status.REJECTED);
+                result.setError(e.getMessage());
+                continue;
+            }
+            result.setDays(converted.size());
+
+            for (BiometricData day : converted) {
+                chunk.add(day);
+                owners.add(result);
+                if (chunk.size() >= chunkDays) {
+                    flush(chunk, owners);
+                    bulkWrites++;
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flush(chunk, owners);
+            bulkWrites++;
+        }
+
+        int daysWritten = 0;
+        for (EnvelopeResult result : results) {
+            if (result.getStatus() == Status.OK && result.getDaysWritten() < result.getDays()) {
+                result.setStatus(result.getDaysWritten() == 0 ? Status.FAILED : Status.PARTIAL);
+                result.setError("Écriture MongoDB échouée pour "
+                        + (result.getDays() - result.getDaysWritten()) + " jour(s)");
+            }
+            daysWritten += result.getDaysWritten();
+        }
+
+        log.info("📦 Lot ingéré: {} enveloppes, {} jours écrits en {} écritures groupées",
+                envelopes.size(), daysWritten, bulkWrites);
+        return new BatchIngestResult(envelopes.size(), daysWritten, bulkWrites, results);
+    }
+
+    private List<BiometricData> convert(HealthData envelope, LocalDateTime receivedAt) {
+        if (envelope == null) {
+            throw new IllegalArgumentException("Enveloppe vide");
+        }
+        String email = envelope.getEmail();
+        if (email == null || email.isBlank()) {
+            throw new IllegalArgumentException("Email utilisateur manquant");
+        }
+        if (envelope.getDailyData() == null || envelope.getDailyData().isEmpty()) {
+            throw new IllegalArgumentException("Aucune donnée quotidienne à sauvegarder");
+        }
+
+        return ingestMetrics.timeConvert(() -> {
+            List<BiometricData> converted = new ArrayList<>(envelope.getDailyData().size());
+            for (HealthData.DailyData day : envelope.getDailyData()) {
+                if (day == null || day.getDate() == null) {
+                    throw new IllegalArgumentException("Jour sans date");
+                }
+                converted.add(biometricDataService.toBiometricData(email, day, receivedAt));
+            }
+            return converted;
+        });
+    }
+
+    private void flush(List<BiometricData> chunk, List<EnvelopeResult> owners) {
+        Set<Integer> failed = biometricDataService.upsertAllReportingFailures(chunk);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!failed.contains(i)) {
+                EnvelopeResult owner = owners.get(i);
+                owner.setDaysWritten(owner.getDaysWritten() + 1);
+            }
+        }
+        chunk.clear();
+        owners.clear();
+    }
+}
@@ -0,0 +1,388 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRecordType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Archivage à froid : les jours plus anciens que healthsync.archive.after-days sont
+ * écrits dans un segment compressé par colonnes sur disque (un répertoire par utilisateur,
+ * voir ArchiveSegment), puis supprimés de biometric_data. Chaque passage réécrit le segment
+ * de l'utilisateur (jours déjà archivés + nouveaux jours) : un seul segment par utilisateur.
+ * Les lectures de BiometricDataService fusionnent ensuite MongoDB et l'archive ; à date égale,
+ * MongoDB l'emporte (jour ré-synchronisé après archivage).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BiometricArchiveService {
+
+    // Le jour (date locale de l'app) peut différer de la date UTC d'un enregistrement
+    private static final int DAY_MARGIN = 1;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${healthsync.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${healthsync.archive.dir:archive}")
+    private String directory;
+
+    @Value("${healthsync.archive.after-days:730}")
+    private int afterDays;
+
+    // Segments projetés en mémoire gardés ouverts ; un segment évincé est libéré par le GC
+    @Value("${healthsync.archive.open-segments:256}")
+    private long openSegments;
+
+    private Cache<Path, ArchiveSegment> segments;
+
+    @PostConstruct
+    void init() {
+        segments = Caffeine.newBuilder()
+                .maximumSize(openSegments)
+                .build();
+    }
+
+    @Scheduled(cron = "${healthsync.archive.cron:0 0 4 * * SUN}")
+    void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Un utilisateur en échec n'est pas repris dans ce passage
+            Set<String> failed = new HashSet<>();
+            int archived;
+            int failedBefore;
+            do {
+                failedBefore = failed.size();
+                archived = archiveBatch(100, failed);
+            } while (archived > 0 || failed.size() > failedBefore);
+        } catch (Exception e) {
+            log.error("❌ Archivage planifié interrompu", e);
+        }
+    }
+
+    /**
+     * Archive les jours anciens d'au plus {@code users} utilisateurs, à rappeler jusqu'à 0
+     * @return nombre de jours archivés (et supprimés de MongoDB)
+     */
+    public int archiveBatch(int users) {
+        return archiveBatch(users, new HashSet<>());
+    }
+
+    /**
+     * @param failed utilisateurs à ignorer, complété par ceux dont l'archivage échoue
+     */
+    int archiveBatch(int users, Set<String> failed) {
+        LocalDate cutoff = LocalDate.now().minusDays(afterDays);
+        List<String> emails = mongoTemplate.findDistinct(Query.query(Criteria.where("day").lt(cutoff)),
+                "email", BiometricData.class, String.class);
+
+        int archived = 0;
+        int attempted = 0;
+        for (String email : emails) {
+            if (attempted == users) {
+                break;
+            }
+            if (failed.contains(email)) {
+                continue;
+            }
+            attempted++;
+            try {
+                archived += archiveUser(email, cutoff);
+            } catch (Exception e) {
+                // Les jours restent dans MongoDB : rien n'est perdu, l'utilisateur sera repris au prochain passage
+                failed.add(email);
+                log.error("❌ Archivage de {} échoué: {}", email, e.getMessage(), e);
+            }
+        }
+        log.info("🧊 Archivage: {} jours archivés pour {} utilisateurs (avant le {}), {} en échec",
+                archived, attempted, cutoff, failed.size());
+        return archived;
+    }
+
+    int archiveUser(String email, LocalDate cutoff) throws IOException {
+        // À date égale (copies antérieures à l'index unique), la plus récente l'emporte
+        Query old = Query.query(Criteria.where("email").is(email).and("day").lt(cutoff))
+                .with(Sort.by(Sort.Direction.ASC, "date").and(Sort.by(Sort.Direction.ASC, "receivedAt")));
+        Codec<Document> codec = documentCodec();
+
+        TreeMap<LocalDate, BsonDocument> days = new TreeMap<>();
+        List<Document> archivedKeys = new ArrayList<>();
+        try (Stream<Document> stream = mongoTemplate.stream(old, Document.class,
+                mongoTemplate.getCollectionName(BiometricData.class))) {
+            stream.forEach(document -> {
+                days.put(LocalDate.parse(document.getString("date")), new RawBsonDocument(document, codec));
+                archivedKeys.add(new Document("_id", document.get("_id")).append("receivedAt", document.get("receivedAt")));
+            });
+        }
+        if (days.isEmpty()) {
+            return 0;
+        }
+        Set<String> archivedDates = new HashSet<>();
+        days.keySet().forEach(date -> archivedDates.add(date.toString()));
+        int fresh = days.size();
+
+        // Jours déjà archivés : MongoDB l'emporte à date égale
+        List<Path> previous = segmentPaths(email);
+        for (Path path : previous) {
+            ArchiveSegment segment = segment(path);
+            for (ArchiveSegment.Day day : segment.read(segment.days(null, null), null)) {
+                days.putIfAbsent(day.date(), day.document());
+            }
+        }
+
+        // Écriture atomique, puis relecture avant de supprimer quoi que ce soit de MongoDB
+        Path userDirectory = Files.createDirectories(userDirectory(email));
+        Path target = userDirectory.resolve(String.format("%013d", System.currentTimeMillis()) + ArchiveSegment.SUFFIX);
+        Path temporary = userDirectory.resolve(target.getFileName() + ".tmp");
+        List<ArchiveSegment.Day> merged = new ArrayList<>(days.size());
+        days.forEach((date, document) -> merged.add(new ArchiveSegment.Day(date, document)));
+        ArchiveSegment.write(temporary, email, merged);
+        if (ArchiveSegment.open(temporary).dayCount() != merged.size()) {
+            Files.deleteIfExists(temporary);
+            throw new IOException("Segment d'archive incomplet pour " + email);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+
+        // Le nouveau segment contient tout : les anciens sont remplacés
+        for (Path path : previous) {
+            if (!path.equals(target)) {
+                segments.invalidate(path);
+                Files.deleteIfExists(path);
+            }
+        }
+
+        // Un jour ré-écrit entre-temps (receivedAt différent) reste dans MongoDB et prime à la lecture
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BiometricData.class);
+        for (Document key : archivedKeys) {
+            ops.remove(Query.query(Criteria.where("_id").is(key.get("_id")).and("receivedAt").is(key.get("receivedAt"))));
+        }
+        int removed = ops.execute().getDeletedCount();
+        // Jours sortis de biometric_data : les agrégats population sont à recalculer
+        eventPublisher.publishEvent(new BiometricDaysChangedEvent(archivedDates));
+
+        log.info("🧊 {}: {} jours archivés ({} au total) dans {} ({} octets), {} supprimés de MongoDB",
+                email, fresh, merged.size(), target.getFileName(), Files.size(target), removed);
+        return removed;
+    }
+
+    /**
+     * Jours archivés dans [from, to] (null = borne ouverte), du plus récent au plus ancien
+     * @param fields champs à conserver (null = document complet) ; la date est toujours incluse
+     */
+    public List<BiometricData> findArchived(String email, LocalDate from, LocalDate to, int limit, List<String> fields) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        TreeSet<LocalDate> dates = new TreeSet<>(Comparator.reverseOrder());
+        for (Path path : segmentPaths(email)) {
+            dates.addAll(segment(path).days(from, to));
+        }
+        return findArchived(email, dates.stream().limit(limit).toList(), fields);
+    }
+
+    /**
+     * Jours archivés parmi les dates demandées (absentes ignorées), du plus récent au plus ancien
+     * @param fields champs à conserver (null = document complet) ; la date est toujours incluse
+     */
+    public List<BiometricData> findArchived(String email, Collection<LocalDate> dates, List<String> fields) {
+        List<BiometricData> days = new ArrayList<>();
+        for (BsonDocument document : read(email, dates, fields)) {
+            days.add(mongoTemplate.getConverter().read(BiometricData.class, toDocument(document)));
+        }
+        days.sort(Comparator.comparing(BiometricData::getDate).reversed());
+        return days;
+    }
+
+    /**
+     * Enregistrements archivés touchant [from, to), même règle que la requête MongoDB (chevauchement pour
+     * les intervalles), pour les jours absents de {@code skipDates} (jours ré-synchronisés dans MongoDB, qui l'emportent)
+     */
+    public List<Object> findArchivedRecords(String email, BiometricRecordType type, Instant from, Instant to,
+                                            Set<String> skipDates) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (Path path : segmentPaths(email)) {
+            dates.addAll(segment(path).days(dayOf(from).minusDays(DAY_MARGIN), dayOf(to).plusDays(DAY_MARGIN)));
+        }
+        dates.removeIf(date -> skipDates.contains(date.toString()));
+
+        List<Object> records = new ArrayList<>();
+        for (BsonDocument day : read(email, dates, List.of(type.getField()))) {
+            BsonValue list = day.get(type.getField());
+            if (!(list instanceof BsonArray array)) {
+                continue;
+            }
+            for (BsonValue element : array) {
+                if (!element.isDocument()) {
+                    continue;
+                }
+                if (inWindow(element.asDocument(), type, from, to)) {
+                    records.add(mongoTemplate.getConverter().read(type.getRecordClass(), toDocument(element.asDocument())));
+                }
+            }
+        }
+        return records;
+    }
+
+    private static boolean inWindow(BsonDocument record, BiometricRecordType type, Instant from, Instant to) {
+        BsonValue start = record.get(type.getTimeField());
+        if (start == null || !start.isDateTime()) {
+            return false;
+        }
+        long startMillis = start.asDateTime().getValue();
+        BsonValue end = type.isInterval() ? record.get(type.getEndTimeField()) : null;
+        if (end == null || !end.isDateTime()) {
+            return startMillis >= from.toEpochMilli() && startMillis < to.toEpochMilli();
+        }
+        return startMillis < to.toEpochMilli() && end.asDateTime().getValue() > from.toEpochMilli();
+    }
+
+    /**
+     * Dates archivées de l'utilisateur (yyyy-MM-dd)
+     */
+    public Set<String> archivedDates(String email) {
+        Set<String> dates = new HashSet<>();
+        for (Path path : segmentPaths(email)) {
+            segment(path).days(null, null).forEach(day -> dates.add(day.toString()));
+        }
+        return dates;
+    }
+
+    public long countArchived(String email) {
+        return archivedDates(email).size();
+    }
+
+    /**
+     * Documents archivés des dates demandées ; le segment le plus récent l'emporte pour une même date
+     */
+    private List<BsonDocument> read(String email, Collection<LocalDate> dates, List<String> fields) {
+        List<Path> paths = segmentPaths(email);
+        if (paths.isEmpty() || dates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<String> keep = null;
+        if (fields != null && !fields.isEmpty()) {
+            keep = new HashSet<>(fields);
+            keep.add("_id");
+            keep.add("date");
+        }
+
+        Map<LocalDate, BsonDocument> found = new LinkedHashMap<>();
+        List<LocalDate> wanted = new ArrayList<>(new TreeSet<>(dates));
+        try {
+            for (Path path : paths) {
+                for (ArchiveSegment.Day day : segment(path).read(wanted, keep)) {
+                    found.putIfAbsent(day.date(), day.document());
+                }
+                wanted.removeAll(found.keySet());
+                if (wanted.isEmpty()) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * Segments de l'utilisateur, du plus récent au plus ancien
+     * (plusieurs seulement le temps d'un remplacement, ou après un remplacement interrompu)
+     */
+    private List<Path> segmentPaths(String email) {
+        Path userDirectory = userDirectory(email);
+        if (!Files.isDirectory(userDirectory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(userDirectory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(ArchiveSegment.SUFFIX))
+                    .sorted(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ArchiveSegment segment(Path path) {
+        return segments.get(path, p -> {
+            try {
+                return ArchiveSegment.open(p);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // L'email n'est pas utilisable tel quel comme nom de répertoire
+    private Path userDirectory(String email) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(email.getBytes(StandardCharsets.UTF_8));
+            return Paths.get(directory).resolve(HexFormat.of().formatHex(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Document toDocument(BsonDocument document) {
+        return documentCodec().decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    private Codec<Document> documentCodec() {
+        return mongoTemplate.getDb().getCodecRegistry().get(Document.class);
+    }
+
+    private static LocalDate dayOf(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC).toLocalDate();
+    }
+}
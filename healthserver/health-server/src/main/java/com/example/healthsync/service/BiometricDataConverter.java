@@ -0,0 +1,115 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HealthData;
+import com.example.healthsync.model.HeartRateSamples;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Conversion HealthData → BiometricData (sans sauvegarde).
+ * Chemin chaud de l'ingestion : listes préallouées à la bonne taille et
+ * boucles simples plutôt que stream().map().collect() (voir le benchmark
+ * JMH du profil jmh, src/jmh/java).
+ */
+final class BiometricDataConverter {
+
+    private BiometricDataConverter() {
+    }
+
+    static BiometricData convert(String email, HealthData.DailyData day, LocalDateTime receivedAt) {
+        BiometricData data = new BiometricData();
+
+        // Métadonnées
+        data.setEmail(email);
+        data.setReceivedAt(receivedAt);
+        data.setDate(day.getDate());
+        data.setContentHash(DailyDataHasher.hashOf(day));
+
+        // ✅ Données agrégées
+        data.setTotalSteps(day.getTotalSteps());
+        data.setAvgHeartRate(day.getAvgHeartRate());
+        data.setMinHeartRate(day.getMinHeartRate());
+        data.setMaxHeartRate(day.getMaxHeartRate());
+        data.setTotalDistanceKm(BiometricValues.parseDecimal(day.getTotalDistanceKm()));
+        data.setTotalSleepHours(BiometricValues.parseDecimal(day.getTotalSleepHours()));
+        data.setTotalHydrationLiters(BiometricValues.parseDecimal(day.getTotalHydrationLiters()));
+        data.setStressLevel(day.getStressLevel());
+        data.setStressScore(day.getStressScore());
+
+        // ✅ Conversion des listes détaillées
+        data.setSteps(map(day.getSteps(),
+                s -> new BiometricData.StepRecord(s.getCount(), s.getStartTime(), s.getEndTime())));
+        data.setHeartRate(map(day.getHeartRate(),
+                hr -> new BiometricData.HeartRateRecord(HeartRateSamples.of(hr.getSamples()), hr.getStartTime(), hr.getEndTime())));
+        data.setDistance(map(day.getDistance(),
+                d -> new BiometricData.DistanceRecord(d.getDistanceMeters(), d.getStartTime(), d.getEndTime())));
+        data.setSleep(map(day.getSleep(),
+                s -> new BiometricData.SleepRecord(s.getTitle(), s.getStartTime(), s.getEndTime(), s.getDurationMinutes())));
+        data.setExercise(map(day.getExercise(), BiometricDataConverter::exercise));
+        data.setOxygenSaturation(map(day.getOxygenSaturation(),
+                o2 -> new BiometricData.OxygenSaturationRecord(o2.getPercentage(), o2.getTime())));
+        data.setBodyTemperature(map(day.getBodyTemperature(),
+                temp -> new BiometricData.BodyTemperatureRecord(temp.getTemperature(), temp.getTime())));
+        data.setBloodPressure(map(day.getBloodPressure(),
+                bp -> new BiometricData.BloodPressureRecord(bp.getSystolic(), bp.getDiastolic(), bp.getTime())));
+        data.setWeight(map(day.getWeight(),
+                w -> new BiometricData.WeightRecord(w.getWeight(), w.getTime())));
+        data.setHeight(map(day.getHeight(),
+                h -> new BiometricData.HeightRecord(h.getHeight(), h.getTime())));
+        data.setHydration(map(day.getHydration(),
+                hyd -> new BiometricData.HydrationRecord(hyd.getVolumeMl(), hyd.getTime())));
+
+        BiometricDataService.applyTypedFields(data);
+        data.setHealthScore(HealthScoreCalculator.score(data));
+        data.setHealthScoreVersion(HealthScoreCalculator.VERSION);
+        return data;
+    }
+
+    private static BiometricData.ExerciseRecord exercise(HealthData.ExerciseRecord e) {
+        // Renseigné champ par champ : startAt est fixé ensuite par applyTypedFields
+        BiometricData.ExerciseRecord exercise = new BiometricData.ExerciseRecord();
+        exercise.setTitle(e.getTitle());
+        exercise.setExerciseType(e.getExerciseType());
+        exercise.setExerciseTypeName(e.getExerciseTypeName());
+        exercise.setStartTime(e.getStartTime());
+        exercise.setEndTime(e.getEndTime());
+        exercise.setDurationMinutes(e.getDurationMinutes());
+        exercise.setSteps(e.getSteps());
+        exercise.setDistanceMeters(e.getDistanceMeters());
+        exercise.setDistanceKm(BiometricValues.parseDecimal(e.getDistanceKm()));
+        exercise.setActiveCalories(e.getActiveCalories());
+        exercise.setTotalCalories(e.getTotalCalories());
+        exercise.setAvgHeartRate(e.getAvgHeartRate());
+        exercise.setMinHeartRate(e.getMinHeartRate());
+        exercise.setMaxHeartRate(e.getMaxHeartRate());
+        exercise.setAvgCadence(e.getAvgCadence());
+        exercise.setMinCadence(e.getMinCadence());
+        exercise.setMaxCadence(e.getMaxCadence());
+        exercise.setAvgSpeedKmh(e.getAvgSpeedKmh());
+        exercise.setMaxSpeedKmh(e.getMaxSpeedKmh());
+        exercise.setMinSpeedKmh(e.getMinSpeedKmh());
+        exercise.setAvgStrideLengthMeters(e.getAvgStrideLengthMeters());
+        exercise.setMinStrideLengthMeters(e.getMinStrideLengthMeters());
+        exercise.setMaxStrideLengthMeters(e.getMaxStrideLengthMeters());
+        exercise.setAvgPowerWatts(e.getAvgPowerWatts());
+        return exercise;
+    }
+
+    /**
+     * null reste null (champ absent du document)
+     */
+    private static <S, T> List<T> map(List<S> source, Function<S, T> mapper) {
+        if (source == null) {
+            return null;
+        }
+        List<T> target = new ArrayList<>(source.size());
+        for (S item : source) {
+            target.add(mapper.apply(item));
+        }
+        return target;
+    }
+}
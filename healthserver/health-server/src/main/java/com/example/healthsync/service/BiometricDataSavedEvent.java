@@ -0,0 +1,12 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+
+import java.util.List;
+
+/**
+ * Publié après chaque écriture de jours BiometricData
+ * (vues dérivées : séries temporelles, agrégats, caches...)
+ */
+public record BiometricDataSavedEvent(List<BiometricData> records) {
+}
@@ -1,19 +1,48 @@
 package com.example.healthsync.service;
 
+import com.example.healthsync.dto.BiometricPage;
+import com.example.healthsync.dto.SyncHandshakeRequest;
+import com.example.healthsync.dto.SyncHandshakeResponse;
 import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRecordType;
 import com.example.healthsync.model.HealthData;
 import com.example.healthsync.repository.BiometricDataRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -22,8 +51,28 @@ import java.util.stream.Collectors;
 public class BiometricDataService {
 
     private final BiometricDataRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BiometricSnapshotCache snapshotCache;
+    private final IngestMetrics ingestMetrics;
+    private final BiometricArchiveService archiveService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private static final int MAX_PAGE_SIZE = 366;
+
+    // Champs autorisés dans ?fields= (propriétés de BiometricData)
+    private static final Set<String> PROJECTABLE_FIELDS = Arrays.stream(BiometricData.class.getDeclaredFields())
+            .filter(field -> !Modifier.isStatic(field.getModifiers()))
+            .map(Field::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
+    // Upsert groupé sur (email, date) au lieu d'un save() par jour
+    @Value("${healthsync.ingest.bulk-upsert:true}")
+    private boolean bulkUpsert;
+
+    // Plafond de GET /fetch/records (une plage large de FC peut sinon tout remonter)
+    @Value("${healthsync.records.max-results:10000}")
+    private int maxRecords;
 
 
     /**
@@ -31,8 +80,6 @@ public class BiometricDataService {
      * Convertit HealthData → BiometricData pour MongoDB
      */
     public List<BiometricData> saveBiometricData(HealthData healthData) {
-        List<BiometricData> savedRecords = new ArrayList<>();
-
         if (healthData.getDailyData() == null || healthData.getDailyData().isEmpty()) {
             throw new IllegalArgumentException("Aucune donnée quotidienne à sauvegarder");
         }
@@ -44,132 +91,492 @@ public class BiometricDataService {
             throw new IllegalArgumentException("Email utilisateur manquant");
         }
 
-        for (HealthData.DailyData day : healthData.getDailyData()) {
+        LocalDateTime receivedAt = LocalDateTime.now();
+        List<BiometricData> records = ingestMetrics.timeConvert(() -> {
+            List<BiometricData> converted = new ArrayList<>(healthData.getDailyData().size());
+            for (HealthData.DailyData day : healthData.getDailyData()) {
+                converted.add(toBiometricData(email, day, receivedAt));
+            }
+            return converted;
+        });
+
+        return persist(records);
+    }
+
+    /**
+     * Écrit des jours déjà convertis : upsert groupé, ou un save() par jour si
+     * healthsync.ingest.bulk-upsert=false
+     */
+    public List<BiometricData> persist(List<BiometricData> records) {
+        if (bulkUpsert) {
+            return upsertAll(records);
+        }
+
+        List<BiometricData> days = collapseDuplicateDays(records, new int[records.size()]);
+        deduplicate(days);
+        List<BiometricData> savedRecords = new ArrayList<>(days.size());
+        for (BiometricData data : days) {
             try {
-                BiometricData data = new BiometricData();
-
-                // Métadonnées
-                data.setEmail(email);
-                data.setReceivedAt(LocalDateTime.now());
-                data.setDate(day.getDate());
-
-                // ✅ Données agrégées
-                data.setTotalSteps(day.getTotalSteps());
-                data.setAvgHeartRate(day.getAvgHeartRate());
-                data.setMinHeartRate(day.getMinHeartRate());
-                data.setMaxHeartRate(day.getMaxHeartRate());
-                data.setTotalDistanceKm(day.getTotalDistanceKm());
-                data.setTotalSleepHours(day.getTotalSleepHours());
-                data.setTotalHydrationLiters(day.getTotalHydrationLiters());
-                data.setStressLevel(day.getStressLevel());
-                data.setStressScore(day.getStressScore());
-
-                // ✅ Conversion des listes détaillées
-                if (day.getSteps() != null) {
-                    data.setSteps(day.getSteps().stream()
-                            .map(s -> new BiometricData.StepRecord(s.getCount(), s.getStartTime(), s.getEndTime()))
-                            .collect(Collectors.toList()));
-                }
+                // ✅ Sauvegarde dans MongoDB
+                BiometricData saved = ingestMetrics.timePersist(() -> repository.save(data));
+                savedRecords.add(saved);
 
-                if (day.getHeartRate() != null) {
-                    data.setHeartRate(day.getHeartRate().stream()
-                            .map(hr -> new BiometricData.HeartRateRecord(hr.getSamples(), hr.getStartTime(), hr.getEndTime()))
-                            .collect(Collectors.toList()));
-                }
+                log.info("✅ Sauvegardé: userId={}, date={}, id={}",
+                        data.getEmail(), data.getDate(), saved.getId());
 
-                if (day.getDistance() != null) {
-                    data.setDistance(day.getDistance().stream()
-                            .map(d -> new BiometricData.DistanceRecord(d.getDistanceMeters(), d.getStartTime(), d.getEndTime()))
-                            .collect(Collectors.toList()));
-                }
+            } catch (Exception e) {
+                log.error("❌ Erreur sauvegarde jour {}: {}", data.getDate(), e.getMessage());
+                throw new RuntimeException("Erreur lors de la sauvegarde: " + e.getMessage(), e);
+            }
+        }
 
-                if (day.getSleep() != null) {
-                    data.setSleep(day.getSleep().stream()
-                            .map(s -> new BiometricData.SleepRecord(s.getTitle(), s.getStartTime(), s.getEndTime(), s.getDurationMinutes()))
-                            .collect(Collectors.toList()));
-                }
+        ingestMetrics.recordDataPoints(savedRecords);
+        eventPublisher.publishEvent(new BiometricDataSavedEvent(savedRecords));
+        return savedRecords;
+    }
 
-                if (day.getExercise() != null) {
-                    data.setExercise(day.getExercise().stream()
-                            .map(e -> new BiometricData.ExerciseRecord(
-                                    e.getTitle(), e.getExerciseType(), e.getExerciseTypeName(),
-                                    e.getStartTime(), e.getEndTime(), e.getDurationMinutes(),
-                                    e.getSteps(), e.getDistanceMeters(), e.getDistanceKm(),
-                                    e.getActiveCalories(), e.getTotalCalories(),
-                                    e.getAvgHeartRate(), e.getMinHeartRate(), e.getMaxHeartRate(),
-                                    e.getAvgCadence(), e.getMinCadence(), e.getMaxCadence(),
-                                    e.getAvgSpeedKmh(), e.getMaxSpeedKmh(), e.getMinSpeedKmh(),
-                                    e.getAvgStrideLengthMeters(), e.getMinStrideLengthMeters(), e.getMaxStrideLengthMeters(),
-                                    e.getAvgPowerWatts()
-                            ))
-                            .collect(Collectors.toList()));
-                }
+    /**
+     * Upsert groupé (un seul aller-retour MongoDB) des jours convertis,
+     * indexé sur (email, date) : une re-synchronisation remplace les
+     * documents existants au lieu d'en créer de nouveaux.
+     * Les IDs des jours remplacés sont relus après l'écriture (le résultat groupé
+     * ne renvoie que ceux des jours insérés).
+     */
+    public List<BiometricData> upsertAll(List<BiometricData> records) {
+        if (records.isEmpty()) {
+            return records;
+        }
+        List<BiometricData> days = collapseDuplicateDays(records, new int[records.size()]);
+        deduplicate(days);
+
+        try {
+            BulkWriteResult result = ingestMetrics.timePersist(() -> replaceOps(days).execute());
+            applyUpsertIds(result, days);
+            log.info("✅ Upsert groupé: {} jours ({} insérés, {} remplacés)",
+                    days.size(), result.getUpserts().size(), result.getMatchedCount());
+        } catch (Exception e) {
+            log.error("❌ Erreur upsert groupé ({} jours): {}", days.size(), e.getMessage());
+            throw new RuntimeException("Erreur lors de la sauvegarde: " + e.getMessage(), e);
+        }
 
-                if (day.getOxygenSaturation() != null) {
-                    data.setOxygenSaturation(day.getOxygenSaturation().stream()
-                            .map(o2 -> new BiometricData.OxygenSaturationRecord(o2.getPercentage(), o2.getTime()))
-                            .collect(Collectors.toList()));
-                }
+        applyReplacedIds(days);
+        ingestMetrics.recordDataPoints(days);
+        eventPublisher.publishEvent(new BiometricDataSavedEvent(days));
+        return days;
+    }
 
-                if (day.getBodyTemperature() != null) {
-                    data.setBodyTemperature(day.getBodyTemperature().stream()
-                            .map(temp -> new BiometricData.BodyTemperatureRecord(temp.getTemperature(), temp.getTime()))
-                            .collect(Collectors.toList()));
-                }
+    /**
+     * Variante de upsertAll pour les lots multi-utilisateurs : l'écriture groupée
+     * étant non ordonnée, un jour rejeté n'empêche pas l'écriture des autres.
+     * Renvoie les index (dans records) des jours non écrits ; une copie écartée d'un jour en double
+     * suit le sort de la copie conservée.
+     */
+    public Set<Integer> upsertAllReportingFailures(List<BiometricData> records) {
+        if (records.isEmpty()) {
+            return Set.of();
+        }
+        int[] kept = new int[records.size()];
+        List<BiometricData> days = collapseDuplicateDays(records, kept);
+        deduplicate(days);
+
+        Set<Integer> failedDays = new HashSet<>();
+        try {
+            BulkWriteResult result = ingestMetrics.timePersist(() -> replaceOps(days).execute());
+            applyUpsertIds(result, days);
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> failedDays.add(error.getIndex()));
+            applyUpsertIds(e.getResult(), days);
+            log.warn("⚠️ Upsert groupé partiel: {} jours sur {} rejetés", failedDays.size(), days.size());
+        } catch (Exception e) {
+            log.error("❌ Erreur upsert groupé ({} jours): {}", days.size(), e.getMessage());
+            for (int i = 0; i < days.size(); i++) {
+                failedDays.add(i);
+            }
+        }
 
-                if (day.getBloodPressure() != null) {
-                    data.setBloodPressure(day.getBloodPressure().stream()
-                            .map(bp -> new BiometricData.BloodPressureRecord(bp.getSystolic(), bp.getDiastolic(), bp.getTime()))
-                            .collect(Collectors.toList()));
-                }
+        Set<Integer> failed = new HashSet<>();
+        for (int i = 0; i < records.size(); i++) {
+            if (failedDays.contains(kept[i])) {
+                failed.add(i);
+            }
+        }
+        if (failedDays.size() == days.size()) {
+            return failed;
+        }
 
-                if (day.getWeight() != null) {
-                    data.setWeight(day.getWeight().stream()
-                            .map(w -> new BiometricData.WeightRecord(w.getWeight(), w.getTime()))
-                            .collect(Collectors.toList()));
-                }
+        List<BiometricData> written = new ArrayList<>(days.size() - failedDays.size());
+        for (int i = 0; i < days.size(); i++) {
+            if (!failedDays.contains(i)) {
+                written.add(days.get(i));
+            }
+        }
+        applyReplacedIds(written);
+        ingestMetrics.recordDataPoints(written);
+        eventPublisher.publishEvent(new BiometricDataSavedEvent(written));
+        return failed;
+    }
 
-                if (day.getHeight() != null) {
-                    data.setHeight(day.getHeight().stream()
-                            .map(h -> new BiometricData.HeightRecord(h.getHeight(), h.getTime()))
-                            .collect(Collectors.toList()));
-                }
+    /**
+     * Un même jour (email, date) présent plusieurs fois dans un lot : seule la dernière copie reçue
+     * est écrite, l'ordre d'application d'une écriture groupée non ordonnée n'étant pas garanti.
+     * @param kept reçoit, pour chaque index de records, l'index de sa copie conservée dans le résultat
+     */
+    static List<BiometricData> collapseDuplicateDays(List<BiometricData> records, int[] kept) {
+        Map<String, Integer> last = new HashMap<>(records.size() * 2);
+        for (int i = 0; i < records.size(); i++) {
+            last.put(dayKey(records.get(i)), i);
+        }
+        if (last.size() == records.size()) {
+            for (int i = 0; i < kept.length; i++) {
+                kept[i] = i;
+            }
+            return records;
+        }
 
-                if (day.getHydration() != null) {
-                    data.setHydration(day.getHydration().stream()
-                            .map(hyd -> new BiometricData.HydrationRecord(hyd.getVolumeMl(), hyd.getTime()))
-                            .collect(Collectors.toList()));
-                }
+        List<BiometricData> days = new ArrayList<>(last.size());
+        int[] position = new int[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            if (last.get(dayKey(records.get(i))) == i) {
+                position[i] = days.size();
+                days.add(records.get(i));
+            }
+        }
+        for (int i = 0; i < records.size(); i++) {
+            kept[i] = position[last.get(dayKey(records.get(i)))];
+        }
+        log.info("🧹 Jours en double dans le lot: {} copies écartées sur {} jours",
+                records.size() - days.size(), records.size());
+        return days;
+    }
 
-                // ✅ Sauvegarde dans MongoDB
-                BiometricData saved = repository.save(data);
-                savedRecords.add(saved);
+    private static String dayKey(BiometricData data) {
+        return data.getEmail() + "|" + data.getDate();
+    }
 
-                log.info("✅ Sauvegardé: userId={}, date={}, id={}",
-                        email, data.getDate(), saved.getId());
+    /**
+     * Écarte les intervalles pas / distance / FC en double avant écriture
+     */
+    void deduplicate(List<BiometricData> records) {
+        IntervalDeduplicator.Result removed = IntervalDeduplicator.dedupe(records);
+        ingestMetrics.recordDeduplicated(removed.records(), removed.bytes());
+        if (removed.records() > 0) {
+            log.info("🧹 Doublons supprimés: {} intervalles (~{} octets) sur {} jours",
+                    removed.records(), removed.bytes(), records.size());
+        }
+    }
 
-            } catch (Exception e) {
-                log.error("❌ Erreur sauvegarde jour {}: {}", day.getDate(), e.getMessage());
-                throw new RuntimeException("Erreur lors de la sauvegarde: " + e.getMessage(), e);
+    private BulkOperations replaceOps(List<BiometricData> records) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BiometricData.class);
+        for (BiometricData data : records) {
+            Query byDay = Query.query(Criteria.where("email").is(data.getEmail()).and("date").is(data.getDate()));
+            ops.replaceOne(byDay, data, FindAndReplaceOptions.options().upsert());
+        }
+        return ops;
+    }
+
+    static void applyUpsertIds(BulkWriteResult result, List<BiometricData> records) {
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            records.get(upsert.getIndex()).setId(upsert.getId().asObjectId().getValue().toHexString());
+        }
+    }
+
+    private void applyReplacedIds(List<BiometricData> records) {
+        Query query = replacedIdsQuery(records);
+        if (query == null) {
+            return;
+        }
+        try {
+            applyReplacedIds(mongoTemplate.find(query, BiometricData.class), records);
+        } catch (Exception e) {
+            // Les jours sont écrits : seuls les IDs manqueront aux listeners
+            log.warn("⚠️ IDs des jours remplacés non relus: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Relecture des IDs des jours encore sans ID après l'upsert (jours remplacés) :
+     * un aller-retour pour tout le lot, même multi-utilisateurs
+     * @return null si tous les jours ont déjà un ID
+     */
+    static Query replacedIdsQuery(List<BiometricData> records) {
+        Map<String, List<String>> datesByEmail = new LinkedHashMap<>();
+        for (BiometricData data : records) {
+            if (data.getId() == null) {
+                datesByEmail.computeIfAbsent(data.getEmail(), email -> new ArrayList<>()).add(data.getDate());
             }
         }
+        if (datesByEmail.isEmpty()) {
+            return null;
+        }
 
-        return savedRecords;
+        List<Criteria> perUser = new ArrayList<>(datesByEmail.size());
+        datesByEmail.forEach((email, dates) -> perUser.add(Criteria.where("email").is(email).and("date").in(dates)));
+        Query query = Query.query(perUser.size() == 1 ? perUser.get(0) : new Criteria().orOperator(perUser));
+        query.fields().include("email", "date");
+        return query;
+    }
+
+    static void applyReplacedIds(List<BiometricData> stored, List<BiometricData> records) {
+        Map<String, String> ids = new HashMap<>();
+        for (BiometricData day : stored) {
+            ids.put(day.getEmail() + '|' + day.getDate(), day.getId());
+        }
+        for (BiometricData data : records) {
+            if (data.getId() == null) {
+                data.setId(ids.get(data.getEmail() + '|' + data.getDate()));
+            }
+        }
+    }
+
+    /**
+     * Convertit un jour HealthData en document BiometricData (sans le sauvegarder)
+     */
+    BiometricData toBiometricData(String email, HealthData.DailyData day, LocalDateTime receivedAt) {
+        return BiometricDataConverter.convert(email, day, receivedAt);
+    }
+
+    /**
+     * Renseigne les champs typés dérivés des champs texte (date, horodatages
+     * de tous les enregistrements détaillés), pour filtrer par plage dans MongoDB.
+     * Utilisé à l'ingestion et par le rattrapage des anciens documents.
+     */
+    public static void applyTypedFields(BiometricData data) {
+        try {
+            data.setDay(data.getDate() == null ? null : LocalDate.parse(data.getDate()));
+        } catch (DateTimeParseException e) {
+            data.setDay(null);
+        }
+
+        each(data.getSteps(), s -> {
+            s.setStartAt(BiometricTimes.parseInstant(s.getStartTime()));
+            s.setEndAt(BiometricTimes.parseInstant(s.getEndTime()));
+        });
+        each(data.getHeartRate(), hr -> {
+            hr.setStartAt(BiometricTimes.parseInstant(hr.getStartTime()));
+            hr.setEndAt(BiometricTimes.parseInstant(hr.getEndTime()));
+        });
+        each(data.getDistance(), d -> {
+            d.setStartAt(BiometricTimes.parseInstant(d.getStartTime()));
+            d.setEndAt(BiometricTimes.parseInstant(d.getEndTime()));
+        });
+        each(data.getSleep(), s -> {
+            s.setStartAt(BiometricTimes.parseInstant(s.getStartTime()));
+            s.setEndAt(BiometricTimes.parseInstant(s.getEndTime()));
+        });
+        each(data.getExercise(), e -> {
+            e.setStartAt(BiometricTimes.parseInstant(e.getStartTime()));
+            e.setEndAt(BiometricTimes.parseInstant(e.getEndTime()));
+        });
+        each(data.getOxygenSaturation(), o2 -> o2.setAt(BiometricTimes.parseInstant(o2.getTime())));
+        each(data.getBodyTemperature(), temp -> temp.setAt(BiometricTimes.parseInstant(temp.getTime())));
+        each(data.getBloodPressure(), bp -> bp.setAt(BiometricTimes.parseInstant(bp.getTime())));
+        each(data.getWeight(), w -> w.setAt(BiometricTimes.parseInstant(w.getTime())));
+        each(data.getHeight(), h -> h.setAt(BiometricTimes.parseInstant(h.getTime())));
+        each(data.getHydration(), hyd -> hyd.setAt(BiometricTimes.parseInstant(hyd.getTime())));
+    }
+
+    private static <T> void each(List<T> records, Consumer<T> action) {
+        if (records != null) {
+            records.forEach(action);
+        }
+    }
+
+    /**
+     * Delta-sync : compare les empreintes envoyées par le téléphone
+     * à celles stockées et renvoie les jours à (re)envoyer.
+     */
+    public SyncHandshakeResponse handshake(SyncHandshakeRequest request) {
+        if (request.getEmail() == null || request.getEmail().isBlank()) {
+            throw new IllegalArgumentException("Email utilisateur manquant");
+        }
+        List<SyncHandshakeRequest.DayHash> days = request.getDays() == null ? List.of() : request.getDays();
+
+        List<String> dates = new ArrayList<>(days.size());
+        for (SyncHandshakeRequest.DayHash day : days) {
+            dates.add(day.getDate());
+        }
+
+        Query query = Query.query(Criteria.where("email").is(request.getEmail()).and("date").in(dates));
+        query.fields().include("date", "contentHash");
+        Map<String, String> storedHashes = new HashMap<>();
+        for (BiometricData stored : mongoTemplate.find(query, BiometricData.class)) {
+            storedHashes.put(stored.getDate(), stored.getContentHash());
+        }
+
+        // Jours absents de MongoDB : peut-être archivés (seule la colonne contentHash est lue)
+        List<LocalDate> notInMongo = new ArrayList<>();
+        for (String date : dates) {
+            if (date != null && !storedHashes.containsKey(date)) {
+                try {
+                    notInMongo.add(LocalDate.parse(date));
+                } catch (DateTimeParseException e) {
+                    // Date illisible : signalée manquante
+                }
+            }
+        }
+        if (!notInMongo.isEmpty()) {
+            for (BiometricData archived : archiveService.findArchived(request.getEmail(), notInMongo, List.of("contentHash"))) {
+                storedHashes.put(archived.getDate(), archived.getContentHash());
+            }
+        }
+
+        List<String> missing = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        for (SyncHandshakeRequest.DayHash day : days) {
+            if (!storedHashes.containsKey(day.getDate())) {
+                missing.add(day.getDate());
+            } else if (day.getHash() == null || !day.getHash().equals(storedHashes.get(day.getDate()))) {
+                changed.add(day.getDate());
+            }
+        }
+
+        int upToDate = days.size() - missing.size() - changed.size();
+        log.info("🔄 Delta-sync {}: {} manquants, {} modifiés, {} à jour",
+                request.getEmail(), missing.size(), changed.size(), upToDate);
+        return new SyncHandshakeResponse(request.getEmail(), missing, changed, upToDate);
     }
 
     public List<BiometricData> getUserData(String email) {
-        return repository.findByEmailOrderByReceivedAtDesc(email);
+        List<BiometricData> data = repository.findByEmailOrderByReceivedAtDesc(email);
+        List<BiometricData> archived = archiveService.findArchived(email, null, null, Integer.MAX_VALUE, null);
+        if (archived.isEmpty()) {
+            return data;
+        }
+
+        // Jours archivés à la suite, sauf ceux ré-synchronisés depuis
+        Set<String> dates = data.stream().map(BiometricData::getDate).collect(Collectors.toSet());
+        List<BiometricData> merged = new ArrayList<>(data);
+        archived.stream().filter(day -> !dates.contains(day.getDate())).forEach(merged::add);
+        return merged;
+    }
+
+    /**
+     * Historique paginé, du plus récent au plus ancien.
+     * @param cursor date (exclue) à partir de laquelle reprendre, issue de nextCursor
+     * @param fields champs à renvoyer (null = document complet) ; la date est toujours incluse
+     */
+    public BiometricPage getUserDataPage(String email, String from, String to, String cursor,
+                                         int limit, List<String> fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit doit être entre 1 et " + MAX_PAGE_SIZE);
+        }
+
+        Criteria criteria = Criteria.where("email").is(email);
+        if (from != null || to != null || cursor != null) {
+            Criteria date = criteria.and("date");
+            if (from != null) {
+                date.gte(LocalDate.parse(from).toString());
+            }
+            if (to != null) {
+                date.lte(LocalDate.parse(to).toString());
+            }
+            if (cursor != null) {
+                date.lt(LocalDate.parse(cursor).toString());
+            }
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "date"))
+                .limit(limit + 1);
+        if (fields != null && !fields.isEmpty()) {
+            for (String field : fields) {
+                if (!PROJECTABLE_FIELDS.contains(field)) {
+                    throw new IllegalArgumentException("Champ inconnu: " + field);
+                }
+            }
+            query.fields().include(fields.toArray(String[]::new)).include("date");
+        }
+
+        List<BiometricData> items = mergeArchived(email, mongoTemplate.find(query, BiometricData.class),
+                from, to, cursor, limit + 1, fields);
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            nextCursor = items.get(limit - 1).getDate();
+        }
+        return new BiometricPage(items, items.size(), nextCursor);
     }
 
 
+    /**
+     * Complète une page MongoDB (triée par date décroissante) avec les jours archivés de la même plage
+     */
+    private List<BiometricData> mergeArchived(String email, List<BiometricData> items, String from, String to,
+                                              String cursor, int limit, List<String> fields) {
+        LocalDate upper = to == null ? null : LocalDate.parse(to);
+        if (cursor != null) {
+            LocalDate beforeCursor = LocalDate.parse(cursor).minusDays(1);
+            upper = upper == null || beforeCursor.isBefore(upper) ? beforeCursor : upper;
+        }
+        List<BiometricData> archived = archiveService.findArchived(email,
+                from == null ? null : LocalDate.parse(from), upper, limit, fields);
+        if (archived.isEmpty()) {
+            return items;
+        }
+
+        // MongoDB l'emporte à date égale
+        TreeMap<String, BiometricData> byDate = new TreeMap<>(Comparator.reverseOrder());
+        for (BiometricData day : items) {
+            byDate.put(day.getDate(), day);
+        }
+        for (BiometricData day : archived) {
+            byDate.putIfAbsent(day.getDate(), day);
+        }
+        return byDate.values().stream().limit(limit).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+
+    /**
+     * Enregistrements détaillés touchant une plage horaire [from, to), filtrés par MongoDB
+     * (ex: sommeil de la nuit dernière, exercices de la semaine) ; au plus maxRecords, les plus anciens d'abord
+     */
+    public List<?> findRecords(String email, BiometricRecordType type, Instant from, Instant to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Plage horaire invalide: from et to requis, from < to");
+        }
+        List<Object> records = repository.findRecordsBetween(email, type, from, to, maxRecords);
+
+        // Jours archivés de la plage (marge d'un jour, comme la requête MongoDB), sauf ceux ré-synchronisés depuis
+        String firstDay = from.atOffset(ZoneOffset.UTC).toLocalDate().minusDays(1).toString();
+        String lastDay = to.atOffset(ZoneOffset.UTC).toLocalDate().plusDays(1).toString();
+        Set<String> archivedDates = archiveService.archivedDates(email).stream()
+                .filter(date -> date.compareTo(firstDay) >= 0 && date.compareTo(lastDay) <= 0)
+                .collect(Collectors.toSet());
+        if (archivedDates.isEmpty()) {
+            return records;
+        }
+        Query live = Query.query(Criteria.where("email").is(email).and("date").in(archivedDates));
+        live.fields().include("date");
+        Set<String> liveDates = mongoTemplate.find(live, BiometricData.class).stream()
+                .map(BiometricData::getDate).collect(Collectors.toSet());
+        List<Object> archived = archiveService.findArchivedRecords(email, type, from, to, liveDates);
+        if (archived.isEmpty()) {
+            return records;
+        }
+
+        List<Object> merged = new ArrayList<>(records.size() + archived.size());
+        merged.addAll(records);
+        merged.addAll(archived);
+        merged.sort(Comparator.comparing(record -> (Instant) new BeanWrapperImpl(record).getPropertyValue(type.getTimeField()),
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return merged.size() > maxRecords ? new ArrayList<>(merged.subList(0, maxRecords)) : merged;
+    }
+
     public String getUserStats(String email) {
         long total = repository.countByEmail(email);
+        // Un jour ré-synchronisé après archivage n'est compté qu'une fois
+        Set<String> archivedDates = archiveService.archivedDates(email);
+        if (!archivedDates.isEmpty()) {
+            long resynced = mongoTemplate.count(
+                    Query.query(Criteria.where("email").is(email).and("date").in(archivedDates)), BiometricData.class);
+            total += archivedDates.size() - resynced;
+        }
         return String.format("👤 User %s: %d enregistrements", email, total);
     }
 
     public BiometricData getTodayData(String userId) {
         String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
         log.info("Recherche des données biométriques pour {} à la date {}", userId, today);
-        return repository.findTopByEmailAndDateOrderByReceivedAtDesc(userId, today);
+        return snapshotCache.getToday(userId, today);
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.healthsync.service;
+
+import java.util.Set;
+
+/**
+ * Publié après une réécriture ou suppression de jours BiometricData hors ingestion
+ * (recalcul des scores, rattrapage, compaction, archivage) : seules les vues
+ * agrégées sur la population sont à invalider, pas les vues par utilisateur
+ * alimentées par BiometricDataSavedEvent.
+ * @param dates jours concernés (yyyy-MM-dd)
+ */
+public record BiometricDaysChangedEvent(Set<String> dates) {
+}
@@ -0,0 +1,218 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.MeasurementRow;
+import com.example.healthsync.model.BiometricData;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Export de l'historique complet d'un utilisateur, une ligne par mesure.
+ * Les jours sont lus via un curseur MongoDB et écrits au fil de l'eau :
+ * la mémoire utilisée ne dépend pas de la longueur de l'historique.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BiometricExportService {
+
+    private static final int CURSOR_BATCH_SIZE = 50;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format fromParam(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Format inconnu: " + value + " (ndjson, csv)");
+            }
+        }
+    }
+
+    public void export(String email, Format format, OutputStream out) throws IOException {
+        Query query = Query.query(Criteria.where("email").is(email))
+                .with(Sort.by(Sort.Direction.ASC, "date"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (format == Format.CSV) {
+            writer.write(MeasurementRow.CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long rows = 0;
+        try (Stream<BiometricData> days = mongoTemplate.stream(query, BiometricData.class)) {
+            for (BiometricData day : (Iterable<BiometricData>) days::iterator) {
+                long[] dayRows = {0};
+                flatten(day, row -> {
+                    try {
+                        if (format == Format.CSV) {
+                            writeCsv(writer, row);
+                        } else {
+                            objectMapper.writeValue(json, row);
+                            json.flush();
+                            writer.write('\n');
+                        }
+                        dayRows[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                rows += dayRows[0];
+                // Envoi jour par jour : un client lent ralentit la lecture du curseur
+                writer.flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.info("📤 Export {} pour {}: {} lignes", format, email, rows);
+    }
+
+    /**
+     * Décompose un jour en mesures à plat (totaux journaliers puis détails)
+     */
+    static void flatten(BiometricData day, Consumer<MeasurementRow> sink) {
+        String date = day.getDate();
+
+        total(sink, date, "totalSteps", day.getTotalSteps());
+        total(sink, date, "avgHeartRate", day.getAvgHeartRate());
+        total(sink, date, "minHeartRate", day.getMinHeartRate());
+        total(sink, date, "maxHeartRate", day.getMaxHeartRate());
+        total(sink, date, "totalDistanceKm", day.getTotalDistanceKm());
+        total(sink, date, "totalSleepHours", day.getTotalSleepHours());
+        total(sink, date, "totalHydrationLiters", day.getTotalHydrationLiters());
+        if (day.getStressScore() != null) {
+            sink.accept(new MeasurementRow(date, "stressScore", null, null,
+                    day.getStressScore().doubleValue(), null, day.getStressLevel()));
+        }
+
+        for (BiometricData.StepRecord s : nonNull(day.getSteps())) {
+            sink.accept(interval(date, "steps", s.getStartTime(), s.getEndTime(),
+                    s.getCount() == null ? null : s.getCount().doubleValue(), null));
+        }
+        for (BiometricData.HeartRateRecord hr : nonNull(day.getHeartRate())) {
+            for (BiometricData.HeartRateBucket bucket : nonNull(hr.getBuckets())) {
+                // Jour compacté : une ligne par agrégat (moyenne, max en valeur secondaire, min en libellé)
+                Instant end = bucket.getStart() == null || hr.getBucketSeconds() == null
+                        ? null : bucket.getStart().plusSeconds(hr.getBucketSeconds());
+                sink.accept(new MeasurementRow(date, "heartRateBucket", bucket.getStart(), end, bucket.getAvg(),
+                        bucket.getMax() == null ? null : bucket.getMax().doubleValue(),
+                        bucket.getMin() == null ? null : "min=" + bucket.getMin()));
+            }
+            if (hr.getSamples() == null) {
+                continue;
+            }
+            Instant start = BiometricTimes.parseInstant(hr.getStartTime());
+            Instant end = BiometricTimes.parseInstant(hr.getEndTime());
+            List<Long> values = hr.getSamples().values();
+            for (int i = 0; i < values.size(); i++) {
+                Long bpm = values.get(i);
+                sink.accept(new MeasurementRow(date, "heartRate", BiometricTimes.spread(start, end, values.size(), i),
+                        null, bpm == null ? null : bpm.doubleValue(), null, null));
+            }
+        }
+        for (BiometricData.DistanceRecord d : nonNull(day.getDistance())) {
+            sink.accept(interval(date, "distanceMeters", d.getStartTime(), d.getEndTime(), d.getDistanceMeters(), null));
+        }
+        for (BiometricData.SleepRecord s : nonNull(day.getSleep())) {
+            sink.accept(new MeasurementRow(date, "sleepMinutes", BiometricTimes.parseInstant(s.getStartTime()),
+                    BiometricTimes.parseInstant(s.getEndTime()),
+                    s.getDurationMinutes() == null ? null : s.getDurationMinutes().doubleValue(), null, s.getTitle()));
+        }
+        for (BiometricData.ExerciseRecord e : nonNull(day.getExercise())) {
+            sink.accept(new MeasurementRow(date, "exerciseMinutes", BiometricTimes.parseInstant(e.getStartTime()),
+                    BiometricTimes.parseInstant(e.getEndTime()),
+                    e.getDurationMinutes() == null ? null : e.getDurationMinutes().doubleValue(),
+                    e.getActiveCalories() == null ? null : e.getActiveCalories().doubleValue(),
+                    e.getExerciseTypeName()));
+        }
+        for (BiometricData.OxygenSaturationRecord o2 : nonNull(day.getOxygenSaturation())) {
+            sink.accept(instant(date, "oxygenSaturation", o2.getTime(), o2.getPercentage(), null));
+        }
+        for (BiometricData.BodyTemperatureRecord t : nonNull(day.getBodyTemperature())) {
+            sink.accept(instant(date, "bodyTemperature", t.getTime(), t.getTemperature(), null));
+        }
+        for (BiometricData.BloodPressureRecord bp : nonNull(day.getBloodPressure())) {
+            sink.accept(instant(date, "bloodPressure", bp.getTime(), bp.getSystolic(), bp.getDiastolic()));
+        }
+        for (BiometricData.WeightRecord w : nonNull(day.getWeight())) {
+            sink.accept(instant(date, "weight", w.getTime(), w.getWeight(), null));
+        }
+        for (BiometricData.HeightRecord h : nonNull(day.getHeight())) {
+            sink.accept(instant(date, "height", h.getTime(), h.getHeight(), null));
+        }
+        for (BiometricData.HydrationRecord hyd : nonNull(day.getHydration())) {
+            sink.accept(instant(date, "hydrationMl", hyd.getTime(), hyd.getVolumeMl(), null));
+        }
+    }
+
+    private static void total(Consumer<MeasurementRow> sink, String date, String metric, Number value) {
+        if (value != null) {
+            sink.accept(new MeasurementRow(date, metric, null, null, value.doubleValue(), null, null));
+        }
+    }
+
+    private static MeasurementRow interval(String date, String metric, String start, String end,
+                                           Double value, Double secondaryValue) {
+        return new MeasurementRow(date, metric, BiometricTimes.parseInstant(start), BiometricTimes.parseInstant(end),
+                value, secondaryValue, null);
+    }
+
+    private static MeasurementRow instant(String date, String metric, String time, Double value, Double secondaryValue) {
+        return new MeasurementRow(date, metric, BiometricTimes.parseInstant(time), null, value, secondaryValue, null);
+    }
+
+    private static <T> List<T> nonNull(List<T> records) {
+        return records == null ? List.of() : records;
+    }
+
+    private static void writeCsv(Writer writer, MeasurementRow row) throws IOException {
+        writer.write(csv(row.date()));
+        writer.write(',');
+        writer.write(csv(row.metric()));
+        writer.write(',');
+        writer.write(row.start() == null ? "" : row.start().toString());
+        writer.write(',');
+        writer.write(row.end() == null ? "" : row.end().toString());
+        writer.write(',');
+        writer.write(row.value() == null ? "" : row.value().toString());
+        writer.write(',');
+        writer.write(row.secondaryValue() == null ? "" : row.secondaryValue().toString());
+        writer.write(',');
+        writer.write(csv(row.label()));
+        writer.write('\n');
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
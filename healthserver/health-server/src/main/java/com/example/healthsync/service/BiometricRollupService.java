@@ -0,0 +1,160 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRollup;
+import com.example.healthsync.model.RollupGranularity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Agrégats semaine / mois / année maintenus à l'ingestion.
+ * Une lecture coûte O(nombre de périodes) au lieu de O(nombre de jours).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BiometricRollupService {
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener
+    public void onBiometricDataSaved(BiometricDataSavedEvent event) {
+        try {
+            apply(event.records());
+        } catch (Exception e) {
+            // Vue dérivée : reconstruisible via /fetch/admin/rollups/rebuild
+            log.warn("⚠️ Agrégats non mis à jour: {}", e.getMessage());
+        }
+    }
+
+    public List<BiometricRollup> findRollups(String email, RollupGranularity granularity, String from, String to) {
+        Criteria criteria = Criteria.where("email").is(email).and("granularity").is(granularity);
+        if (from != null || to != null) {
+            Criteria bucketStart = criteria.and("bucketStart");
+            if (from != null) {
+                bucketStart.gte(granularity.bucketStart(LocalDate.parse(from)).toString());
+            }
+            if (to != null) {
+                bucketStart.lte(LocalDate.parse(to).toString());
+            }
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "bucketStart"));
+        query.fields().exclude("days", "version");
+        return mongoTemplate.find(query, BiometricRollup.class);
+    }
+
+    /**
+     * Reconstruit les agrégats d'un utilisateur depuis son historique
+     */
+    public int rebuild(String email) {
+        mongoTemplate.remove(Query.query(Criteria.where("email").is(email)), BiometricRollup.class);
+
+        Query history = Query.query(Criteria.where("email").is(email));
+        history.fields().include("email", "date", "totalSteps", "minHeartRate", "avgHeartRate", "maxHeartRate",
+                "totalSleepHours", "totalHydrationLiters");
+        int days = 0;
+        List<BiometricData> batch = new ArrayList<>();
+        try (Stream<BiometricData> stream = mongoTemplate.stream(history, BiometricData.class)) {
+            for (BiometricData day : (Iterable<BiometricData>) stream::iterator) {
+                batch.add(day);
+                days++;
+                if (batch.size() >= 366) {
+                    apply(batch);
+                    batch.clear();
+                }
+            }
+        }
+        apply(batch);
+        log.info("📊 Agrégats reconstruits pour {}: {} jours", email, days);
+        return days;
+    }
+
+    private void apply(List<BiometricData> records) {
+        // Regroupe les jours par période pour une seule écriture par agrégat
+        Map<String, List<BiometricData>> byBucket = new LinkedHashMap<>();
+        for (BiometricData day : records) {
+            LocalDate date;
+            try {
+                date = LocalDate.parse(day.getDate());
+            } catch (DateTimeParseException | NullPointerException e) {
+                continue;
+            }
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                String bucketStart = granularity.bucketStart(date).toString();
+                byBucket.computeIfAbsent(BiometricRollup.idOf(day.getEmail(), granularity, bucketStart),
+                        id -> new ArrayList<>()).add(day);
+            }
+        }
+
+        for (Map.Entry<String, List<BiometricData>> bucket : byBucket.entrySet()) {
+            updateBucket(bucket.getKey(), bucket.getValue());
+        }
+    }
+
+    private void updateBucket(String id, List<BiometricData> days) {
+        for (int attempt = 1; ; attempt++) {
+            BiometricRollup rollup = mongoTemplate.findById(id, BiometricRollup.class);
+            if (rollup == null) {
+                rollup = newRollup(id, days.get(0));
+            }
+            for (BiometricData day : days) {
+                rollup.getDays().put(day.getDate(), contributionOf(day));
+            }
+            rollup.recompute();
+            rollup.setUpdatedAt(LocalDateTime.now());
+
+            try {
+                mongoTemplate.save(rollup);
+                return;
+            } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+                // Écriture concurrente sur le même agrégat : on relit et on réapplique
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static BiometricRollup newRollup(String id, BiometricData firstDay) {
+        String[] parts = id.split("\\|");
+        RollupGranularity granularity = RollupGranularity.valueOf(parts[parts.length - 2]);
+        LocalDate bucketStart = LocalDate.parse(parts[parts.length - 1]);
+
+        BiometricRollup rollup = new BiometricRollup();
+        rollup.setId(id);
+        rollup.setEmail(firstDay.getEmail());
+        rollup.setGranularity(granularity);
+        rollup.setBucketStart(bucketStart.toString());
+        rollup.setBucketEnd(granularity.bucketEnd(bucketStart).toString());
+        return rollup;
+    }
+
+    private static BiometricRollup.DayContribution contributionOf(BiometricData day) {
+        return new BiometricRollup.DayContribution(
+                day.getTotalSteps(),
+                day.getMinHeartRate(),
+                day.getAvgHeartRate(),
+                day.getMaxHeartRate(),
+                day.getTotalSleepHours(),
+                day.getTotalHydrationLiters());
+    }
+}
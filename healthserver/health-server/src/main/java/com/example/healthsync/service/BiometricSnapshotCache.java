@@ -0,0 +1,172 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.LatestSnapshot;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HeartRateSamples;
+import com.example.healthsync.repository.BiometricDataRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Caches en mémoire (W-TinyLFU, bornés en poids ou en taille, et en durée) des lectures de l'écran d'accueil :
+ * les données du jour et les dernières valeurs connues de chaque utilisateur.
+ * Une ingestion rafraîchit ou invalide les entrées de l'utilisateur concerné ;
+ * la durée de vie borne l'écart avec les écritures faites par une autre instance.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BiometricSnapshotCache {
+
+    private final BiometricDataRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${healthsync.cache.max-users:10000}")
+    private long maxUsers;
+
+    // Poids total du cache du jour : un jour pèse 1 + ses enregistrements + ses échantillons FC,
+    // un utilisateur à 1 Hz (~86 400 échantillons) compte autant que des milliers de jours légers
+    @Value("${healthsync.cache.today-max-weight:5000000}")
+    private long todayMaxWeight;
+
+    @Value("${healthsync.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Clé "email|date" : le changement de jour ne sert jamais l'entrée de la veille
+    private Cache<String, Optional<BiometricData>> today;
+    private Cache<String, LatestSnapshot> latest;
+
+    @PostConstruct
+    void init() {
+        today = Caffeine.newBuilder()
+                .maximumWeight(todayMaxWeight)
+                .weigher((String key, Optional<BiometricData> day) -> day.map(BiometricSnapshotCache::weigh).orElse(1))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        latest = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, today, "healthsync.today");
+        CaffeineCacheMetrics.monitor(meterRegistry, latest, "healthsync.latest");
+    }
+
+    public BiometricData getToday(String email, String date) {
+        return today.get(email + "|" + date,
+                key -> Optional.ofNullable(repository.findTopByEmailAndDateOrderByReceivedAtDesc(email, date)))
+                .orElse(null);
+    }
+
+    public LatestSnapshot getLatest(String email) {
+        return latest.get(email, this::loadLatest);
+    }
+
+    @EventListener
+    public void onBiometricDataSaved(BiometricDataSavedEvent event) {
+        String currentDate = LocalDate.now().toString();
+        for (BiometricData record : event.records()) {
+            if (currentDate.equals(record.getDate())) {
+                today.put(record.getEmail() + "|" + currentDate, Optional.of(record));
+            }
+            if (notEmpty(record.getWeight()) || notEmpty(record.getHeight()) || notEmpty(record.getBloodPressure())) {
+                latest.invalidate(record.getEmail());
+            }
+        }
+    }
+
+    /**
+     * Poids d'un jour en cache ; des échantillons FC encore encodés comptent un par octet
+     * (pas de décodage pour les peser)
+     */
+    static int weigh(BiometricData day) {
+        long weight = 1 + size(day.getSteps()) + size(day.getDistance()) + size(day.getSleep())
+                + size(day.getExercise()) + size(day.getOxygenSaturation()) + size(day.getBodyTemperature())
+                + size(day.getBloodPressure()) + size(day.getWeight()) + size(day.getHeight())
+                + size(day.getHydration());
+        if (day.getHeartRate() != null) {
+            for (BiometricData.HeartRateRecord record : day.getHeartRate()) {
+                weight += 1 + size(record.getBuckets());
+                HeartRateSamples samples = record.getSamples();
+                if (samples != null) {
+                    weight += samples.isDecoded() ? samples.size() : samples.encoded().length;
+                }
+            }
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private static int size(List<?> records) {
+        return records == null ? 0 : records.size();
+    }
+
+    private LatestSnapshot loadLatest(String email) {
+        LatestSnapshot snapshot = new LatestSnapshot();
+        snapshot.setEmail(email);
+        snapshot.setWeight(latestReading(email, "weight", BiometricData::getWeight,
+                w -> new LatestSnapshot.Reading(null, w.getTime(), w.getWeight(), null),
+                BiometricData.WeightRecord::getTime));
+        snapshot.setHeight(latestReading(email, "height", BiometricData::getHeight,
+                h -> new LatestSnapshot.Reading(null, h.getTime(), h.getHeight(), null),
+                BiometricData.HeightRecord::getTime));
+        snapshot.setBloodPressure(latestReading(email, "bloodPressure", BiometricData::getBloodPressure,
+                bp -> new LatestSnapshot.Reading(null, bp.getTime(), bp.getSystolic(), bp.getDiastolic()),
+                BiometricData.BloodPressureRecord::getTime));
+        return snapshot;
+    }
+
+    /**
+     * Dernière mesure du jour le plus récent qui en contient (une requête indexée par email)
+     */
+    private <T> LatestSnapshot.Reading latestReading(String email, String field,
+                                                     Function<BiometricData, List<T>> records,
+                                                     Function<T, LatestSnapshot.Reading> toReading,
+                                                     Function<T, String> time) {
+        Query query = Query.query(Criteria.where("email").is(email).and(field + ".0").exists(true))
+                .with(Sort.by(Sort.Direction.DESC, "date"))
+                .limit(1);
+        query.fields().include("date", field);
+        BiometricData day = mongoTemplate.findOne(query, BiometricData.class);
+        if (day == null || !notEmpty(records.apply(day))) {
+            return null;
+        }
+
+        T last = null;
+        Instant lastAt = null;
+        for (T record : records.apply(day)) {
+            Instant at = BiometricTimes.parseInstant(time.apply(record));
+            if (last == null || (at != null && (lastAt == null || !at.isBefore(lastAt)))) {
+                last = record;
+                lastAt = at;
+            }
+        }
+        LatestSnapshot.Reading reading = toReading.apply(last);
+        reading.setDate(day.getDate());
+        return reading;
+    }
+
+    private static boolean notEmpty(List<?> records) {
+        return records != null && !records.isEmpty();
+    }
+}
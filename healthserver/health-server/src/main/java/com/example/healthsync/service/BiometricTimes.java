@@ -0,0 +1,83 @@
+package com.example.healthsync.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Lecture tolérante des horodatages texte envoyés par Health Connect
+ * ("2025-10-30T08:00:00Z", "2025-10-30T08:00:00+01:00", "2025-10-30T08:00:00")
+ * Les horodatages sans fuseau sont interprétés en UTC.
+ */
+public final class BiometricTimes {
+
+    private BiometricTimes() {
+    }
+
+    /**
+     * @return l'instant, ou null si la valeur est absente ou illisible
+     */
+    public static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException ignored) {
+            // essai suivant
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException ignored) {
+            // essai suivant
+        }
+        try {
+            return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException ignored) {
+            // essai suivant
+        }
+        try {
+            return LocalDate.parse(value).atStartOfDay().toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Instant du i-ème de {@code count} échantillons répartis uniformément
+     * entre start et end (Health Connect ne date pas chaque échantillon FC)
+     */
+    public static Instant spread(Instant start, Instant end, int count, int index) {
+        if (start == null) {
+            return null;
+        }
+        if (end == null || count < 2 || end.isBefore(start)) {
+            return start;
+        }
+        long stepMillis = Duration.between(start, end).toMillis() / (count - 1);
+        return start.plusMillis(index * stepMillis);
+    }
+
+    /**
+     * Borne de requête : instant ISO ou date seule (yyyy-MM-dd)
+     * Une date seule en borne haute couvre toute la journée.
+     */
+    public static Instant parseBound(String value, boolean upper) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (value.length() == 10) {
+            LocalDate date = LocalDate.parse(value);
+            return (upper ? date.plusDays(1) : date).atStartOfDay().toInstant(ZoneOffset.UTC);
+        }
+        Instant instant = parseInstant(value);
+        if (instant == null) {
+            throw new IllegalArgumentException("Date invalide: " + value);
+        }
+        return instant;
+    }
+}
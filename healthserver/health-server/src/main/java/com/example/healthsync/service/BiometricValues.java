@@ -0,0 +1,24 @@
+package com.example.healthsync.service;
+
+/**
+ * Lecture des valeurs numériques envoyées en texte par l'app ("7.50", "7,50")
+ */
+public final class BiometricValues {
+
+    private BiometricValues() {
+    }
+
+    /**
+     * @return la valeur, ou null si absente ou illisible
+     */
+    public static Double parseDecimal(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.CohortReport;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.CohortDailyStat;
+import com.example.healthsync.model.CohortDayGeneration;
+import com.example.healthsync.model.CohortMetric;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Vues population (toutes les personnes suivies) par métrique et par jour :
+ * agrégation côté MongoDB sur biometric_data (allowDiskUse), résultat mis en cache
+ * par (métrique, jour) dans cohort_daily_stats. Une ingestion, ou un traitement qui réécrit
+ * ou supprime des jours (BiometricDaysChangedEvent), incrémente la génération des jours
+ * concernés ; seuls ces jours sont recalculés à la lecture suivante.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CohortAnalyticsService {
+
+    private static final int MAX_DAYS = 366;
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener
+    public void onBiometricDataSaved(BiometricDataSavedEvent event) {
+        Set<String> dates = new LinkedHashSet<>();
+        for (BiometricData day : event.records()) {
+            if (day.getDate() != null) {
+                dates.add(day.getDate());
+            }
+        }
+        invalidateQuietly(dates);
+    }
+
+    @EventListener
+    public void onBiometricDaysChanged(BiometricDaysChangedEvent event) {
+        invalidateQuietly(event.dates());
+    }
+
+    private void invalidateQuietly(Set<String> dates) {
+        try {
+            invalidate(dates);
+        } catch (Exception e) {
+            // Les jours concernés resteront servis depuis le cache jusqu'à la prochaine ingestion
+            log.warn("⚠️ Statistiques population non invalidées: {}", e.getMessage());
+        }
+    }
+
+    public CohortReport report(CohortMetric metric, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from doit précéder to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new IllegalArgumentException("Plage limitée à " + MAX_DAYS + " jours");
+        }
+
+        List<String> dates = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            dates.add(day.toString());
+        }
+
+        // Générations lues avant l'agrégation : une ingestion concurrente rendra le résultat périmé
+        Map<String, Long> generations = new HashMap<>();
+        for (CohortDayGeneration generation : mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(dates)), CohortDayGeneration.class)) {
+            generations.put(generation.getDate(), generation.getGeneration());
+        }
+
+        Map<String, CohortDailyStat> stats = new HashMap<>();
+        List<String> ids = dates.stream().map(date -> CohortDailyStat.idOf(metric, date)).toList();
+        for (CohortDailyStat cached : mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), CohortDailyStat.class)) {
+            if (cached.getGeneration() == generations.getOrDefault(cached.getDate(), 0L)) {
+                stats.put(cached.getDate(), cached);
+            }
+        }
+
+        int cachedDays = stats.size();
+        List<String> stale = dates.stream().filter(date -> !stats.containsKey(date)).toList();
+        if (!stale.isEmpty()) {
+            for (CohortDailyStat computed : aggregate(metric, stale, generations)) {
+                mongoTemplate.save(computed);
+                stats.put(computed.getDate(), computed);
+            }
+            log.info("📊 Population {}: {} jours recalculés, {} depuis le cache", metric, stale.size(), cachedDays);
+        }
+
+        return toReport(metric, from, to, dates, stats, cachedDays, stale.size());
+    }
+
+    void invalidate(Set<String> dates) {
+        if (dates.isEmpty()) {
+            return;
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CohortDayGeneration.class);
+        for (String date : dates) {
+            ops.upsert(Query.query(Criteria.where("_id").is(date)), new Update().inc("generation", 1));
+        }
+        ops.execute();
+    }
+
+    /**
+     * Une seule agrégation pour tous les jours à recalculer ; les jours sans donnée sont aussi mis en cache
+     */
+    private List<CohortDailyStat> aggregate(CohortMetric metric, List<String> dates, Map<String, Long> generations) {
+        String value = "$" + metric.getField();
+        double width = metric.getBinWidth();
+
+        // Valeurs nulles ou à 0 : mesure absente ce jour-là
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("day").in(dates.stream().map(LocalDate::parse).toList())
+                        .and(metric.getField()).gt(0)),
+                context -> new Document("$project", new Document("date", 1)
+                        .append("value", value)
+                        .append("bin", new Document("$subtract", List.of(value,
+                                new Document("$mod", List.of(value, width)))))),
+                context -> new Document("$group", new Document("_id", new Document("date", "$date").append("bin", "$bin"))
+                        .append("count", new Document("$sum", 1))
+                        .append("sum", new Document("$sum", "$value"))
+                        .append("min", new Document("$min", "$value"))
+                        .append("max", new Document("$max", "$value"))),
+                context -> new Document("$sort", new Document("_id.bin", 1)),
+                context -> new Document("$group", new Document("_id", "$_id.date")
+                        .append("users", new Document("$sum", "$count"))
+                        .append("sum", new Document("$sum", "$sum"))
+                        .append("min", new Document("$min", "$min"))
+                        .append("max", new Document("$max", "$max"))
+                        .append("histogram", new Document("$push",
+                                new Document("lower", "$_id.bin").append("count", "$count"))))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        Map<String, CohortDailyStat> byDate = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        try (Stream<Document> results = mongoTemplate.aggregateStream(aggregation, BiometricData.class, Document.class)) {
+            results.forEach(result -> {
+                String date = result.getString("_id");
+                List<CohortDailyStat.Bin> histogram = new ArrayList<>();
+                for (Document bin : result.getList("histogram", Document.class)) {
+                    histogram.add(new CohortDailyStat.Bin(number(bin.get("lower")), ((Number) bin.get("count")).longValue()));
+                }
+                byDate.put(date, new CohortDailyStat(CohortDailyStat.idOf(metric, date), metric, date,
+                        generations.getOrDefault(date, 0L), now, ((Number) result.get("users")).longValue(),
+                        number(result.get("sum")), number(result.get("min")), number(result.get("max")), width, histogram));
+            });
+        }
+
+        List<CohortDailyStat> computed = new ArrayList<>(dates.size());
+        for (String date : dates) {
+            computed.add(byDate.getOrDefault(date, new CohortDailyStat(CohortDailyStat.idOf(metric, date), metric, date,
+                    generations.getOrDefault(date, 0L), now, 0, 0, null, null, width, List.of())));
+        }
+        return computed;
+    }
+
+    static CohortReport toReport(CohortMetric metric, LocalDate from, LocalDate to, List<String> dates,
+                                 Map<String, CohortDailyStat> stats, int cachedDays, int computedDays) {
+        List<CohortReport.Day> days = new ArrayList<>(dates.size());
+        TreeMap<Double, Long> histogram = new TreeMap<>();
+        long userDays = 0;
+        double sum = 0;
+        Double min = null;
+        Double max = null;
+        for (String date : dates) {
+            CohortDailyStat stat = stats.get(date);
+            days.add(new CohortReport.Day(date, stat.getUsers(), mean(stat.getSum(), stat.getUsers()),
+                    stat.getMin(), stat.getMax(), stat.getHistogram()));
+            userDays += stat.getUsers();
+            sum += stat.getSum();
+            if (stat.getMin() != null) {
+                min = min == null ? stat.getMin() : Math.min(min, stat.getMin());
+            }
+            if (stat.getMax() != null) {
+                max = max == null ? stat.getMax() : Math.max(max, stat.getMax());
+            }
+            for (CohortDailyStat.Bin bin : stat.getHistogram()) {
+                histogram.merge(bin.getLower(), bin.getCount(), Long::sum);
+            }
+        }
+
+        List<CohortDailyStat.Bin> bins = new ArrayList<>(histogram.size());
+        histogram.forEach((lower, count) -> bins.add(new CohortDailyStat.Bin(lower, count)));
+        return new CohortReport(metric.getSlug(), from.toString(), to.toString(), metric.getBinWidth(),
+                userDays, mean(sum, userDays), min, max, bins, days, cachedDays, computedDays);
+    }
+
+    private static Double mean(double sum, long count) {
+        return count == 0 ? null : sum / count;
+    }
+
+    private static double number(Object value) {
+        return ((Number) value).doubleValue();
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.HealthData;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Empreinte de contenu d'un jour HealthData pour le delta-sync, reproductible côté client.
+ * <p>
+ * Format : {@code "v2:" + hex(SHA-256(UTF-8(texte)))}, le texte étant ces lignes séparées par {@code \n} :
+ * <ol>
+ *   <li>date</li>
+ *   <li>totalSteps, minHeartRate, maxHeartRate, avgHeartRate, totalDistanceKm, totalSleepHours,
+ *       totalHydrationLiters, stressLevel, stressScore — une ligne chacun, vide si absent</li>
+ *   <li>pour chaque liste, dans l'ordre steps, heartRate, distance, sleep, exercise, oxygenSaturation,
+ *       bodyTemperature, bloodPressure, weight, height, hydration :
+ *       {@code <nombre d'enregistrements>|<enregistrements>}, chaque enregistrement étant ses champs
+ *       séparés par {@code ,} (vide si absent), les enregistrements triés comme chaînes et séparés
+ *       par {@code ;} :
+ *       <ul>
+ *         <li>steps : startTime, endTime, count</li>
+ *         <li>heartRate : startTime, endTime, échantillons séparés par un espace</li>
+ *         <li>distance : startTime, endTime, distanceMeters</li>
+ *         <li>sleep : startTime, endTime, durationMinutes</li>
+ *         <li>exercise : startTime, endTime, exerciseType, durationMinutes, steps, distanceMeters,
+ *             activeCalories, totalCalories, avgHeartRate</li>
+ *         <li>oxygenSaturation, bodyTemperature, weight, height, hydration : time, valeur</li>
+ *         <li>bloodPressure : time, systolic, diastolic</li>
+ *       </ul>
+ *       Les décimaux sont écrits comme Double.toString en Java (97.0, 1.5E-4).</li>
+ * </ol>
+ * Exemple : un jour "2025-10-01" avec totalSteps=8000 et un intervalle de 4000 pas de 09:00 à 10:00,
+ * sans autre donnée, donne le texte
+ * {@code "2025-10-01\n8000\n\n\n\n\n\n\n\n\n1|2025-10-01T09:00:00Z,2025-10-01T10:00:00Z,4000\n0|\n..."}.
+ * <p>
+ * Les valeurs de chaque enregistrement sont couvertes : une correction de mesure change l'empreinte,
+ * l'ordre des enregistrements non. Un client peut aussi envoyer sa propre empreinte
+ * (dailyData[].contentHash), stockée telle quelle et comparée telle quelle au handshake.
+ * Les empreintes v1 (nombre et dernier horodatage seulement) ne correspondent plus : le jour est renvoyé une fois.
+ */
+public final class DailyDataHasher {
+
+    static final String VERSION = "v2:";
+
+    private DailyDataHasher() {
+    }
+
+    public static String hash(HealthData.DailyData day) {
+        return VERSION + sha256(text(day));
+    }
+
+    /**
+     * Empreinte fournie par le client si présente, sinon calculée par le serveur
+     */
+    public static String hashOf(HealthData.DailyData day) {
+        String clientHash = day.getContentHash();
+        return clientHash != null && !clientHash.isBlank() ? clientHash : hash(day);
+    }
+
+    /**
+     * Texte haché (voir le format ci-dessus)
+     */
+    static String text(HealthData.DailyData day) {
+        StringBuilder text = new StringBuilder(256);
+        line(text, day.getDate());
+        line(text, day.getTotalSteps());
+        line(text, day.getMinHeartRate());
+        line(text, day.getMaxHeartRate());
+        line(text, day.getAvgHeartRate());
+        line(text, day.getTotalDistanceKm());
+        line(text, day.getTotalSleepHours());
+        line(text, day.getTotalHydrationLiters());
+        line(text, day.getStressLevel());
+        line(text, day.getStressScore());
+
+        list(text, day.getSteps(), r -> fields(r.getStartTime(), r.getEndTime(), r.getCount()));
+        list(text, day.getHeartRate(), r -> fields(r.getStartTime(), r.getEndTime(), samples(r.getSamples())));
+        list(text, day.getDistance(), r -> fields(r.getStartTime(), r.getEndTime(), r.getDistanceMeters()));
+        list(text, day.getSleep(), r -> fields(r.getStartTime(), r.getEndTime(), r.getDurationMinutes()));
+        list(text, day.getExercise(), r -> fields(r.getStartTime(), r.getEndTime(), r.getExerciseType(),
+                r.getDurationMinutes(), r.getSteps(), r.getDistanceMeters(), r.getActiveCalories(),
+                r.getTotalCalories(), r.getAvgHeartRate()));
+        list(text, day.getOxygenSaturation(), r -> fields(r.getTime(), r.getPercentage()));
+        list(text, day.getBodyTemperature(), r -> fields(r.getTime(), r.getTemperature()));
+        list(text, day.getBloodPressure(), r -> fields(r.getTime(), r.getSystolic(), r.getDiastolic()));
+        list(text, day.getWeight(), r -> fields(r.getTime(), r.getWeight()));
+        list(text, day.getHeight(), r -> fields(r.getTime(), r.getHeight()));
+        list(text, day.getHydration(), r -> fields(r.getTime(), r.getVolumeMl()));
+        return text.toString();
+    }
+
+    private static void line(StringBuilder text, Object value) {
+        if (value != null) {
+            text.append(value);
+        }
+        text.append('\n');
+    }
+
+    private static <T> void list(StringBuilder text, List<T> records, Function<T, String> fields) {
+        int size = records == null ? 0 : records.size();
+        List<String> encoded = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            encoded.add(fields.apply(records.get(i)));
+        }
+        Collections.sort(encoded);
+        text.append(size).append('|');
+        line(text, String.join(";", encoded));
+    }
+
+    private static String fields(Object... values) {
+        StringBuilder fields = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                fields.append(',');
+            }
+            if (values[i] != null) {
+                fields.append(values[i]);
+            }
+        }
+        return fields.toString();
+    }
+
+    private static String samples(List<Long> samples) {
+        if (samples == null) {
+            return null;
+        }
+        StringBuilder joined = new StringBuilder(samples.size() * 3);
+        for (int i = 0; i < samples.size(); i++) {
+            if (i > 0) {
+                joined.append(' ');
+            }
+            if (samples.get(i) != null) {
+                joined.append(samples.get(i));
+            }
+        }
+        return joined.toString();
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HealthData;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Décodage incrémental (non bloquant) d'un payload HealthData JSON ou Smile reçu par morceaux :
+ * même logique que HealthDataStreamingService, mais alimentée octet par octet
+ * (parseur Jackson non bloquant) au lieu de lire un InputStream.
+ * Chaque élément de dailyData est rejoué depuis un TokenBuffer dès qu'il est complet ;
+ * feed() et finish() renvoient les lots de jours prêts à écrire.
+ * Non thread-safe : une instance par requête.
+ */
+final class DailyDataStreamDecoder {
+
+    private enum State { ROOT, DAILY_DATA, DAY, SKIP, DONE }
+
+    private final ObjectMapper objectMapper;
+    private final BiFunction<String, HealthData.DailyData, BiometricData> converter;
+    private final int chunkDays;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private State state;
+    private String field;
+    private int depth;
+    private TokenBuffer day;
+    private boolean started;
+
+    private String email;
+    private List<BiometricData> chunk;
+    private int days;
+    private long bytes;
+    private long parseNanos;
+
+    /**
+     * @param factory   JSON ou Smile (CBOR n'a pas de parseur non bloquant)
+     * @param emailHint email fourni hors du corps (paramètre ?email=), prioritaire
+     */
+    DailyDataStreamDecoder(ObjectMapper objectMapper, JsonFactory factory, String emailHint, int chunkDays,
+                           BiFunction<String, HealthData.DailyData, BiometricData> converter) throws IOException {
+        this.objectMapper = objectMapper;
+        this.converter = converter;
+        this.chunkDays = chunkDays;
+        this.parser = factory.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.state = State.ROOT;
+        this.email = emailHint;
+        this.chunk = new ArrayList<>(chunkDays);
+    }
+
+    /**
+     * Consomme un morceau du corps ; les octets sont entièrement lus avant le retour
+     */
+    List<List<BiometricData>> feed(byte[] input, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        bytes += length;
+        List<List<BiometricData>> ready = new ArrayList<>();
+        feeder.feedInput(input, offset, offset + length);
+        drain(ready);
+        parseNanos += System.nanoTime() - start;
+        return ready;
+    }
+
+    /**
+     * Fin du corps : valide le payload et renvoie le dernier lot
+     */
+    List<List<BiometricData>> finish() throws IOException {
+        long start = System.nanoTime();
+        List<List<BiometricData>> ready = new ArrayList<>();
+        feeder.endOfInput();
+        drain(ready);
+        parseNanos += System.nanoTime() - start;
+
+        if (state != State.DONE) {
+            throw new IllegalArgumentException("Format de données invalide: JSON incomplet");
+        }
+        if (days == 0) {
+            throw new IllegalArgumentException("Aucune donnée quotidienne à sauvegarder");
+        }
+        if (!hasText(email)) {
+            throw new IllegalArgumentException("Email utilisateur manquant");
+        }
+        if (!chunk.isEmpty()) {
+            ready.add(chunk);
+            chunk = new ArrayList<>(chunkDays);
+        }
+        return ready;
+    }
+
+    String email() {
+        return email;
+    }
+
+    int days() {
+        return days;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Temps passé à décoder, hors conversion des jours
+     */
+    long parseNanos() {
+        return parseNanos;
+    }
+
+    private void drain(List<List<BiometricData>> ready) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (state) {
+                case ROOT -> root(token, ready);
+                case DAILY_DATA -> dailyData(token);
+                case DAY -> day(token, ready);
+                case SKIP -> skip(token);
+                case DONE -> {
+                    // Contenu après l'objet racine ignoré, comme en mode bloquant
+                }
+            }
+        }
+    }
+
+    private void root(JsonToken token, List<List<BiometricData>> ready) throws IOException {
+        if (!started) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Format de données invalide: objet JSON attendu");
+            }
+            started = true;
+            return;
+        }
+        if (token == JsonToken.END_OBJECT) {
+            state = State.DONE;
+            return;
+        }
+        if (token == JsonToken.FIELD_NAME) {
+            field = parser.currentName();
+            return;
+        }
+
+        if ("email".equals(field) && token.isScalarValue()) {
+            if (!hasText(email)) {
+                email = parser.getValueAsString();
+            }
+            // Jours lus avant l'email : on les complète puis on les écrit
+            if (!chunk.isEmpty() && hasText(email)) {
+                for (BiometricData pending : chunk) {
+                    pending.setEmail(email);
+                }
+                if (chunk.size() >= chunkDays) {
+                    ready.add(chunk);
+                    chunk = new ArrayList<>(chunkDays);
+                }
+            }
+        } else if ("dailyData".equals(field) && token == JsonToken.START_ARRAY) {
+            state = State.DAILY_DATA;
+        } else if (token.isStructStart()) {
+            state = State.SKIP;
+            depth = 1;
+        }
+    }
+
+    private void dailyData(JsonToken token) throws IOException {
+        if (token == JsonToken.END_ARRAY) {
+            state = State.ROOT;
+        } else if (token == JsonToken.START_OBJECT) {
+            day = new TokenBuffer(parser);
+            day.copyCurrentEvent(parser);
+            depth = 1;
+            state = State.DAY;
+        } else {
+            throw new IllegalArgumentException("Format de données invalide: dailyData doit contenir des objets");
+        }
+    }
+
+    private void day(JsonToken token, List<List<BiometricData>> ready) throws IOException {
+        day.copyCurrentEvent(parser);
+        if (token.isStructStart()) {
+            depth++;
+            return;
+        }
+        if (!token.isStructEnd() || --depth > 0) {
+            return;
+        }
+
+        HealthData.DailyData daily;
+        try (JsonParser replay = day.asParser(objectMapper)) {
+            daily = objectMapper.readValue(replay, HealthData.DailyData.class);
+        }
+        day = null;
+        state = State.DAILY_DATA;
+
+        long start = System.nanoTime();
+        chunk.add(converter.apply(email, daily));
+        days++;
+        // La conversion n'est pas du décodage : exclue de parseNanos
+        parseNanos -= System.nanoTime() - start;
+
+        // Sans email connu on doit garder les jours en mémoire
+        if (hasText(email) && chunk.size() >= chunkDays) {
+            ready.add(chunk);
+            chunk = new ArrayList<>(chunkDays);
+        }
+    }
+
+    private void skip(JsonToken token) {
+        if (token.isStructStart()) {
+            depth++;
+        } else if (token.isStructEnd() && --depth == 0) {
+            state = State.ROOT;
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
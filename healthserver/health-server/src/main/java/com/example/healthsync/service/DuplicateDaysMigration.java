@@ -0,0 +1,84 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Suppression des doublons (email, date) laissés par l'ancien save() par jour :
+ * seul le document reçu le plus récemment (receivedAt) est gardé pour chaque jour.
+ * Préalable à l'index unique email_date_unique, créé par MongoIndexConfig une fois
+ * la migration terminée. Traite au plus {@code limit} jours en double par appel, à rappeler jusqu'à 0.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DuplicateDaysMigration {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * @return nombre de documents supprimés dans ce lot (0 = plus aucun doublon)
+     */
+    public int dedupBatch(int limit) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                context -> new Document("$group", new Document("_id", new Document("email", "$email").append("date", "$date"))
+                        .append("count", new Document("$sum", 1))
+                        .append("copies", new Document("$push",
+                                new Document("id", "$_id").append("receivedAt", "$receivedAt")))),
+                context -> new Document("$match", new Document("count", new Document("$gt", 1))),
+                context -> new Document("$limit", limit)
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        int days = 0;
+        long removed = 0;
+        try (Stream<Document> groups = mongoTemplate.aggregateStream(aggregation, BiometricData.class, Document.class)) {
+            for (Document group : (Iterable<Document>) groups::iterator) {
+                days++;
+                removed += removeStaleCopies(group.getList("copies", Document.class));
+            }
+        }
+
+        log.info("🧹 Doublons (email, date): {} jours traités, {} documents supprimés", days, removed);
+        return (int) removed;
+    }
+
+    /**
+     * Garde la copie la plus récente ; une copie réécrite par une ingestion pendant
+     * la migration (receivedAt plus récent que la copie gardée) n'est pas supprimée
+     * et sera départagée au lot suivant.
+     */
+    private long removeStaleCopies(List<Document> copies) {
+        List<Document> sorted = new ArrayList<>(copies);
+        sorted.sort(LATEST_FIRST);
+        Document kept = sorted.get(0);
+
+        List<Object> stale = sorted.subList(1, sorted.size()).stream().map(copy -> copy.get("id")).toList();
+        Criteria criteria = Criteria.where("_id").in(stale);
+        Date keptReceivedAt = kept.getDate("receivedAt");
+        if (keptReceivedAt != null) {
+            criteria.orOperator(Criteria.where("receivedAt").lte(keptReceivedAt), Criteria.where("receivedAt").is(null));
+        }
+        return mongoTemplate.remove(Query.query(criteria), BiometricData.class).getDeletedCount();
+    }
+
+    // receivedAt décroissant (absent en dernier), puis ObjectId le plus récent
+    static final Comparator<Document> LATEST_FIRST = Comparator
+            .comparing((Document copy) -> copy.getDate("receivedAt"), Comparator.nullsFirst(Comparator.<Date>naturalOrder()))
+            .thenComparing(copy -> copy.get("id") instanceof ObjectId id ? id.toHexString() : String.valueOf(copy.get("id")))
+            .reversed();
+}
@@ -0,0 +1,179 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.IngestSummary;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HealthData;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ingestion en streaming d'un payload HealthData (JSON, CBOR ou Smile) :
+ * chaque élément de dailyData est lu, converti puis écrit par petits lots,
+ * sans jamais matérialiser le HealthData complet en mémoire.
+ * Les lots déjà écrits le restent si la suite du corps est invalide (PartialIngestException).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HealthDataStreamingService {
+
+    private final BiometricDataService biometricDataService;
+    private final ObjectMapper objectMapper;
+    private final IngestMetrics ingestMetrics;
+
+    // Nombre de jours convertis gardés en mémoire avant écriture
+    @Value("${healthsync.ingest.stream-chunk-days:7}")
+    private int chunkDays;
+
+    // Jours gardés en mémoire tant que l'email n'est pas connu (email envoyé après dailyData)
+    @Value("${healthsync.ingest.stream-max-pending-days:366}")
+    private int maxPendingDays;
+
+    /**
+     * Erreur de lecture survenue après l'écriture de premiers lots
+     */
+    @Getter
+    public static class PartialIngestException extends IllegalArgumentException {
+
+        private final String email;
+        private final int daysWritten;
+
+        PartialIngestException(String email, int daysWritten, Exception cause) {
+            super(cause.getMessage(), cause);
+            this.email = email;
+            this.daysWritten = daysWritten;
+        }
+    }
+
+    /**
+     * @param emailHint email fourni hors du corps (paramètre ?email=), prioritaire
+     */
+    public IngestSummary ingest(InputStream body, String emailHint) throws IOException {
+        return ingest(body, emailHint, PayloadFormat.JSON);
+    }
+
+    /**
+     * @param format encodage du corps (JSON, CBOR ou Smile), désérialisé dans le même modèle HealthData
+     * @throws PartialIngestException si le corps devient illisible après l'écriture d'au moins un lot
+     */
+    public IngestSummary ingest(InputStream body, String emailHint, PayloadFormat format) throws IOException {
+        Ingestion ingestion = new Ingestion(emailHint);
+        try (JsonParser parser = format.factory(objectMapper).createParser(body)) {
+            try {
+                return ingestion.run(parser, format);
+            } catch (IOException | RuntimeException e) {
+                if (ingestion.daysWritten > 0) {
+                    log.warn("⚠️ Ingestion streaming interrompue après {} jours écrits ({}): {}",
+                            ingestion.daysWritten, ingestion.email, e.getMessage());
+                    throw new PartialIngestException(ingestion.email, ingestion.daysWritten, e);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * État d'une requête : lot en attente, jours lus et écrits
+     */
+    private final class Ingestion {
+
+        private final LocalDateTime receivedAt = LocalDateTime.now();
+        private final List<BiometricData> chunk = new ArrayList<>(chunkDays);
+        private String email;
+        private int days;
+        private int daysWritten;
+        private int writes;
+        private long outsideParseNanos;
+
+        Ingestion(String emailHint) {
+            this.email = emailHint;
+        }
+
+        IngestSummary run(JsonParser parser, PayloadFormat format) throws IOException {
+            long start = System.nanoTime();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Format de données invalide: objet " + format + " attendu");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("email".equals(field)) {
+                    if (email == null || email.isBlank()) {
+                        email = parser.getValueAsString();
+                    }
+                    // Jours lus avant l'email : on les complète puis on les écrit
+                    if (!chunk.isEmpty() && hasText(email)) {
+                        for (BiometricData pending : chunk) {
+                            pending.setEmail(email);
+                        }
+                        if (chunk.size() >= chunkDays) {
+                            flush();
+                        }
+                    }
+                } else if ("dailyData".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        HealthData.DailyData day = objectMapper.readValue(parser, HealthData.DailyData.class);
+                        long convertStart = System.nanoTime();
+                        chunk.add(biometricDataService.toBiometricData(email, day, receivedAt));
+                        outsideParseNanos += System.nanoTime() - convertStart;
+                        days++;
+
+                        if (hasText(email)) {
+                            if (chunk.size() >= chunkDays) {
+                                flush();
+                            }
+                        } else if (chunk.size() > maxPendingDays) {
+                            // Sans email connu on doit garder les jours en mémoire : borné
+                            throw new IllegalArgumentException("Email attendu avant dailyData au-delà de "
+                                    + maxPendingDays + " jours (ou paramètre ?email=)");
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (days == 0) {
+                throw new IllegalArgumentException("Aucune donnée quotidienne à sauvegarder");
+            }
+            if (!hasText(email)) {
+                throw new IllegalArgumentException("Email utilisateur manquant");
+            }
+            if (!chunk.isEmpty()) {
+                flush();
+            }
+
+            ingestMetrics.recordParse(System.nanoTime() - start - outsideParseNanos,
+                    Math.max(parser.currentLocation().getByteOffset(), 0), days);
+            log.info("✅ Ingestion streaming: userId={}, jours={}, écritures={}", email, days, writes);
+            return new IngestSummary(email, days, writes);
+        }
+
+        private void flush() {
+            long flushStart = System.nanoTime();
+            biometricDataService.persist(new ArrayList<>(chunk));
+            daysWritten += chunk.size();
+            writes++;
+            chunk.clear();
+            outsideParseNanos += System.nanoTime() - flushStart;
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
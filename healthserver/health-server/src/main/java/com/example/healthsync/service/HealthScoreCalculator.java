@@ -0,0 +1,153 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+
+import java.util.List;
+
+/**
+ * Score de santé journalier (0-100), portage de AdvancedHealthAnalyzer.calculate_health_score
+ * (model-ai-for-userMetricsAnalyze) : activité 25, cardiovasculaire 25, sommeil 20,
+ * hydratation 10, stress 10, signes vitaux 10.
+ * Les valeurs absentes prennent les mêmes défauts que get_user_trends côté Python.
+ */
+public final class HealthScoreCalculator {
+
+    // À incrémenter à chaque changement de formule (cible du recalcul en masse)
+    public static final int VERSION = 1;
+
+    private HealthScoreCalculator() {
+    }
+
+    public static double score(BiometricData day) {
+        double total = activity(orDefault(day.getTotalSteps(), 0), day.getExercise())
+                + cardiovascular(orDefault(day.getAvgHeartRate(), 70), orDefault(day.getMinHeartRate(), 60),
+                        orDefault(day.getMaxHeartRate(), 90), day.getBloodPressure())
+                + sleep(day.getTotalSleepHours() == null ? 7 : day.getTotalSleepHours())
+                + hydration(day.getTotalHydrationLiters() == null ? 2 : day.getTotalHydrationLiters())
+                + stress(orDefault(day.getStressScore(), 50))
+                + vitals(day.getOxygenSaturation(), day.getBodyTemperature());
+        return Math.round(total * 10) / 10.0;
+    }
+
+    static double activity(int steps, List<BiometricData.ExerciseRecord> exercises) {
+        double score;
+        if (steps >= 10000) {
+            score = 15;
+        } else if (steps >= 5000) {
+            score = 10 + (steps - 5000) / 5000.0 * 5;
+        } else if (steps >= 2000) {
+            score = 5 + (steps - 2000) / 3000.0 * 5;
+        } else {
+            score = steps / 2000.0 * 5;
+        }
+
+        if (exercises != null && !exercises.isEmpty()) {
+            long duration = 0;
+            for (BiometricData.ExerciseRecord exercise : exercises) {
+                duration += exercise.getDurationMinutes() == null ? 0 : exercise.getDurationMinutes();
+            }
+            if (duration >= 30) {
+                score += 10;
+            } else if (duration >= 20) {
+                score += 7;
+            } else if (duration >= 10) {
+                score += 5;
+            } else {
+                score += duration / 10.0 * 5;
+            }
+        }
+        return Math.min(score, 25);
+    }
+
+    static double cardiovascular(int avgHr, int minHr, int maxHr, List<BiometricData.BloodPressureRecord> bloodPressure) {
+        double score;
+        if (avgHr >= 60 && avgHr <= 80) {
+            score = 15;
+        } else if (avgHr >= 50 && avgHr <= 100) {
+            score = 12;
+        } else if (avgHr < 50) {
+            score = 10;
+        } else if (avgHr <= 110) {
+            score = 8;
+        } else {
+            score = 5;
+        }
+
+        int variability = maxHr - minHr;
+        if (variability >= 15 && variability <= 40) {
+            score += 5;
+        } else if (variability >= 10 && variability <= 50) {
+            score += 3;
+        } else {
+            score += 1;
+        }
+
+        if (bloodPressure != null && !bloodPressure.isEmpty()) {
+            BiometricData.BloodPressureRecord latest = bloodPressure.get(bloodPressure.size() - 1);
+            double systolic = latest.getSystolic() == null ? 120 : latest.getSystolic();
+            double diastolic = latest.getDiastolic() == null ? 80 : latest.getDiastolic();
+            if (systolic <= 120 && diastolic <= 80) {
+                score += 5;
+            } else if (systolic <= 130 && diastolic <= 85) {
+                score += 3;
+            } else {
+                score += 1;
+            }
+        }
+        return Math.min(score, 25);
+    }
+
+    static double sleep(double hours) {
+        if (hours >= 7 && hours <= 9) {
+            return 20;
+        } else if (hours >= 6 && hours < 7) {
+            return 15;
+        } else if (hours > 9) {
+            return Math.max(10, 20 - (hours - 9) * 3);
+        } else if (hours >= 5) {
+            return 10;
+        }
+        return Math.max(0, hours * 2);
+    }
+
+    static double hydration(double liters) {
+        if (liters >= 2.5) {
+            return 10;
+        } else if (liters >= 1.5) {
+            return 7 + (liters - 1.5) * 3;
+        }
+        return liters / 1.5 * 7;
+    }
+
+    static double stress(int stressScore) {
+        return Math.max(0, 10 - stressScore / 10.0);
+    }
+
+    static double vitals(List<BiometricData.OxygenSaturationRecord> spo2,
+                         List<BiometricData.BodyTemperatureRecord> temperature) {
+        double score = 0;
+        if (spo2 != null && !spo2.isEmpty()) {
+            Double latest = spo2.get(spo2.size() - 1).getPercentage();
+            double percentage = latest == null ? 0 : latest;
+            if (percentage >= 95) {
+                score += 5;
+            } else if (percentage >= 90) {
+                score += 3;
+            }
+        }
+        if (temperature != null && !temperature.isEmpty()) {
+            Double latest = temperature.get(temperature.size() - 1).getTemperature();
+            double celsius = latest == null ? 36.5 : latest;
+            if (celsius >= 36.1 && celsius <= 37.2) {
+                score += 5;
+            } else if (celsius < 38.0) {
+                score += 2;
+            }
+        }
+        return score;
+    }
+
+    private static int orDefault(Integer value, int fallback) {
+        return value == null ? fallback : value;
+    }
+}
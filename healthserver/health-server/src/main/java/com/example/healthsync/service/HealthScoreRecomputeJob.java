@@ -0,0 +1,217 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.HealthScoreJobStatus;
+import com.example.healthsync.model.BiometricData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Recalcul en masse des scores de santé après un changement de formule.
+ * Les utilisateurs sont répartis sur un ForkJoinPool dédié ; chaque partition
+ * parcourt ses documents avec un curseur MongoDB et réécrit les scores par
+ * écritures groupées. Un seul recalcul à la fois.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HealthScoreRecomputeJob {
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // 0 = nombre de cœurs
+    @Value("${healthsync.health-score.recompute.parallelism:0}")
+    private int parallelism;
+
+    // Taille maximale d'une partition (utilisateurs par curseur)
+    @Value("${healthsync.health-score.recompute.users-per-task:200}")
+    private int usersPerTask;
+
+    @Value("${healthsync.health-score.recompute.write-batch:1000}")
+    private int writeBatch;
+
+    private final AtomicReference<Run> current = new AtomicReference<>();
+
+    private static final class Run {
+        final String jobId = UUID.randomUUID().toString();
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final int parallelism;
+        final AtomicLong users = new AtomicLong();
+        final AtomicLong usersDone = new AtomicLong();
+        final AtomicLong documents = new AtomicLong();
+        final AtomicLong updated = new AtomicLong();
+        volatile String state = "RUNNING";
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        Run(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        HealthScoreJobStatus snapshot() {
+            return new HealthScoreJobStatus(jobId, state, HealthScoreCalculator.VERSION, parallelism, users.get(),
+                    usersDone.get(), documents.get(), updated.get(), startedAt, finishedAt, error);
+        }
+    }
+
+    /**
+     * Lance le recalcul en arrière-plan
+     * @param all false : seuls les jours calculés avec une autre version de la formule
+     */
+    public HealthScoreJobStatus start(boolean all) {
+        Run run = new Run(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        Run previous = current.get();
+        if (previous != null && "RUNNING".equals(previous.state)) {
+            throw new IllegalStateException("Recalcul déjà en cours: " + previous.jobId);
+        }
+        if (!current.compareAndSet(previous, run)) {
+            throw new IllegalStateException("Recalcul déjà en cours");
+        }
+
+        Criteria scope = all ? new Criteria() : Criteria.where("healthScoreVersion").ne(HealthScoreCalculator.VERSION);
+        Thread coordinator = new Thread(() -> execute(run, scope), "health-score-recompute");
+        coordinator.setDaemon(true);
+        coordinator.start();
+        return run.snapshot();
+    }
+
+    public HealthScoreJobStatus status() {
+        Run run = current.get();
+        return run == null ? null : run.snapshot();
+    }
+
+    private void execute(Run run, Criteria scope) {
+        ForkJoinPool pool = new ForkJoinPool(run.parallelism);
+        try {
+            List<String> emails = distinctEmails(scope);
+            run.users.set(emails.size());
+            log.info("🧮 Recalcul des scores (v{}): {} utilisateurs, parallélisme {}",
+                    HealthScoreCalculator.VERSION, emails.size(), run.parallelism);
+
+            pool.invoke(new Partition(run, scope, emails, 0, emails.size()));
+
+            run.state = "DONE";
+            log.info("✅ Recalcul des scores terminé: {} documents lus, {} mis à jour",
+                    run.documents.get(), run.updated.get());
+        } catch (Exception e) {
+            run.state = "FAILED";
+            run.error = e.getMessage();
+            log.error("❌ Recalcul des scores interrompu", e);
+        } finally {
+            run.finishedAt = LocalDateTime.now();
+            pool.shutdown();
+        }
+    }
+
+    private List<String> distinctEmails(Criteria scope) {
+        // $group plutôt que distinct : pas de limite de 16 Mo sur le résultat
+        Aggregation aggregation = Aggregation.newAggregation(Aggregation.match(scope), Aggregation.group("email"))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        List<String> emails = new ArrayList<>();
+        try (Stream<Document> groups = mongoTemplate.aggregateStream(aggregation,
+                mongoTemplate.getCollectionName(BiometricData.class), Document.class)) {
+            groups.map(group -> group.getString("_id")).filter(Objects::nonNull).forEach(emails::add);
+        }
+        return emails;
+    }
+
+    private final class Partition extends RecursiveAction {
+
+        private final Run run;
+        private final Criteria scope;
+        private final List<String> emails;
+        private final int from;
+        private final int to;
+
+        Partition(Run run, Criteria scope, List<String> emails, int from, int to) {
+            this.run = run;
+            this.scope = scope;
+            this.emails = emails;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > usersPerTask) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Partition(run, scope, emails, from, middle),
+                        new Partition(run, scope, emails, middle, to));
+                return;
+            }
+            rescore(emails.subList(from, to));
+            run.usersDone.addAndGet(to - from);
+        }
+
+        private void rescore(List<String> users) {
+            Query query = Query.query(new Criteria().andOperator(scope, Criteria.where("email").in(users)))
+                    .cursorBatchSize(500);
+            query.fields().include("date", "receivedAt", "totalSteps", "avgHeartRate", "minHeartRate", "maxHeartRate",
+                    "totalSleepHours", "totalHydrationLiters", "stressScore", "exercise.durationMinutes",
+                    "bloodPressure", "oxygenSaturation", "bodyTemperature", "healthScore", "healthScoreVersion");
+
+            BulkOperations ops = null;
+            Set<String> dates = new HashSet<>();
+            int pending = 0;
+            try (Stream<BiometricData> days = mongoTemplate.stream(query, BiometricData.class)) {
+                for (BiometricData day : (Iterable<BiometricData>) days::iterator) {
+                    run.documents.incrementAndGet();
+                    double score = HealthScoreCalculator.score(day);
+                    if (Objects.equals(day.getHealthScore(), score)
+                            && Objects.equals(day.getHealthScoreVersion(), HealthScoreCalculator.VERSION)) {
+                        continue;
+                    }
+                    if (ops == null) {
+                        ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BiometricData.class);
+                    }
+                    // Une ingestion concurrente a déjà écrit un score à jour : ne pas l'écraser
+                    ops.updateOne(Query.query(Criteria.where("_id").is(day.getId())
+                                    .and("receivedAt").is(day.getReceivedAt())),
+                            new Update().set("healthScore", score)
+                                    .set("healthScoreVersion", HealthScoreCalculator.VERSION));
+                    dates.add(day.getDate());
+                    if (++pending >= writeBatch) {
+                        flush(ops, dates);
+                        ops = null;
+                        pending = 0;
+                    }
+                }
+            }
+            if (ops != null) {
+                flush(ops, dates);
+            }
+        }
+
+        private void flush(BulkOperations ops, Set<String> dates) {
+            run.updated.addAndGet(ops.execute().getModifiedCount());
+            // Scores population (cohort_daily_stats) des jours réécrits
+            dates.remove(null);
+            eventPublisher.publishEvent(new BiometricDaysChangedEvent(Set.copyOf(dates)));
+            dates.clear();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Réduit les échantillons FC d'un jour à des agrégats min / moyenne / max
+ * par tranche de bucketSeconds (ex: 60 puis 3600). Les agrégats d'une
+ * résolution plus fine sont fusionnés (moyenne pondérée par le nombre d'échantillons).
+ */
+final class HeartRateDownsampler {
+
+    private HeartRateDownsampler() {
+    }
+
+    /**
+     * @return nombre d'enregistrements FC réécrits
+     */
+    static int downsample(BiometricData day, int bucketSeconds) {
+        int rewritten = 0;
+        if (day.getHeartRate() != null) {
+            for (BiometricData.HeartRateRecord hr : day.getHeartRate()) {
+                if (hr.getBucketSeconds() != null && hr.getBucketSeconds() >= bucketSeconds) {
+                    continue;
+                }
+                Map<Long, Bucket> buckets = new TreeMap<>();
+                if (hr.getSamples() != null) {
+                    Instant start = BiometricTimes.parseInstant(hr.getStartTime());
+                    Instant end = BiometricTimes.parseInstant(hr.getEndTime());
+                    List<Long> values = hr.getSamples().values();
+                    for (int i = 0; i < values.size(); i++) {
+                        Long bpm = values.get(i);
+                        if (bpm != null) {
+                            bucketOf(buckets, BiometricTimes.spread(start, end, values.size(), i), bucketSeconds)
+                                    .add(bpm, bpm, bpm, 1);
+                        }
+                    }
+                } else if (hr.getBuckets() != null) {
+                    for (BiometricData.HeartRateBucket finer : hr.getBuckets()) {
+                        if (finer.getCount() != null && finer.getCount() > 0) {
+                            bucketOf(buckets, finer.getStart(), bucketSeconds).add(finer.getMin(), finer.getMax(),
+                                    finer.getAvg() * finer.getCount(), finer.getCount());
+                        }
+                    }
+                }
+
+                List<BiometricData.HeartRateBucket> merged = new ArrayList<>(buckets.size());
+                for (Map.Entry<Long, Bucket> bucket : buckets.entrySet()) {
+                    merged.add(bucket.getValue().toRecord(
+                            bucket.getKey() == Long.MIN_VALUE ? null : Instant.ofEpochSecond(bucket.getKey())));
+                }
+                hr.setSamples(null);
+                hr.setBuckets(merged);
+                hr.setBucketSeconds(bucketSeconds);
+                rewritten++;
+            }
+        }
+        day.setHrResolutionSeconds(bucketSeconds);
+        return rewritten;
+    }
+
+    private static Bucket bucketOf(Map<Long, Bucket> buckets, Instant time, int bucketSeconds) {
+        // Sans horodatage : un seul agrégat pour l'enregistrement
+        long key = time == null ? Long.MIN_VALUE : Math.floorDiv(time.getEpochSecond(), bucketSeconds) * bucketSeconds;
+        return buckets.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    private static final class Bucket {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        double sum;
+        int count;
+
+        void add(Long min, Long max, double sum, int count) {
+            if (min != null) {
+                this.min = Math.min(this.min, min);
+            }
+            if (max != null) {
+                this.max = Math.max(this.max, max);
+            }
+            this.sum += sum;
+            this.count += count;
+        }
+
+        BiometricData.HeartRateBucket toRecord(Instant start) {
+            return new BiometricData.HeartRateBucket(start,
+                    min == Long.MAX_VALUE ? null : min,
+                    sum / count,
+                    max == Long.MIN_VALUE ? null : max,
+                    count);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HeartRateSamples;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Migration des documents existants : réécrit les échantillons FC encore
+ * stockés en tableau BSON dans le format compact delta-varint.
+ * Traite au plus {@code limit} documents par appel, à rappeler jusqu'à 0 ;
+ * un jour ré-écrit entre la lecture et la réécriture (receivedAt changé) n'est pas écrasé.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HeartRateSamplesMigration {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${healthsync.storage.hr-samples-codec:array}")
+    private String hrSamplesCodec;
+
+    public int migrateBatch(int limit) {
+        if (!HeartRateSamples.CODEC_NAME.equals(hrSamplesCodec)) {
+            throw new IllegalStateException("Codec FC désactivé (healthsync.storage.hr-samples-codec=" + hrSamplesCodec + ")");
+        }
+
+        // Un tableau a un élément "0", le format binaire non
+        Query legacy = Query.query(Criteria.where("heartRate.samples.0").exists(true)).limit(limit);
+        List<BiometricData> documents = mongoTemplate.find(legacy, BiometricData.class);
+        if (documents.isEmpty()) {
+            return 0;
+        }
+
+        // Seul heartRate est réécrit, et seulement si le jour n'a pas été ré-synchronisé entre-temps
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BiometricData.class);
+        for (BiometricData document : documents) {
+            Document written = new Document();
+            mongoTemplate.getConverter().write(document, written);
+            ops.updateOne(Query.query(Criteria.where("_id").is(document.getId())
+                            .and("receivedAt").is(document.getReceivedAt())
+                            .and("heartRate.samples.0").exists(true)),
+                    new Update().set("heartRate", written.get("heartRate")));
+        }
+        int rewritten = ops.execute().getModifiedCount();
+
+        log.info("🗜️ Migration échantillons FC: {} documents réécrits ({} modifiés entre-temps, ignorés)",
+                rewritten, documents.size() - rewritten);
+        return documents.size();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.HealthData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Détail jour par jour des données reçues, pour le débogage uniquement.
+ * Désactivé par défaut : healthsync.ingest.debug-sample-rate (0..1) fixe
+ * la proportion de requêtes détaillées dans les logs.
+ */
+@Slf4j
+@Component
+public class IngestDebugSampler {
+
+    @Value("${healthsync.ingest.debug-sample-rate:0}")
+    private double sampleRate;
+
+    public void maybeDump(HealthData healthData) {
+        if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate
+                || healthData.getDailyData() == null) {
+            return;
+        }
+
+        StringBuilder out = new StringBuilder("🔔 Données Health Connect reçues - ").append(healthData.getEmail());
+        for (HealthData.DailyData day : healthData.getDailyData()) {
+            out.append("\n📅 ").append(day.getDate());
+            line(out, "👣 Pas", day.getTotalSteps());
+            if (day.getAvgHeartRate() != null) {
+                out.append("\n   ❤️  FC: moy ").append(day.getAvgHeartRate())
+                        .append(" / min ").append(day.getMinHeartRate())
+                        .append(" / max ").append(day.getMaxHeartRate()).append(" bpm");
+            }
+            line(out, "📏 Distance (km)", day.getTotalDistanceKm());
+            line(out, "💤 Sommeil (h)", day.getTotalSleepHours());
+            if (day.getSleep() != null) {
+                for (HealthData.SleepRecord sleep : day.getSleep()) {
+                    out.append("\n      • ").append(sleep.getTitle()).append(": ").append(sleep.getStartTime())
+                            .append(" → ").append(sleep.getEndTime())
+                            .append(" (").append(sleep.getDurationMinutes()).append(" min)");
+                }
+            }
+            if (day.getExercise() != null) {
+                for (HealthData.ExerciseRecord ex : day.getExercise()) {
+                    out.append("\n   🏋️  ").append(ex.getExerciseTypeName()).append(": ")
+                            .append(ex.getDurationMinutes()).append(" min, début ").append(ex.getStartTime());
+                }
+            }
+            line(out, "💧 Hydratation (L)", day.getTotalHydrationLiters());
+            if (day.getStressLevel() != null) {
+                out.append("\n   😰 Stress: ").append(day.getStressLevel())
+                        .append(" (score: ").append(day.getStressScore()).append(")");
+            }
+            count(out, "🫁 Saturation O2", day.getOxygenSaturation());
+            count(out, "🌡️  Température", day.getBodyTemperature());
+            count(out, "💉 Pression", day.getBloodPressure());
+            count(out, "⚖️  Poids", day.getWeight());
+            count(out, "📏 Taille", day.getHeight());
+        }
+        log.info(out.toString());
+    }
+
+    private static void line(StringBuilder out, String label, Object value) {
+        if (value != null) {
+            out.append("\n   ").append(label).append(": ").append(value);
+        }
+    }
+
+    private static void count(StringBuilder out, String label, List<?> records) {
+        if (records != null && !records.isEmpty()) {
+            out.append("\n   ").append(label).append(": ").append(records.size()).append(" mesures");
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.IngestIdempotencyRecord;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Idempotence des ingestions (en-tête Idempotency-Key) : une nouvelle tentative du téléphone
+ * après un timeout rejoue la réponse enregistrée au lieu de reconvertir et réécrire les jours.
+ * Les clés sont propres à chaque utilisateur (email obligatoire) et la réponse n'est rejouée
+ * que pour un corps identique (empreinte SHA-256), sinon 422.
+ * La clé est d'abord réservée dans ingest_idempotency (insert sur _id, atomique entre instances),
+ * puis complétée avec la réponse ; les réponses terminées sont aussi gardées dans un cache
+ * Caffeine pour que les rafales de tentatives n'atteignent pas MongoDB.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestIdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${healthsync.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // Au-delà, une réservation jamais complétée (instance arrêtée en cours de requête) est reprise ;
+    // doit dépasser la durée maximale d'une requête d'ingestion
+    @Value("${healthsync.idempotency.pending-timeout-seconds:900}")
+    private long pendingTimeoutSeconds;
+
+    @Value("${spring.mvc.async.request-timeout:0}")
+    private long requestTimeoutMillis;
+
+    @Value("${healthsync.idempotency.cache-size:10000}")
+    private long cacheSize;
+
+    private Cache<String, IngestIdempotencyRecord> completed;
+
+    @PostConstruct
+    void init() {
+        if (requestTimeoutMillis > 0 && pendingTimeoutSeconds * 1000 <= requestTimeoutMillis) {
+            // Une requête lente verrait sa clé reprise pendant qu'elle écrit encore
+            throw new IllegalStateException("healthsync.idempotency.pending-timeout-seconds (" + pendingTimeoutSeconds
+                    + " s) doit dépasser spring.mvc.async.request-timeout (" + requestTimeoutMillis + " ms)");
+        }
+        completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "healthsync.idempotency");
+    }
+
+    /**
+     * Réserve la clé de cet utilisateur pour cette requête
+     * @return vide si la requête doit être traitée ; sinon l'enregistrement existant
+     *         (terminé : réponse à rejouer, en cours : une autre tentative la traite)
+     */
+    public Optional<IngestIdempotencyRecord> claim(String key, String email) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " invalide (1 à " + MAX_KEY_LENGTH + " caractères)");
+        }
+        if (email == null || email.isBlank()) {
+            throw new IllegalArgumentException(HEADER + " exige l'email de l'utilisateur (?email= pour /fetch/stream)");
+        }
+        String id = IngestIdempotencyRecord.idOf(email, key);
+
+        IngestIdempotencyRecord cached = completed.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            mongoTemplate.insert(new IngestIdempotencyRecord(id, email, key, null, null, null, now, null));
+            return Optional.empty();
+        } catch (DuplicateKeyException e) {
+            // Clé déjà vue : réponse terminée, tentative concurrente ou réservation abandonnée
+        }
+
+        IngestIdempotencyRecord existing = mongoTemplate.findById(id, IngestIdempotencyRecord.class);
+        if (existing == null) {
+            // Supprimée par le TTL entre-temps
+            return Optional.empty();
+        }
+
+        // L'index TTL n'est appliqué qu'environ une fois par minute : on vérifie l'âge nous-mêmes
+        boolean expired = existing.getCreatedAt().isBefore(now.minusHours(ttlHours));
+        boolean abandoned = !existing.isCompleted()
+                && existing.getCreatedAt().isBefore(now.minusSeconds(pendingTimeoutSeconds));
+        if (expired || abandoned) {
+            // Reprise conditionnée au createdAt lu : une seule tentative concurrente l'obtient
+            Query same = Query.query(Criteria.where("_id").is(id).and("createdAt").is(existing.getCreatedAt()));
+            Update reclaim = new Update().set("createdAt", now)
+                    .unset("requestHash").unset("status").unset("body").unset("completedAt");
+            if (mongoTemplate.updateFirst(same, reclaim, IngestIdempotencyRecord.class).getModifiedCount() == 1) {
+                log.info("♻️ Clé d'idempotence reprise ({}): {}", expired ? "expirée" : "abandonnée", key);
+                return Optional.empty();
+            }
+            return Optional.ofNullable(mongoTemplate.findById(id, IngestIdempotencyRecord.class));
+        }
+
+        if (existing.isCompleted()) {
+            completed.put(id, existing);
+        }
+        return Optional.of(existing);
+    }
+
+    /**
+     * Enregistre la réponse d'une requête réservée ; les tentatives suivantes de même empreinte la rejoueront
+     */
+    public void complete(String key, String email, String requestHash, int status, String body) {
+        String id = IngestIdempotencyRecord.idOf(email, key);
+        LocalDateTime now = LocalDateTime.now();
+        Update done = new Update().set("email", email).set("key", key).set("requestHash", requestHash)
+                .set("status", status).set("body", body)
+                .set("completedAt", now).setOnInsert("createdAt", now);
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(id)), done, IngestIdempotencyRecord.class);
+            completed.put(id, new IngestIdempotencyRecord(id, email, key, requestHash, status, body, now, now));
+        } catch (Exception e) {
+            // Les jours sont écrits : une nouvelle tentative les réécrira (upsert), sans doublon
+            log.warn("⚠️ Réponse non enregistrée pour la clé d'idempotence {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Libère la clé d'une requête en échec : une nouvelle tentative sera traitée normalement
+     */
+    public void release(String key, String email) {
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(IngestIdempotencyRecord.idOf(email, key))
+                    .and("status").is(null)), IngestIdempotencyRecord.class);
+        } catch (Exception e) {
+            log.warn("⚠️ Clé d'idempotence non libérée {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Empreinte d'un corps de requête, calculée au fil de la lecture
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    public static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métriques du chemin d'ingestion (exposées sur /actuator/prometheus) :
+ * durées de lecture JSON, conversion et écriture MongoDB,
+ * taille des requêtes, jours par requête, doublons supprimés et points reçus par type de mesure.
+ */
+@Component
+public class IngestMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer parse;
+    private final Timer convert;
+    private final Timer persist;
+    private final DistributionSummary payloadBytes;
+    private final DistributionSummary requestDays;
+    private final DistributionSummary dedupedRecords;
+    private final DistributionSummary dedupedBytes;
+    private final Map<String, Counter> dataPoints = new ConcurrentHashMap<>();
+
+    public IngestMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.parse = Timer.builder("healthsync.ingest.parse")
+                .description("Lecture et désérialisation du corps JSON")
+                .register(meterRegistry);
+        this.convert = Timer.builder("healthsync.ingest.convert")
+                .description("Conversion HealthData → BiometricData")
+                .register(meterRegistry);
+        this.persist = Timer.builder("healthsync.ingest.persist")
+                .description("Écriture MongoDB des jours convertis")
+                .register(meterRegistry);
+        this.payloadBytes = DistributionSummary.builder("healthsync.ingest.payload")
+                .description("Taille du corps des requêtes d'ingestion")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.requestDays = DistributionSummary.builder("healthsync.ingest.request.days")
+                .description("Jours par requête d'ingestion")
+                .register(meterRegistry);
+        this.dedupedRecords = DistributionSummary.builder("healthsync.ingest.dedupe.records")
+                .description("Intervalles en double supprimés par écriture")
+                .register(meterRegistry);
+        this.dedupedBytes = DistributionSummary.builder("healthsync.ingest.dedupe.size")
+                .description("Taille BSON estimée des intervalles supprimés par écriture")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void recordParse(long nanos, long bytes, int days) {
+        parse.record(nanos, TimeUnit.NANOSECONDS);
+        payloadBytes.record(bytes);
+        requestDays.record(days);
+    }
+
+    public void recordDeduplicated(long records, long bytes) {
+        dedupedRecords.record(records);
+        dedupedBytes.record(bytes);
+    }
+
+    public <T> T timeConvert(Supplier<T> conversion) {
+        return convert.record(conversion);
+    }
+
+    public <T> T timePersist(Supplier<T> write) {
+        return persist.record(write);
+    }
+
+    // Écritures réactives : durée mesurée entre souscription et résultat
+    public void recordPersist(long nanos) {
+        persist.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Compte les points enregistrés, par type de mesure
+     */
+    public void recordDataPoints(List<BiometricData> records) {
+        for (BiometricData day : records) {
+            count("steps", size(day.getSteps()));
+            if (day.getHeartRate() != null) {
+                long samples = 0;
+                for (BiometricData.HeartRateRecord hr : day.getHeartRate()) {
+                    samples += hr.getSamples() == null ? 0 : hr.getSamples().size();
+                }
+                count("heart-rate", samples);
+            }
+            count("distance", size(day.getDistance()));
+            count("sleep", size(day.getSleep()));
+            count("exercise", size(day.getExercise()));
+            count("spo2", size(day.getOxygenSaturation()));
+            count("temperature", size(day.getBodyTemperature()));
+            count("blood-pressure", size(day.getBloodPressure()));
+            count("weight", size(day.getWeight()));
+            count("height", size(day.getHeight()));
+            count("hydration", size(day.getHydration()));
+        }
+    }
+
+    private void count(String metric, long points) {
+        if (points <= 0) {
+            return;
+        }
+        dataPoints.computeIfAbsent(metric, m -> Counter.builder("healthsync.ingest.datapoints")
+                        .description("Points de mesure enregistrés")
+                        .tag("metric", m)
+                        .register(meterRegistry))
+                .increment(points);
+    }
+
+    private static long size(List<?> records) {
+        return records == null ? 0 : records.size();
+    }
+}
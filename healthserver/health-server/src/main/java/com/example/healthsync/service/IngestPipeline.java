@@ -0,0 +1,305 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HealthData;
+import com.example.healthsync.model.IngestReceiptRecord;
+import com.example.healthsync.model.IngestReceiptRecord.State;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pipeline d'ingestion asynchrone :
+ * le contrôleur dépose les HealthData dans une file bornée,
+ * un pool d'écrivains les regroupe en upserts MongoDB groupés.
+ * Chaque reçu a son statut (IngestReceiptStore) : un jour rejeté n'affecte que la requête
+ * qui le contient, réessayée jusqu'à max-attempts fois puis conservée en DEAD_LETTER,
+ * comme les requêtes encore en file à l'arrêt du serveur.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestPipeline {
+
+    private final BiometricDataService biometricDataService;
+    private final IngestReceiptStore receiptStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${healthsync.ingest.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${healthsync.ingest.async.writers:2}")
+    private int writers;
+
+    // Nombre max de jours regroupés dans une écriture groupée
+    @Value("${healthsync.ingest.async.max-batch-days:500}")
+    private int maxBatchDays;
+
+    @Value("${healthsync.ingest.async.max-attempts:3}")
+    private int maxAttempts;
+
+    // Délai avant la 2e tentative, doublé à chaque échec
+    @Value("${healthsync.ingest.async.retry-backoff-ms:2000}")
+    private long retryBackoffMillis;
+
+    private BlockingQueue<IngestTask> queue;
+    private ExecutorService writerPool;
+    private ScheduledExecutorService retryScheduler;
+    private final Set<IngestTask> retryPending = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+
+    private DistributionSummary batchDays;
+    private Timer lag;
+
+    record IngestTask(String receiptId, HealthData healthData, long enqueuedAtNanos, int attempts) {
+
+        IngestTask nextAttempt() {
+            return new IngestTask(receiptId, healthData, enqueuedAtNanos, attempts + 1);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+
+        Gauge.builder("healthsync.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Requêtes en attente dans la file d'ingestion")
+                .register(meterRegistry);
+        batchDays = DistributionSummary.builder("healthsync.ingest.batch.days")
+                .description("Jours écrits par écriture groupée")
+                .register(meterRegistry);
+        lag = Timer.builder("healthsync.ingest.lag")
+                .description("Délai entre la mise en file et l'écriture MongoDB")
+                .register(meterRegistry);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        writerPool = Executors.newFixedThreadPool(writers, runnable -> {
+            Thread thread = new Thread(runnable, "ingest-writer-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ingest-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < writers; i++) {
+            writerPool.submit(this::drainLoop);
+        }
+        log.info("✅ Pipeline d'ingestion démarré: file={}, écrivains={}", queueCapacity, writers);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Les écrivains vident la file avant de s'arrêter
+        running = false;
+        retryScheduler.shutdownNow();
+        writerPool.shutdown();
+        if (!writerPool.awaitTermination(30, TimeUnit.SECONDS)) {
+            writerPool.shutdownNow();
+            writerPool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        // Ni écrites ni perdues : conservées pour être rejouées au redémarrage
+        List<IngestTask> left = new ArrayList<>(retryPending);
+        retryPending.clear();
+        queue.drainTo(left);
+        for (IngestTask task : left) {
+            deadLetter(task, 0, "Serveur arrêté avant l'écriture");
+        }
+        if (!left.isEmpty()) {
+            log.warn("⚠️ Pipeline arrêté: {} requêtes non écrites conservées en DEAD_LETTER", left.size());
+        }
+    }
+
+    /**
+     * Dépose une requête validée dans la file.
+     * @return l'identifiant de reçu, ou vide si la file est pleine
+     */
+    public Optional<String> submit(HealthData healthData) {
+        return submit(UUID.randomUUID().toString(), healthData);
+    }
+
+    /**
+     * Remet en file une requête conservée en DEAD_LETTER, sous son reçu d'origine
+     * @return nombre de requêtes remises en file (arrêt à la première file pleine)
+     */
+    public int replayDeadLetters(int limit) {
+        int replayed = 0;
+        for (IngestReceiptRecord deadLetter : receiptStore.findDeadLetters(limit)) {
+            if (submit(deadLetter.getReceiptId(), deadLetter.getPayload()).isEmpty()) {
+                break;
+            }
+            replayed++;
+        }
+        log.info("🔁 {} requêtes DEAD_LETTER remises en file", replayed);
+        return replayed;
+    }
+
+    private Optional<String> submit(String receiptId, HealthData healthData) {
+        if (!running) {
+            return Optional.empty();
+        }
+        // Reçu enregistré en mémoire seulement : 202 et 429 répondent sans I/O MongoDB.
+        // Il précède l'offre pour qu'un écrivain rapide trouve déjà email et jours du reçu.
+        receiptStore.queued(receiptId, healthData);
+        boolean accepted = queue.offer(new IngestTask(receiptId, healthData, System.nanoTime(), 1));
+        if (!accepted) {
+            receiptStore.forget(receiptId);
+            meterRegistry.counter("healthsync.ingest.rejected").increment();
+            return Optional.empty();
+        }
+        return Optional.of(receiptId);
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<IngestTask> tasks = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                IngestTask first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                tasks.add(first);
+                int days = first.healthData().getDailyData().size();
+                while (days < maxBatchDays) {
+                    IngestTask next = queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    tasks.add(next);
+                    days += next.healthData().getDailyData().size();
+                }
+                write(tasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Erreur imprévue hors écriture MongoDB : les reçus du lot sont réessayés
+                log.error("❌ Erreur écriture groupée ({} reçus): {}", tasks.size(), e.getMessage(), e);
+                List<IngestReceiptStore.Outcome> outcomes = new ArrayList<>(tasks.size());
+                for (IngestTask task : tasks) {
+                    failed(task, 0, e.getMessage(), outcomes);
+                }
+                receiptStore.record(outcomes);
+            } finally {
+                tasks.clear();
+            }
+        }
+    }
+
+    void write(List<IngestTask> tasks) {
+        LocalDateTime receivedAt = LocalDateTime.now();
+        List<IngestReceiptStore.Outcome> outcomes = new ArrayList<>(tasks.size());
+
+        // Jours convertis et reçu d'origine de chacun
+        List<BiometricData> records = new ArrayList<>();
+        List<IngestTask> written = new ArrayList<>(tasks.size());
+        List<int[]> ranges = new ArrayList<>(tasks.size());
+        for (IngestTask task : tasks) {
+            String email = task.healthData().getEmail();
+            int from = records.size();
+            try {
+                for (HealthData.DailyData day : task.healthData().getDailyData()) {
+                    records.add(biometricDataService.toBiometricData(email, day, receivedAt));
+                }
+            } catch (RuntimeException e) {
+                // Payload invalide : inutile de le réessayer, les autres requêtes du lot sont écrites
+                records.subList(from, records.size()).clear();
+                outcomes.add(new IngestReceiptStore.Outcome(task.receiptId(), State.REJECTED, 0, task.attempts(),
+                        e.getMessage()));
+                continue;
+            }
+            written.add(task);
+            ranges.add(new int[]{from, records.size()});
+        }
+
+        Set<Integer> failedDays = records.isEmpty() ? Set.of() : biometricDataService.upsertAllReportingFailures(records);
+        batchDays.record(records.size() - failedDays.size());
+
+        long now = System.nanoTime();
+        for (int i = 0; i < written.size(); i++) {
+            IngestTask task = written.get(i);
+            int[] range = ranges.get(i);
+            int daysWritten = 0;
+            for (int day = range[0]; day < range[1]; day++) {
+                if (!failedDays.contains(day)) {
+                    daysWritten++;
+                }
+            }
+
+            if (daysWritten == range[1] - range[0]) {
+                lag.record(now - task.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+                outcomes.add(new IngestReceiptStore.Outcome(task.receiptId(), State.WRITTEN, daysWritten,
+                        task.attempts(), null));
+                log.debug("Reçu {} écrit ({} jours)", task.receiptId(), daysWritten);
+            } else {
+                failed(task, daysWritten, "Écriture MongoDB échouée pour "
+                        + (range[1] - range[0] - daysWritten) + " jour(s)", outcomes);
+            }
+        }
+        receiptStore.record(outcomes);
+    }
+
+    /**
+     * Requête dont des jours n'ont pas été écrits : réessayée entière (upsert idempotent)
+     * après un délai croissant, ou conservée en DEAD_LETTER une fois les tentatives épuisées
+     */
+    private void failed(IngestTask task, int daysWritten, String error, List<IngestReceiptStore.Outcome> outcomes) {
+        if (task.attempts() >= maxAttempts || !running) {
+            deadLetter(task, daysWritten, error);
+            return;
+        }
+
+        IngestTask retry = task.nextAttempt();
+        outcomes.add(new IngestReceiptStore.Outcome(task.receiptId(), State.RETRYING, daysWritten, task.attempts(), error));
+        meterRegistry.counter("healthsync.ingest.retried").increment();
+        long delay = retryBackoffMillis << (task.attempts() - 1);
+        retryPending.add(retry);
+        try {
+            retryScheduler.schedule(() -> {
+                if (retryPending.remove(retry) && !queue.offer(retry)) {
+                    deadLetter(retry, daysWritten, "File pleine au moment de la nouvelle tentative");
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Arrêt en cours : la tentative planifiée est reprise par stop()
+            log.debug("Nouvelle tentative du reçu {} non planifiée: {}", task.receiptId(), e.getMessage());
+        }
+    }
+
+    private void deadLetter(IngestTask task, int daysWritten, String error) {
+        meterRegistry.counter("healthsync.ingest.dead_lettered").increment();
+        if (receiptStore.deadLetter(task.receiptId(), task.healthData(), daysWritten, task.attempts(), error)) {
+            log.warn("⚠️ Reçu {} conservé en DEAD_LETTER après {} tentative(s): {}",
+                    task.receiptId(), task.attempts(), error);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.HealthData;
+import com.example.healthsync.model.IngestReceiptRecord;
+import com.example.healthsync.model.IngestReceiptRecord.State;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statuts des reçus de l'ingestion asynchrone (collection ingest_receipts) :
+ * un reçu en file n'existe qu'en mémoire (aucune I/O MongoDB pour répondre 202 ou 429),
+ * il est enregistré par les écrivains du pipeline avec l'issue du lot, en une écriture groupée.
+ * Une erreur de suivi est journalisée sans bloquer l'ingestion elle-même.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestReceiptStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${healthsync.ingest.async.receipt-ttl-hours:168}")
+    private long receiptTtlHours;
+
+    // Reçus en file pas encore enregistrés (bornés par la capacité de la file)
+    private final Map<String, IngestReceiptRecord> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Issue d'une tentative d'écriture pour un reçu
+     */
+    public record Outcome(String receiptId, State state, int daysWritten, int attempts, String error) {
+    }
+
+    /**
+     * Reçu mis en file, gardé en mémoire jusqu'à l'enregistrement de sa première issue ;
+     * un reçu DEAD_LETTER rejoué y repasse en QUEUED (son payload reste en base jusqu'à l'écriture)
+     */
+    public void queued(String receiptId, HealthData healthData) {
+        LocalDateTime now = LocalDateTime.now();
+        IngestReceiptRecord receipt = new IngestReceiptRecord();
+        receipt.setReceiptId(receiptId);
+        receipt.setEmail(healthData.getEmail());
+        receipt.setDays(healthData.getDailyData().size());
+        receipt.setState(State.QUEUED);
+        receipt.setCreatedAt(now);
+        receipt.setUpdatedAt(now);
+        pending.put(receiptId, receipt);
+    }
+
+    /**
+     * Reçu d'une requête refusée (file pleine) : le client réessaiera avec un nouveau reçu
+     */
+    public void forget(String receiptId) {
+        pending.remove(receiptId);
+    }
+
+    public void record(List<Outcome> outcomes) {
+        if (outcomes.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, IngestReceiptRecord.class);
+            for (Outcome outcome : outcomes) {
+                Update update = new Update().set("state", outcome.state()).set("daysWritten", outcome.daysWritten())
+                        .set("attempts", outcome.attempts()).set("updatedAt", now)
+                        .set("expiresAt", now.plusHours(receiptTtlHours)).unset("payload");
+                IngestReceiptRecord queued = pending.get(outcome.receiptId());
+                if (queued != null) {
+                    update.set("email", queued.getEmail()).set("days", queued.getDays())
+                            .setOnInsert("createdAt", queued.getCreatedAt());
+                } else {
+                    update.setOnInsert("createdAt", now);
+                }
+                if (outcome.error() == null) {
+                    update.unset("error");
+                } else {
+                    update.set("error", outcome.error());
+                }
+                ops.upsert(Query.query(Criteria.where("_id").is(outcome.receiptId())), update);
+            }
+            ops.execute();
+        } catch (Exception e) {
+            log.warn("⚠️ Statuts de {} reçus non enregistrés: {}", outcomes.size(), e.getMessage());
+        } finally {
+            for (Outcome outcome : outcomes) {
+                pending.remove(outcome.receiptId());
+            }
+        }
+    }
+
+    /**
+     * Conserve le payload d'une requête abandonnée, sans expiration
+     * @return false si le payload n'a pas pu être enregistré (données perdues)
+     */
+    public boolean deadLetter(String receiptId, HealthData healthData, int daysWritten, int attempts, String error) {
+        // Appelé aussi depuis un écrivain interrompu à l'arrêt : l'écriture MongoDB doit aboutir
+        boolean interrupted = Thread.interrupted();
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            Update update = new Update().set("email", healthData.getEmail())
+                    .set("days", healthData.getDailyData().size()).set("daysWritten", daysWritten)
+                    .set("state", State.DEAD_LETTER).set("attempts", attempts).set("error", error)
+                    .set("payload", healthData).set("updatedAt", now).setOnInsert("createdAt", now)
+                    .unset("expiresAt");
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(receiptId)), update, IngestReceiptRecord.class);
+            return true;
+        } catch (Exception e) {
+            log.error("❌ Reçu {} ({} jours de {}) perdu: {}", receiptId, healthData.getDailyData().size(),
+                    healthData.getEmail(), e.getMessage());
+            return false;
+        } finally {
+            pending.remove(receiptId);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public IngestReceiptRecord find(String receiptId) {
+        IngestReceiptRecord queued = pending.get(receiptId);
+        return queued != null ? queued : mongoTemplate.findById(receiptId, IngestReceiptRecord.class);
+    }
+
+    /**
+     * DEAD_LETTER à rejouer, hors ceux déjà remis en file et pas encore écrits
+     */
+    public List<IngestReceiptRecord> findDeadLetters(int limit) {
+        Query query = Query.query(Criteria.where("state").is(State.DEAD_LETTER));
+        if (!pending.isEmpty()) {
+            query.addCriteria(Criteria.where("_id").nin(pending.keySet()));
+        }
+        return mongoTemplate.find(query.with(Sort.by("updatedAt")).limit(limit), IngestReceiptRecord.class);
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Suppression des intervalles en double (pas, distance, FC) avant écriture.
+ * Health Connect renvoie souvent le même intervalle depuis plusieurs sources :
+ * après tri par (début croissant, fin décroissante), un balayage écarte chaque
+ * enregistrement entièrement couvert par un enregistrement déjà conservé
+ * (doublon exact ou intervalle imbriqué). Les chevauchements partiels sont conservés,
+ * faute de pouvoir attribuer la part commune à une source.
+ * Les mesures de FC ne sont pas cumulatives : un intervalle imbriqué porte ses propres
+ * échantillons, seul un doublon strict (mêmes début, fin et échantillons) est écarté.
+ */
+final class IntervalDeduplicator {
+
+    record Result(long records, long bytes) {
+
+        static final Result NONE = new Result(0, 0);
+
+        Result plus(Result other) {
+            return new Result(records + other.records, bytes + other.bytes);
+        }
+    }
+
+    private IntervalDeduplicator() {
+    }
+
+    static Result dedupe(List<BiometricData> days) {
+        Result total = Result.NONE;
+        for (BiometricData day : days) {
+            total = total.plus(dedupe(day));
+        }
+        return total;
+    }
+
+    static Result dedupe(BiometricData day) {
+        Result removed = Result.NONE;
+
+        Swept<BiometricData.StepRecord> steps = sweep(day.getSteps(), BiometricData.StepRecord::getStartTime,
+                BiometricData.StepRecord::getEndTime,
+                s -> document(int64("count") + string("startTime", s.getStartTime()) + string("endTime", s.getEndTime())
+                        + date("startAt", s.getStartAt()) + date("endAt", s.getEndAt())));
+        if (steps != null) {
+            day.setSteps(steps.kept());
+            removed = removed.plus(steps.removed());
+        }
+
+        Swept<BiometricData.DistanceRecord> distance = sweep(day.getDistance(), BiometricData.DistanceRecord::getStartTime,
+                BiometricData.DistanceRecord::getEndTime,
+                d -> document(int64("distanceMeters") + string("startTime", d.getStartTime()) + string("endTime", d.getEndTime())
+                        + date("startAt", d.getStartAt()) + date("endAt", d.getEndAt())));
+        if (distance != null) {
+            day.setDistance(distance.kept());
+            removed = removed.plus(distance.removed());
+        }
+
+        Swept<BiometricData.HeartRateRecord> heartRate = sweepExact(day.getHeartRate(), BiometricData.HeartRateRecord::getStartTime,
+                BiometricData.HeartRateRecord::getEndTime, BiometricData.HeartRateRecord::getSamples,
+                hr -> document(binary("samples", hr.getSamples() == null ? 0 : hr.getSamples().encoded().length)
+                        + string("startTime", hr.getStartTime()) + string("endTime", hr.getEndTime())
+                        + date("startAt", hr.getStartAt()) + date("endAt", hr.getEndAt())));
+        if (heartRate != null) {
+            day.setHeartRate(heartRate.kept());
+            removed = removed.plus(heartRate.removed());
+        }
+
+        return removed;
+    }
+
+    private record Swept<T>(List<T> kept, Result removed) {
+    }
+
+    private record Interval(int index, Instant start, Instant end) {
+    }
+
+    /**
+     * @return null si aucun enregistrement n'a été écarté (liste inchangée)
+     */
+    private static <T> Swept<T> sweep(List<T> records, Function<T, String> startTime, Function<T, String> endTime,
+                                      ToLongFunction<T> bsonSize) {
+        if (records == null || records.size() < 2) {
+            return null;
+        }
+
+        List<Interval> intervals = intervals(records, startTime, endTime);
+        intervals.sort(Comparator.comparing(Interval::start)
+                .thenComparing(Interval::end, Comparator.reverseOrder())
+                .thenComparingInt(Interval::index));
+
+        boolean[] drop = new boolean[records.size()];
+        Instant coveredUntil = null;
+        int dropped = 0;
+        long bytes = 0;
+        for (Interval interval : intervals) {
+            // Tous les intervalles précédents commencent avant : couvert si la fin ne dépasse pas
+            if (coveredUntil != null && !interval.end().isAfter(coveredUntil)) {
+                drop[interval.index()] = true;
+                dropped++;
+                bytes += bsonSize.applyAsLong(records.get(interval.index()));
+            } else {
+                coveredUntil = interval.end();
+            }
+        }
+        return swept(records, drop, dropped, bytes);
+    }
+
+    /**
+     * Variante stricte : écarte un enregistrement seulement si un enregistrement déjà conservé
+     * a exactement le même intervalle et une valeur égale
+     * @return null si aucun enregistrement n'a été écarté (liste inchangée)
+     */
+    private static <T, V> Swept<T> sweepExact(List<T> records, Function<T, String> startTime, Function<T, String> endTime,
+                                              Function<T, V> value, ToLongFunction<T> bsonSize) {
+        if (records == null || records.size() < 2) {
+            return null;
+        }
+
+        List<Interval> intervals = intervals(records, startTime, endTime);
+        intervals.sort(Comparator.comparing(Interval::start)
+                .thenComparing(Interval::end)
+                .thenComparingInt(Interval::index));
+
+        boolean[] drop = new boolean[records.size()];
+        int dropped = 0;
+        long bytes = 0;
+        // Valeurs conservées pour l'intervalle (début, fin) en cours
+        List<V> keptValues = new ArrayList<>();
+        Interval current = null;
+        for (Interval interval : intervals) {
+            if (current == null || !current.start().equals(interval.start()) || !current.end().equals(interval.end())) {
+                current = interval;
+                keptValues.clear();
+            }
+            V candidate = value.apply(records.get(interval.index()));
+            if (keptValues.contains(candidate)) {
+                drop[interval.index()] = true;
+                dropped++;
+                bytes += bsonSize.applyAsLong(records.get(interval.index()));
+            } else {
+                keptValues.add(candidate);
+            }
+        }
+        return swept(records, drop, dropped, bytes);
+    }
+
+    // Les enregistrements sans horodatage lisible ne participent pas au balayage
+    private static <T> List<Interval> intervals(List<T> records, Function<T, String> startTime,
+                                                Function<T, String> endTime) {
+        List<Interval> intervals = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            Instant start = BiometricTimes.parseInstant(startTime.apply(records.get(i)));
+            Instant end = BiometricTimes.parseInstant(endTime.apply(records.get(i)));
+            if (start != null && end != null) {
+                intervals.add(new Interval(i, start, end));
+            }
+        }
+        return intervals;
+    }
+
+    private static <T> Swept<T> swept(List<T> records, boolean[] drop, int dropped, long bytes) {
+        if (dropped == 0) {
+            return null;
+        }
+
+        // L'ordre d'origine des enregistrements conservés est préservé
+        List<T> kept = new ArrayList<>(records.size() - dropped);
+        for (int i = 0; i < records.size(); i++) {
+            if (!drop[i]) {
+                kept.add(records.get(i));
+            }
+        }
+        return new Swept<>(kept, new Result(dropped, bytes));
+    }
+
+    // Taille BSON estimée d'un élément de tableau (sous-document) et de ses champs
+
+    private static long document(long fields) {
+        return 1 + 3 + 4 + fields + 1;  // type + index "NN\0" + longueur + champs + fin
+    }
+
+    private static long int64(String key) {
+        return 1 + key.length() + 1 + 8;
+    }
+
+    private static long date(String key, Instant value) {
+        return value == null ? 0 : 1 + key.length() + 1 + 8;
+    }
+
+    private static long string(String key, String value) {
+        int length = value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+        return 1 + key.length() + 1 + 4 + length + 1;
+    }
+
+    private static long binary(String key, int length) {
+        return 1 + key.length() + 1 + 4 + 1 + length;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.healthsync.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Encodages acceptés pour les uploads HealthData : même modèle, seul le format
+ * des jetons change (noms de champs répétés en JSON, dédupliqués par Smile, binaires en CBOR)
+ */
+public enum PayloadFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(MediaType.parseMediaType(PayloadFormat.SMILE_VALUE));
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private static final JsonFactory CBOR_FACTORY = new CBORFactory();
+    private static final JsonFactory SMILE_FACTORY = new SmileFactory();
+
+    private final MediaType mediaType;
+
+    PayloadFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Fabrique de parseurs ; JSON reprend celle de l'ObjectMapper de l'application
+     */
+    public JsonFactory factory(ObjectMapper objectMapper) {
+        return switch (this) {
+            case JSON -> objectMapper.getFactory();
+            case CBOR -> CBOR_FACTORY;
+            case SMILE -> SMILE_FACTORY;
+        };
+    }
+
+    /**
+     * @param contentType en-tête Content-Type (absent = JSON)
+     */
+    public static PayloadFormat fromContentType(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return JSON;
+        }
+        MediaType type = MediaType.parseMediaType(contentType);
+        for (PayloadFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(type)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Content-Type non pris en charge: " + contentType
+                + " (application/json, application/cbor, " + SMILE_VALUE + ")");
+    }
+}
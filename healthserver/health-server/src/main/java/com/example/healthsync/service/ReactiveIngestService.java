@@ -0,0 +1,162 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.IngestSummary;
+import com.example.healthsync.model.BiometricData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ingestion du mode réactif (profil "reactive") : le corps est décodé au fil des
+ * DataBuffer reçus (DailyDataStreamDecoder) et chaque lot de jours est écrit par
+ * ReactiveMongoTemplate pendant que la suite du corps est décodée, avec au plus
+ * healthsync.reactive.write-concurrency écritures en vol par requête.
+ * Le décodage et la conversion des jours se font sur le scheduler parallel ; les listeners
+ * de BiometricDataSavedEvent étant bloquants, l'événement est publié sur boundedElastic :
+ * rien ne s'exécute sur une boucle d'événements Netty.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveIngestService {
+
+    // DataBuffer lus d'avance par requête (contre-pression vers Netty au-delà)
+    private static final int DECODE_PREFETCH = 4;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final BiometricDataService biometricDataService;
+    private final IngestMetrics ingestMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${healthsync.ingest.stream-chunk-days:7}")
+    private int chunkDays;
+
+    @Value("${healthsync.reactive.write-concurrency:4}")
+    private int writeConcurrency;
+
+    /**
+     * @param emailHint email fourni hors du corps (paramètre ?email=), prioritaire
+     * @param format    JSON ou Smile ; CBOR n'est décodable qu'en mode MVC (pas de parseur non bloquant)
+     */
+    public Mono<IngestSummary> ingest(Flux<DataBuffer> body, String emailHint, PayloadFormat format) {
+        return Mono.defer(() -> {
+            if (format == PayloadFormat.CBOR) {
+                return Mono.error(new IllegalArgumentException("CBOR non pris en charge en mode réactif (JSON ou Smile)"));
+            }
+            LocalDateTime receivedAt = LocalDateTime.now();
+            DailyDataStreamDecoder decoder = decoder(format, emailHint, receivedAt);
+
+            // Décodage et conversion hors de la boucle d'événements Netty (un seul worker à la fois par requête)
+            return body.publishOn(Schedulers.parallel(), DECODE_PREFETCH)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .concatMapIterable(buffer -> feed(decoder, buffer))
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(finish(decoder))))
+                    .flatMap(this::upsert, writeConcurrency)
+                    .count()
+                    .map(writes -> {
+                        ingestMetrics.recordParse(decoder.parseNanos(), decoder.bytes(), decoder.days());
+                        log.info("✅ Ingestion réactive: userId={}, jours={}, écritures={}",
+                                decoder.email(), decoder.days(), writes);
+                        return new IngestSummary(decoder.email(), decoder.days(), writes.intValue());
+                    });
+        });
+    }
+
+    /**
+     * Upsert groupé d'un lot, indexé sur (email, date) comme BiometricDataService.upsertAll.
+     * Deux lots d'une même requête peuvent être en vol ensemble : une date en double
+     * dans le payload est départagée par l'index unique email_date_unique (upsert relancé par MongoDB).
+     */
+    private Mono<Integer> upsert(List<BiometricData> chunk) {
+        return Mono.defer(() -> {
+            biometricDataService.deduplicate(chunk);
+            ReactiveBulkOperations ops = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BiometricData.class);
+            for (BiometricData data : chunk) {
+                Query byDay = Query.query(Criteria.where("email").is(data.getEmail()).and("date").is(data.getDate()));
+                ops.replaceOne(byDay, data, FindAndReplaceOptions.options().upsert());
+            }
+
+            long start = System.nanoTime();
+            return ops.execute()
+                    .doOnNext(result -> {
+                        ingestMetrics.recordPersist(System.nanoTime() - start);
+                        BiometricDataService.applyUpsertIds(result, chunk);
+                        ingestMetrics.recordDataPoints(chunk);
+                    })
+                    .flatMap(result -> applyReplacedIds(chunk).thenReturn(result))
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(result -> eventPublisher.publishEvent(new BiometricDataSavedEvent(chunk)))
+                    .thenReturn(1);
+        }).onErrorMap(e -> !(e instanceof IllegalArgumentException),
+                e -> new RuntimeException("Erreur lors de la sauvegarde: " + e.getMessage(), e));
+    }
+
+    /**
+     * IDs des jours remplacés, relus comme dans BiometricDataService.upsertAll
+     */
+    private Mono<Void> applyReplacedIds(List<BiometricData> chunk) {
+        Query query = BiometricDataService.replacedIdsQuery(chunk);
+        if (query == null) {
+            return Mono.empty();
+        }
+        return reactiveMongoTemplate.find(query, BiometricData.class).collectList()
+                .doOnNext(stored -> BiometricDataService.applyReplacedIds(stored, chunk))
+                .onErrorResume(e -> {
+                    log.warn("⚠️ IDs des jours remplacés non relus: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private DailyDataStreamDecoder decoder(PayloadFormat format, String emailHint, LocalDateTime receivedAt) {
+        try {
+            // Conversion sur le worker du décodage : pur calcul, mais plusieurs ms pour un jour de FC à 1 Hz
+            return new DailyDataStreamDecoder(objectMapper, format.factory(objectMapper), emailHint, chunkDays, (email, day) ->
+                    ingestMetrics.timeConvert(() -> biometricDataService.toBiometricData(email, day, receivedAt)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<List<BiometricData>> feed(DailyDataStreamDecoder decoder, DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return decoder.feed(bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static List<List<BiometricData>> finish(DailyDataStreamDecoder decoder) {
+        try {
+            return decoder.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
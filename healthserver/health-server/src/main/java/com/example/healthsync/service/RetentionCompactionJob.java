@@ -0,0 +1,221 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.RetentionJobStatus;
+import com.example.healthsync.model.BiometricData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Politique de rétention des échantillons FC :
+ * bruts pendant raw-days jours, puis agrégats min/moy/max à la minute
+ * jusqu'à minute-days jours, puis à l'heure.
+ * La compaction réécrit les anciens documents par lots espacés de batch-pause-ms,
+ * en arrière-plan (planifiée ou déclenchée via /fetch/admin/retention).
+ * La série vital_samples des jours compactés est réécrite à partir des agrégats.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RetentionCompactionJob {
+
+    static final int MINUTE = 60;
+    static final int HOUR = 3600;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VitalSeriesService vitalSeriesService;
+
+    // Exécution planifiée (la compaction manuelle reste possible si désactivée)
+    @Value("${healthsync.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${healthsync.retention.raw-days:30}")
+    private int rawDays;
+
+    @Value("${healthsync.retention.minute-days:365}")
+    private int minuteDays;
+
+    @Value("${healthsync.retention.batch-size:200}")
+    private int batchSize;
+
+    // Pause entre deux lots, pour ne pas saturer MongoDB
+    @Value("${healthsync.retention.batch-pause-ms:500}")
+    private long batchPauseMillis;
+
+    private final AtomicReference<Run> current = new AtomicReference<>();
+
+    private static final class Run {
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicLong documentsCompacted = new AtomicLong();
+        final AtomicLong recordsDownsampled = new AtomicLong();
+        final AtomicLong bytesBefore = new AtomicLong();
+        final AtomicLong bytesAfter = new AtomicLong();
+        volatile long pendingAtStart;
+        volatile boolean stopRequested;
+        volatile String state = "RUNNING";
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        RetentionJobStatus snapshot() {
+            return new RetentionJobStatus(state, pendingAtStart, documentsCompacted.get(), recordsDownsampled.get(),
+                    bytesBefore.get(), bytesAfter.get(), bytesBefore.get() - bytesAfter.get(),
+                    startedAt, finishedAt, error);
+        }
+    }
+
+    @Scheduled(cron = "${healthsync.retention.cron:0 30 3 * * *}")
+    void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            start();
+        } catch (IllegalStateException e) {
+            log.info("⏭️ Compaction planifiée ignorée: {}", e.getMessage());
+        }
+    }
+
+    public RetentionJobStatus start() {
+        Run run = new Run();
+        Run previous = current.get();
+        if (previous != null && "RUNNING".equals(previous.state)) {
+            throw new IllegalStateException("Compaction déjà en cours");
+        }
+        if (!current.compareAndSet(previous, run)) {
+            throw new IllegalStateException("Compaction déjà en cours");
+        }
+
+        Thread worker = new Thread(() -> execute(run), "retention-compaction");
+        worker.setDaemon(true);
+        worker.start();
+        return run.snapshot();
+    }
+
+    public RetentionJobStatus stop() {
+        Run run = current.get();
+        if (run == null) {
+            return null;
+        }
+        run.stopRequested = true;
+        return run.snapshot();
+    }
+
+    public RetentionJobStatus status() {
+        Run run = current.get();
+        return run == null ? null : run.snapshot();
+    }
+
+    private void execute(Run run) {
+        try {
+            LocalDate today = LocalDate.now();
+            // Au-delà de minute-days : directement à l'heure
+            Criteria hourly = Criteria.where("day").lt(today.minusDays(minuteDays))
+                    .and("hrResolutionSeconds").ne(HOUR)
+                    .and("heartRate.0").exists(true);
+            Criteria minutely = Criteria.where("day").lt(today.minusDays(rawDays)).gte(today.minusDays(minuteDays))
+                    .and("hrResolutionSeconds").exists(false)
+                    .and("heartRate.0").exists(true);
+
+            run.pendingAtStart = mongoTemplate.count(Query.query(hourly), BiometricData.class)
+                    + mongoTemplate.count(Query.query(minutely), BiometricData.class);
+            log.info("🗜️ Compaction FC: {} documents à compacter (brut {} j, minute {} j)",
+                    run.pendingAtStart, rawDays, minuteDays);
+
+            boolean completed = compactTier(run, hourly, HOUR) && compactTier(run, minutely, MINUTE);
+
+            run.state = completed ? "DONE" : "STOPPED";
+            log.info("✅ Compaction FC {}: {} documents, {} octets récupérés",
+                    run.state, run.documentsCompacted.get(), run.bytesBefore.get() - run.bytesAfter.get());
+        } catch (Exception e) {
+            run.state = "FAILED";
+            run.error = e.getMessage();
+            log.error("❌ Compaction FC interrompue", e);
+        } finally {
+            run.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * @return false si l'arrêt a été demandé
+     */
+    private boolean compactTier(Run run, Criteria pending, int bucketSeconds) throws InterruptedException {
+        String collection = mongoTemplate.getCollectionName(BiometricData.class);
+        while (true) {
+            if (run.stopRequested) {
+                return false;
+            }
+            List<Document> batch = mongoTemplate.find(Query.query(pending).limit(batchSize), Document.class, collection);
+            if (batch.isEmpty()) {
+                return true;
+            }
+
+            List<BiometricData> compacted = new ArrayList<>();
+            Set<String> dates = new HashSet<>();
+            for (Document raw : batch) {
+                BiometricData day = compact(run, raw, bucketSeconds);
+                if (day != null) {
+                    compacted.add(day);
+                    if (day.getDate() != null) {
+                        dates.add(day.getDate());
+                    }
+                }
+            }
+            if (!dates.isEmpty()) {
+                eventPublisher.publishEvent(new BiometricDaysChangedEvent(dates));
+            }
+            // Points bruts de vital_samples remplacés par les agrégats, comme dans le document du jour
+            vitalSeriesService.refreshDays(compacted);
+            // Lot entièrement réécrit entre-temps par des ingestions : on repassera au prochain lancement
+            if (compacted.isEmpty()) {
+                return true;
+            }
+            Thread.sleep(batchPauseMillis);
+        }
+    }
+
+    /**
+     * @return le jour compacté, null s'il a été réécrit entre-temps
+     */
+    private BiometricData compact(Run run, Document raw, int bucketSeconds) {
+        BiometricData day = mongoTemplate.getConverter().read(BiometricData.class, raw);
+        int records = HeartRateDownsampler.downsample(day, bucketSeconds);
+
+        Document rewritten = new Document();
+        mongoTemplate.getConverter().write(day, rewritten);
+
+        // Ne remplace que si une ingestion n'a pas réécrit le jour entre-temps
+        Query unchanged = Query.query(Criteria.where("_id").is(day.getId())
+                .and("receivedAt").is(day.getReceivedAt()));
+        if (mongoTemplate.findAndReplace(unchanged, day) == null) {
+            return null;
+        }
+        run.documentsCompacted.incrementAndGet();
+        run.recordsDownsampled.addAndGet(records);
+        run.bytesBefore.addAndGet(bsonSize(raw));
+        run.bytesAfter.addAndGet(bsonSize(rewritten));
+        return day;
+    }
+
+    private long bsonSize(Document document) {
+        return new RawBsonDocument(document, mongoTemplate.getDb().getCodecRegistry().get(Document.class))
+                .getByteBuffer().remaining();
+    }
+}
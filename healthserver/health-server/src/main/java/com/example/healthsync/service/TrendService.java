@@ -0,0 +1,252 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.TrendReport;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.TrendAccumulator;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Tendances par utilisateur et par métrique sur 7, 30 et 90 jours,
+ * maintenues à l'ingestion (accumulateurs de régression, voir TrendAccumulator).
+ * Même classification que TrendsAnalyzer._detect_trend côté Python.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendService {
+
+    public static final List<Integer> WINDOWS = List.of(7, 30, 90);
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    // Métriques suivies (noms identiques à get_user_trends)
+    private static final Map<String, Function<BiometricData, Double>> METRICS = new LinkedHashMap<>();
+
+    static {
+        METRICS.put("steps", day -> toDouble(day.getTotalSteps()));
+        METRICS.put("heart_rate", day -> day.getAvgHeartRate() == null || day.getAvgHeartRate() <= 0
+                ? null : day.getAvgHeartRate().doubleValue());
+        METRICS.put("sleep_hours", BiometricData::getTotalSleepHours);
+        METRICS.put("stress_score", day -> toDouble(day.getStressScore()));
+        METRICS.put("hydration", BiometricData::getTotalHydrationLiters);
+        METRICS.put("weight", day -> day.getWeight() == null || day.getWeight().isEmpty()
+                ? null : day.getWeight().get(day.getWeight().size() - 1).getWeight());
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener
+    public void onBiometricDataSaved(BiometricDataSavedEvent event) {
+        try {
+            apply(event.records(), LocalDate.now());
+        } catch (Exception e) {
+            // Vue dérivée : reconstruisible via /fetch/admin/trends/rebuild
+            log.warn("⚠️ Tendances non mises à jour: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tendances sur les N derniers jours complets (le jour en cours est exclu, comme côté Python)
+     */
+    public TrendReport findTrends(String email, int windowDays) {
+        if (!WINDOWS.contains(windowDays)) {
+            throw new IllegalArgumentException("Période non supportée: " + windowDays + " (7, 30 ou 90)");
+        }
+        LocalDate today = LocalDate.now();
+        List<TrendAccumulator> accumulators = mongoTemplate.find(
+                Query.query(Criteria.where("email").is(email).and("windowDays").is(windowDays)), TrendAccumulator.class);
+
+        Map<String, TrendReport.Statistic> statistics = new LinkedHashMap<>();
+        for (String metric : METRICS.keySet()) {
+            TrendAccumulator accumulator = accumulators.stream()
+                    .filter(candidate -> metric.equals(candidate.getMetric()))
+                    .findFirst()
+                    .orElse(null);
+            if (accumulator == null) {
+                continue;
+            }
+            // Jours sortis de la fenêtre depuis la dernière écriture, puis le jour en cours
+            accumulator.evictBefore(today.minusDays(windowDays));
+            accumulator.remove(today);
+            if (accumulator.getN() > 0) {
+                statistics.put(metric, statisticOf(accumulator));
+            }
+        }
+        return new TrendReport(email, windowDays, statistics);
+    }
+
+    /**
+     * Reconstruit les accumulateurs d'un utilisateur depuis ses 90 derniers jours
+     */
+    public int rebuild(String email) {
+        mongoTemplate.remove(Query.query(Criteria.where("email").is(email)), TrendAccumulator.class);
+
+        LocalDate today = LocalDate.now();
+        int maxWindow = WINDOWS.get(WINDOWS.size() - 1);
+        Query history = Query.query(Criteria.where("email").is(email)
+                .and("date").gte(today.minusDays(maxWindow).toString()));
+        history.fields().include("email", "date", "totalSteps", "avgHeartRate", "totalSleepHours",
+                "stressScore", "totalHydrationLiters", "weight");
+
+        List<BiometricData> days = new ArrayList<>();
+        try (Stream<BiometricData> stream = mongoTemplate.stream(history, BiometricData.class)) {
+            stream.forEach(days::add);
+        }
+        apply(days, today);
+        log.info("✅ Tendances reconstruites pour {}: {} jours", email, days.size());
+        return days.size();
+    }
+
+    void apply(List<BiometricData> records, LocalDate today) {
+        // id d'accumulateur → (jour → valeur)
+        Map<String, Map<LocalDate, Double>> updates = new LinkedHashMap<>();
+        for (BiometricData day : records) {
+            LocalDate date;
+            try {
+                date = LocalDate.parse(day.getDate());
+            } catch (DateTimeParseException | NullPointerException e) {
+                continue;
+            }
+            if (date.isAfter(today)) {
+                continue;
+            }
+            for (Map.Entry<String, Function<BiometricData, Double>> metric : METRICS.entrySet()) {
+                Double value = metric.getValue().apply(day);
+                if (value == null) {
+                    continue;
+                }
+                for (int window : WINDOWS) {
+                    if (!date.isBefore(today.minusDays(window))) {
+                        updates.computeIfAbsent(TrendAccumulator.idOf(day.getEmail(), metric.getKey(), window),
+                                id -> new LinkedHashMap<>()).put(date, value);
+                    }
+                }
+            }
+        }
+
+        write(updates, today);
+    }
+
+    /**
+     * Une lecture et une écriture groupée pour tous les accumulateurs touchés ; les accumulateurs
+     * modifiés entre-temps (version changée, création concurrente) sont relus et réappliqués.
+     * Chaque écriture porte un jeton unique : relu, il dit si c'est bien elle qui a été appliquée
+     * (deux écrivains partis de la même version écrivent tous deux version + 1)
+     */
+    private void write(Map<String, Map<LocalDate, Double>> updates, LocalDate today) {
+        Map<String, Map<LocalDate, Double>> pending = updates;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            Map<String, TrendAccumulator> stored = new HashMap<>();
+            for (TrendAccumulator accumulator : mongoTemplate.find(
+                    Query.query(Criteria.where("_id").in(pending.keySet())), TrendAccumulator.class)) {
+                stored.put(accumulator.getId(), accumulator);
+            }
+
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrendAccumulator.class);
+            Map<String, String> written = new HashMap<>();
+            for (Map.Entry<String, Map<LocalDate, Double>> update : pending.entrySet()) {
+                String id = update.getKey();
+                TrendAccumulator accumulator = stored.get(id);
+                Long expected = accumulator == null ? null : accumulator.getVersion();
+                if (accumulator == null) {
+                    accumulator = newAccumulator(id);
+                }
+                accumulator.evictBefore(today.minusDays(accumulator.getWindowDays()));
+                update.getValue().forEach(accumulator::put);
+                accumulator.setUpdatedAt(LocalDateTime.now());
+                accumulator.setWriteToken(UUID.randomUUID().toString());
+
+                // @Version géré à la main : l'écriture groupée ne l'incrémente pas
+                accumulator.setVersion(expected == null ? 0L : expected + 1);
+                if (expected == null) {
+                    ops.insert(accumulator);
+                } else {
+                    ops.replaceOne(Query.query(Criteria.where("_id").is(id).and("version").is(expected)), accumulator);
+                }
+                written.put(id, accumulator.getWriteToken());
+            }
+
+            BulkWriteResult result;
+            try {
+                result = ops.execute();
+            } catch (BulkOperationException e) {
+                // Création concurrente (clé dupliquée) : vérifiée ci-dessous
+                result = e.getResult();
+            }
+            if (result.getInsertedCount() + result.getMatchedCount() == written.size()) {
+                return;
+            }
+            if (attempt >= MAX_ATTEMPTS) {
+                throw new OptimisticLockingFailureException("Accumulateurs de tendance modifiés en parallèle: "
+                        + (written.size() - result.getInsertedCount() - result.getMatchedCount()));
+            }
+
+            // Écriture concurrente sur certains accumulateurs : seuls ceux-là sont relus et réappliqués
+            Query tokens = Query.query(Criteria.where("_id").in(written.keySet()));
+            tokens.fields().include("writeToken");
+            Set<String> applied = new HashSet<>();
+            for (TrendAccumulator accumulator : mongoTemplate.find(tokens, TrendAccumulator.class)) {
+                if (written.get(accumulator.getId()).equals(accumulator.getWriteToken())) {
+                    applied.add(accumulator.getId());
+                }
+            }
+            Map<String, Map<LocalDate, Double>> conflicts = new LinkedHashMap<>(pending);
+            conflicts.keySet().removeAll(applied);
+            pending = conflicts;
+        }
+    }
+
+    private static TrendAccumulator newAccumulator(String id) {
+        // L'email peut contenir '|' : découpage depuis la fin
+        int windowSeparator = id.lastIndexOf('|');
+        int metricSeparator = id.lastIndexOf('|', windowSeparator - 1);
+
+        TrendAccumulator accumulator = new TrendAccumulator();
+        accumulator.setId(id);
+        accumulator.setEmail(id.substring(0, metricSeparator));
+        accumulator.setMetric(id.substring(metricSeparator + 1, windowSeparator));
+        accumulator.setWindowDays(Integer.parseInt(id.substring(windowSeparator + 1)));
+        return accumulator;
+    }
+
+    static TrendReport.Statistic statisticOf(TrendAccumulator accumulator) {
+        Double mean = accumulator.mean();
+        Double slope = accumulator.slope();
+        String trend;
+        if (accumulator.getN() < 3 || slope == null) {
+            trend = "insufficient_data";
+        } else {
+            double threshold = Math.max(0.02 * Math.abs(mean), 0.01);
+            trend = slope > threshold ? "increasing" : slope < -threshold ? "decreasing" : "stable";
+        }
+        return new TrendReport.Statistic(accumulator.getN(), mean, accumulator.std(), slope, trend);
+    }
+
+    private static Double toDouble(Integer value) {
+        return value == null ? null : value.doubleValue();
+    }
+}
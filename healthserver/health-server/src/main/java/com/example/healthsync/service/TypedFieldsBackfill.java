@@ -0,0 +1,145 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRecordType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Rattrapage en ligne des anciens documents : totaux texte → Double,
+ * date texte → LocalDate, horodatages des enregistrements détaillés → Instant.
+ * Traite au plus {@code limit} documents par appel, à rappeler jusqu'à 0.
+ * Un document dont une valeur a le bon format mais reste illisible (ex: "2025-13-45")
+ * est marqué typedFieldsError et n'est plus resélectionné (jusqu'à sa prochaine ingestion).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TypedFieldsBackfill {
+
+    private static final int BSON_STRING = 2;
+    // Formats acceptés par BiometricTimes.parseInstant
+    private static final String ISO_TIMESTAMP =
+            "^\\d{4}-\\d{2}-\\d{2}(T\\d{2}:\\d{2}(:\\d{2}(\\.\\d+)?)?(Z|[+-]\\d{2}:\\d{2})?)?$";
+    private static final String ISO_DATE = "^\\d{4}-\\d{2}-\\d{2}$";
+    private static final Pattern ISO_TIMESTAMP_PATTERN = Pattern.compile(ISO_TIMESTAMP);
+    private static final Pattern ISO_DATE_PATTERN = Pattern.compile(ISO_DATE);
+    static final String ERROR_FIELD = "typedFieldsError";
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public int backfillBatch(int limit) {
+        Query pending = Query.query(Criteria.where(ERROR_FIELD).exists(false).orOperator(
+                Criteria.where("day").exists(false).and("date").regex(ISO_DATE),
+                Criteria.where("totalDistanceKm").type(BSON_STRING),
+                Criteria.where("totalSleepHours").type(BSON_STRING),
+                Criteria.where("totalHydrationLiters").type(BSON_STRING),
+                Criteria.where("exercise.distanceKm").type(BSON_STRING),
+                untyped(BiometricRecordType.STEPS, "startTime"),
+                untyped(BiometricRecordType.HEART_RATE, "startTime"),
+                untyped(BiometricRecordType.DISTANCE, "startTime"),
+                untyped(BiometricRecordType.SLEEP, "startTime"),
+                untyped(BiometricRecordType.EXERCISE, "startTime"),
+                untyped(BiometricRecordType.OXYGEN_SATURATION, "time"),
+                untyped(BiometricRecordType.BODY_TEMPERATURE, "time"),
+                untyped(BiometricRecordType.BLOOD_PRESSURE, "time"),
+                untyped(BiometricRecordType.WEIGHT, "time"),
+                untyped(BiometricRecordType.HEIGHT, "time"),
+                untyped(BiometricRecordType.HYDRATION, "time")
+        )).limit(limit);
+
+        List<BiometricData> documents = mongoTemplate.find(pending, BiometricData.class);
+        int rewritten = 0;
+        Set<String> dates = new HashSet<>();
+        for (BiometricData document : documents) {
+            // Lecture : les totaux texte sont déjà convertis en Double
+            BiometricDataService.applyTypedFields(document);
+
+            // Ne remplace que si une ingestion n'a pas réécrit le jour entre-temps
+            Query unchanged = Query.query(Criteria.where("_id").is(document.getId())
+                    .and("receivedAt").is(document.getReceivedAt()));
+            if (mongoTemplate.findAndReplace(unchanged, document) == null) {
+                continue;
+            }
+            rewritten++;
+            if (document.getDate() != null) {
+                dates.add(document.getDate());
+            }
+
+            // Toujours sélectionnable après conversion : marqué pour ne pas être repris à chaque lot
+            String error = unparseable(document);
+            if (error != null) {
+                mongoTemplate.updateFirst(unchanged, Update.update(ERROR_FIELD, error), BiometricData.class);
+                log.warn("⚠️ Champs typés illisibles pour {} ({}): {}", document.getId(), document.getDate(), error);
+            }
+        }
+
+        if (!dates.isEmpty()) {
+            // Totaux texte devenus numériques : les agrégats population de ces jours changent
+            eventPublisher.publishEvent(new BiometricDaysChangedEvent(dates));
+        }
+        log.info("🔢 Rattrapage champs typés: {}/{} documents réécrits", rewritten, documents.size());
+        return rewritten;
+    }
+
+    /**
+     * Valeur au format attendu mais non convertie par applyTypedFields
+     * @return description de la première valeur illisible, null si aucune
+     */
+    static String unparseable(BiometricData document) {
+        if (document.getDay() == null && matches(ISO_DATE_PATTERN, document.getDate())) {
+            return "date illisible: " + document.getDate();
+        }
+        String error = firstUntyped(document.getSteps(), BiometricData.StepRecord::getStartTime, BiometricData.StepRecord::getStartAt);
+        error = error != null ? error : firstUntyped(document.getHeartRate(), BiometricData.HeartRateRecord::getStartTime, BiometricData.HeartRateRecord::getStartAt);
+        error = error != null ? error : firstUntyped(document.getDistance(), BiometricData.DistanceRecord::getStartTime, BiometricData.DistanceRecord::getStartAt);
+        error = error != null ? error : firstUntyped(document.getSleep(), BiometricData.SleepRecord::getStartTime, BiometricData.SleepRecord::getStartAt);
+        error = error != null ? error : firstUntyped(document.getExercise(), BiometricData.ExerciseRecord::getStartTime, BiometricData.ExerciseRecord::getStartAt);
+        error = error != null ? error : firstUntyped(document.getOxygenSaturation(), BiometricData.OxygenSaturationRecord::getTime, BiometricData.OxygenSaturationRecord::getAt);
+        error = error != null ? error : firstUntyped(document.getBodyTemperature(), BiometricData.BodyTemperatureRecord::getTime, BiometricData.BodyTemperatureRecord::getAt);
+        error = error != null ? error : firstUntyped(document.getBloodPressure(), BiometricData.BloodPressureRecord::getTime, BiometricData.BloodPressureRecord::getAt);
+        error = error != null ? error : firstUntyped(document.getWeight(), BiometricData.WeightRecord::getTime, BiometricData.WeightRecord::getAt);
+        error = error != null ? error : firstUntyped(document.getHeight(), BiometricData.HeightRecord::getTime, BiometricData.HeightRecord::getAt);
+        error = error != null ? error : firstUntyped(document.getHydration(), BiometricData.HydrationRecord::getTime, BiometricData.HydrationRecord::getAt);
+        return error;
+    }
+
+    private static <T> String firstUntyped(List<T> records, Function<T, String> text, Function<T, Instant> typed) {
+        if (records == null) {
+            return null;
+        }
+        for (T record : records) {
+            if (typed.apply(record) == null && matches(ISO_TIMESTAMP_PATTERN, text.apply(record))) {
+                return "horodatage illisible: " + text.apply(record);
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(Pattern pattern, String value) {
+        return value != null && pattern.matcher(value).matches();
+    }
+
+    /**
+     * Un enregistrement au moins sans horodatage typé alors que son horodatage texte est lisible
+     * (les valeurs illisibles restent sans Instant et ne sont pas resélectionnées)
+     */
+    private static Criteria untyped(BiometricRecordType type, String textField) {
+        return Criteria.where(type.getField()).elemMatch(Criteria.where(type.getTimeField()).exists(false)
+                .and(textField).regex(ISO_TIMESTAMP));
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.VitalMetric;
+import com.example.healthsync.model.VitalSample;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alimente la collection time-series vital_samples à partir des jours
+ * BiometricData sauvegardés, et sert les requêtes par plage de temps.
+ * Les documents journaliers restent la source des endpoints existants.
+ * <p>
+ * Les jours sont réécrits hors du thread de la requête, un à la fois et dans l'ordre d'arrivée :
+ * nouvelles mesures insérées d'abord, puis suppression des précédentes (writtenAt antérieur).
+ * Une interruption entre les deux laisse au pire des doublons temporaires, retirés à la réécriture
+ * suivante du jour, jamais un jour vide. La suppression filtre sur date / writtenAt, qui ne sont pas
+ * le metaField : MongoDB 7.0 minimum, vérifié par l'écrivain avant le premier jour réécrit (jamais au
+ * démarrage, qui ne dépend pas de MongoDB) ; la série est désactivée sur une version antérieure.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VitalSeriesService {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${healthsync.timeseries.enabled:true}")
+    private volatile boolean enabled;
+
+    @Value("${healthsync.timeseries.max-points:10000}")
+    private int maxPoints;
+
+    // Jours en attente de réécriture ; au-delà, abandonnés (rattrapés à la prochaine synchronisation du jour)
+    @Value("${healthsync.timeseries.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor writer;
+
+    // Version MongoDB vérifiée (écrivain uniquement)
+    private boolean versionChecked;
+
+    @PostConstruct
+    void start() {
+        writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "vital-series-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        writer.shutdown();
+        if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("⚠️ {} jours de série temporelle non réécrits à l'arrêt", writer.shutdownNow().size());
+        }
+    }
+
+    @EventListener
+    public void onBiometricDataSaved(BiometricDataSavedEvent event) {
+        refreshDays(event.records());
+    }
+
+    /**
+     * Réécrit en arrière-plan la série des jours donnés (ingestion, compaction FC)
+     */
+    public void refreshDays(List<BiometricData> days) {
+        if (!enabled) {
+            return;
+        }
+        for (BiometricData day : days) {
+            try {
+                writer.execute(() -> refreshDay(day));
+            } catch (RejectedExecutionException e) {
+                log.warn("⚠️ File de la série temporelle pleine, jour ignoré: {} {}", day.getEmail(), day.getDate());
+            }
+        }
+    }
+
+    private void refreshDay(BiometricData day) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!versionChecked) {
+                Boolean supported = supportsDeleteByField();
+                if (Boolean.FALSE.equals(supported)) {
+                    enabled = false;
+                    return;
+                }
+                // Version inconnue (MongoDB injoignable) : revérifiée au jour suivant
+                versionChecked = supported != null;
+            }
+            replaceDay(day);
+        } catch (Exception e) {
+            // La série est une vue dérivée : on ne fait pas échouer l'ingestion
+            log.warn("⚠️ Série temporelle non mise à jour pour {} {}: {}",
+                    day.getEmail(), day.getDate(), e.getMessage());
+        }
+    }
+
+    public List<VitalSample> findSeries(String email, VitalMetric metric, Instant from, Instant to) {
+        Criteria criteria = Criteria.where("email").is(email).and("metric").is(metric);
+        if (from != null || to != null) {
+            Criteria time = criteria.and("time");
+            if (from != null) {
+                time.gte(from);
+            }
+            if (to != null) {
+                time.lt(to);
+            }
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "time"))
+                .limit(maxPoints);
+        query.fields().exclude("id", "email", "date");
+        return mongoTemplate.find(query, VitalSample.class);
+    }
+
+    /**
+     * Remplace les mesures d'un jour (une re-synchronisation ne crée pas de doublons)
+     * @return false si le jour a été réécrit depuis dans MongoDB (sa propre réécriture suit dans la file)
+     */
+    boolean replaceDay(BiometricData day) {
+        Criteria ofDay = Criteria.where("email").is(day.getEmail()).and("date").is(day.getDate());
+        if (day.getReceivedAt() != null && !mongoTemplate.exists(Query.query(Criteria.where("email").is(day.getEmail())
+                .and("date").is(day.getDate()).and("receivedAt").is(day.getReceivedAt())), BiometricData.class)) {
+            return false;
+        }
+
+        Instant writtenAt = Instant.now();
+        List<VitalSample> samples = explode(day);
+        samples.forEach(sample -> sample.setWrittenAt(writtenAt));
+        if (!samples.isEmpty()) {
+            mongoTemplate.insert(samples, VitalSample.class);
+        }
+        mongoTemplate.remove(Query.query(ofDay.orOperator(
+                Criteria.where("writtenAt").lt(writtenAt),
+                Criteria.where("writtenAt").exists(false))), VitalSample.class);
+        return true;
+    }
+
+    /**
+     * Suppression filtrée hors metaField (date, writtenAt) : MongoDB 7.0 minimum
+     * @return null si la version n'a pas pu être lue
+     */
+    Boolean supportsDeleteByField() {
+        try {
+            String version = mongoTemplate.executeCommand(new Document("buildInfo", 1)).getString("version");
+            if (version != null && Integer.parseInt(version.substring(0, version.indexOf('.'))) < 7) {
+                log.error("❌ MongoDB {} : suppressions par date impossibles dans vital_samples (7.0 requis), série désactivée",
+                        version);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("⚠️ Version MongoDB inconnue, série temporelle laissée active: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    static List<VitalSample> explode(BiometricData day) {
+        List<VitalSample> samples = new ArrayList<>();
+        String email = day.getEmail();
+        String date = day.getDate();
+
+        if (day.getHeartRate() != null) {
+            for (BiometricData.HeartRateRecord hr : day.getHeartRate()) {
+                if (hr.getBuckets() != null) {
+                    // Jour compacté : un point par agrégat (moyenne)
+                    for (BiometricData.HeartRateBucket bucket : hr.getBuckets()) {
+                        if (bucket.getStart() != null && bucket.getAvg() != null) {
+                            samples.add(sample(email, date, VitalMetric.HEART_RATE, bucket.getStart(), bucket.getAvg(), null));
+                        }
+                    }
+                }
+                Instant start = BiometricTimes.parseInstant(hr.getStartTime());
+                if (start == null || hr.getSamples() == null) {
+                    continue;
+                }
+                List<Long> values = hr.getSamples().values();
+                Instant end = BiometricTimes.parseInstant(hr.getEndTime());
+                for (int i = 0; i < values.size(); i++) {
+                    if (values.get(i) != null) {
+                        samples.add(sample(email, date, VitalMetric.HEART_RATE,
+                                BiometricTimes.spread(start, end, values.size(), i), values.get(i).doubleValue(), null));
+                    }
+                }
+            }
+        }
+
+        if (day.getOxygenSaturation() != null) {
+            for (BiometricData.OxygenSaturationRecord o2 : day.getOxygenSaturation()) {
+                Instant time = BiometricTimes.parseInstant(o2.getTime());
+                if (time != null && o2.getPercentage() != null) {
+                    samples.add(sample(email, date, VitalMetric.OXYGEN_SATURATION, time, o2.getPercentage(), null));
+                }
+            }
+        }
+
+        if (day.getBodyTemperature() != null) {
+            for (BiometricData.BodyTemperatureRecord temp : day.getBodyTemperature()) {
+                Instant time = BiometricTimes.parseInstant(temp.getTime());
+                if (time != null && temp.getTemperature() != null) {
+                    samples.add(sample(email, date, VitalMetric.BODY_TEMPERATURE, time, temp.getTemperature(), null));
+                }
+            }
+        }
+
+        if (day.getBloodPressure() != null) {
+            for (BiometricData.BloodPressureRecord bp : day.getBloodPressure()) {
+                Instant time = BiometricTimes.parseInstant(bp.getTime());
+                if (time != null && bp.getSystolic() != null) {
+                    samples.add(sample(email, date, VitalMetric.BLOOD_PRESSURE, time, bp.getSystolic(), bp.getDiastolic()));
+                }
+            }
+        }
+
+        return samples;
+    }
+
+    private static VitalSample sample(String email, String date, VitalMetric metric, Instant time,
+                                      Double value, Double secondaryValue) {
+        return new VitalSample(null, time, email, metric, date, value, secondaryValue, null);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.healthsync.config;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HeartRateSamples;
+import com.example.healthsync.service.BiometricDataService;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoConversionsConfigTest {
+
+    @Test
+    void codecRoundTripsExtremeValues() {
+        List<Long> samples = List.of(72L, 0L, -5L, Long.MAX_VALUE, Long.MIN_VALUE, 180L);
+        assertEquals(samples, HeartRateSamples.decode(HeartRateSamples.encode(samples)));
+    }
+
+    @Test
+    void codecKeepsMissingSamples() {
+        List<Long> samples = Arrays.asList(null, 72L, null, null, 75L, null);
+        assertEquals(samples, HeartRateSamples.decode(HeartRateSamples.encode(samples)));
+        // Sans échantillon absent, le format d'origine (version 1) est conservé
+        assertEquals(1, HeartRateSamples.encode(List.of(72L, 75L))[0]);
+    }
+
+    @Test
+    void encodedLayoutIsReadLazilyAndIsSmallerThanArrayLayout() {
+        BiometricData day = dayWithSamples(3_600);
+
+        Document encoded = converter("delta-varint").getWritten(day);
+        Document array = converter("array").getWritten(day);
+        int encodedBytes = bsonSize(encoded);
+        int arrayBytes = bsonSize(array);
+        assertTrue(encodedBytes * 5 < arrayBytes,
+                "encodé=" + encodedBytes + " o, tableau=" + arrayBytes + " o");
+
+        BiometricData read = converter("delta-varint").read(encoded);
+        HeartRateSamples samples = read.getHeartRate().get(0).getSamples();
+        assertFalse(samples.isDecoded());
+        assertEquals(day.getHeartRate().get(0).getSamples().values(), samples.values());
+
+        // L'ancien format reste lisible
+        BiometricData legacy = converter("delta-varint").read(array);
+        assertEquals(3_600, legacy.getHeartRate().get(0).getSamples().size());
+    }
+
+    @Test
+    void readsLegacyTextTotalsAsNumbers() {
+        Document legacy = new Document("email", "a@b.c")
+                .append("date", "2025-10-30")
+                .append("totalDistanceKm", "3.25")
+                .append("totalSleepHours", "7,50")
+                .append("totalHydrationLiters", "n/a");
+
+        BiometricData read = converter("delta-varint").read(legacy);
+        assertEquals(3.25, read.getTotalDistanceKm());
+        assertEquals(7.5, read.getTotalSleepHours());
+        assertNull(read.getTotalHydrationLiters());
+    }
+
+    @Test
+    void conversionsAreScopedToTheirProperties() {
+        MongoConversionsConfig config = new MongoConversionsConfig();
+        ReflectionTestUtils.setField(config, "hrSamplesCodec", "array");
+        MongoCustomConversions conversions = config.mongoCustomConversions();
+
+        // Aucun convertisseur global List -> HeartRateSamples ni String -> Double
+        assertFalse(conversions.hasCustomReadTarget(List.class, HeartRateSamples.class));
+        assertFalse(conversions.hasCustomReadTarget(String.class, Double.class));
+        assertFalse(conversions.hasCustomWriteTarget(HeartRateSamples.class));
+    }
+
+    @Test
+    void typedTimestampsAreStoredAsBsonDates() {
+        BiometricData day = new BiometricData();
+        day.setDate("2025-10-30");
+        day.setSleep(List.of(new BiometricData.SleepRecord("Profond", "2025-10-29T23:30:00+01:00", "2025-10-30T01:00:00Z", 150L)));
+        day.setWeight(List.of(new BiometricData.WeightRecord(72.5, "2025-10-30T07:00:00")));
+        BiometricDataService.applyTypedFields(day);
+
+        Document written = converter("delta-varint").getWritten(day);
+        Document sleep = written.getList("sleep", Document.class).get(0);
+        assertEquals(Date.from(Instant.parse("2025-10-29T22:30:00Z")), sleep.get("startAt"));
+        assertEquals(Date.from(Instant.parse("2025-10-30T01:00:00Z")), sleep.get("endAt"));
+        assertEquals(Date.from(Instant.parse("2025-10-30T07:00:00Z")),
+                written.getList("weight", Document.class).get(0).get("at"));
+    }
+
+    private static BiometricData dayWithSamples(int count) {
+        Random random = new Random(42);
+        List<Long> values = new ArrayList<>(count);
+        long bpm = 70;
+        for (int i = 0; i < count; i++) {
+            bpm = Math.max(45, Math.min(180, bpm + random.nextInt(5) - 2));
+            values.add(bpm);
+        }
+        BiometricData day = new BiometricData();
+        day.setEmail("a@b.c");
+        day.setDate("2025-10-30");
+        day.setHeartRate(List.of(new BiometricData.HeartRateRecord(
+                HeartRateSamples.of(values), "2025-10-30T08:00:00Z", "2025-10-30T09:00:00Z")));
+        return day;
+    }
+
+    private static int bsonSize(Document document) {
+        return new RawBsonDocument(document, new DocumentCodec()).getByteBuffer().remaining();
+    }
+
+    private static TestConverter converter(String codec) {
+        MongoConversionsConfig config = new MongoConversionsConfig();
+        ReflectionTestUtils.setField(config, "hrSamplesCodec", codec);
+        MongoCustomConversions conversions = config.mongoCustomConversions();
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        TestConverter converter = new TestConverter(mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private static class TestConverter extends MappingMongoConverter {
+        TestConverter(MongoMappingContext mappingContext) {
+            super(NoOpDbRefResolver.INSTANCE, mappingContext);
+        }
+
+        Document getWritten(BiometricData data) {
+            Document document = new Document();
+            write(data, document);
+            return document;
+        }
+
+        BiometricData read(Document document) {
+            return read(BiometricData.class, document);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.healthsync.config;
+
+import com.github.luben.zstd.Zstd;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestDecompressionFilterTest {
+
+    private static final String JSON = "{\"email\":\"a@b.c\",\"dailyData\":[{\"date\":\"2025-10-01\"}]}";
+
+    private RequestDecompressionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RequestDecompressionFilter();
+        ReflectionTestUtils.setField(filter, "maxDecompressedMb", 1L);
+    }
+
+    @Test
+    void decompressesGzipAndZstdBodies() throws Exception {
+        assertEquals(JSON, readThrough("gzip", gzip(JSON.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(JSON, readThrough("zstd", Zstd.compress(JSON.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void rejectsUnknownEncoding() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("br", new byte[]{1, 2, 3}), response, new MockFilterChain());
+
+        assertEquals(415, response.getStatus());
+    }
+
+    @Test
+    void capsDecompressedSize() throws Exception {
+        // 2 Mo de zéros : quelques Ko compressés, au-delà de la limite une fois décompressés
+        byte[] bomb = gzip(new byte[2 * 1024 * 1024]);
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response)
+                    throws IOException {
+                request.getInputStream().readAllBytes();
+            }
+        };
+
+        assertThrows(IOException.class,
+                () -> filter.doFilter(request("gzip", bomb), new MockHttpServletResponse(), chain));
+    }
+
+    @Test
+    void skippedBytesCountTowardTheCap() throws Exception {
+        byte[] bomb = gzip(new byte[2 * 1024 * 1024]);
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response)
+                    throws IOException {
+                request.getInputStream().skip(2 * 1024 * 1024);
+            }
+        };
+
+        assertThrows(IOException.class,
+                () -> filter.doFilter(request("gzip", bomb), new MockHttpServletResponse(), chain));
+    }
+
+    @Test
+    void readListenerReadsWholeBodyThenCompletes() throws Exception {
+        StringBuilder events = new StringBuilder();
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response)
+                    throws IOException {
+                ServletInputStream in = request.getInputStream();
+                in.setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        events.append(new String(in.readAllBytes(), StandardCharsets.UTF_8)).append('|');
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        events.append(in.isFinished() ? "fin" : "incomplet");
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        events.append("erreur");
+                    }
+                });
+            }
+        };
+        filter.doFilter(request("gzip", gzip(JSON.getBytes(StandardCharsets.UTF_8))), new MockHttpServletResponse(), chain);
+
+        assertEquals(JSON + "|fin", events.toString());
+    }
+
+    private String readThrough(String encoding, byte[] body) throws Exception {
+        String[] seen = new String[1];
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response)
+                    throws IOException {
+                assertNull(((HttpServletRequest) request).getHeader("Content-Encoding"));
+                seen[0] = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            }
+        };
+        filter.doFilter(request(encoding, body), new MockHttpServletResponse(), chain);
+        return seen[0];
+    }
+
+    private static MockHttpServletRequest request(String encoding, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/fetch/stream");
+        request.addHeader("Content-Encoding", encoding);
+        request.setContentType("application/json");
+        request.setContent(body);
+        return request;
+    }
+
+    private static byte[] gzip(byte[] raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.healthsync.controller;
+
+import com.example.healthsync.service.AnomalyDetectionService;
+import com.example.healthsync.service.BatchIngestService;
+import com.example.healthsync.service.BiometricDataService;
+import com.example.healthsync.service.BiometricExportService;
+import com.example.healthsync.service.BiometricRollupService;
+import com.example.healthsync.service.BiometricSnapshotCache;
+import com.example.healthsync.service.HealthDataStreamingService;
+import com.example.healthsync.service.IngestDebugSampler;
+import com.example.healthsync.service.IngestIdempotencyService;
+import com.example.healthsync.service.IngestPipeline;
+import com.example.healthsync.service.IngestReceiptStore;
+import com.example.healthsync.service.TrendService;
+import com.example.healthsync.service.VitalSeriesService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class HealthDataControllerExportTest {
+
+    private BiometricExportService biometricExportService;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        biometricExportService = mock(BiometricExportService.class);
+        HealthDataController controller = new HealthDataController(mock(BiometricDataService.class),
+                mock(HealthDataStreamingService.class), mock(IngestPipeline.class), mock(IngestReceiptStore.class),
+                mock(VitalSeriesService.class), mock(BiometricRollupService.class), biometricExportService,
+                mock(BiometricSnapshotCache.class), mock(IngestDebugSampler.class), mock(IngestIdempotencyService.class),
+                mock(BatchIngestService.class), mock(AnomalyDetectionService.class), mock(TrendService.class),
+                new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "exportTimeoutMillis", 600_000L);
+        mvc = MockMvcBuilders.standaloneSetup(controller).setAsyncRequestTimeout(60_000).build();
+    }
+
+    @Test
+    void exportStreamsWithItsOwnAsyncTimeout() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write("{}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(biometricExportService).export(eq("a@b.c"), eq(BiometricExportService.Format.NDJSON), any());
+
+        MvcResult started = mvc.perform(get("/fetch/user/a@b.c/export")).andReturn();
+
+        // Délai de l'export, pas celui de spring.mvc.async.request-timeout
+        assertTrue(started.getRequest().isAsyncStarted());
+        assertEquals(600_000L, started.getRequest().getAsyncContext().getTimeout());
+        MvcResult done = mvc.perform(asyncDispatch(started)).andReturn();
+        assertEquals(200, done.getResponse().getStatus());
+        assertEquals("{}\n", done.getResponse().getContentAsString());
+    }
+
+    @Test
+    void unknownFormatIsABadRequest() throws Exception {
+        MvcResult started = mvc.perform(get("/fetch/user/a@b.c/export?format=xml")).andReturn();
+        MvcResult done = mvc.perform(asyncDispatch(started)).andReturn();
+
+        assertEquals(400, done.getResponse().getStatus());
+        assertTrue(done.getResponse().getContentAsString(StandardCharsets.UTF_8).startsWith("❌ Erreur: "));
+        verifyNoInteractions(biometricExportService);
+    }
+}
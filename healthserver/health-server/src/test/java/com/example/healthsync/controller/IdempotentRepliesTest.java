@@ -0,0 +1,42 @@
+package com.example.healthsync.controller;
+
+import com.example.healthsync.model.IngestIdempotencyRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IdempotentRepliesTest {
+
+    private static final IngestIdempotencyRecord DONE = new IngestIdempotencyRecord(
+            IngestIdempotencyRecord.idOf("a@b.c", "k1"), "a@b.c", "k1", "h1", 200, "✅ ok",
+            LocalDateTime.now(), LocalDateTime.now());
+
+    @Test
+    void replaysSameRequest() {
+        ResponseEntity<String> reply = IdempotentReplies.replay(DONE, "h1");
+
+        assertEquals(200, reply.getStatusCode().value());
+        assertEquals("✅ ok", reply.getBody());
+        assertEquals("true", reply.getHeaders().getFirst(IdempotentReplies.REPLAYED_HEADER));
+    }
+
+    @Test
+    void rejectsKeyReusedForAnotherPayload() {
+        ResponseEntity<String> reply = IdempotentReplies.replay(DONE, "h2");
+
+        assertEquals(422, reply.getStatusCode().value());
+        assertNull(reply.getHeaders().getFirst(IdempotentReplies.REPLAYED_HEADER));
+    }
+
+    @Test
+    void inProgressAsksToRetryLater() {
+        ResponseEntity<String> reply = IdempotentReplies.inProgress(5);
+
+        assertEquals(409, reply.getStatusCode().value());
+        assertEquals("5", reply.getHeaders().getFirst("Retry-After"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.healthsync.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TrendAccumulatorTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 10, 1);
+
+    @Test
+    void slopeMatchesLeastSquares() {
+        TrendAccumulator accumulator = new TrendAccumulator();
+        double[] values = {5000, 6000, 5500, 7000, 8000};
+        for (int i = 0; i < values.length; i++) {
+            accumulator.put(START.plusDays(i), values[i]);
+        }
+        // numpy.polyfit(range(5), values, 1)[0] == 700
+        assertEquals(700, accumulator.slope(), 1e-9);
+        assertEquals(6300, accumulator.mean(), 1e-9);
+    }
+
+    @Test
+    void replacedAndEvictedDaysLeaveNoTrace() {
+        TrendAccumulator accumulator = new TrendAccumulator();
+        accumulator.put(START, 100);
+        accumulator.put(START.plusDays(1), 50);
+        accumulator.put(START.plusDays(2), 60);
+        accumulator.put(START.plusDays(3), 70);
+        accumulator.put(START.plusDays(1), 55);
+
+        accumulator.evictBefore(START.plusDays(1));
+
+        assertEquals(3, accumulator.getN());
+        assertEquals(7.5, accumulator.slope(), 1e-9);
+        assertEquals(61.666666666, accumulator.mean(), 1e-6);
+
+        accumulator.evictBefore(START.plusDays(10));
+        assertEquals(0, accumulator.getN());
+        assertNull(accumulator.slope());
+    }
+}
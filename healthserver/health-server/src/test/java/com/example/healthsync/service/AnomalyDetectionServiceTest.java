@@ -0,0 +1,143 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.Alert;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.VitalBaseline;
+import com.example.healthsync.model.VitalMetric;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AnomalyDetectionServiceTest {
+
+    private static final String ID = VitalBaseline.idOf("a@b.c", VitalMetric.OXYGEN_SATURATION);
+
+    private MongoTemplate mongoTemplate;
+    private AnomalyDetectionService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        service = new AnomalyDetectionService(mongoTemplate);
+        ReflectionTestUtils.setField(service, "alpha", 0.1);
+        ReflectionTestUtils.setField(service, "zThreshold", 3.0);
+        ReflectionTestUtils.setField(service, "minSamples", 10L);
+    }
+
+    @Test
+    void firstReadingsBuildTheBaselineThenEwmaTakesOver() {
+        // Nouvelle référence : pondération 1/n (Welford), statistiques de population exactes
+        service.detect(List.of(day("08:00", 96.0, "09:00", 97.0, "10:00", 98.0, "11:00", 99.0)));
+
+        VitalBaseline created = savedBaseline();
+        assertEquals(4, created.getCount());
+        assertEquals(97.5, created.getMean(), 1e-9);
+        assertEquals(1.25, created.getVariance(), 1e-9);
+        assertEquals(Instant.parse("2025-10-01T11:00:00Z"), created.getLastTime());
+
+        // Référence installée : 1/n < alpha, la nouvelle mesure pèse alpha
+        reset(mongoTemplate);
+        when(mongoTemplate.findById(ID, VitalBaseline.class)).thenReturn(baseline(20, 97.0, 1.0));
+        service.detect(List.of(day("12:00", 99.0)));
+
+        VitalBaseline updated = savedBaseline();
+        assertEquals(21, updated.getCount());
+        assertEquals(97.2, updated.getMean(), 1e-9);
+        assertEquals(0.9 * (1 + 0.1 * 4), updated.getVariance(), 1e-9);
+    }
+
+    @Test
+    void zScoreWaitsForMinSamples() {
+        // z = (99.9 - 97) / 0.5 ≈ 5.8, mais seulement 9 mesures dans la référence
+        when(mongoTemplate.findById(ID, VitalBaseline.class)).thenReturn(baseline(9, 97.0, 0.25));
+        service.detect(List.of(day("12:00", 99.9)));
+        assertTrue(savedAlerts().isEmpty());
+
+        reset(mongoTemplate);
+        when(mongoTemplate.findById(ID, VitalBaseline.class)).thenReturn(baseline(10, 97.0, 0.25));
+        service.detect(List.of(day("12:00", 99.9)));
+        List<Alert> alerts = savedAlerts();
+        assertEquals(1, alerts.size());
+        assertEquals(Alert.Rule.Z_SCORE, alerts.get(0).getRule());
+        assertEquals(5.8, alerts.get(0).getZScore(), 1e-9);
+    }
+
+    @Test
+    void zScoreAlertStartsAtTheThreshold() {
+        when(mongoTemplate.findById(ID, VitalBaseline.class)).thenReturn(baseline(20, 97.0, 1.0));
+        service.detect(List.of(day("12:00", 99.9)));
+        assertTrue(savedAlerts().isEmpty());
+
+        reset(mongoTemplate);
+        when(mongoTemplate.findById(ID, VitalBaseline.class)).thenReturn(baseline(20, 97.0, 1.0));
+        service.detect(List.of(day("12:00", 100.0)));
+        List<Alert> alerts = savedAlerts();
+        assertEquals(1, alerts.size());
+        assertEquals(Alert.Severity.WARNING, alerts.get(0).getSeverity());
+        assertEquals(3.0, alerts.get(0).getZScore(), 1e-9);
+    }
+
+    @Test
+    void resyncedReadingsDoNotMoveTheBaseline() {
+        VitalBaseline baseline = baseline(20, 97.0, 1.0);
+        baseline.setLastTime(Instant.parse("2025-10-01T12:00:00Z"));
+        when(mongoTemplate.findById(ID, VitalBaseline.class)).thenReturn(baseline);
+
+        // Mesures déjà prises en compte (même instant ou antérieures), même très inhabituelles
+        service.detect(List.of(day("11:00", 100.0, "12:00", 100.0)));
+
+        verify(mongoTemplate, never()).save(any());
+        assertEquals(20, baseline.getCount());
+        assertEquals(97.0, baseline.getMean(), 1e-9);
+    }
+
+    private VitalBaseline savedBaseline() {
+        ArgumentCaptor<VitalBaseline> saved = ArgumentCaptor.forClass(VitalBaseline.class);
+        verify(mongoTemplate).save(saved.capture());
+        return saved.getValue();
+    }
+
+    private List<Alert> savedAlerts() {
+        ArgumentCaptor<Object> saved = ArgumentCaptor.forClass(Object.class);
+        verify(mongoTemplate, atLeast(0)).save(saved.capture());
+        List<Alert> alerts = new ArrayList<>();
+        for (Object document : saved.getAllValues()) {
+            if (document instanceof Alert alert) {
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    private static VitalBaseline baseline(long count, double mean, double variance) {
+        return new VitalBaseline(ID, 1L, "a@b.c", VitalMetric.OXYGEN_SATURATION, count, mean, variance, null);
+    }
+
+    /**
+     * Jour avec des mesures SpO2 (heure, valeur), toutes dans les seuils médicaux
+     */
+    private static BiometricData day(Object... readings) {
+        BiometricData day = new BiometricData();
+        day.setEmail("a@b.c");
+        day.setDate("2025-10-01");
+        List<BiometricData.OxygenSaturationRecord> o2 = new ArrayList<>();
+        for (int i = 0; i < readings.length; i += 2) {
+            o2.add(new BiometricData.OxygenSaturationRecord((Double) readings[i + 1],
+                    "2025-10-01T" + readings[i] + ":00Z", null));
+        }
+        day.setOxygenSaturation(o2);
+        return day;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.Alert;
+import com.example.healthsync.model.VitalBaseline;
+import com.example.healthsync.model.VitalMetric;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnomalyRulesTest {
+
+    @Test
+    void appliesPythonThresholds() {
+        assertEquals(Alert.Severity.CRITICAL, AnomalyRules.check(VitalMetric.OXYGEN_SATURATION, 89, null).severity());
+        assertEquals(Alert.Severity.WARNING, AnomalyRules.check(VitalMetric.OXYGEN_SATURATION, 94, null).severity());
+        assertNull(AnomalyRules.check(VitalMetric.OXYGEN_SATURATION, 95, null));
+
+        assertEquals(Alert.Severity.CRITICAL, AnomalyRules.check(VitalMetric.BLOOD_PRESSURE, 150, 120.0).severity());
+        assertEquals("Hypertension (140/85)", AnomalyRules.check(VitalMetric.BLOOD_PRESSURE, 140, 85.0).message());
+        assertNull(AnomalyRules.check(VitalMetric.BLOOD_PRESSURE, 120, 80.0));
+
+        assertEquals("Fièvre détectée (38.2°C)", AnomalyRules.check(VitalMetric.BODY_TEMPERATURE, 38.2, null).message());
+        assertNull(AnomalyRules.check(VitalMetric.HEART_RATE, 110, null));
+        assertEquals(Alert.Severity.WARNING, AnomalyRules.check(VitalMetric.HEART_RATE, 49, null).severity());
+    }
+
+    @Test
+    void baselineMatchesPopulationStatsDuringWarmUp() {
+        VitalBaseline baseline = new VitalBaseline();
+        double[] values = {60, 62, 64, 66};
+        for (double value : values) {
+            baseline.update(value, 0.1);
+        }
+        // 1/n > alpha : moyenne et variance exactes (population)
+        assertEquals(63, baseline.getMean(), 1e-9);
+        assertEquals(5, baseline.getVariance(), 1e-9);
+        assertNull(baseline.zScore(80, 10));
+    }
+
+    @Test
+    void flagsValuesFarFromTheUsualLevel() {
+        VitalBaseline baseline = new VitalBaseline();
+        for (int i = 0; i < 30; i++) {
+            baseline.update(i % 2 == 0 ? 97 : 98, 0.1);
+        }
+        assertTrue(Math.abs(baseline.zScore(97.5, 10)) < 1);
+        assertTrue(baseline.zScore(93, 10) < -3);
+    }
+}
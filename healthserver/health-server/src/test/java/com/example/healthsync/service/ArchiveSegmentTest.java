@@ -0,0 +1,89 @@
+package com.example.healthsync.service;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesAndReadsRangesAcrossBlocks() throws Exception {
+        // ~3 Ko par jour : plusieurs blocs de 64 Ko sur 400 jours
+        LocalDate first = LocalDate.of(2022, 1, 1);
+        List<ArchiveSegment.Day> days = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            LocalDate date = first.plusDays(2L * i);  // un jour sur deux
+            days.add(new ArchiveSegment.Day(date, day(date, i)));
+        }
+        Path path = directory.resolve("segment" + ArchiveSegment.SUFFIX);
+        ArchiveSegment.write(path, "user@example.com", days);
+
+        ArchiveSegment segment = ArchiveSegment.open(path);
+        assertEquals("user@example.com", segment.email());
+        assertEquals(400, segment.dayCount());
+        assertEquals(List.of("date", "totalSteps", "notes", "contentHash"), segment.columns());
+        assertTrue(path.toFile().length() < 400 * 3300 / 10, "les colonnes doivent être compressées");
+
+        List<LocalDate> range = segment.days(first.plusDays(1), first.plusDays(6));
+        assertEquals(List.of(first.plusDays(2), first.plusDays(4), first.plusDays(6)), range);
+        assertEquals(400, segment.days(null, null).size());
+
+        List<ArchiveSegment.Day> read = segment.read(List.of(first.plusDays(2), first.plusDays(3), first.plusDays(798)), null);
+        assertEquals(2, read.size());
+        assertEquals(days.get(1).document(), read.get(0).document());
+        assertEquals(days.get(399).document(), read.get(1).document());
+    }
+
+    @Test
+    void projectedReadOnlyReturnsRequestedColumns() throws Exception {
+        LocalDate first = LocalDate.of(2022, 1, 1);
+        List<ArchiveSegment.Day> days = List.of(
+                new ArchiveSegment.Day(first, day(first, 0)),
+                new ArchiveSegment.Day(first.plusDays(1), day(first.plusDays(1), 1)));
+        Path path = directory.resolve("segment" + ArchiveSegment.SUFFIX);
+        ArchiveSegment.write(path, "user@example.com", days);
+
+        List<ArchiveSegment.Day> read = ArchiveSegment.open(path).read(List.of(first, first.plusDays(1)),
+                Set.of("date", "contentHash"));
+
+        // Le jour 0 n'a pas de contentHash : colonne absente de sa ligne
+        assertEquals(new BsonDocument("date", new BsonString(first.toString())), read.get(0).document());
+        assertEquals(new BsonDocument("date", new BsonString(first.plusDays(1).toString()))
+                .append("contentHash", new BsonString("h1")), read.get(1).document());
+    }
+
+    @Test
+    void rejectsUnsortedOrDuplicateDays() {
+        LocalDate date = LocalDate.of(2022, 1, 1);
+        List<ArchiveSegment.Day> days = List.of(new ArchiveSegment.Day(date, day(date, 0)),
+                new ArchiveSegment.Day(date, day(date, 1)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ArchiveSegment.write(directory.resolve("segment" + ArchiveSegment.SUFFIX), "user@example.com", days));
+    }
+
+    private static BsonDocument day(LocalDate date, int i) {
+        BsonDocument document = new BsonDocument("date", new BsonString(date.toString()))
+                .append("totalSteps", new BsonInt32(1000 + i))
+                .append("notes", new BsonString((date + " ").repeat(300)));
+        if (i % 2 == 1) {
+            document.append("contentHash", new BsonString("h" + i));
+        }
+        return document;
+    }
+}
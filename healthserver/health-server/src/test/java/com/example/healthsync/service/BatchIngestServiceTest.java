@@ -0,0 +1,97 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.BatchIngestResult;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HealthData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class BatchIngestServiceTest {
+
+    private BiometricDataService biometricDataService;
+    private BatchIngestService batchIngestService;
+
+    @BeforeEach
+    void setUp() {
+        biometricDataService = mock(BiometricDataService.class);
+        when(biometricDataService.toBiometricData(any(), any(HealthData.DailyData.class), any(LocalDateTime.class)))
+                .thenAnswer(inv -> {
+                    BiometricData data = new BiometricData();
+                    data.setEmail(inv.getArgument(0));
+                    data.setDate(((HealthData.DailyData) inv.getArgument(1)).getDate());
+                    return data;
+                });
+        when(biometricDataService.upsertAllReportingFailures(anyList())).thenReturn(Set.of());
+        batchIngestService = new BatchIngestService(biometricDataService, new IngestMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(batchIngestService, "chunkDays", 2);
+    }
+
+    @Test
+    void groupsDaysOfAllEnvelopesIntoChunks() {
+        BatchIngestResult result = batchIngestService.ingest(List.of(
+                envelope("a@b.c", "2025-10-01", "2025-10-02"),
+                envelope("d@e.f", "2025-10-01")));
+
+        assertEquals(3, result.getDaysWritten());
+        assertEquals(2, result.getBulkWrites());
+        assertTrue(result.allOk());
+        verify(biometricDataService, times(2)).upsertAllReportingFailures(anyList());
+    }
+
+    @Test
+    void invalidEnvelopeDoesNotFailTheBatch() {
+        BatchIngestResult result = batchIngestService.ingest(List.of(
+                envelope(null, "2025-10-01"),
+                envelope("d@e.f", "2025-10-01")));
+
+        assertEquals(BatchIngestResult.Status.REJECTED, result.getResults().get(0).getStatus());
+        assertEquals(BatchIngestResult.Status.OK, result.getResults().get(1).getStatus());
+        assertEquals(1, result.getDaysWritten());
+        assertFalse(result.allOk());
+    }
+
+    @Test
+    void reportsWriteFailuresPerEnvelope() {
+        // Chunk 1 = [a 01, a 02] : le 2e jour échoue ; chunk 2 = [d 01] : échoue
+        when(biometricDataService.upsertAllReportingFailures(anyList()))
+                .thenReturn(Set.of(1))
+                .thenReturn(Set.of(0));
+
+        BatchIngestResult result = batchIngestService.ingest(List.of(
+                envelope("a@b.c", "2025-10-01", "2025-10-02"),
+                envelope("d@e.f", "2025-10-01")));
+
+        assertEquals(BatchIngestResult.Status.PARTIAL, result.getResults().get(0).getStatus());
+        assertEquals(1, result.getResults().get(0).getDaysWritten());
+        assertEquals(BatchIngestResult.Status.FAILED, result.getResults().get(1).getStatus());
+        assertEquals(1, result.getDaysWritten());
+    }
+
+    private static HealthData envelope(String email, String... dates) {
+        HealthData healthData = new HealthData();
+        healthData.setEmail(email);
+        List<HealthData.DailyData> days = new ArrayList<>();
+        Arrays.stream(dates).forEach(date -> {
+            HealthData.DailyData day = new HealthData.DailyData();
+            day.setDate(date);
+            days.add(day);
+        });
+        healthData.setDailyData(days);
+        return healthData;
+    }
+}
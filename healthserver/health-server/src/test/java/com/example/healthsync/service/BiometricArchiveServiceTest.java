@@ -0,0 +1,169 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRecordType;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BiometricArchiveServiceTest {
+
+    private static final String EMAIL = "a@b.c";
+    private static final LocalDate CUTOFF = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    private MongoTemplate mongoTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private BulkOperations bulkOperations;
+    private BiometricArchiveService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        bulkOperations = mock(BulkOperations.class);
+        MongoDatabase db = mock(MongoDatabase.class);
+        when(db.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(mongoTemplate.getDb()).thenReturn(db);
+        when(mongoTemplate.getCollectionName(BiometricData.class)).thenReturn("biometric_data");
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(BiometricData.class))).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenAnswer(invocation -> BulkWriteResult.acknowledged(0, 0, 1, 0, List.of(), List.of()));
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+
+        service = new BiometricArchiveService(mongoTemplate, eventPublisher);
+        ReflectionTestUtils.setField(service, "directory", directory.toString());
+        ReflectionTestUtils.setField(service, "openSegments", 16L);
+        service.init();
+    }
+
+    @Test
+    void rewritesOneSegmentPerUserMergingPreviousDays() throws IOException {
+        mongoDays(day("2023-01-01", "v1", 1), day("2023-01-02", "v1", 1));
+        service.archiveUser(EMAIL, CUTOFF);
+
+        // Jour ré-synchronisé puis ré-archivé, et copie en double (antérieure à l'index unique)
+        mongoDays(day("2023-01-02", "old", 2), day("2023-01-02", "v2", 3), day("2023-01-03", "v1", 3));
+        service.archiveUser(EMAIL, CUTOFF);
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(ArchiveSegment.SUFFIX)).count());
+        }
+        List<BiometricData> archived = service.findArchived(EMAIL, null, null, 10, null);
+        assertEquals(List.of("2023-01-03", "2023-01-02", "2023-01-01"), archived.stream().map(BiometricData::getDate).toList());
+        assertEquals("v2", archived.get(1).getContentHash());
+        assertEquals(3, service.countArchived(EMAIL));
+        verify(eventPublisher).publishEvent(new BiometricDaysChangedEvent(Set.of("2023-01-02", "2023-01-03")));
+    }
+
+    @Test
+    void projectedReadOnlyDecodesRequestedFields() throws IOException {
+        mongoDays(day("2023-01-01", "h1", 1));
+        service.archiveUser(EMAIL, CUTOFF);
+
+        List<BiometricData> archived = service.findArchived(EMAIL, List.of(LocalDate.parse("2023-01-01"),
+                LocalDate.parse("2023-01-05")), List.of("contentHash"));
+
+        assertEquals(1, archived.size());
+        assertEquals("h1", archived.get(0).getContentHash());
+        assertNull(archived.get(0).getTotalSteps());
+    }
+
+    @Test
+    void findsArchivedRecordsInWindowSkippingResyncedDays() throws IOException {
+        Document first = day("2023-01-01", "h1", 1).append("steps", List.of(
+                new Document("count", 10L).append("startAt", Date.from(Instant.parse("2023-01-01T08:00:00Z"))),
+                new Document("count", 20L).append("startAt", Date.from(Instant.parse("2023-01-01T20:00:00Z")))));
+        Document second = day("2023-01-02", "h2", 1).append("steps", List.of(
+                new Document("count", 30L).append("startAt", Date.from(Instant.parse("2023-01-02T08:00:00Z")))));
+        mongoDays(first, second);
+        service.archiveUser(EMAIL, CUTOFF);
+
+        List<Object> records = service.findArchivedRecords(EMAIL, BiometricRecordType.STEPS,
+                Instant.parse("2023-01-01T12:00:00Z"), Instant.parse("2023-01-03T00:00:00Z"), Set.of("2023-01-02"));
+
+        assertEquals(1, records.size());
+        assertEquals(20L, ((BiometricData.StepRecord) records.get(0)).getCount());
+    }
+
+    @Test
+    void archivedIntervalsOverlappingTheWindowAreFound() throws IOException {
+        // Nuit commencée la veille au soir, sieste finie avant la plage
+        Document day = day("2023-01-02", "h1", 1).append("sleep", List.of(
+                new Document("title", "nuit").append("startAt", Date.from(Instant.parse("2023-01-01T22:00:00Z")))
+                        .append("endAt", Date.from(Instant.parse("2023-01-02T06:00:00Z"))),
+                new Document("title", "sieste").append("startAt", Date.from(Instant.parse("2023-01-01T13:00:00Z")))
+                        .append("endAt", Date.from(Instant.parse("2023-01-01T14:00:00Z")))));
+        mongoDays(day);
+        service.archiveUser(EMAIL, CUTOFF);
+
+        List<Object> records = service.findArchivedRecords(EMAIL, BiometricRecordType.SLEEP,
+                Instant.parse("2023-01-02T00:00:00Z"), Instant.parse("2023-01-03T00:00:00Z"), Set.of());
+
+        assertEquals(1, records.size());
+        assertEquals("nuit", ((BiometricData.SleepRecord) records.get(0)).getTitle());
+    }
+
+    @Test
+    void failedUserDoesNotStopTheBatch() {
+        when(mongoTemplate.findDistinct(any(Query.class), eq("email"), eq(BiometricData.class), eq(String.class)))
+                .thenReturn(List.of("broken@b.c", EMAIL));
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), anyString()))
+                .thenThrow(new IllegalStateException("curseur perdu"))
+                .thenAnswer(invocation -> Stream.of(day("2023-01-01", "h1", 1)));
+
+        Set<String> failed = new HashSet<>();
+        assertEquals(1, service.archiveBatch(10, failed));
+        assertEquals(Set.of("broken@b.c"), failed);
+    }
+
+    private void mongoDays(Document... days) {
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("biometric_data")))
+                .thenAnswer(invocation -> Stream.of(days));
+    }
+
+    private static Document day(String date, String contentHash, int receivedAt) {
+        return new Document("_id", new ObjectId()).append("email", EMAIL).append("date", date)
+                .append("contentHash", contentHash).append("totalSteps", 1000)
+                .append("receivedAt", Date.from(Instant.ofEpochSecond(receivedAt)));
+    }
+}
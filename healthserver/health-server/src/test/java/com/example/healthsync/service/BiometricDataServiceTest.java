@@ -0,0 +1,298 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.BiometricPage;
+import com.example.healthsync.dto.SyncHandshakeRequest;
+import com.example.healthsync.dto.SyncHandshakeResponse;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRecordType;
+import com.example.healthsync.repository.BiometricDataRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BiometricDataServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private ApplicationEventPublisher eventPublisher;
+    private BiometricDataRepository repository;
+    private BiometricArchiveService archiveService;
+    private BiometricDataService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        repository = mock(BiometricDataRepository.class);
+        archiveService = mock(BiometricArchiveService.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(BiometricData.class))).thenReturn(bulkOperations);
+        service = new BiometricDataService(repository, mongoTemplate, eventPublisher,
+                mock(BiometricSnapshotCache.class), new IngestMetrics(new SimpleMeterRegistry()), archiveService);
+    }
+
+    @Test
+    void findRecordsCapsMergedLiveAndArchivedRecords() {
+        ReflectionTestUtils.setField(service, "maxRecords", 2);
+        Instant from = Instant.parse("2023-01-01T00:00:00Z");
+        Instant to = Instant.parse("2023-01-03T00:00:00Z");
+        when(repository.findRecordsBetween("a@b.c", BiometricRecordType.STEPS, from, to, 2)).thenReturn(List.of(
+                step("2023-01-02T08:00:00Z"), step("2023-01-02T09:00:00Z")));
+        when(archiveService.archivedDates("a@b.c")).thenReturn(Set.of("2023-01-01"));
+        when(archiveService.findArchivedRecords(eq("a@b.c"), eq(BiometricRecordType.STEPS), eq(from), eq(to), any()))
+                .thenReturn(List.of(step("2023-01-01T08:00:00Z")));
+
+        List<?> records = service.findRecords("a@b.c", BiometricRecordType.STEPS, from, to);
+
+        assertEquals(List.of(Instant.parse("2023-01-01T08:00:00Z"), Instant.parse("2023-01-02T08:00:00Z")),
+                records.stream().map(record -> ((BiometricData.StepRecord) record).getStartAt()).toList());
+    }
+
+    private static BiometricData.StepRecord step(String startAt) {
+        BiometricData.StepRecord record = new BiometricData.StepRecord();
+        record.setStartAt(Instant.parse(startAt));
+        return record;
+    }
+
+    @Test
+    void upsertAllReplacesEachDayOnEmailAndDate() {
+        when(bulkOperations.execute()).thenReturn(result(0, List.of(upsert(0, "650000000000000000000001"))));
+
+        service.upsertAll(days("a@b.c", "2025-10-01"));
+
+        ArgumentCaptor<Query> byDay = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations).replaceOne(byDay.capture(), any(BiometricData.class), any());
+        assertEquals("a@b.c", byDay.getValue().getQueryObject().get("email"));
+        assertEquals("2025-10-01", byDay.getValue().getQueryObject().get("date"));
+        // Aucun jour remplacé : pas de relecture des IDs
+        verify(mongoTemplate, never()).find(any(Query.class), eq(BiometricData.class));
+    }
+
+    @Test
+    void duplicateDaysKeepTheLastCopyReceived() {
+        List<BiometricData> records = days("a@b.c", "2025-10-01", "2025-10-02", "2025-10-01", "2025-10-03");
+        records.get(0).setTotalSteps(1000);
+        records.get(2).setTotalSteps(2000);
+
+        int[] kept = new int[records.size()];
+        List<BiometricData> days = BiometricDataService.collapseDuplicateDays(records, kept);
+
+        assertEquals(List.of("2025-10-02", "2025-10-01", "2025-10-03"),
+                days.stream().map(BiometricData::getDate).toList());
+        assertEquals(2000, days.get(1).getTotalSteps());
+        assertArrayEquals(new int[]{1, 0, 1, 2}, kept);
+    }
+
+    @Test
+    void failedDuplicateDayIsReportedAtEveryOriginalIndex() {
+        List<BiometricData> records = days("a@b.c", "2025-10-01", "2025-10-02", "2025-10-01");
+        // Écriture groupée de [2025-10-02, 2025-10-01 (dernière copie)] : la seconde est rejetée
+        BulkWriteResult partial = result(0, List.of(upsert(0, "650000000000000000000001")));
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("E11000", new MongoBulkWriteException(
+                partial, List.of(new BulkWriteError(11000, "E11000", new BsonDocument(), 1)), null,
+                new ServerAddress(), Set.of())));
+
+        Set<Integer> failed = service.upsertAllReportingFailures(records);
+
+        assertEquals(Set.of(0, 2), failed);
+        ArgumentCaptor<BiometricData> written = ArgumentCaptor.forClass(BiometricData.class);
+        verify(bulkOperations, times(2)).replaceOne(any(Query.class), written.capture(), any());
+        assertSame(records.get(2), written.getAllValues().get(1));
+        assertEquals("650000000000000000000001", records.get(1).getId());
+    }
+
+    @Test
+    void upsertAllFillsIdsOfReplacedDays() {
+        // Jour 0 inséré, jour 1 remplacé (son ID existant est relu)
+        when(bulkOperations.execute()).thenReturn(result(1, List.of(upsert(0, "650000000000000000000001"))));
+        when(mongoTemplate.find(any(Query.class), eq(BiometricData.class)))
+                .thenReturn(List.of(stored("650000000000000000000002", "a@b.c", "2025-10-02")));
+
+        List<BiometricData> saved = service.upsertAll(days("a@b.c", "2025-10-01", "2025-10-02"));
+
+        assertEquals("650000000000000000000001", saved.get(0).getId());
+        assertEquals("650000000000000000000002", saved.get(1).getId());
+        ArgumentCaptor<BiometricDataSavedEvent> event = ArgumentCaptor.forClass(BiometricDataSavedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().records().stream().allMatch(day -> day.getId() != null));
+    }
+
+    @Test
+    void replacedIdLookupFailureKeepsTheWrite() {
+        when(bulkOperations.execute()).thenReturn(result(1, List.of()));
+        when(mongoTemplate.find(any(Query.class), eq(BiometricData.class))).thenThrow(new IllegalStateException("timeout"));
+
+        List<BiometricData> saved = service.upsertAll(days("a@b.c", "2025-10-01"));
+
+        assertNull(saved.get(0).getId());
+        verify(eventPublisher).publishEvent(any(BiometricDataSavedEvent.class));
+    }
+
+    @Test
+    void replacedIdsQueryGroupsDatesPerUser() {
+        List<BiometricData> records = new ArrayList<>(days("a@b.c", "2025-10-01", "2025-10-02"));
+        records.addAll(days("d@e.f", "2025-10-01"));
+        records.get(0).setId("650000000000000000000001");
+
+        Query query = BiometricDataService.replacedIdsQuery(records);
+
+        List<?> perUser = (List<?>) query.getQueryObject().get("$or");
+        assertEquals(2, perUser.size());
+        assertNull(BiometricDataService.replacedIdsQuery(List.of(stored("650000000000000000000001", "a@b.c", "2025-10-01"))));
+    }
+
+    @Test
+    void applyReplacedIdsMatchesOnEmailAndDate() {
+        List<BiometricData> records = new ArrayList<>(days("a@b.c", "2025-10-01"));
+        records.addAll(days("d@e.f", "2025-10-01"));
+
+        BiometricDataService.applyReplacedIds(List.of(stored("650000000000000000000009", "d@e.f", "2025-10-01")), records);
+
+        assertNull(records.get(0).getId());
+        assertEquals("650000000000000000000009", records.get(1).getId());
+    }
+
+    @Test
+    void handshakeComparesArchivedDaysToo() {
+        BiometricData live = stored("650000000000000000000001", "a@b.c", "2025-10-02");
+        live.setContentHash("h2");
+        when(mongoTemplate.find(any(Query.class), eq(BiometricData.class))).thenReturn(List.of(live));
+        BiometricData archived = days("a@b.c", "2023-01-01").get(0);
+        archived.setContentHash("h1");
+        when(archiveService.findArchived(eq("a@b.c"), anyCollection(), eq(List.of("contentHash"))))
+                .thenReturn(List.of(archived));
+
+        SyncHandshakeResponse response = service.handshake(new SyncHandshakeRequest("a@b.c", List.of(
+                new SyncHandshakeRequest.DayHash("2023-01-01", "h1"),
+                new SyncHandshakeRequest.DayHash("2025-10-02", "h2"),
+                new SyncHandshakeRequest.DayHash("2025-10-03", "h3"))));
+
+        assertEquals(List.of("2025-10-03"), response.getMissing());
+        assertEquals(List.of(), response.getChanged());
+        assertEquals(2, response.getUpToDate());
+    }
+
+    @Test
+    void handshakeReportsDaysWhoseHashChanged() {
+        BiometricData live = stored("650000000000000000000001", "a@b.c", "2025-10-02");
+        live.setContentHash("v1:ancienne");
+        when(mongoTemplate.find(any(Query.class), eq(BiometricData.class))).thenReturn(List.of(live));
+
+        SyncHandshakeResponse response = service.handshake(new SyncHandshakeRequest("a@b.c", List.of(
+                new SyncHandshakeRequest.DayHash("2025-10-02", "v1:nouvelle"),
+                new SyncHandshakeRequest.DayHash("pas-une-date", "h"))));
+
+        assertEquals(List.of("2025-10-02"), response.getChanged());
+        assertEquals(List.of("pas-une-date"), response.getMissing());
+        assertEquals(0, response.getUpToDate());
+    }
+
+    @Test
+    void userStatsCountsResyncedArchivedDaysOnce() {
+        when(repository.countByEmail("a@b.c")).thenReturn(5L);
+        when(archiveService.archivedDates("a@b.c")).thenReturn(Set.of("2023-01-01", "2023-01-02", "2023-01-03"));
+        // 2023-01-02 ré-synchronisé après archivage : présent des deux côtés
+        when(mongoTemplate.count(any(Query.class), eq(BiometricData.class))).thenReturn(1L);
+
+        assertEquals("👤 User a@b.c: 7 enregistrements", service.getUserStats("a@b.c"));
+    }
+
+    @Test
+    void pageContinuesBeforeCursorAndHandsOutNextCursor() {
+        when(mongoTemplate.find(any(Query.class), eq(BiometricData.class)))
+                .thenReturn(days("a@b.c", "2025-10-09", "2025-10-08", "2025-10-07"));
+
+        BiometricPage page = service.getUserDataPage("a@b.c", "2025-09-01", null, "2025-10-10", 2, List.of("totalSteps"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(BiometricData.class));
+        Document date = (Document) query.getValue().getQueryObject().get("date");
+        assertEquals("2025-09-01", date.get("$gte"));
+        assertEquals("2025-10-10", date.get("$lt"));
+        // Une ligne de plus que la page pour savoir s'il reste des jours
+        assertEquals(3, query.getValue().getLimit());
+        assertEquals(new Document("date", -1), query.getValue().getSortObject());
+        assertEquals(new Document("totalSteps", 1).append("date", 1), query.getValue().getFieldsObject());
+
+        assertEquals(2, page.getCount());
+        assertEquals("2025-10-08", page.getNextCursor());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(mongoTemplate.find(any(Query.class), eq(BiometricData.class))).thenReturn(days("a@b.c", "2025-10-01"));
+
+        BiometricPage page = service.getUserDataPage("a@b.c", null, null, null, 2, null);
+
+        assertEquals(1, page.getCount());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndOutOfRangeLimits() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getUserDataPage("a@b.c", null, null, null, 10, List.of("password")));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getUserDataPage("a@b.c", null, null, null, 0, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getUserDataPage("a@b.c", null, null, null, 367, null));
+        verify(mongoTemplate, never()).find(any(Query.class), eq(BiometricData.class));
+    }
+
+    private static BulkWriteResult result(int matched, List<BulkWriteUpsert> upserts) {
+        return BulkWriteResult.acknowledged(0, matched, 0, matched, upserts, List.of());
+    }
+
+    private static BulkWriteUpsert upsert(int index, String id) {
+        return new BulkWriteUpsert(index, new BsonObjectId(new ObjectId(id)));
+    }
+
+    private static List<BiometricData> days(String email, String... dates) {
+        List<BiometricData> records = new ArrayList<>();
+        for (String date : dates) {
+            BiometricData data = new BiometricData();
+            data.setEmail(email);
+            data.setDate(date);
+            records.add(data);
+        }
+        return records;
+    }
+
+    private static BiometricData stored(String id, String email, String date) {
+        BiometricData data = days(email, date).get(0);
+        data.setId(id);
+        return data;
+    }
+}
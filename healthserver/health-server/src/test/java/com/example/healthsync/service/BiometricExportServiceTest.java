@@ -0,0 +1,90 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.MeasurementRow;
+import com.example.healthsync.model.BiometricData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BiometricExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private MongoTemplate mongoTemplate;
+    private BiometricExportService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(BiometricData.class)))
+                .thenAnswer(invocation -> Stream.of(day("2025-10-01", 8000), day("2025-10-02", 9000)));
+        service = new BiometricExportService(mongoTemplate, objectMapper);
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        String body = export(BiometricExportService.Format.NDJSON);
+
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        // Par jour : totalSteps + un exercice dont le libellé contient virgule et guillemets
+        assertEquals(4, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("2025-10-01", first.get("date").asText());
+        assertEquals("totalSteps", first.get("metric").asText());
+        assertEquals(8000.0, first.get("value").asDouble());
+        // Champs null omis
+        assertNull(first.get("start"));
+        JsonNode exercise = objectMapper.readTree(lines[1]);
+        assertEquals("2025-10-01T07:00:00Z", exercise.get("start").asText());
+    }
+
+    @Test
+    void csvStartsWithHeaderAndQuotesLabels() throws Exception {
+        String[] lines = export(BiometricExportService.Format.CSV).split("\n");
+
+        assertEquals(MeasurementRow.CSV_HEADER, lines[0]);
+        assertEquals(5, lines.length);
+        assertEquals("2025-10-01,totalSteps,,,8000.0,,", lines[1]);
+        assertEquals("2025-10-01,exerciseMinutes,2025-10-01T07:00:00Z,2025-10-01T07:30:00Z,30.0,,"
+                + "\"Course, \"\"fractionné\"\"\"", lines[2]);
+    }
+
+    private String export(BiometricExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export("a@b.c", format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static BiometricData day(String date, int steps) {
+        BiometricData.ExerciseRecord exercise = new BiometricData.ExerciseRecord();
+        exercise.setExerciseTypeName("Course, \"fractionné\"");
+        exercise.setStartTime(date + "T07:00:00Z");
+        exercise.setEndTime(date + "T07:30:00Z");
+        exercise.setDurationMinutes(30L);
+        BiometricData day = new BiometricData();
+        day.setEmail("a@b.c");
+        day.setDate(date);
+        day.setTotalSteps(steps);
+        day.setExercise(List.of(exercise));
+        return day;
+    }
+}
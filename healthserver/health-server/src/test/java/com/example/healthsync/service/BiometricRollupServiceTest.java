@@ -0,0 +1,105 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.BiometricRollup;
+import com.example.healthsync.model.RollupGranularity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BiometricRollupServiceTest {
+
+    private static final String WEEK_ID = BiometricRollup.idOf("a@b.c", RollupGranularity.WEEK, "2025-09-29");
+
+    private MongoTemplate mongoTemplate;
+    private BiometricRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new BiometricRollupService(mongoTemplate);
+    }
+
+    @Test
+    void resyncedDayReplacesItsContribution() {
+        // Semaine existante : 2025-10-01 à 1000 pas, 2025-10-02 à 4000 pas
+        when(mongoTemplate.findById(WEEK_ID, BiometricRollup.class))
+                .thenReturn(rollup(WEEK_ID, Map.of("2025-10-01", 1000, "2025-10-02", 4000)));
+
+        service.onBiometricDataSaved(new BiometricDataSavedEvent(List.of(day("2025-10-01", 3000))));
+
+        BiometricRollup week = saved(WEEK_ID);
+        assertEquals(2, week.getDaysCount());
+        assertEquals(7000, week.getTotalSteps());
+        assertEquals(3500.0, week.getAvgSteps());
+    }
+
+    @Test
+    void concurrentWriteIsReadAgainAndReapplied() {
+        // 1re lecture périmée : l'autre instance a ajouté 2025-10-02 entre-temps
+        when(mongoTemplate.findById(WEEK_ID, BiometricRollup.class))
+                .thenReturn(rollup(WEEK_ID, Map.of()))
+                .thenReturn(rollup(WEEK_ID, Map.of("2025-10-02", 4000)));
+        when(mongoTemplate.save(any(BiometricRollup.class)))
+                .thenThrow(new OptimisticLockingFailureException("version"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.onBiometricDataSaved(new BiometricDataSavedEvent(List.of(day("2025-10-01", 3000))));
+
+        verify(mongoTemplate, times(2)).findById(WEEK_ID, BiometricRollup.class);
+        assertEquals(7000, saved(WEEK_ID).getTotalSteps());
+    }
+
+    @Test
+    void givesUpAfterMaxAttemptsWithoutFailingIngestion() {
+        when(mongoTemplate.findById(anyString(), eq(BiometricRollup.class))).thenReturn(null);
+        when(mongoTemplate.save(any(BiometricRollup.class))).thenThrow(new OptimisticLockingFailureException("version"));
+
+        service.onBiometricDataSaved(new BiometricDataSavedEvent(List.of(day("2025-10-01", 3000))));
+
+        // 5 tentatives sur le premier agrégat, puis abandon (vue reconstruisible)
+        verify(mongoTemplate, times(5)).save(any(BiometricRollup.class));
+    }
+
+    private BiometricRollup saved(String id) {
+        ArgumentCaptor<BiometricRollup> saved = ArgumentCaptor.forClass(BiometricRollup.class);
+        verify(mongoTemplate, atLeastOnce()).save(saved.capture());
+        return saved.getAllValues().stream()
+                .filter(rollup -> id.equals(rollup.getId()))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+    }
+
+    private static BiometricRollup rollup(String id, Map<String, Integer> steps) {
+        BiometricRollup rollup = new BiometricRollup();
+        rollup.setId(id);
+        rollup.setVersion(3L);
+        rollup.setEmail("a@b.c");
+        rollup.setGranularity(RollupGranularity.WEEK);
+        Map<String, BiometricRollup.DayContribution> days = new HashMap<>();
+        steps.forEach((date, count) -> days.put(date,
+                new BiometricRollup.DayContribution(count, null, null, null, null, null)));
+        rollup.setDays(days);
+        return rollup;
+    }
+
+    private static BiometricData day(String date, int steps) {
+        BiometricData day = new BiometricData();
+        day.setEmail("a@b.c");
+        day.setDate(date);
+        day.setTotalSteps(steps);
+        return day;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HeartRateSamples;
+import com.example.healthsync.repository.BiometricDataRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class BiometricSnapshotCacheTest {
+
+    private BiometricDataRepository repository;
+    private BiometricSnapshotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BiometricDataRepository.class);
+        cache = new BiometricSnapshotCache(repository, mock(MongoTemplate.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxUsers", 100L);
+        ReflectionTestUtils.setField(cache, "todayMaxWeight", 1000L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        cache.init();
+    }
+
+    @Test
+    void weighsRecordsAndHeartRateSamples() {
+        BiometricData day = day("a@b.c", 500);
+        day.setSteps(List.of(new BiometricData.StepRecord(), new BiometricData.StepRecord()));
+
+        // 1 (jour) + 2 pas + 1 enregistrement FC + 500 échantillons
+        assertEquals(504, BiometricSnapshotCache.weigh(day));
+    }
+
+    @Test
+    void heavyDaysDoNotCrowdOutTheCache() {
+        when(repository.findTopByEmailAndDateOrderByReceivedAtDesc("light@b.c", "2025-10-01")).thenReturn(day("light@b.c", 10));
+        when(repository.findTopByEmailAndDateOrderByReceivedAtDesc("heavy@b.c", "2025-10-01")).thenReturn(day("heavy@b.c", 5000));
+
+        cache.getToday("light@b.c", "2025-10-01");
+        cache.getToday("heavy@b.c", "2025-10-01");
+        // Éviction asynchrone : maintenance forcée avant les relectures
+        ((Cache<?, ?>) ReflectionTestUtils.getField(cache, "today")).cleanUp();
+        cache.getToday("light@b.c", "2025-10-01");
+        cache.getToday("heavy@b.c", "2025-10-01");
+
+        // Plus lourd que tout le cache : jamais conservé, le jour léger reste servi depuis le cache
+        verify(repository, times(1)).findTopByEmailAndDateOrderByReceivedAtDesc("light@b.c", "2025-10-01");
+        verify(repository, times(2)).findTopByEmailAndDateOrderByReceivedAtDesc("heavy@b.c", "2025-10-01");
+    }
+
+    private static BiometricData day(String email, int samples) {
+        BiometricData.HeartRateRecord record = new BiometricData.HeartRateRecord();
+        record.setSamples(HeartRateSamples.of(new ArrayList<>(Collections.nCopies(samples, 70L))));
+        BiometricData day = new BiometricData();
+        day.setEmail(email);
+        day.setDate("2025-10-01");
+        day.setHeartRate(List.of(record));
+        return day;
+    }
+}
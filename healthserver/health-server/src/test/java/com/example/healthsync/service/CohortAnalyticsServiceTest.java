@@ -0,0 +1,72 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.CohortReport;
+import com.example.healthsync.model.CohortDailyStat;
+import com.example.healthsync.model.CohortDayGeneration;
+import com.example.healthsync.model.CohortMetric;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CohortAnalyticsServiceTest {
+
+    @Test
+    void mergesDailyStatsIntoRangeSummary() {
+        Map<String, CohortDailyStat> stats = Map.of(
+                "2025-10-01", stat("2025-10-01", 2, 14000, 6000.0, 8000.0,
+                        List.of(new CohortDailyStat.Bin(6000, 1), new CohortDailyStat.Bin(8000, 1))),
+                "2025-10-02", stat("2025-10-02", 1, 8500, 8500.0, 8500.0,
+                        List.of(new CohortDailyStat.Bin(8000, 1))),
+                "2025-10-03", stat("2025-10-03", 0, 0, null, null, List.of()));
+
+        CohortReport report = CohortAnalyticsService.toReport(CohortMetric.STEPS,
+                LocalDate.parse("2025-10-01"), LocalDate.parse("2025-10-03"),
+                List.of("2025-10-01", "2025-10-02", "2025-10-03"), stats, 2, 1);
+
+        assertEquals(3, report.getUserDays());
+        assertEquals(7500.0, report.getMean());
+        assertEquals(6000.0, report.getMin());
+        assertEquals(8500.0, report.getMax());
+        assertEquals(List.of(new CohortDailyStat.Bin(6000, 1), new CohortDailyStat.Bin(8000, 2)), report.getHistogram());
+        assertEquals(7000.0, report.getDays().get(0).getMean());
+        assertNull(report.getDays().get(2).getMean());
+        assertEquals(2, report.getCachedDays());
+    }
+
+    @Test
+    void daysChangedOutsideIngestionBumpTheirGeneration() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations ops = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(CohortDayGeneration.class))).thenReturn(ops);
+
+        new CohortAnalyticsService(mongoTemplate).onBiometricDaysChanged(
+                new BiometricDaysChangedEvent(Set.of("2025-10-01", "2025-10-02")));
+
+        ArgumentCaptor<Query> day = ArgumentCaptor.forClass(Query.class);
+        verify(ops, times(2)).upsert(day.capture(), any(Update.class));
+        assertEquals(Set.of("2025-10-01", "2025-10-02"),
+                Set.copyOf(day.getAllValues().stream().map(query -> query.getQueryObject().get("_id")).toList()));
+        verify(ops).execute();
+    }
+
+    private static CohortDailyStat stat(String date, long users, double sum, Double min, Double max,
+                                        List<CohortDailyStat.Bin> histogram) {
+        return new CohortDailyStat(CohortDailyStat.idOf(CohortMetric.STEPS, date), CohortMetric.STEPS, date, 0,
+                LocalDateTime.now(), users, sum, min, max, 1000, histogram);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.HealthData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class DailyDataHasherTest {
+
+    @Test
+    void hashIsPinnedToTheDocumentedFormat() {
+        HealthData.DailyData day = day();
+
+        assertEquals("2025-10-01\n8000\n\n\n\n\n\n\n\n\n"
+                + "2|,2025-10-01T09:00:00Z,4000;,2025-10-01T18:00:00Z,4000\n"
+                + "1|2025-10-01T08:00:00Z,2025-10-01T08:01:00Z,60 62 64\n"
+                + "0|\n".repeat(9), DailyDataHasher.text(day));
+        // Valeur attendue d'un client qui suit le format : ne doit pas changer sans nouvelle version
+        assertEquals("v2:bc97d05977ee24e02d4547a92b84f5123492a72a8b5a560d3ad2757a6e25e492", DailyDataHasher.hash(day));
+    }
+
+    @Test
+    void hashIgnoresRecordOrderButNotNewRecords() {
+        HealthData.DailyData day = day();
+        String before = DailyDataHasher.hash(day);
+
+        Collections.reverse(day.getSteps());
+        assertEquals(before, DailyDataHasher.hash(day));
+
+        day.getHeartRate().get(0).getSamples().add(70L);
+        assertNotEquals(before, DailyDataHasher.hash(day));
+    }
+
+    @Test
+    void correctingASingleValueChangesTheHash() {
+        HealthData.DailyData day = day();
+        String before = DailyDataHasher.hash(day);
+
+        // Même nombre d'enregistrements et mêmes horodatages, une seule valeur corrigée
+        day.getSteps().get(0).setCount(4100L);
+        String stepsCorrected = DailyDataHasher.hash(day);
+        assertNotEquals(before, stepsCorrected);
+
+        day.getHeartRate().get(0).getSamples().set(1, 63L);
+        assertNotEquals(stepsCorrected, DailyDataHasher.hash(day));
+    }
+
+    @Test
+    void clientHashIsKeptAsIs() {
+        HealthData.DailyData day = day();
+        day.setContentHash("client-hash");
+
+        assertEquals("client-hash", DailyDataHasher.hashOf(day));
+    }
+
+    private static HealthData.DailyData day() {
+        HealthData.DailyData day = new HealthData.DailyData();
+        day.setDate("2025-10-01");
+        day.setTotalSteps(8000);
+        day.setSteps(new ArrayList<>(List.of(steps("2025-10-01T09:00:00Z"), steps("2025-10-01T18:00:00Z"))));
+        HealthData.HeartRateRecord heartRate = new HealthData.HeartRateRecord();
+        heartRate.setSamples(new ArrayList<>(List.of(60L, 62L, 64L)));
+        heartRate.setStartTime("2025-10-01T08:00:00Z");
+        heartRate.setEndTime("2025-10-01T08:01:00Z");
+        day.setHeartRate(new ArrayList<>(List.of(heartRate)));
+        return day;
+    }
+
+    private static HealthData.StepRecord steps(String end) {
+        HealthData.StepRecord record = new HealthData.StepRecord();
+        record.setCount(4000L);
+        record.setEndTime(end);
+        return record;
+    }
+}
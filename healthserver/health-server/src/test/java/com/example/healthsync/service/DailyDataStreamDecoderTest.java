@@ -0,0 +1,122 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HealthData;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DailyDataStreamDecoderTest {
+
+    @Test
+    void decodesDaysSplitAcrossBuffers() throws Exception {
+        String json = "{\"email\":\"a@b.c\",\"meta\":{\"app\":[1,{\"x\":2}]},\"dailyData\":["
+                + "{\"date\":\"2025-10-01\",\"steps\":[{\"count\":12,\"startTime\":\"s\",\"endTime\":\"e\"}]},"
+                + "{\"date\":\"2025-10-02\"},{\"date\":\"2025-10-03\",\"totalSteps\":900}]}";
+
+        // Un octet à la fois : chaque jeton peut être coupé en plein milieu
+        DailyDataStreamDecoder decoder = decoder(null);
+        List<List<BiometricData>> chunks = new ArrayList<>();
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            chunks.addAll(decoder.feed(bytes, i, 1));
+        }
+        chunks.addAll(decoder.finish());
+
+        assertEquals(3, decoder.days());
+        assertEquals(bytes.length, decoder.bytes());
+        assertEquals(2, chunks.size());
+        assertEquals(List.of("2025-10-01", "2025-10-02"), chunks.get(0).stream().map(BiometricData::getDate).toList());
+        assertEquals(Integer.valueOf(900), chunks.get(1).get(0).getTotalSteps());
+    }
+
+    @Test
+    void decodesSmileSplitAcrossBuffers() throws Exception {
+        HealthData payload = new HealthData();
+        payload.setEmail("a@b.c");
+        HealthData.DailyData first = new HealthData.DailyData();
+        first.setDate("2025-10-01");
+        first.setTotalSteps(1200);
+        HealthData.DailyData second = new HealthData.DailyData();
+        second.setDate("2025-10-02");
+        payload.setDailyData(List.of(first, second));
+        byte[] smile = new ObjectMapper(new SmileFactory()).writeValueAsBytes(payload);
+
+        DailyDataStreamDecoder decoder = decoder(new SmileFactory(), null);
+        List<List<BiometricData>> chunks = new ArrayList<>();
+        for (int i = 0; i < smile.length; i++) {
+            chunks.addAll(decoder.feed(smile, i, 1));
+        }
+        chunks.addAll(decoder.finish());
+
+        assertEquals(2, decoder.days());
+        assertEquals(1, chunks.size());
+        assertEquals(Integer.valueOf(1200), chunks.get(0).get(0).getTotalSteps());
+        assertEquals("a@b.c", chunks.get(0).get(1).getEmail());
+    }
+
+    @Test
+    void holdsDaysUntilEmailArrives() throws Exception {
+        DailyDataStreamDecoder decoder = decoder(null);
+        List<List<BiometricData>> early = feed(decoder, "{\"dailyData\":[{\"date\":\"2025-10-01\"},"
+                + "{\"date\":\"2025-10-02\"},{\"date\":\"2025-10-03\"}],");
+        List<List<BiometricData>> late = feed(decoder, "\"email\":\"late@b.c\"}");
+        List<List<BiometricData>> rest = decoder.finish();
+
+        assertEquals(0, early.size());
+        assertEquals(1, late.size());
+        assertEquals("late@b.c", late.get(0).get(2).getEmail());
+        assertEquals(0, rest.size());
+    }
+
+    @Test
+    void emailHintWinsOverBody() throws Exception {
+        DailyDataStreamDecoder decoder = decoder("hint@b.c");
+        feed(decoder, "{\"email\":\"body@b.c\",\"dailyData\":[{\"date\":\"2025-10-01\"}]}");
+
+        assertEquals("hint@b.c", decoder.finish().get(0).get(0).getEmail());
+    }
+
+    @Test
+    void rejectsTruncatedPayload() throws Exception {
+        DailyDataStreamDecoder decoder = decoder("a@b.c");
+        feed(decoder, "{\"dailyData\":[{\"date\":\"2025-10-01\"}");
+
+        assertThrows(Exception.class, decoder::finish);
+    }
+
+    @Test
+    void rejectsPayloadWithoutEmail() throws Exception {
+        DailyDataStreamDecoder decoder = decoder(null);
+        feed(decoder, "{\"dailyData\":[{\"date\":\"2025-10-01\"}]}");
+
+        assertThrows(IllegalArgumentException.class, decoder::finish);
+    }
+
+    private static DailyDataStreamDecoder decoder(String emailHint) throws Exception {
+        return decoder(new JsonFactory(), emailHint);
+    }
+
+    private static DailyDataStreamDecoder decoder(JsonFactory factory, String emailHint) throws Exception {
+        return new DailyDataStreamDecoder(new ObjectMapper(), factory, emailHint, 2, (email, day) -> {
+            BiometricData data = new BiometricData();
+            data.setEmail(email);
+            data.setDate(day.getDate());
+            data.setTotalSteps(day.getTotalSteps());
+            return data;
+        });
+    }
+
+    private static List<List<BiometricData>> feed(DailyDataStreamDecoder decoder, String json) throws Exception {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return decoder.feed(bytes, 0, bytes.length);
+    }
+}
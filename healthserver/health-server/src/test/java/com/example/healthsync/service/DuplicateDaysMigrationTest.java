@@ -0,0 +1,77 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DuplicateDaysMigrationTest {
+
+    private static final ObjectId OLD = new ObjectId("650000000000000000000001");
+    private static final ObjectId LATEST = new ObjectId("650000000000000000000002");
+    private static final ObjectId OLDER = new ObjectId("650000000000000000000003");
+
+    private MongoTemplate mongoTemplate;
+    private DuplicateDaysMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        migration = new DuplicateDaysMigration(mongoTemplate);
+    }
+
+    @Test
+    void keepsMostRecentlyReceivedCopy() {
+        Document group = new Document("copies", List.of(
+                copy(OLD, new Date(2_000)), copy(LATEST, new Date(3_000)), copy(OLDER, new Date(1_000))));
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq(BiometricData.class), eq(Document.class)))
+                .thenReturn(Stream.of(group));
+        when(mongoTemplate.remove(any(Query.class), eq(BiometricData.class))).thenReturn(DeleteResult.acknowledged(2));
+
+        assertEquals(2, migration.dedupBatch(10));
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(BiometricData.class));
+        Document ids = (Document) removed.getValue().getQueryObject().get("_id");
+        assertEquals(List.of(OLD, OLDER), ids.get("$in"));
+        // Une copie réécrite entre-temps (receivedAt plus récent) n'est pas supprimée
+        assertEquals(2, ((List<?>) removed.getValue().getQueryObject().get("$or")).size());
+    }
+
+    @Test
+    void copiesWithoutReceivedAtLoseAgainstDatedOnes() {
+        List<Document> copies = new ArrayList<>(List.of(copy(OLD, null), copy(LATEST, new Date(1_000))));
+        copies.sort(DuplicateDaysMigration.LATEST_FIRST);
+
+        assertEquals(LATEST, copies.get(0).get("id"));
+    }
+
+    @Test
+    void returnsZeroWhenNoDuplicates() {
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq(BiometricData.class), eq(Document.class)))
+                .thenReturn(Stream.empty());
+
+        assertEquals(0, migration.dedupBatch(10));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(BiometricData.class));
+    }
+
+    private static Document copy(ObjectId id, Date receivedAt) {
+        return new Document("id", id).append("receivedAt", receivedAt);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.IngestSummary;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HealthData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HealthDataStreamingServiceTest {
+
+    private BiometricDataService biometricDataService;
+    private HealthDataStreamingService streamingService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        biometricDataService = mock(BiometricDataService.class);
+        when(biometricDataService.toBiometricData(any(), any(HealthData.DailyData.class), any(LocalDateTime.class)))
+                .thenAnswer(inv -> {
+                    BiometricData data = new BiometricData();
+                    data.setEmail(inv.getArgument(0));
+                    data.setDate(((HealthData.DailyData) inv.getArgument(1)).getDate());
+                    return data;
+                });
+        meterRegistry = new SimpleMeterRegistry();
+        streamingService = new HealthDataStreamingService(biometricDataService, new ObjectMapper(),
+                new IngestMetrics(meterRegistry));
+        ReflectionTestUtils.setField(streamingService, "chunkDays", 2);
+        ReflectionTestUtils.setField(streamingService, "maxPendingDays", 3);
+    }
+
+    @Test
+    void writesDaysInChunks() throws Exception {
+        IngestSummary summary = ingest("{\"email\":\"a@b.c\",\"dailyData\":["
+                + "{\"date\":\"2025-10-01\"},{\"date\":\"2025-10-02\"},{\"date\":\"2025-10-03\"}]}", null);
+
+        assertEquals(3, summary.getDays());
+        assertEquals(2, summary.getWrites());
+        verify(biometricDataService, times(2)).persist(any());
+        // Mêmes métriques de lecture que les corps @RequestBody (IngestParseAdvice)
+        assertEquals(1, meterRegistry.get("healthsync.ingest.parse").timer().count());
+        assertEquals(3.0, meterRegistry.get("healthsync.ingest.request.days").summary().totalAmount());
+    }
+
+    @Test
+    void reportsDaysWrittenBeforeALaterParseFailure() {
+        HealthDataStreamingService.PartialIngestException e = assertThrows(
+                HealthDataStreamingService.PartialIngestException.class,
+                () -> ingest("{\"email\":\"a@b.c\",\"dailyData\":["
+                        + "{\"date\":\"2025-10-01\"},{\"date\":\"2025-10-02\"},{\"date\":", null));
+
+        assertEquals(2, e.getDaysWritten());
+        assertEquals("a@b.c", e.getEmail());
+    }
+
+    @Test
+    void boundsDaysBufferedBeforeTheEmail() {
+        assertThrows(IllegalArgumentException.class, () -> ingest("{\"dailyData\":[{\"date\":\"2025-10-01\"},"
+                + "{\"date\":\"2025-10-02\"},{\"date\":\"2025-10-03\"},{\"date\":\"2025-10-04\"}],"
+                + "\"email\":\"late@b.c\"}", null));
+        verify(biometricDataService, never()).persist(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void fillsEmailSentAfterDailyData() throws Exception {
+        IngestSummary summary = ingest("{\"dailyData\":[{\"date\":\"2025-10-01\"}],"
+                + "\"extra\":[1,2],\"email\":\"late@b.c\"}", null);
+
+        ArgumentCaptor<List<BiometricData>> written = ArgumentCaptor.forClass(List.class);
+        verify(biometricDataService).persist(written.capture());
+        assertEquals("late@b.c", summary.getEmail());
+        assertEquals("late@b.c", written.getValue().get(0).getEmail());
+    }
+
+    @Test
+    void rejectsPayloadWithoutEmail() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ingest("{\"dailyData\":[{\"date\":\"2025-10-01\"}]}", null));
+        verify(biometricDataService, never()).persist(any());
+    }
+
+    private IngestSummary ingest(String json, String email) throws Exception {
+        return streamingService.ingest(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), email);
+    }
+}
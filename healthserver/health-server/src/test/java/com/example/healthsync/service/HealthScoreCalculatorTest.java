@@ -0,0 +1,38 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HealthScoreCalculatorTest {
+
+    @Test
+    void matchesPythonFormula() {
+        BiometricData day = new BiometricData();
+        day.setTotalSteps(7500);
+        BiometricData.ExerciseRecord walk = new BiometricData.ExerciseRecord();
+        walk.setDurationMinutes(25L);
+        day.setExercise(List.of(walk));
+        day.setAvgHeartRate(72);
+        day.setMinHeartRate(55);
+        day.setMaxHeartRate(120);
+        day.setBloodPressure(List.of(new BiometricData.BloodPressureRecord(125.0, 82.0, "2025-10-01T08:00:00Z")));
+        day.setTotalSleepHours(6.5);
+        day.setTotalHydrationLiters(2.0);
+        day.setStressScore(40);
+        day.setOxygenSaturation(List.of(new BiometricData.OxygenSaturationRecord(96.0, "2025-10-01T08:00:00Z")));
+        day.setBodyTemperature(List.of(new BiometricData.BodyTemperatureRecord(37.5, "2025-10-01T08:00:00Z")));
+
+        // activité 12.5 + 7, cardio 15 + 1 + 3, sommeil 15, hydratation 8.5, stress 6, vitaux 5 + 2
+        assertEquals(75.0, HealthScoreCalculator.score(day), 1e-9);
+    }
+
+    @Test
+    void usesPythonDefaultsForMissingValues() {
+        // 0 pas, FC 70 (60-90), 7 h, 2 L, stress 50
+        assertEquals(0 + 15 + 5 + 20 + 8.5 + 5, HealthScoreCalculator.score(new BiometricData()), 1e-9);
+    }
+}
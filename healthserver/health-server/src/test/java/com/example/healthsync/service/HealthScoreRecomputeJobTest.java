@@ -0,0 +1,180 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.dto.HealthScoreJobStatus;
+import com.example.healthsync.model.BiometricData;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HealthScoreRecomputeJobTest {
+
+    private static final List<String> USERS = List.of("u1@x.fr", "u2@x.fr", "u3@x.fr", "u4@x.fr", "u5@x.fr");
+    private static final LocalDateTime RECEIVED_AT = LocalDateTime.of(2025, 10, 2, 8, 0);
+
+    private MongoTemplate mongoTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private HealthScoreRecomputeJob job;
+
+    // Utilisateurs de chaque curseur, filtres des mises à jour groupées
+    private final Queue<List<String>> partitions = new ConcurrentLinkedQueue<>();
+    private final Queue<Document> updateFilters = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        when(mongoTemplate.getCollectionName(BiometricData.class)).thenReturn("biometric_data");
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), anyString(), eq(Document.class)))
+                .thenAnswer(invocation -> USERS.stream().map(email -> new Document("_id", email)));
+        when(mongoTemplate.stream(any(Query.class), eq(BiometricData.class))).thenAnswer(invocation -> {
+            List<String> users = usersOf(invocation.getArgument(0));
+            partitions.add(users);
+            return users.stream().map(HealthScoreRecomputeJobTest::day);
+        });
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(BiometricData.class)))
+                .thenAnswer(invocation -> bulk());
+
+        job = new HealthScoreRecomputeJob(mongoTemplate, eventPublisher);
+        ReflectionTestUtils.setField(job, "parallelism", 2);
+        ReflectionTestUtils.setField(job, "usersPerTask", 2);
+        ReflectionTestUtils.setField(job, "writeBatch", 1000);
+    }
+
+    @Test
+    void partitionsUsersAcrossCursorsAndReportsProgress() throws InterruptedException {
+        HealthScoreJobStatus started = job.start(false);
+        assertEquals("RUNNING", started.getState());
+        assertEquals(2, started.getParallelism());
+
+        HealthScoreJobStatus status = awaitEnd();
+        assertEquals("DONE", status.getState());
+        assertEquals(started.getJobId(), status.getJobId());
+        assertEquals(5, status.getUsers());
+        assertEquals(5, status.getUsersDone());
+        assertEquals(5, status.getDocuments());
+        assertNotNull(status.getFinishedAt());
+
+        // 5 utilisateurs, 2 au plus par tâche : [0,2) puis [2,5) coupé en [2,3) et [3,5)
+        assertEquals(3, partitions.size());
+        Set<String> seen = new HashSet<>();
+        for (List<String> partition : partitions) {
+            assertTrue(partition.size() <= 2, partition.toString());
+            for (String user : partition) {
+                assertTrue(seen.add(user), "utilisateur dans deux partitions: " + user);
+            }
+        }
+        assertEquals(Set.copyOf(USERS), seen);
+        verify(eventPublisher, times(3)).publishEvent(any(BiometricDaysChangedEvent.class));
+    }
+
+    @Test
+    void guardedUpdateSkipsDaysRewrittenConcurrently() throws InterruptedException {
+        job.start(true);
+        HealthScoreJobStatus status = awaitEnd();
+
+        // Chaque mise à jour est gardée par _id + receivedAt lus par le curseur
+        assertEquals(5, updateFilters.size());
+        for (Document filter : updateFilters) {
+            assertEquals(RECEIVED_AT, filter.get("receivedAt"));
+            assertTrue(USERS.contains(filter.getString("_id").substring(3)));
+        }
+        // Le jour de u3 a été réécrit par une ingestion entre la lecture et l'écriture : non compté
+        assertEquals(4, status.getUpdated());
+    }
+
+    @Test
+    void secondStartIsRefusedWhileRunningAndFailuresAreReported() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), anyString(), eq(Document.class)))
+                .thenAnswer(invocation -> {
+                    release.await(10, TimeUnit.SECONDS);
+                    throw new IllegalStateException("curseur perdu");
+                });
+
+        job.start(false);
+        assertEquals("RUNNING", job.status().getState());
+        assertThrows(IllegalStateException.class, () -> job.start(false));
+
+        release.countDown();
+        HealthScoreJobStatus status = awaitEnd();
+        assertEquals("FAILED", status.getState());
+        assertEquals("curseur perdu", status.getError());
+        verify(mongoTemplate, never()).stream(any(Query.class), eq(BiometricData.class));
+
+        // Une fois terminé, un nouveau recalcul peut démarrer
+        assertNotEquals(status.getJobId(), job.start(false).getJobId());
+    }
+
+    private HealthScoreJobStatus awaitEnd() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            HealthScoreJobStatus status = job.status();
+            if (!"RUNNING".equals(status.getState())) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        fail("Recalcul non terminé");
+        return null;
+    }
+
+    /**
+     * Mises à jour groupées d'un curseur ; la garde receivedAt ne correspond plus pour u3
+     */
+    private BulkOperations bulk() {
+        BulkOperations ops = mock(BulkOperations.class);
+        List<Document> filters = new ArrayList<>();
+        when(ops.updateOne(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            Document filter = invocation.<Query>getArgument(0).getQueryObject();
+            filters.add(filter);
+            updateFilters.add(filter);
+            return ops;
+        });
+        when(ops.execute()).thenAnswer(invocation -> {
+            int modified = (int) filters.stream().filter(filter -> !"id-u3@x.fr".equals(filter.get("_id"))).count();
+            return BulkWriteResult.acknowledged(0, filters.size(), 0, modified, List.of(), List.of());
+        });
+        return ops;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> usersOf(Query query) {
+        List<Document> and = query.getQueryObject().getList("$and", Document.class);
+        return new ArrayList<>((Collection<String>) and.get(1).get("email", Document.class).get("$in"));
+    }
+
+    private static BiometricData day(String email) {
+        BiometricData day = new BiometricData();
+        day.setId("id-" + email);
+        day.setEmail(email);
+        day.setDate("2025-10-01");
+        day.setReceivedAt(RECEIVED_AT);
+        day.setTotalSteps(8000);
+        return day;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HeartRateSamples;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HeartRateDownsamplerTest {
+
+    @Test
+    void bucketsRawSamplesPerMinuteThenMergesPerHour() {
+        BiometricData day = new BiometricData();
+        // 4 échantillons répartis sur 90 s : 08:00:00, 08:00:30, 08:01:00, 08:01:30
+        day.setHeartRate(new ArrayList<>(List.of(new BiometricData.HeartRateRecord(
+                HeartRateSamples.of(List.of(60L, 70L, 80L, 90L)), "2025-10-01T08:00:00Z", "2025-10-01T08:01:30Z"))));
+
+        assertEquals(1, HeartRateDownsampler.downsample(day, 60));
+
+        BiometricData.HeartRateRecord hr = day.getHeartRate().get(0);
+        assertNull(hr.getSamples());
+        assertEquals(60, hr.getBucketSeconds());
+        assertEquals(60, day.getHrResolutionSeconds());
+        assertEquals(List.of(
+                new BiometricData.HeartRateBucket(Instant.parse("2025-10-01T08:00:00Z"), 60L, 65.0, 70L, 2),
+                new BiometricData.HeartRateBucket(Instant.parse("2025-10-01T08:01:00Z"), 80L, 85.0, 90L, 2)),
+                hr.getBuckets());
+
+        assertEquals(1, HeartRateDownsampler.downsample(day, 3600));
+        assertEquals(3600, day.getHrResolutionSeconds());
+        assertEquals(List.of(new BiometricData.HeartRateBucket(Instant.parse("2025-10-01T08:00:00Z"), 60L, 75.0, 90L, 4)),
+                day.getHeartRate().get(0).getBuckets());
+
+        // Déjà à la résolution demandée : rien à réécrire
+        assertEquals(0, HeartRateDownsampler.downsample(day, 3600));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.config.MongoConversionsConfig;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HeartRateSamples;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HeartRateSamplesMigrationTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private HeartRateSamplesMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(BiometricData.class))).thenReturn(bulkOperations);
+        when(mongoTemplate.getConverter()).thenReturn(converter());
+        migration = new HeartRateSamplesMigration(mongoTemplate);
+        ReflectionTestUtils.setField(migration, "hrSamplesCodec", HeartRateSamples.CODEC_NAME);
+    }
+
+    @Test
+    void rewritesOnlyHeartRateGuardedByReceivedAt() {
+        BiometricData day = new BiometricData();
+        day.setId("650000000000000000000001");
+        day.setDate("2025-10-01");
+        day.setReceivedAt(LocalDateTime.of(2025, 10, 1, 20, 0));
+        day.setHeartRate(List.of(new BiometricData.HeartRateRecord(HeartRateSamples.of(List.of(60L, 62L)),
+                "2025-10-01T08:00:00Z", "2025-10-01T08:01:00Z")));
+        when(mongoTemplate.find(any(Query.class), eq(BiometricData.class))).thenReturn(List.of(day));
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        assertEquals(1, migration.migrateBatch(100));
+
+        ArgumentCaptor<Query> guard = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateOne(guard.capture(), update.capture());
+        assertEquals(day.getReceivedAt(), guard.getValue().getQueryObject().get("receivedAt"));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(List.of("heartRate"), List.copyOf(set.keySet()));
+        List<?> heartRate = (List<?>) set.get("heartRate");
+        assertInstanceOf(Binary.class, ((Document) heartRate.get(0)).get("samples"));
+        verify(mongoTemplate, never()).save(any());
+    }
+
+    @Test
+    void refusesToRunWithArrayCodec() {
+        ReflectionTestUtils.setField(migration, "hrSamplesCodec", "array");
+
+        assertThrows(IllegalStateException.class, () -> migration.migrateBatch(100));
+    }
+
+    private static MappingMongoConverter converter() {
+        MongoConversionsConfig config = new MongoConversionsConfig();
+        ReflectionTestUtils.setField(config, "hrSamplesCodec", HeartRateSamples.CODEC_NAME);
+        MongoCustomConversions conversions = config.mongoCustomConversions();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
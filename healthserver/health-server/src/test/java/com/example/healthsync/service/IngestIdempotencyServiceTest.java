@@ -0,0 +1,115 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.IngestIdempotencyRecord;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IngestIdempotencyServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private IngestIdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new IngestIdempotencyService(mongoTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        ReflectionTestUtils.setField(service, "pendingTimeoutSeconds", 900L);
+        ReflectionTestUtils.setField(service, "requestTimeoutMillis", 600_000L);
+        ReflectionTestUtils.setField(service, "cacheSize", 100L);
+        service.init();
+    }
+
+    @Test
+    void completedResponseIsReplayedFromCache() {
+        assertTrue(service.claim("k1", "a@b.c").isEmpty());
+        service.complete("k1", "a@b.c", "h1", 200, "✅ ok");
+
+        Optional<IngestIdempotencyRecord> replay = service.claim("k1", "a@b.c");
+
+        assertTrue(replay.isPresent());
+        assertEquals(200, replay.get().getStatus());
+        assertEquals("✅ ok", replay.get().getBody());
+        // Réservation initiale seulement : la nouvelle tentative ne touche pas MongoDB
+        verify(mongoTemplate, times(1)).insert(any(IngestIdempotencyRecord.class));
+        verify(mongoTemplate, never()).findById(any(), eq(IngestIdempotencyRecord.class));
+    }
+
+    @Test
+    void concurrentAttemptSeesPendingClaim() {
+        when(mongoTemplate.insert(any(IngestIdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById(IngestIdempotencyRecord.idOf("a@b.c", "k2"), IngestIdempotencyRecord.class)).thenReturn(
+                pending("k2", LocalDateTime.now().minusSeconds(10)));
+
+        Optional<IngestIdempotencyRecord> existing = service.claim("k2", "a@b.c");
+
+        assertTrue(existing.isPresent());
+        assertFalse(existing.get().isCompleted());
+    }
+
+    @Test
+    void abandonedClaimIsTakenOver() {
+        when(mongoTemplate.insert(any(IngestIdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById(IngestIdempotencyRecord.idOf("a@b.c", "k3"), IngestIdempotencyRecord.class)).thenReturn(
+                pending("k3", LocalDateTime.now().minusHours(1)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IngestIdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertTrue(service.claim("k3", "a@b.c").isEmpty());
+    }
+
+    @Test
+    void rejectsOversizedKey() {
+        assertThrows(IllegalArgumentException.class, () -> service.claim("x".repeat(256), "a@b.c"));
+    }
+
+    @Test
+    void keyRequiresEmail() {
+        assertThrows(IllegalArgumentException.class, () -> service.claim("k4", null));
+        verify(mongoTemplate, never()).insert(any(IngestIdempotencyRecord.class));
+    }
+
+    @Test
+    void sameKeyIsScopedPerUser() {
+        assertTrue(service.claim("k5", "a@b.c").isEmpty());
+        service.complete("k5", "a@b.c", "h1", 200, "✅ a");
+
+        // Autre utilisateur, même clé : réservée séparément, aucune réponse de a@b.c rejouée
+        assertTrue(service.claim("k5", "d@e.f").isEmpty());
+        ArgumentCaptor<IngestIdempotencyRecord> claims = ArgumentCaptor.forClass(IngestIdempotencyRecord.class);
+        verify(mongoTemplate, times(2)).insert(claims.capture());
+        assertNotEquals(claims.getAllValues().get(0).getId(), claims.getAllValues().get(1).getId());
+    }
+
+    @Test
+    void pendingTimeoutMustExceedRequestTimeout() {
+        ReflectionTestUtils.setField(service, "pendingTimeoutSeconds", 300L);
+
+        assertThrows(IllegalStateException.class, service::init);
+    }
+
+    private static IngestIdempotencyRecord pending(String key, LocalDateTime createdAt) {
+        return new IngestIdempotencyRecord(IngestIdempotencyRecord.idOf("a@b.c", key), "a@b.c", key,
+                null, null, null, createdAt, null);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HeartRateSamples;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IngestMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IngestMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new IngestMetrics(meterRegistry);
+    }
+
+    @Test
+    void recordsParseDurationSizeAndDays() {
+        metrics.recordParse(TimeUnit.MILLISECONDS.toNanos(12), 4096, 7);
+
+        assertEquals(12.0, meterRegistry.get("healthsync.ingest.parse").timer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(4096.0, meterRegistry.get("healthsync.ingest.payload").summary().totalAmount());
+        assertEquals(7.0, meterRegistry.get("healthsync.ingest.request.days").summary().totalAmount());
+    }
+
+    @Test
+    void countsDataPointsPerMetricWithHeartRateSamples() {
+        BiometricData.HeartRateRecord first = new BiometricData.HeartRateRecord();
+        first.setSamples(HeartRateSamples.of(List.of(60L, 62L, 64L)));
+        BiometricData.HeartRateRecord second = new BiometricData.HeartRateRecord();
+        second.setSamples(HeartRateSamples.of(List.of(70L, 72L)));
+        BiometricData day = new BiometricData();
+        day.setSteps(List.of(new BiometricData.StepRecord(), new BiometricData.StepRecord()));
+        day.setHeartRate(List.of(first, second, new BiometricData.HeartRateRecord()));
+
+        metrics.recordDataPoints(List.of(day, day));
+
+        assertEquals(4.0, counter("steps"));
+        // Échantillons FC, pas enregistrements
+        assertEquals(10.0, counter("heart-rate"));
+        // Aucun point : pas de série créée
+        assertNull(meterRegistry.find("healthsync.ingest.datapoints").tag("metric", "weight").counter());
+    }
+
+    @Test
+    void timesConversionAndWrites() {
+        assertEquals("ok", metrics.timeConvert(() -> "ok"));
+        metrics.timePersist(() -> 1);
+        metrics.recordPersist(TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertEquals(1, meterRegistry.get("healthsync.ingest.convert").timer().count());
+        assertEquals(2, meterRegistry.get("healthsync.ingest.persist").timer().count());
+    }
+
+    private double counter(String metric) {
+        return meterRegistry.get("healthsync.ingest.datapoints").tag("metric", metric).counter().count();
+    }
+}
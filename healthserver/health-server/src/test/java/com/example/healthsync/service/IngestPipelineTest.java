@@ -0,0 +1,153 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HealthData;
+import com.example.healthsync.model.IngestReceiptRecord.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IngestPipelineTest {
+
+    private BiometricDataService biometricDataService;
+    private IngestReceiptStore receiptStore;
+    private IngestPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        biometricDataService = mock(BiometricDataService.class);
+        receiptStore = mock(IngestReceiptStore.class);
+        when(receiptStore.deadLetter(anyString(), any(HealthData.class), anyInt(), anyInt(), any())).thenReturn(true);
+        when(biometricDataService.toBiometricData(anyString(), any(HealthData.DailyData.class), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> {
+                    BiometricData data = new BiometricData();
+                    data.setEmail(invocation.getArgument(0));
+                    data.setDate(invocation.<HealthData.DailyData>getArgument(1).getDate());
+                    return data;
+                });
+
+        pipeline = new IngestPipeline(biometricDataService, receiptStore, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 10);
+        ReflectionTestUtils.setField(pipeline, "writers", 1);
+        ReflectionTestUtils.setField(pipeline, "maxBatchDays", 500);
+        ReflectionTestUtils.setField(pipeline, "maxAttempts", 3);
+        // Aucune nouvelle tentative ne part pendant le test
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMillis", 600_000L);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.stop();
+    }
+
+    @Test
+    void failedDayOnlyAffectsTheReceiptContainingIt() {
+        // Lot mixte : le 2e jour (index 1, utilisateur A) échoue, B est écrit
+        when(biometricDataService.upsertAllReportingFailures(anyList())).thenReturn(Set.of(1));
+
+        pipeline.write(List.of(
+                task("r-a", health("a@b.c", "2025-10-01", "2025-10-02"), 1),
+                task("r-b", health("b@b.c", "2025-10-01"), 1)));
+
+        Map<String, IngestReceiptStore.Outcome> outcomes = recordedOutcomes();
+        assertEquals(State.RETRYING, outcomes.get("r-a").state());
+        assertEquals(1, outcomes.get("r-a").daysWritten());
+        assertEquals(State.WRITTEN, outcomes.get("r-b").state());
+        assertEquals(1, outcomes.get("r-b").daysWritten());
+        assertNull(outcomes.get("r-b").error());
+        verify(receiptStore, never()).deadLetter(anyString(), any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void unconvertibleRequestIsRejectedWithoutBlockingTheOthers() {
+        HealthData invalid = health("a@b.c", "2025-10-01");
+        when(biometricDataService.toBiometricData(eq("a@b.c"), any(HealthData.DailyData.class), any(LocalDateTime.class)))
+                .thenThrow(new IllegalArgumentException("date invalide"));
+        when(biometricDataService.upsertAllReportingFailures(anyList())).thenReturn(Set.of());
+
+        pipeline.write(List.of(task("r-a", invalid, 1), task("r-b", health("b@b.c", "2025-10-01"), 1)));
+
+        ArgumentCaptor<List<BiometricData>> written = listCaptor();
+        verify(biometricDataService).upsertAllReportingFailures(written.capture());
+        assertEquals(1, written.getValue().size());
+        assertEquals("b@b.c", written.getValue().get(0).getEmail());
+
+        Map<String, IngestReceiptStore.Outcome> outcomes = recordedOutcomes();
+        assertEquals(State.REJECTED, outcomes.get("r-a").state());
+        assertEquals("date invalide", outcomes.get("r-a").error());
+        assertEquals(State.WRITTEN, outcomes.get("r-b").state());
+    }
+
+    @Test
+    void lastFailedAttemptIsDeadLetteredWithItsPayload() {
+        HealthData healthData = health("a@b.c", "2025-10-01", "2025-10-02");
+        when(biometricDataService.upsertAllReportingFailures(anyList())).thenReturn(Set.of(0, 1));
+
+        pipeline.write(List.of(task("r-a", healthData, 3)));
+
+        verify(receiptStore).deadLetter(eq("r-a"), eq(healthData), eq(0), eq(3), anyString());
+        assertEquals(Map.of(), recordedOutcomes());
+    }
+
+    @Test
+    void pendingRetriesAreDeadLetteredOnStop() throws InterruptedException {
+        HealthData healthData = health("a@b.c", "2025-10-01");
+        when(biometricDataService.upsertAllReportingFailures(anyList())).thenReturn(Set.of(0));
+
+        pipeline.write(List.of(task("r-a", healthData, 1)));
+        pipeline.stop();
+
+        // Tentative n°2 planifiée mais jamais lancée : payload conservé
+        verify(receiptStore).deadLetter(eq("r-a"), eq(healthData), eq(0), eq(2), anyString());
+    }
+
+    private Map<String, IngestReceiptStore.Outcome> recordedOutcomes() {
+        ArgumentCaptor<List<IngestReceiptStore.Outcome>> captor = listCaptor();
+        verify(receiptStore, atLeastOnce()).record(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream)
+                .collect(Collectors.toMap(IngestReceiptStore.Outcome::receiptId, Function.identity()));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> ArgumentCaptor<List<T>> listCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+    }
+
+    private static IngestPipeline.IngestTask task(String receiptId, HealthData healthData, int attempts) {
+        return new IngestPipeline.IngestTask(receiptId, healthData, System.nanoTime(), attempts);
+    }
+
+    private static HealthData health(String email, String... dates) {
+        List<HealthData.DailyData> days = new ArrayList<>();
+        for (String date : dates) {
+            HealthData.DailyData day = new HealthData.DailyData();
+            day.setDate(date);
+            days.add(day);
+        }
+        HealthData healthData = new HealthData();
+        healthData.setEmail(email);
+        healthData.setDailyData(days);
+        return healthData;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.HealthData;
+import com.example.healthsync.model.IngestReceiptRecord;
+import com.example.healthsync.model.IngestReceiptRecord.State;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IngestReceiptStoreTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private IngestReceiptStore store;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(IngestReceiptRecord.class)))
+                .thenReturn(bulkOperations);
+        store = new IngestReceiptStore(mongoTemplate);
+        ReflectionTestUtils.setField(store, "receiptTtlHours", 168L);
+    }
+
+    @Test
+    void queuedReceiptIsServedFromMemoryWithoutMongo() {
+        store.queued("r-1", healthData("a@x.fr", 2));
+
+        IngestReceiptRecord receipt = store.find("r-1");
+
+        assertEquals(State.QUEUED, receipt.getState());
+        assertEquals("a@x.fr", receipt.getEmail());
+        assertEquals(2, receipt.getDays());
+
+        store.forget("r-1");
+        store.find("r-1");
+        verify(mongoTemplate).findById("r-1", IngestReceiptRecord.class);
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(IngestReceiptRecord.class));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(IngestReceiptRecord.class));
+    }
+
+    @Test
+    void writerOutcomeCarriesQueuedFieldsThenLeavesMemory() {
+        store.queued("r-1", healthData("a@x.fr", 2));
+
+        store.record(List.of(new IngestReceiptStore.Outcome("r-1", State.WRITTEN, 2, 1, null)));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).upsert(any(Query.class), update.capture());
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals("a@x.fr", set.get("email"));
+        assertEquals(2, set.get("days"));
+        assertEquals(State.WRITTEN, set.get("state"));
+
+        store.find("r-1");
+        verify(mongoTemplate).findById("r-1", IngestReceiptRecord.class);
+    }
+
+    private static HealthData healthData(String email, int days) {
+        HealthData healthData = new HealthData();
+        healthData.setEmail(email);
+        List<HealthData.DailyData> dailyData = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            HealthData.DailyData day = new HealthData.DailyData();
+            day.setDate(LocalDate.of(2024, 1, 1).plusDays(i).toString());
+            dailyData.add(day);
+        }
+        healthData.setDailyData(dailyData);
+        return healthData;
+    }
+}
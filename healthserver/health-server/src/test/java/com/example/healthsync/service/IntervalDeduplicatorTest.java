@@ -0,0 +1,68 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HeartRateSamples;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalDeduplicatorTest {
+
+    @Test
+    void dropsExactAndNestedDuplicatesKeepingOrder() {
+        BiometricData day = new BiometricData();
+        day.setSteps(new ArrayList<>(List.of(
+                steps(900, "2025-10-01T10:00:00Z", "2025-10-01T11:00:00Z"),
+                steps(500, "2025-10-01T08:00:00Z", "2025-10-01T09:00:00Z"),
+                steps(500, "2025-10-01T08:00:00Z", "2025-10-01T09:00:00Z"),    // doublon exact
+                steps(100, "2025-10-01T08:10:00Z", "2025-10-01T08:20:00Z"),    // imbriqué
+                steps(300, "2025-10-01T10:30:00Z", "2025-10-01T11:30:00Z"),    // chevauchement partiel
+                steps(42, "invalide", null))));
+
+        IntervalDeduplicator.Result removed = IntervalDeduplicator.dedupe(day);
+
+        assertEquals(2, removed.records());
+        assertTrue(removed.bytes() > 0);
+        assertEquals(List.of(900L, 500L, 300L, 42L), day.getSteps().stream().map(BiometricData.StepRecord::getCount).toList());
+    }
+
+    @Test
+    void dedupesHeartRateIntervals() {
+        BiometricData day = new BiometricData();
+        day.setHeartRate(new ArrayList<>(List.of(
+                new BiometricData.HeartRateRecord(HeartRateSamples.of(List.of(60L, 62L)), "2025-10-01T08:00:00Z", "2025-10-01T08:01:00Z"),
+                new BiometricData.HeartRateRecord(HeartRateSamples.of(List.of(60L, 62L)), "2025-10-01T08:00:00Z", "2025-10-01T08:01:00Z"))));
+
+        assertEquals(1, IntervalDeduplicator.dedupe(day).records());
+        assertEquals(1, day.getHeartRate().size());
+        assertEquals(IntervalDeduplicator.Result.NONE, IntervalDeduplicator.dedupe(day));
+    }
+
+    @Test
+    void keepsNestedOrSameIntervalHeartRateWithDifferentSamples() {
+        BiometricData day = new BiometricData();
+        day.setHeartRate(new ArrayList<>(List.of(
+                heartRate(List.of(60L, 62L, 64L), "2025-10-01T08:00:00Z", "2025-10-01T08:10:00Z"),
+                heartRate(List.of(95L, 97L), "2025-10-01T08:02:00Z", "2025-10-01T08:03:00Z"),      // imbriqué, autres mesures
+                heartRate(List.of(61L, 63L, 65L), "2025-10-01T08:00:00Z", "2025-10-01T08:10:00Z"), // même intervalle, autre source
+                heartRate(List.of(95L, 97L), "2025-10-01T08:02:00Z", "2025-10-01T08:03:00Z"))));   // doublon strict
+
+        IntervalDeduplicator.Result removed = IntervalDeduplicator.dedupe(day);
+
+        assertEquals(1, removed.records());
+        assertEquals(List.of(List.of(60L, 62L, 64L), List.of(95L, 97L), List.of(61L, 63L, 65L)),
+                day.getHeartRate().stream().map(hr -> hr.getSamples().values()).toList());
+    }
+
+    private static BiometricData.HeartRateRecord heartRate(List<Long> samples, String start, String end) {
+        return new BiometricData.HeartRateRecord(HeartRateSamples.of(samples), start, end);
+    }
+
+    private static BiometricData.StepRecord steps(long count, String start, String end) {
+        return new BiometricData.StepRecord(count, start, end);
+    }
+}
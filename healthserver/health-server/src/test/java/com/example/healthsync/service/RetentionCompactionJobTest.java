@@ -0,0 +1,182 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.config.MongoConversionsConfig;
+import com.example.healthsync.dto.RetentionJobStatus;
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.HeartRateSamples;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RetentionCompactionJobTest {
+
+    private static final LocalDateTime RECEIVED_AT = LocalDateTime.of(2024, 1, 2, 8, 0);
+
+    private MongoTemplate mongoTemplate;
+    private VitalSeriesService vitalSeriesService;
+    private RetentionCompactionJob job;
+
+    // Documents renvoyés au premier lot de chaque palier ("hourly", "minutely"), puis plus rien
+    private final Map<String, List<Document>> pending = new ConcurrentHashMap<>();
+    private final List<Query> replaceQueries = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        vitalSeriesService = mock(VitalSeriesService.class);
+        MongoDatabase db = mock(MongoDatabase.class);
+        when(db.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(mongoTemplate.getDb()).thenReturn(db);
+        when(mongoTemplate.getConverter()).thenReturn(converter());
+        when(mongoTemplate.getCollectionName(BiometricData.class)).thenReturn("biometric_data");
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("biometric_data"))).thenAnswer(invocation -> {
+            List<Document> batch = pending.remove(tierOf(invocation.getArgument(0)));
+            return batch == null ? List.of() : batch;
+        });
+        // Le jour "rewritten" a été ré-synchronisé entre la lecture et le remplacement
+        when(mongoTemplate.findAndReplace(any(Query.class), any(BiometricData.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            synchronized (replaceQueries) {
+                replaceQueries.add(query);
+            }
+            return "rewritten".equals(query.getQueryObject().get("_id")) ? null : invocation.getArgument(1);
+        });
+
+        job = new RetentionCompactionJob(mongoTemplate, mock(ApplicationEventPublisher.class), vitalSeriesService);
+        ReflectionTestUtils.setField(job, "rawDays", 30);
+        ReflectionTestUtils.setField(job, "minuteDays", 365);
+        ReflectionTestUtils.setField(job, "batchSize", 200);
+        ReflectionTestUtils.setField(job, "batchPauseMillis", 0L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void compactsEachTierAndSkipsDaysRewrittenSince() throws InterruptedException {
+        pending.put("hourly", List.of(raw("old")));
+        pending.put("minutely", List.of(raw("recent"), raw("rewritten")));
+
+        job.start();
+        RetentionJobStatus status = awaitEnd();
+
+        assertEquals("DONE", status.getState());
+        assertEquals(2, status.getDocumentsCompacted());
+        assertTrue(status.getBytesBefore() > 0 && status.getBytesAfter() > 0);
+
+        // Remplacement gardé par _id + receivedAt lus
+        assertEquals(3, replaceQueries.size());
+        for (Query query : replaceQueries) {
+            assertEquals(RECEIVED_AT, query.getQueryObject().get("receivedAt"));
+        }
+
+        // Série temporelle réécrite pour les seuls jours effectivement compactés, au bon palier
+        ArgumentCaptor<List<BiometricData>> refreshed = ArgumentCaptor.forClass(List.class);
+        verify(vitalSeriesService, times(2)).refreshDays(refreshed.capture());
+        BiometricData hourly = refreshed.getAllValues().get(0).get(0);
+        assertEquals("old", hourly.getId());
+        assertEquals(RetentionCompactionJob.HOUR, hourly.getHrResolutionSeconds());
+        assertEquals(2, hourly.getHeartRate().get(0).getBuckets().size());
+        List<BiometricData> minutely = refreshed.getAllValues().get(1);
+        assertEquals(1, minutely.size());
+        assertEquals("recent", minutely.get(0).getId());
+        assertEquals(RetentionCompactionJob.MINUTE, minutely.get(0).getHrResolutionSeconds());
+        assertEquals(120, minutely.get(0).getHeartRate().get(0).getBuckets().size());
+    }
+
+    @Test
+    void stopRequestEndsTheRunBetweenBatches() throws InterruptedException {
+        AtomicInteger batches = new AtomicInteger();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("biometric_data"))).thenAnswer(invocation -> {
+            // Arrêt demandé pendant le premier lot : il se termine, aucun lot suivant
+            batches.incrementAndGet();
+            job.stop();
+            return List.of(raw("old"));
+        });
+
+        job.start();
+        RetentionJobStatus status = awaitEnd();
+
+        assertEquals("STOPPED", status.getState());
+        assertEquals(1, batches.get());
+        assertEquals(1, status.getDocumentsCompacted());
+        verify(vitalSeriesService).refreshDays(anyList());
+    }
+
+    private RetentionJobStatus awaitEnd() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            RetentionJobStatus status = job.status();
+            if (!"RUNNING".equals(status.getState())) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        fail("Compaction non terminée");
+        return null;
+    }
+
+    /**
+     * Palier visé par la requête : l'horaire reprend tout jour pas encore à l'heure
+     */
+    private static String tierOf(Query query) {
+        Object resolution = query.getQueryObject().get("hrResolutionSeconds");
+        return new Document("$ne", RetentionCompactionJob.HOUR).equals(resolution) ? "hourly" : "minutely";
+    }
+
+    /**
+     * Jour brut : 120 échantillons FC sur deux heures
+     */
+    private Document raw(String id) {
+        List<Long> samples = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            samples.add(60L + i % 20);
+        }
+        BiometricData day = new BiometricData();
+        day.setId(id);
+        day.setEmail("a@b.c");
+        day.setDate("2024-01-01");
+        day.setReceivedAt(RECEIVED_AT);
+        day.setHeartRate(List.of(new BiometricData.HeartRateRecord(
+                HeartRateSamples.of(samples), "2024-01-01T08:00:00Z", "2024-01-01T10:00:00Z")));
+        Document raw = new Document();
+        mongoTemplate.getConverter().write(day, raw);
+        return raw;
+    }
+
+    private static MappingMongoConverter converter() {
+        MongoConversionsConfig config = new MongoConversionsConfig();
+        ReflectionTestUtils.setField(config, "hrSamplesCodec", "array");
+        MongoCustomConversions conversions = config.mongoCustomConversions();
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
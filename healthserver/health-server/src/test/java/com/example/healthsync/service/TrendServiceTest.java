@@ -0,0 +1,167 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.TrendAccumulator;
+import com.mongodb.bulk.BulkWriteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TrendServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 10, 10);
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private TrendService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(TrendAccumulator.class))).thenReturn(bulkOperations);
+        service = new TrendService(mongoTemplate);
+    }
+
+    @Test
+    void readsAndWritesAllAccumulatorsOnce() {
+        // steps sur 3 fenêtres : 1 existant (version 4), 2 nouveaux
+        TrendAccumulator existing = accumulator("a@b.c|steps|7", 4L);
+        when(mongoTemplate.find(any(Query.class), eq(TrendAccumulator.class))).thenReturn(List.of(existing));
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(2, 1, 0, 1, List.of(), List.of()));
+
+        service.apply(List.of(day("2025-10-08", 8000), day("2025-10-09", 9000)), TODAY);
+
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(TrendAccumulator.class));
+        verify(bulkOperations, times(2)).insert(any(TrendAccumulator.class));
+        ArgumentCaptor<Query> guard = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations).replaceOne(guard.capture(), eq(existing));
+        assertEquals(4L, guard.getValue().getQueryObject().get("version"));
+        assertEquals(5L, existing.getVersion());
+        assertEquals(2, existing.getN());
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void reappliesOnlyConflictingAccumulators() {
+        TrendAccumulator stale = accumulator("a@b.c|steps|7", 4L);
+        TrendAccumulator fresh = accumulator("a@b.c|steps|7", 6L);
+        List<TrendAccumulator> inserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            inserted.add(invocation.getArgument(0));
+            return bulkOperations;
+        }).when(bulkOperations).insert(any(TrendAccumulator.class));
+        when(mongoTemplate.find(any(Query.class), eq(TrendAccumulator.class)))
+                // 1re lecture, vérification des jetons écrits, relecture du seul accumulateur en conflit
+                .thenReturn(List.of(stale))
+                .thenAnswer(invocation -> withConcurrentWrite(inserted, "a@b.c|steps|7", 6L))
+                .thenReturn(List.of(fresh));
+        when(bulkOperations.execute())
+                .thenReturn(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()))
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        service.apply(List.of(day("2025-10-09", 9000)), TODAY);
+
+        verify(bulkOperations, times(2)).execute();
+        verify(bulkOperations).replaceOne(any(Query.class), eq(fresh));
+        assertEquals(7L, fresh.getVersion());
+        verify(bulkOperations, times(2)).insert(any(TrendAccumulator.class));
+    }
+
+    @Test
+    void concurrentWriterLandingTheSameVersionIsStillAConflict() {
+        // Les deux écrivains ont lu la version 4 et écrit la version 5 : seul le jeton les distingue
+        TrendAccumulator stale = accumulator("a@b.c|steps|7", 4L);
+        TrendAccumulator fresh = accumulator("a@b.c|steps|7", 5L);
+        List<TrendAccumulator> inserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            inserted.add(invocation.getArgument(0));
+            return bulkOperations;
+        }).when(bulkOperations).insert(any(TrendAccumulator.class));
+        when(mongoTemplate.find(any(Query.class), eq(TrendAccumulator.class)))
+                .thenReturn(List.of(stale))
+                .thenAnswer(invocation -> withConcurrentWrite(inserted, "a@b.c|steps|7", 5L))
+                .thenReturn(List.of(fresh));
+        when(bulkOperations.execute())
+                .thenReturn(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()))
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        service.apply(List.of(day("2025-10-09", 9000)), TODAY);
+
+        verify(bulkOperations).replaceOne(any(Query.class), eq(fresh));
+        assertEquals(6L, fresh.getVersion());
+        assertEquals(1, fresh.getN());
+    }
+
+    @Test
+    void concurrentCreationAtVersionZeroIsStillAConflict() {
+        // Création concurrente du même accumulateur : clé dupliquée pour nous, version 0 relue
+        TrendAccumulator theirs = accumulator("a@b.c|steps|7", 0L);
+        List<TrendAccumulator> inserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            inserted.add(invocation.getArgument(0));
+            return bulkOperations;
+        }).when(bulkOperations).insert(any(TrendAccumulator.class));
+        when(mongoTemplate.find(any(Query.class), eq(TrendAccumulator.class)))
+                .thenReturn(List.of())
+                .thenAnswer(invocation -> withConcurrentWrite(inserted, "a@b.c|steps|7", 0L))
+                .thenReturn(List.of(theirs));
+        when(bulkOperations.execute())
+                .thenReturn(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()))
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        service.apply(List.of(day("2025-10-09", 9000)), TODAY);
+
+        verify(bulkOperations, times(2)).execute();
+        verify(bulkOperations).replaceOne(any(Query.class), eq(theirs));
+        assertEquals(1L, theirs.getVersion());
+    }
+
+    /**
+     * Relecture des jetons : nos insertions appliquées, l'accumulateur {@code id} réécrit par un autre écrivain
+     */
+    private static List<TrendAccumulator> withConcurrentWrite(List<TrendAccumulator> inserted, String id, Long version) {
+        List<TrendAccumulator> stored = new ArrayList<>();
+        for (TrendAccumulator ours : inserted) {
+            if (!ours.getId().equals(id)) {
+                TrendAccumulator copy = accumulator(ours.getId(), ours.getVersion());
+                copy.setWriteToken(ours.getWriteToken());
+                stored.add(copy);
+            }
+        }
+        TrendAccumulator other = accumulator(id, version);
+        other.setWriteToken("autre-écrivain");
+        stored.add(other);
+        return stored;
+    }
+
+    private static TrendAccumulator accumulator(String id, Long version) {
+        TrendAccumulator accumulator = new TrendAccumulator();
+        accumulator.setId(id);
+        accumulator.setVersion(version);
+        accumulator.setEmail("a@b.c");
+        accumulator.setMetric("steps");
+        accumulator.setWindowDays(Integer.parseInt(id.substring(id.lastIndexOf('|') + 1)));
+        return accumulator;
+    }
+
+    private static BiometricData day(String date, int steps) {
+        BiometricData day = new BiometricData();
+        day.setEmail("a@b.c");
+        day.setDate(date);
+        day.setTotalSteps(steps);
+        return day;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TypedFieldsBackfillTest {
+
+    private MongoTemplate mongoTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private TypedFieldsBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        backfill = new TypedFieldsBackfill(mongoTemplate, eventPublisher);
+    }
+
+    @Test
+    void unparseableDateIsMarkedAndExcludedFromLaterBatches() {
+        BiometricData broken = day("650000000000000000000001", "2025-13-45");
+        BiometricData valid = day("650000000000000000000002", "2025-10-01");
+        when(mongoTemplate.find(any(Query.class), eq(BiometricData.class))).thenReturn(List.of(broken, valid));
+        when(mongoTemplate.findAndReplace(any(Query.class), any(BiometricData.class))).thenAnswer(invocation -> invocation.getArgument(1));
+
+        assertEquals(2, backfill.backfillBatch(10));
+
+        ArgumentCaptor<Query> pending = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(pending.capture(), eq(BiometricData.class));
+        assertEquals(new Document("$exists", false), pending.getValue().getQueryObject().get(TypedFieldsBackfill.ERROR_FIELD));
+
+        ArgumentCaptor<Query> marked = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(marked.capture(), update.capture(), eq(BiometricData.class));
+        assertEquals("650000000000000000000001", marked.getValue().getQueryObject().get("_id"));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertTrue(set.getString(TypedFieldsBackfill.ERROR_FIELD).contains("2025-13-45"));
+        verify(eventPublisher).publishEvent(new BiometricDaysChangedEvent(Set.of("2025-13-45", "2025-10-01")));
+    }
+
+    @Test
+    void countsOnlyDocumentsActuallyRewritten() {
+        when(mongoTemplate.find(any(Query.class), eq(BiometricData.class)))
+                .thenReturn(List.of(day("650000000000000000000001", "2025-10-01"), day("650000000000000000000002", "2025-10-02")));
+        // Le 2e jour a été ré-ingéré entre la lecture et la réécriture
+        when(mongoTemplate.findAndReplace(any(Query.class), any(BiometricData.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1)).thenReturn(null);
+
+        assertEquals(1, backfill.backfillBatch(10));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(BiometricData.class));
+    }
+
+    @Test
+    void detectsUnparseableTimestampsMatchingTheFormat() {
+        BiometricData document = day("650000000000000000000001", "2025-10-01");
+        document.setWeight(List.of(new BiometricData.WeightRecord(72.5, "2025-10-01T25:61:00Z")));
+        BiometricDataService.applyTypedFields(document);
+
+        assertEquals("horodatage illisible: 2025-10-01T25:61:00Z", TypedFieldsBackfill.unparseable(document));
+        document.setWeight(List.of(new BiometricData.WeightRecord(72.5, "hier")));
+        assertNull(TypedFieldsBackfill.unparseable(document));
+    }
+
+    private static BiometricData day(String id, String date) {
+        BiometricData data = new BiometricData();
+        data.setId(id);
+        data.setEmail("a@b.c");
+        data.setDate(date);
+        data.setReceivedAt(LocalDateTime.of(2025, 10, 2, 8, 0));
+        return data;
+    }
+}
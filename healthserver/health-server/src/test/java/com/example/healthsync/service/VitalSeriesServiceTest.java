@@ -0,0 +1,106 @@
+package com.example.healthsync.service;
+
+import com.example.healthsync.model.BiometricData;
+import com.example.healthsync.model.VitalSample;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class VitalSeriesServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private VitalSeriesService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new VitalSeriesService(mongoTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void insertsNewSamplesBeforeRemovingOlderOnes() {
+        BiometricData day = day();
+        when(mongoTemplate.exists(any(Query.class), eq(BiometricData.class))).thenReturn(true);
+
+        assertTrue(service.replaceDay(day));
+
+        InOrder order = inOrder(mongoTemplate);
+        ArgumentCaptor<Collection<VitalSample>> inserted = ArgumentCaptor.forClass(Collection.class);
+        order.verify(mongoTemplate).insert(inserted.capture(), eq(VitalSample.class));
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        order.verify(mongoTemplate).remove(removed.capture(), eq(VitalSample.class));
+
+        VitalSample sample = inserted.getValue().iterator().next();
+        // Seules les mesures des réécritures précédentes (ou sans writtenAt) sont supprimées
+        Document filter = removed.getValue().getQueryObject();
+        assertEquals("2025-10-01", filter.get("date"));
+        List<Document> older = filter.getList("$or", Document.class);
+        assertEquals(new Document("$lt", sample.getWrittenAt()), older.get(0).get("writtenAt"));
+        assertEquals(new Document("$exists", false), older.get(1).get("writtenAt"));
+    }
+
+    @Test
+    void skipsDayRewrittenSince() {
+        when(mongoTemplate.exists(any(Query.class), eq(BiometricData.class))).thenReturn(false);
+
+        assertFalse(service.replaceDay(day()));
+
+        verify(mongoTemplate, never()).insert(anyCollection(), eq(VitalSample.class));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(VitalSample.class));
+    }
+
+    @Test
+    void probesMongoVersionOnWriterNotAtStartup() throws InterruptedException {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "queueCapacity", 10);
+        service.start();
+        verifyNoInteractions(mongoTemplate);
+
+        when(mongoTemplate.executeCommand(any(Document.class))).thenReturn(new Document("version", "6.0.5"));
+        service.refreshDays(List.of(day(), day()));
+        service.stop();
+
+        // MongoDB 6 : série désactivée dès le premier jour, version vérifiée une seule fois
+        verify(mongoTemplate).executeCommand(any(Document.class));
+        verify(mongoTemplate, never()).insert(anyCollection(), eq(VitalSample.class));
+        assertEquals(false, ReflectionTestUtils.getField(service, "enabled"));
+    }
+
+    @Test
+    void explodesVitalsOfTheDay() {
+        List<VitalSample> samples = VitalSeriesService.explode(day());
+
+        assertEquals(1, samples.size());
+        assertEquals(97.0, samples.get(0).getValue());
+    }
+
+    private static BiometricData day() {
+        BiometricData day = new BiometricData();
+        day.setEmail("a@b.c");
+        day.setDate("2025-10-01");
+        day.setReceivedAt(LocalDateTime.of(2025, 10, 2, 8, 0));
+        BiometricData.OxygenSaturationRecord o2 = new BiometricData.OxygenSaturationRecord();
+        o2.setTime("2025-10-01T08:00:00Z");
+        o2.setPercentage(97.0);
+        day.setOxygenSaturation(List.of(o2));
+        return day;
+    }
+}